@@ -0,0 +1,126 @@
+package br.com.alura.literalura.LiterAlura;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo de inicio da aplicacao em uma JVM nova, ate o primeiro prompt do menu e ate a resposta do
+ * primeiro comando (estatisticas por idioma). Compara o inicio padrao, o perfil inicio-rapido e o
+ * perfil com o contexto AOT e o arquivo AppCDS gerados por {@code ./mvnw -Pinicio-rapido package}.
+ * O banco e um H2 em memoria vazio, entao o tempo de conexao e de migracao de um PostgreSQL real fica de fora.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InicioAplicacaoBenchmark {
+
+    private static final Path DIRETORIO = Path.of("target", "inicio-rapido");
+    private static final Path JAR = DIRETORIO.resolve("LiterAlura-0.0.1-SNAPSHOT.jar");
+    private static final Path ARQUIVO_CDS = DIRETORIO.resolve("literalura.jsa");
+    private static final byte[] PROMPT = "literalura:> ".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"padrao", "perfil", "aot-cds"})
+    public String modo;
+
+    private List<String> comando;
+    private Process processo;
+
+    @Setup
+    public void preparar() {
+        if (!Files.exists(JAR) || ("aot-cds".equals(modo) && !Files.exists(ARQUIVO_CDS))) {
+            throw new IllegalStateException("Jar ou arquivo AppCDS nao encontrado em " + DIRETORIO.toAbsolutePath()
+                    + "; gere com ./mvnw -Pinicio-rapido package");
+        }
+        comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if ("aot-cds".equals(modo)) {
+            comando.addAll(List.of("-XX:SharedArchiveFile=" + ARQUIVO_CDS, "-Xlog:cds=off", "-Xlog:cds+dynamic=off",
+                    "-Dspring.aot.enabled=true"));
+        }
+        comando.addAll(List.of("-jar", JAR.toString(),
+                "--spring.datasource.url=jdbc:h2:mem:inicio;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        if (!"padrao".equals(modo)) {
+            comando.add("--spring.profiles.active=inicio-rapido");
+        }
+    }
+
+    @Benchmark
+    public void atePrimeiroPrompt() throws IOException {
+        executar(false);
+    }
+
+    @Benchmark
+    public void atePrimeiraResposta() throws IOException {
+        executar(true);
+    }
+
+    /**
+     * Espera a aplicacao encerrar fora da medicao
+     */
+    @TearDown(Level.Invocation)
+    public void encerrar() throws InterruptedException {
+        if (processo != null && !processo.waitFor(30, TimeUnit.SECONDS)) {
+            processo.destroyForcibly().waitFor();
+        }
+        processo = null;
+    }
+
+    /**
+     * Inicia a aplicacao, espera o prompt, opcionalmente envia o comando 5 e espera o proximo prompt,
+     * e pede o encerramento com o comando 0
+     */
+    private void executar(boolean responderComando) throws IOException {
+        processo = new ProcessBuilder(comando)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        InputStream saida = processo.getInputStream();
+        OutputStream entrada = processo.getOutputStream();
+        esperarPrompt(saida);
+        if (responderComando) {
+            entrada.write("5\n".getBytes(StandardCharsets.UTF_8));
+            entrada.flush();
+            esperarPrompt(saida);
+        }
+        entrada.write("0\n".getBytes(StandardCharsets.UTF_8));
+        entrada.flush();
+    }
+
+    private static void esperarPrompt(InputStream saida) throws IOException {
+        int casados = 0;
+        while (casados < PROMPT.length) {
+            int b = saida.read();
+            if (b < 0) {
+                throw new IllegalStateException("A aplicacao encerrou antes de exibir o prompt");
+            }
+            casados = b == PROMPT[casados] ? casados + 1 : (b == PROMPT[0] ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.com.alura.literalura.LiterAlura;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das rotinas de formatacao usadas nas listagens do menu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiterAluraRunnerBenchmark {
+
+    private static final int LIVROS = 1000;
+
+    private Livro[] livros;
+    private StringBuilder sb;
+
+    @Setup
+    public void preparar() {
+        livros = new Livro[LIVROS];
+        for (int i = 0; i < LIVROS; i++) {
+            livros[i] = ContextoBenchmark.livroSintetico(i).paraLivro();
+        }
+        sb = new StringBuilder();
+    }
+
+    @Benchmark
+    public int formatarLivros() {
+        sb.setLength(0);
+        for (Livro livro : livros) {
+            LiterAluraRunner.formatarLivro(livro, sb);
+        }
+        return sb.length();
+    }
+
+    @Benchmark
+    public int formatarAutores() {
+        sb.setLength(0);
+        for (Livro livro : livros) {
+            LiterAluraRunner.formatarAutor(livro.getAutor(), sb);
+        }
+        return sb.length();
+    }
+}
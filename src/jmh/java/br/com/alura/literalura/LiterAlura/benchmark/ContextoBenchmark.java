@@ -0,0 +1,89 @@
+package br.com.alura.literalura.LiterAlura.benchmark;
+
+import br.com.alura.literalura.LiterAlura.LiterAluraApplication;
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.repository.GravadorLoteCatalogo;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inicia a aplicacao sobre um H2 em memoria e popula o catalogo com dados sinteticos para os benchmarks
+ */
+public final class ContextoBenchmark {
+
+    private static final String[] IDIOMAS = {"en", "pt", "fr", "de", "es", "it", "fi", "nl"};
+    private static final int LIVROS_POR_AUTOR = 4;
+    private static final int TAMANHO_LOTE = 1000;
+
+    private ContextoBenchmark() {
+    }
+
+    /**
+     * Inicia a aplicacao sem o menu interativo, com um banco H2 proprio
+     *
+     * @param nomeBanco    Nome do banco em memoria, para isolar benchmarks que rodem no mesmo processo
+     * @param propriedades Propriedades adicionais no formato chave=valor
+     * @return O contexto iniciado; deve ser fechado ao final
+     */
+    public static ConfigurableApplicationContext iniciar(String nomeBanco, String... propriedades) {
+        // Passadas como argumentos de linha de comando, que tem precedencia sobre o application.properties
+        List<String> argumentos = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + nomeBanco
+                        + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.hibernate.ddl-auto=validate",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "literalura.cli.habilitado=false"));
+        argumentos.addAll(List.of(propriedades));
+        return new SpringApplicationBuilder(LiterAluraApplication.class)
+                .run(argumentos.stream().map(propriedade -> "--" + propriedade).toArray(String[]::new));
+    }
+
+    /**
+     * Popula o catalogo com livros sinteticos, quatro por autor, gravados em lotes via JDBC
+     *
+     * @param contexto O contexto da aplicacao
+     * @param livros   Numero de livros a gravar
+     */
+    public static void popular(ConfigurableApplicationContext contexto, int livros) {
+        GravadorLoteCatalogo gravador = contexto.getBean(GravadorLoteCatalogo.class);
+        List<DadosLivroGutendex> lote = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < livros; i++) {
+            lote.add(livroSintetico(i));
+            if (lote.size() == TAMANHO_LOTE) {
+                gravador.gravar(lote);
+                lote.clear();
+            }
+        }
+        gravador.gravar(lote);
+    }
+
+    /**
+     * Gera um livro sintetico deterministico
+     *
+     * @param indice Indice do livro
+     * @return Os dados do livro
+     */
+    public static DadosLivroGutendex livroSintetico(int indice) {
+        int autor = indice / LIVROS_POR_AUTOR;
+        int anoNascimento = 1500 + (autor * 37) % 500;
+        Integer anoFalecimento = autor % 10 == 0 ? null : anoNascimento + 20 + autor % 60;
+        return new DadosLivroGutendex(tituloSintetico(indice), IDIOMAS[indice % IDIOMAS.length],
+                (int) ((indice * 7919L) % 100_000), "Autor " + autor, anoNascimento, anoFalecimento);
+    }
+
+    /**
+     * @param indice Indice do livro
+     * @return O titulo do livro sintetico com esse indice
+     */
+    public static String tituloSintetico(int indice) {
+        return String.format("Livro %08d", indice);
+    }
+}
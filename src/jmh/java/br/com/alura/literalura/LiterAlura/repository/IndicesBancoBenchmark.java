@@ -0,0 +1,105 @@
+package br.com.alura.literalura.LiterAlura.repository;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas cobertas pelos indices das migracoes V2 e V3, com os indices criados e removidos.
+ * O cache de segundo nivel fica desligado para que toda chamada va ao banco.
+ * idx_livro_titulo_minusculo so existe no PostgreSQL e nao e medido aqui.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicesBancoBenchmark {
+
+    private static final String[] IDIOMAS = {"en", "pt", "fr", "de", "es", "it", "fi", "nl"};
+    private static final String[] INDICES = {"idx_livro_idioma_downloads", "idx_livro_autor", "idx_autor_periodo_vida"};
+
+    @Param({"100000"})
+    public int quantidadeLivros;
+
+    @Param({"false", "true"})
+    public boolean comIndices;
+
+    private ConfigurableApplicationContext contexto;
+    private RepositorioLivro repositorioLivro;
+    private RepositorioAutor repositorioAutor;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("indices-banco-" + comIndices,
+                "literalura.banco.cache.habilitado=false",
+                "literalura.livros.indice-titulos.habilitado=false");
+        ContextoBenchmark.popular(contexto, quantidadeLivros);
+
+        JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+        if (!comIndices) {
+            for (String indice : INDICES) {
+                jdbc.execute("DROP INDEX " + indice);
+            }
+        }
+        jdbc.execute("ANALYZE");
+
+        repositorioLivro = contexto.getBean(RepositorioLivro.class);
+        repositorioAutor = contexto.getBean(RepositorioAutor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public long contarLivrosPorIdioma() {
+        return repositorioLivro.countByIdioma(idiomaAleatorio());
+    }
+
+    @Benchmark
+    public List<Livro> listarLivrosPorIdioma() {
+        return repositorioLivro.findByIdiomaOrderById(idiomaAleatorio());
+    }
+
+    /**
+     * Qualquer ano: em media metade dos autores nasceu antes do ano, e o indice quase nao filtra
+     */
+    @Benchmark
+    public List<Autor> buscarAutoresVivosNoAno() {
+        return repositorioAutor.buscarAutoresVivosNoAno(1450 + ThreadLocalRandom.current().nextInt(700));
+    }
+
+    /**
+     * Anos do inicio do catalogo, em que poucos autores ja tinham nascido
+     */
+    @Benchmark
+    public List<Autor> buscarAutoresVivosNoAnoAntigo() {
+        return repositorioAutor.buscarAutoresVivosNoAno(1500 + ThreadLocalRandom.current().nextInt(50));
+    }
+
+    private static String idiomaAleatorio() {
+        return IDIOMAS[ThreadLocalRandom.current().nextInt(IDIOMAS.length)];
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.dto.PaginaGutendex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a leitura em streaming das respostas da API com a leitura anterior, que montava a arvore JSON
+ * inteira a partir do corpo em String. Rodar com -prof gc para ver a alocacao por resposta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalisadorRespostaGutendexBenchmark {
+
+    private ObjectMapper mapeadorObjeto;
+    private AnalisadorRespostaGutendex analisador;
+    private byte[] pagina;
+
+    @Setup
+    public void preparar() {
+        mapeadorObjeto = new ObjectMapper();
+        analisador = new AnalisadorRespostaGutendex(mapeadorObjeto.getFactory());
+        pagina = gerarPagina(32).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Optional<DadosLivroGutendex> primeiroLivroStreaming() throws IOException {
+        return analisador.analisarPrimeiroLivro(new ByteArrayInputStream(pagina));
+    }
+
+    @Benchmark
+    public Optional<DadosLivroGutendex> primeiroLivroArvore() throws IOException {
+        return analisarComArvore(new String(pagina, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public PaginaGutendex paginaCompletaStreaming() throws IOException {
+        return analisador.analisarPagina(new ByteArrayInputStream(pagina));
+    }
+
+    /**
+     * Leitura usada antes do parser em streaming: arvore completa e apenas results[0]
+     */
+    private Optional<DadosLivroGutendex> analisarComArvore(String corpoResposta) throws IOException {
+        JsonNode noResultados = mapeadorObjeto.readTree(corpoResposta).get("results");
+        if (noResultados == null || !noResultados.isArray() || noResultados.size() == 0) {
+            return Optional.empty();
+        }
+
+        JsonNode noLivro = noResultados.get(0);
+        JsonNode noAutor = noLivro.get("authors").get(0);
+        return Optional.of(new DadosLivroGutendex(noLivro.get("title").asText(),
+                noLivro.get("languages").get(0).asText(), noLivro.get("download_count").asInt(),
+                noAutor.get("name").asText(),
+                noAutor.get("birth_year").isNull() ? null : noAutor.get("birth_year").asInt(),
+                noAutor.get("death_year").isNull() ? null : noAutor.get("death_year").asInt()));
+    }
+
+    /**
+     * Gera uma pagina no formato da API Gutendex, com formatos, assuntos e resumos como nas respostas reais
+     */
+    static String gerarPagina(int livros) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"count\":75000,\"next\":\"https://gutendex.com/books/?page=2\",\"previous\":null,\"results\":[");
+        for (int i = 0; i < livros; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i + 1)
+                    .append(",\"title\":\"Livro de exemplo numero ").append(i).append("\"")
+                    .append(",\"authors\":[{\"name\":\"Autor, Exemplo ").append(i)
+                    .append("\",\"birth_year\":1800,\"death_year\":").append(i % 3 == 0 ? "null" : "1870").append("}]")
+                    .append(",\"summaries\":[\"").append("Resumo gerado automaticamente do livro. ".repeat(20)).append("\"]")
+                    .append(",\"translators\":[]")
+                    .append(",\"subjects\":[\"Fiction\",\"Adventure stories\",\"Sea stories\",\"Whaling -- Fiction\"]")
+                    .append(",\"bookshelves\":[\"Best Books Ever Listings\",\"Category: Classics of Literature\"]")
+                    .append(",\"languages\":[\"en\"],\"copyright\":false,\"media_type\":\"Text\"")
+                    .append(",\"formats\":{");
+            String[] tipos = {"text/html", "application/epub+zip", "application/x-mobipocket-ebook",
+                    "text/plain; charset=us-ascii", "application/rdf+xml", "image/jpeg", "application/octet-stream"};
+            for (int t = 0; t < tipos.length; t++) {
+                if (t > 0) {
+                    sb.append(',');
+                }
+                sb.append('"').append(tipos[t]).append("\":\"https://www.gutenberg.org/ebooks/")
+                        .append(i + 1).append(".formato").append(t).append('"');
+            }
+            sb.append("},\"download_count\":").append(100_000 - i).append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas repetidas das opcoes do menu com o cache de segundo nivel e de consultas ligado e desligado
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheSegundoNivelBenchmark {
+
+    private static final String[] IDIOMAS = {"en", "pt", "fr", "de", "es", "it", "fi", "nl"};
+    private static final int QUANTIDADE_LIVROS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean cacheHabilitado;
+
+    private ConfigurableApplicationContext contexto;
+    private ServicoLivro servicoLivro;
+    private ServicoAutor servicoAutor;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("cache-segundo-nivel-" + cacheHabilitado,
+                "literalura.banco.cache.habilitado=" + cacheHabilitado);
+        ContextoBenchmark.popular(contexto, QUANTIDADE_LIVROS);
+        servicoLivro = contexto.getBean(ServicoLivro.class);
+        servicoAutor = contexto.getBean(ServicoAutor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<Livro> listarLivrosPorIdioma() {
+        return servicoLivro.obterLivrosPorIdioma(idiomaAleatorio());
+    }
+
+    @Benchmark
+    public long contarLivrosPorIdioma() {
+        return servicoLivro.contarLivrosPorIdioma(idiomaAleatorio());
+    }
+
+    @Benchmark
+    public List<Autor> listarAutoresVivosNoAno() {
+        return servicoAutor.obterAutoresVivosNoAno(1500 + ThreadLocalRandom.current().nextInt(500));
+    }
+
+    private static String idiomaAleatorio() {
+        return IDIOMAS[ThreadLocalRandom.current().nextInt(IDIOMAS.length)];
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analises do catalogo colunar sobre dez milhoes de livros sinteticos, montado direto das colunas, sem banco.
+ * Cada analise roda em um ForkJoinPool com o paralelismo do parametro (0 usa todos os processadores),
+ * para comparar a varredura sequencial com a dividida em tarefas. O tamanho do catalogo e impresso
+ * ao preparar o benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CatalogoColunarBenchmark {
+
+    private static final int LIVROS_POR_AUTOR = 4;
+
+    @Param({"10000000"})
+    public int quantidadeLivros;
+
+    @Param({"1", "0"})
+    public int paralelismo;
+
+    private CatalogoColunar catalogo;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        CatalogoColunar.Construtor construtor = CatalogoColunar.construtor();
+        int quantidadeAutores = (quantidadeLivros + LIVROS_POR_AUTOR - 1) / LIVROS_POR_AUTOR;
+        for (int autor = 0; autor < quantidadeAutores; autor++) {
+            DadosLivroGutendex dados = ContextoBenchmark.livroSintetico(autor * LIVROS_POR_AUTOR);
+            construtor.adicionarAutor(autor + 1, dados.anoNascimento(), dados.anoFalecimento());
+        }
+        for (int i = 0; i < quantidadeLivros; i++) {
+            DadosLivroGutendex dados = ContextoBenchmark.livroSintetico(i);
+            construtor.adicionarLivro(dados.idioma(), dados.downloads(), (long) (i / LIVROS_POR_AUTOR + 1));
+        }
+        catalogo = construtor.construir();
+        System.out.printf("%nCatalogo colunar: %d bytes (%.1f bytes por livro)%n", catalogo.tamanhoEmBytes(),
+                (double) catalogo.tamanhoEmBytes() / quantidadeLivros);
+
+        pool = paralelismo == 0 ? new ForkJoinPool() : new ForkJoinPool(paralelismo);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<EstatisticaIdioma> estatisticasPorIdioma() throws ExecutionException, InterruptedException {
+        return pool.submit(catalogo::obterEstatisticasPorIdioma).get();
+    }
+
+    @Benchmark
+    public SortedMap<Integer, Long> histogramaDownloads() throws ExecutionException, InterruptedException {
+        return pool.submit(() -> catalogo.obterHistogramaDownloads(1000)).get();
+    }
+
+    @Benchmark
+    public SortedMap<Integer, Long> nascimentosPorDecada() throws ExecutionException, InterruptedException {
+        return pool.submit(catalogo::obterNascimentosPorDecada).get();
+    }
+
+    @Benchmark
+    public long autoresVivosNoAno() throws ExecutionException, InterruptedException {
+        int ano = 1500 + ThreadLocalRandom.current().nextInt(600);
+        return pool.submit(() -> catalogo.contarAutoresVivosNoAno(ano)).get();
+    }
+
+    /**
+     * Percorre a coluna de autores dos livros e busca o periodo de vida de cada autor pela chave
+     */
+    @Benchmark
+    public long livrosDeAutoresVivosNoAno() throws ExecutionException, InterruptedException {
+        int ano = 1500 + ThreadLocalRandom.current().nextInt(600);
+        return pool.submit(() -> catalogo.contarLivrosDeAutoresVivosNoAno(ano)).get();
+    }
+}
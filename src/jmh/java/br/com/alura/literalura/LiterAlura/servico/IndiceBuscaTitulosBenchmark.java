@@ -0,0 +1,107 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia das buscas no indice de titulos com catalogos sinteticos grandes, em que poucas palavras
+ * sao muito frequentes e a maioria e rara, como nos titulos reais
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class IndiceBuscaTitulosBenchmark {
+
+    private static final int TAMANHO_VOCABULARIO = 50_000;
+    private static final int TITULOS_CONSULTADOS = 4096;
+
+    @Param({"100000", "1000000"})
+    public int quantidadeTitulos;
+
+    private IndiceBuscaTitulos indice;
+    private String[] titulosExatos;
+    private String[] titulosComErro;
+    private String[] pesquisas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        String[] vocabulario = new String[TAMANHO_VOCABULARIO];
+        for (int i = 0; i < vocabulario.length; i++) {
+            vocabulario[i] = palavraAleatoria(aleatorio);
+        }
+
+        indice = new IndiceBuscaTitulos(null, null, true);
+        titulosExatos = new String[TITULOS_CONSULTADOS];
+        titulosComErro = new String[TITULOS_CONSULTADOS];
+        pesquisas = new String[TITULOS_CONSULTADOS];
+        for (int i = 0; i < quantidadeTitulos; i++) {
+            StringBuilder titulo = new StringBuilder();
+            int palavras = 2 + aleatorio.nextInt(5);
+            for (int p = 0; p < palavras; p++) {
+                if (p > 0) {
+                    titulo.append(' ');
+                }
+                titulo.append(vocabulario[(int) Math.min(vocabulario.length - 1,
+                        Math.abs(aleatorio.nextGaussian()) * 8000)]);
+            }
+            Autor autor = new Autor();
+            autor.setNome(vocabulario[aleatorio.nextInt(vocabulario.length)] + ", "
+                    + vocabulario[aleatorio.nextInt(vocabulario.length)]);
+            Livro livro = new Livro(titulo.toString(), autor, "en", 0);
+            livro.setId((long) i + 1);
+            indice.registrar(livro);
+
+            if (i < TITULOS_CONSULTADOS) {
+                titulosExatos[i] = titulo.toString().toUpperCase();
+                titulosComErro[i] = titulo.substring(0, titulo.length() - 1) + "x";
+                pesquisas[i] = titulo.substring(0, titulo.indexOf(" ")) + " " + autor.getNome().split(",")[0];
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<Long> buscarTituloExato() {
+        return indice.buscarTitulo(titulosExatos[ThreadLocalRandom.current().nextInt(TITULOS_CONSULTADOS)]);
+    }
+
+    @Benchmark
+    public Optional<Long> buscarTituloComErroDeDigitacao() {
+        return indice.buscarTitulo(titulosComErro[ThreadLocalRandom.current().nextInt(TITULOS_CONSULTADOS)]);
+    }
+
+    @Benchmark
+    public List<Long> pesquisarTituloEAutor() {
+        return indice.pesquisar(pesquisas[ThreadLocalRandom.current().nextInt(TITULOS_CONSULTADOS)], 10);
+    }
+
+    private static String palavraAleatoria(Random aleatorio) {
+        StringBuilder palavra = new StringBuilder();
+        int letras = 4 + aleatorio.nextInt(6);
+        for (int i = 0; i < letras; i++) {
+            palavra.append((char) ('a' + aleatorio.nextInt(26)));
+        }
+        return palavra.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.servico.GravacaoRespostasGutendex.RespostaGravada;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Vazao da ingestao concorrente de titulos novos contra o servidor de replay, sem rede: cada titulo
+ * passa pela API simulada, com latencia de 10ms +- 5ms, e e salvo no banco. O resultado e o tempo
+ * medio por titulo em lotes de 1000 titulos, com 1, 10 e 1000 requisicoes simultaneas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestaoReplayBenchmark {
+
+    private static final int TITULOS_POR_LOTE = 1000;
+    private static final int LOTES = 7;
+    private static final String ORIGEM_GRAVADA = "https://gutendex.com";
+
+    @Param({"1", "10", "1000"})
+    public int concorrencia;
+
+    private Path diretorio;
+    private ServidorReplayGutendex replay;
+    private ConfigurableApplicationContext contexto;
+    private ServicoIngestaoConcorrente servicoIngestao;
+    private int proximoLote;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        ObjectMapper mapeadorObjeto = new ObjectMapper();
+        diretorio = Files.createTempDirectory("replay-gutendex");
+        for (int i = 0; i < LOTES * TITULOS_POR_LOTE; i++) {
+            GravacaoRespostasGutendex.gravar(mapeadorObjeto, diretorio, new RespostaGravada(ORIGEM_GRAVADA,
+                    "/books?search=" + URLEncoder.encode(titulo(i), StandardCharsets.UTF_8), 200, resposta(i)));
+        }
+
+        replay = new ServidorReplayGutendex(mapeadorObjeto, diretorio.toString(), 0,
+                Duration.ofMillis(10), Duration.ofMillis(5), 0);
+        String origem = replay.iniciar(0);
+
+        // Sem o indice de titulos, que poderia aproximar um titulo novo de um ja salvo e evitar a API
+        contexto = ContextoBenchmark.iniciar("ingestao-replay-" + concorrencia,
+                "literalura.api.url-base=" + origem + "/books",
+                "literalura.api.taxa-maxima=0",
+                "literalura.api.requisicoes-simultaneas=" + concorrencia,
+                "literalura.ingestao.concorrencia=" + concorrencia,
+                "literalura.livros.indice-titulos.habilitado=false");
+        servicoIngestao = contexto.getBean(ServicoIngestaoConcorrente.class);
+        proximoLote = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+        replay.parar();
+        if (replay.naoGravadas() > 0 || replay.respondidas() < (long) proximoLote * TITULOS_POR_LOTE) {
+            System.err.println("Respostas nao gravadas: " + replay.naoGravadas()
+                    + ", respondidas: " + replay.respondidas());
+        }
+        FileSystemUtils.deleteRecursively(diretorio.toFile());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TITULOS_POR_LOTE)
+    public RelatorioIngestao ingerirLoteDeTitulosNovos() {
+        int inicio = proximoLote++ * TITULOS_POR_LOTE;
+        List<String> titulos = IntStream.range(inicio, inicio + TITULOS_POR_LOTE)
+                .mapToObj(IngestaoReplayBenchmark::titulo)
+                .toList();
+        return servicoIngestao.ingerirTitulos(titulos, resultado -> {
+        });
+    }
+
+    private static String titulo(int indice) {
+        return String.format("Livro Replay %07d", indice);
+    }
+
+    private static String resposta(int indice) {
+        return "{\"count\":1,\"next\":null,\"previous\":null,\"results\":[{\"id\":" + indice
+                + ",\"title\":\"" + titulo(indice) + "\",\"authors\":[{\"name\":\"Autor Replay " + indice / 4
+                + "\",\"birth_year\":1800,\"death_year\":1870}],\"languages\":[\"en\"],\"download_count\":"
+                + indice + "}]}";
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Livros e autores mais baixados em um catalogo de um milhao de livros: consultas ordenadas e limitadas,
+ * com e sem os indices de downloads, comparadas a percorrer o catalogo inteiro com o heap limitado
+ * e a ordenar o catalogo inteiro em memoria. O cache de segundo nivel fica desligado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class MaisBaixadosBenchmark {
+
+    private static final String[] IDIOMAS = {"en", "pt", "fr", "de", "es", "it", "fi", "nl"};
+    private static final String[] INDICES = {"idx_livro_downloads", "idx_livro_idioma_downloads"};
+    private static final int LIMITE = 10;
+    private static final Comparator<ResumoLivro> ORDEM_DOWNLOADS = Comparator.comparing(ResumoLivro::downloads);
+
+    @Param({"1000000"})
+    public int quantidadeLivros;
+
+    @Param({"false", "true"})
+    public boolean comIndices;
+
+    private ConfigurableApplicationContext contexto;
+    private ServicoLivro servicoLivro;
+    private ServicoAutor servicoAutor;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("mais-baixados-" + comIndices,
+                "literalura.banco.cache.habilitado=false",
+                "literalura.livros.indice-titulos.habilitado=false");
+        ContextoBenchmark.popular(contexto, quantidadeLivros);
+
+        JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+        if (!comIndices) {
+            for (String indice : INDICES) {
+                jdbc.execute("DROP INDEX " + indice);
+            }
+        }
+        jdbc.execute("ANALYZE");
+
+        servicoLivro = contexto.getBean(ServicoLivro.class);
+        servicoAutor = contexto.getBean(ServicoAutor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    /**
+     * O limite varia porque o H2 reaproveita o resultado de uma consulta repetida com os mesmos parametros
+     */
+    @Benchmark
+    public List<ResumoLivro> livrosMaisBaixados() {
+        return servicoLivro.obterLivrosMaisBaixados(LIMITE + ThreadLocalRandom.current().nextInt(LIMITE));
+    }
+
+    @Benchmark
+    public List<ResumoLivro> livrosMaisBaixadosPorIdioma() {
+        return servicoLivro.obterLivrosMaisBaixadosPorIdioma(
+                IDIOMAS[ThreadLocalRandom.current().nextInt(IDIOMAS.length)], LIMITE);
+    }
+
+    /**
+     * Total por autor: o banco agrupa sem ordenar e o heap limitado escolhe os maiores
+     */
+    @Benchmark
+    public List<AutorDownloads> autoresMaisBaixados() {
+        return servicoAutor.obterAutoresMaisBaixados(LIMITE);
+    }
+
+    /**
+     * Sem consulta ordenada: percorre todos os livros guardando so os maiores
+     */
+    @Benchmark
+    public List<ResumoLivro> livrosMaisBaixadosPercorrendoComHeap() {
+        SelecaoMaiores<ResumoLivro> selecao = new SelecaoMaiores<>(LIMITE, ORDEM_DOWNLOADS);
+        servicoLivro.percorrerResumosLivros(selecao::adicionar);
+        return selecao.resultado();
+    }
+
+    /**
+     * Sem consulta ordenada e sem heap: carrega e ordena o catalogo inteiro
+     */
+    @Benchmark
+    public List<ResumoLivro> livrosMaisBaixadosOrdenandoTudo() {
+        List<ResumoLivro> todos = new ArrayList<>(quantidadeLivros);
+        servicoLivro.percorrerResumosLivros(todos::add);
+        todos.sort(ORDEM_DOWNLOADS.reversed());
+        return todos.subList(0, LIMITE);
+    }
+}
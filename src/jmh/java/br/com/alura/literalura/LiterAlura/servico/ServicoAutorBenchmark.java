@@ -0,0 +1,72 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a consulta JPQL de autores vivos em um ano com o indice em memoria de periodos de vida
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicoAutorBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int quantidadeAutores;
+
+    private ConfigurableApplicationContext contexto;
+    private RepositorioAutor repositorioAutor;
+    private IndiceVidaAutores indiceVidaAutores;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        // Sem o cache de consultas, para medir a consulta JPQL em si
+        contexto = ContextoBenchmark.iniciar("servico-autor-" + quantidadeAutores, "literalura.banco.cache.habilitado=false");
+        // Quatro livros por autor
+        ContextoBenchmark.popular(contexto, quantidadeAutores * 4);
+        repositorioAutor = contexto.getBean(RepositorioAutor.class);
+        indiceVidaAutores = contexto.getBean(IndiceVidaAutores.class);
+        indiceVidaAutores.buscarVivosNoAno(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<Autor> buscarAutoresVivosNoAnoJpql() {
+        return repositorioAutor.buscarAutoresVivosNoAno(anoAleatorio());
+    }
+
+    @Benchmark
+    public List<Autor> buscarAutoresVivosNoAnoIndice() {
+        return indiceVidaAutores.buscarVivosNoAno(anoAleatorio());
+    }
+
+    private static int anoAleatorio() {
+        return 1450 + ThreadLocalRandom.current().nextInt(700);
+    }
+}
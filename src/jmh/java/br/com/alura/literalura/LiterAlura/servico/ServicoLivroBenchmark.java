@@ -0,0 +1,81 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia dos caminhos de ServicoLivro que tocam o banco de dados, com o catalogo em varios tamanhos.
+ * A insercao de livros novos deve ficar estavel conforme o catalogo cresce.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicoLivroBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tamanhoCatalogo;
+
+    private ConfigurableApplicationContext contexto;
+    private ServicoLivro servicoLivro;
+    private int proximoLivroNovo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = ContextoBenchmark.iniciar("servico-livro-" + tamanhoCatalogo);
+        ContextoBenchmark.popular(contexto, tamanhoCatalogo);
+        servicoLivro = contexto.getBean(ServicoLivro.class);
+        proximoLivroNovo = tamanhoCatalogo;
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    /**
+     * Titulo ja salvo: resolvido no banco de dados, sem chamar a API
+     */
+    @Benchmark
+    public ResultadoBuscaLivro buscarESalvarLivroPorTituloExistente() {
+        int indice = ThreadLocalRandom.current().nextInt(tamanhoCatalogo);
+        return servicoLivro.buscarESalvarLivroPorTitulo(ContextoBenchmark.tituloSintetico(indice));
+    }
+
+    /**
+     * Livro novo de um autor existente: verificacao de duplicidade pela chave unica e insercao
+     */
+    @Benchmark
+    public Livro salvarLivroNovo() {
+        Livro livro = ContextoBenchmark.livroSintetico(proximoLivroNovo++).paraLivro();
+        Autor autorExistente = ContextoBenchmark.livroSintetico(0).paraLivro().getAutor();
+        livro.setAutor(autorExistente);
+        return servicoLivro.salvarSeNaoExistir(livro);
+    }
+
+    @Benchmark
+    public Map<String, Long> obterEstatisticasLivrosPorIdioma() {
+        return servicoLivro.obterEstatisticasLivrosPorIdioma();
+    }
+}
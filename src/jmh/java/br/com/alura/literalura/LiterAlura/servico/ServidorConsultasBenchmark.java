@@ -0,0 +1,128 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vazao do servidor de consultas com muitos clientes ao mesmo tempo: lotes de 1000 requisicoes com
+ * 1 ou 200 em andamento, para as estatisticas por idioma (em memoria) e para os livros de um idioma
+ * (consulta ao banco, cerca de 1250 livros por resposta), com e sem If-None-Match.
+ * O resultado e o tempo medio por requisicao.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ServidorConsultasBenchmark {
+
+    private static final int REQUISICOES_POR_LOTE = 1000;
+
+    @Param({"1", "200"})
+    public int clientes;
+
+    @Param({"false", "true"})
+    public boolean condicional;
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient clienteHttp;
+    private HttpRequest requisicaoEstatisticas;
+    private HttpRequest requisicaoLivros;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException, InterruptedException {
+        contexto = ContextoBenchmark.iniciar("servidor-consultas-" + clientes + "-" + condicional,
+                "literalura.livros.indice-titulos.habilitado=false",
+                "literalura.servidor.threads=" + clientes);
+        ContextoBenchmark.popular(contexto, 10_000);
+        int porta = contexto.getBean(ServidorConsultas.class).iniciar(0);
+
+        clienteHttp = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        requisicaoEstatisticas = requisicao(URI.create("http://localhost:" + porta + "/estatisticas/idiomas"));
+        requisicaoLivros = requisicao(URI.create("http://localhost:" + porta + "/livros?idioma=pt"));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUISICOES_POR_LOTE)
+    public long estatisticasPorIdioma() throws InterruptedException {
+        return enviarLote(requisicaoEstatisticas);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUISICOES_POR_LOTE)
+    public long livrosPorIdioma() throws InterruptedException {
+        return enviarLote(requisicaoLivros);
+    }
+
+    /**
+     * Com If-None-Match, a requisicao leva o ETag da resposta atual e recebe 304 sem corpo
+     */
+    private HttpRequest requisicao(URI uri) throws IOException, InterruptedException {
+        HttpRequest.Builder construtor = HttpRequest.newBuilder(uri);
+        if (condicional) {
+            String etag = clienteHttp.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                    .headers().firstValue("ETag").orElseThrow();
+            construtor.header("If-None-Match", etag);
+        }
+        return construtor.build();
+    }
+
+    /**
+     * Envia o lote mantendo no maximo uma requisicao por cliente em andamento
+     *
+     * @return Bytes recebidos nos corpos das respostas
+     */
+    private long enviarLote(HttpRequest requisicao) throws InterruptedException {
+        Semaphore emAndamento = new Semaphore(clientes);
+        LongAdder bytes = new LongAdder();
+        LongAdder falhas = new LongAdder();
+        CompletableFuture<?>[] respostas = new CompletableFuture<?>[REQUISICOES_POR_LOTE];
+        for (int i = 0; i < REQUISICOES_POR_LOTE; i++) {
+            emAndamento.acquire();
+            respostas[i] = clienteHttp.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((resposta, erro) -> {
+                        emAndamento.release();
+                        if (resposta != null && (resposta.statusCode() == 200 || resposta.statusCode() == 304)) {
+                            bytes.add(resposta.body().length);
+                        } else {
+                            falhas.increment();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(respostas).join();
+        if (falhas.sum() > 0) {
+            throw new IllegalStateException(falhas.sum() + " requisicoes falharam");
+        }
+        return bytes.sum();
+    }
+}
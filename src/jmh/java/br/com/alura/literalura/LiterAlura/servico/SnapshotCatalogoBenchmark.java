@@ -0,0 +1,136 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.benchmark.ContextoBenchmark;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot binario de um catalogo de um milhao de livros comparado ao banco de dados: abrir o snapshot,
+ * buscar por titulo e por idioma e agregar as estatisticas por idioma. O cache de segundo nivel fica
+ * desligado. O tempo de exportacao, o tamanho do arquivo e o tempo da primeira agregacao no banco sao
+ * impressos ao preparar o benchmark; as repeticoes seguintes da agregacao sao servidas pelo H2 a partir
+ * do resultado anterior.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SnapshotCatalogoBenchmark {
+
+    private static final String[] IDIOMAS = {"en", "pt", "fr", "de", "es", "it", "fi", "nl"};
+
+    @Param({"1000000"})
+    public int quantidadeLivros;
+
+    private ConfigurableApplicationContext contexto;
+    private ServicoLivro servicoLivro;
+    private RepositorioLivro repositorioLivro;
+    private Path arquivo;
+    private SnapshotCatalogo snapshot;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        contexto = ContextoBenchmark.iniciar("snapshot-catalogo",
+                "literalura.banco.cache.habilitado=false",
+                "literalura.livros.indice-titulos.habilitado=false");
+        ContextoBenchmark.popular(contexto, quantidadeLivros);
+        servicoLivro = contexto.getBean(ServicoLivro.class);
+        repositorioLivro = contexto.getBean(RepositorioLivro.class);
+
+        arquivo = Files.createTempFile("catalogo", ".snap");
+        long inicio = System.nanoTime();
+        contexto.getBean(ServicoSnapshotCatalogo.class).exportar(arquivo);
+        System.out.printf("%nExportacao: %d ms, %d bytes (%.1f bytes por livro)%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), Files.size(arquivo),
+                (double) Files.size(arquivo) / quantidadeLivros);
+        snapshot = SnapshotCatalogo.abrir(arquivo);
+
+        inicio = System.nanoTime();
+        repositorioLivro.agregarEstatisticasPorIdioma();
+        System.out.printf("Primeira agregacao no banco: %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        contexto.close();
+        Files.deleteIfExists(arquivo);
+    }
+
+    /**
+     * Mapeia o arquivo e le o cabecalho e o dicionario de idiomas. Medido por execucao isolada: o mapeamento
+     * so e desfeito quando o coletor de lixo recolhe o buffer, e abrir o arquivo em laco esgota o limite de
+     * mapeamentos do processo.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public SnapshotCatalogo abrirSnapshot() {
+        return SnapshotCatalogo.abrir(arquivo);
+    }
+
+    @Benchmark
+    public List<ResumoLivro> tituloSnapshot() {
+        return snapshot.buscarLivrosPorTitulo(tituloAleatorio());
+    }
+
+    @Benchmark
+    public List<ResumoLivro> tituloBanco() {
+        return servicoLivro.obterResumosLivrosPorTitulo(tituloAleatorio());
+    }
+
+    @Benchmark
+    public List<ResumoLivro> idiomaSnapshot() {
+        return snapshot.buscarLivrosPorIdioma(idiomaAleatorio());
+    }
+
+    @Benchmark
+    public List<ResumoLivro> idiomaBanco() {
+        return servicoLivro.obterResumosLivrosPorIdioma(idiomaAleatorio());
+    }
+
+    @Benchmark
+    public List<EstatisticaIdioma> estatisticasSnapshot() {
+        return snapshot.obterEstatisticasPorIdioma();
+    }
+
+    /**
+     * A agregacao no banco, que as estatisticas em memoria do servico evitam depois de montadas
+     */
+    @Benchmark
+    public List<EstatisticaIdioma> estatisticasBanco() {
+        return repositorioLivro.agregarEstatisticasPorIdioma();
+    }
+
+    private String tituloAleatorio() {
+        return ContextoBenchmark.tituloSintetico(ThreadLocalRandom.current().nextInt(quantidadeLivros));
+    }
+
+    private static String idiomaAleatorio() {
+        return IDIOMAS[ThreadLocalRandom.current().nextInt(IDIOMAS.length)];
+    }
+}
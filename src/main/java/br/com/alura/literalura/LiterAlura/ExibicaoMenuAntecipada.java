@@ -0,0 +1,22 @@
+package br.com.alura.literalura.LiterAlura;
+
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Exibe o menu interativo assim que o contexto do Spring é preparado, antes de os beans serem criados,
+ * quando literalura.cli.menu-antecipado está ligado (perfil inicio-rapido). O Spring só conclui a
+ * inicialização depois de o EntityManagerFactory estar pronto; sem isso o menu esperaria o Flyway e o Hibernate.
+ */
+class ExibicaoMenuAntecipada implements ApplicationListener<ApplicationPreparedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationPreparedEvent evento) {
+        Environment ambiente = evento.getApplicationContext().getEnvironment();
+        if (ambiente.getProperty("literalura.cli.habilitado", Boolean.class, true)
+                && ambiente.getProperty("literalura.cli.menu-antecipado", Boolean.class, false)) {
+            LiterAluraRunner.exibirMenuAntecipadamente();
+        }
+    }
+}
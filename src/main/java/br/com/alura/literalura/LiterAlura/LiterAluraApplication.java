@@ -8,6 +8,8 @@ public class LiterAluraApplication {
 
     public static void main(String[] args) {
         //new ServicoApiGutendex(new ObjectMapper()).buscarLivroPorTitulo("Don Quixote").ifPresent(System.out::println);
-        SpringApplication.run(LiterAluraApplication.class, args);
+        SpringApplication aplicacao = new SpringApplication(LiterAluraApplication.class);
+        aplicacao.addListeners(new ExibicaoMenuAntecipada());
+        aplicacao.run(args);
     }
 }
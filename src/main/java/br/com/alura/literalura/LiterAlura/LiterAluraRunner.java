@@ -1,38 +1,128 @@
 package br.com.alura.literalura.LiterAlura;
 
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
 import br.com.alura.literalura.LiterAlura.modelo.Autor;
 import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.servico.CatalogoColunar;
+import br.com.alura.literalura.LiterAlura.servico.ExportadorMetricas;
+import br.com.alura.literalura.LiterAlura.servico.RelatorioImportacao;
+import br.com.alura.literalura.LiterAlura.servico.RelatorioIngestao;
+import br.com.alura.literalura.LiterAlura.servico.ResultadoBuscaLivro;
+import br.com.alura.literalura.LiterAlura.servico.ServicoApiGutendex;
 import br.com.alura.literalura.LiterAlura.servico.ServicoAutor;
+import br.com.alura.literalura.LiterAlura.servico.ServicoCatalogoColunar;
+import br.com.alura.literalura.LiterAlura.servico.ServicoImportacaoCatalogo;
+import br.com.alura.literalura.LiterAlura.servico.ServicoIngestaoConcorrente;
 import br.com.alura.literalura.LiterAlura.servico.ServicoLivro;
+import br.com.alura.literalura.LiterAlura.servico.ServicoSnapshotCatalogo;
+import br.com.alura.literalura.LiterAlura.servico.SnapshotCatalogo;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
+@ConditionalOnProperty(name = "literalura.cli.habilitado", havingValue = "true", matchIfMissing = true)
 public class LiterAluraRunner implements CommandLineRunner {
 
+    private static final int LIMITE_AUTORES_POR_IDIOMA = 3;
+    private static final int LIMITE_RESULTADOS_PESQUISA = 10;
+    private static final int LIMITE_MAIS_BAIXADOS = 10;
+    private static final int FAIXAS_HISTOGRAMA_DOWNLOADS = 10;
+    private static final String PROMPT = "literalura:> ";
+    private static final AtomicBoolean MENU_EXIBIDO_ANTECIPADAMENTE = new AtomicBoolean();
+
+    private static final String[] TITULOS_LIVROS_FAMOSOS = {
+            "Don Quixote", "Pride and Prejudice", "The Little Prince", "Dom Casmurro",
+            "Crime and Punishment", "One Hundred Years of Solitude", "1984", "The Great Gatsby",
+            "Ulysses", "The Divine Comedy", "Moby Dick", "War and Peace",
+            "Les Misérables", "In Search of Lost Time", "The Metamorphosis", "Hamlet",
+            "The Trial", "The Picture of Dorian Gray", "The Lord of the Rings", "Madame Bovary",
+            "Anna Karenina", "The Catcher in the Rye", "The Hobbit", "The Magic Mountain",
+            "Romeo and Juliet", "The Iliad", "The Odyssey", "Faust",
+            "The Red and the Black", "The Stranger", "Lolita", "The Sound and the Fury",
+            "Gulliver's Travels", "Robinson Crusoe", "Frankenstein", "Dracula",
+            "Wuthering Heights", "Jane Eyre", "Oliver Twist", "David Copperfield",
+            "The Republic", "The Prince", "Thus Spoke Zarathustra", "The World as Will and Representation",
+            "Das Kapital", "On the Origin of Species", "The Elements", "The Interpretation of Dreams",
+            "The Art of War", "The Book of Five Rings", "Tao Te Ching", "The Tibetan Book of the Dead",
+            "The Bible", "The Quran", "The Talmud", "The Analects of Confucius",
+            "The Book of the Dead", "The Bhagavad Gita", "The Mahabharata", "The Ramayana",
+            "Alice's Adventures in Wonderland", "The Adventures of Tom Sawyer", "Adventures of Huckleberry Finn", "Peter Pan",
+            "The Wind in the Willows", "Treasure Island", "The Chronicles of Narnia", "Harry Potter",
+            "Dune", "Foundation", "Neuromancer", "2001: A Space Odyssey",
+            "Fahrenheit 451", "The Hitchhiker's Guide to the Galaxy", "I, Robot", "Blade Runner",
+            "The Count of Monte Cristo", "The Three Musketeers", "Twenty Thousand Leagues Under the Sea", "Around the World in Eighty Days",
+            "The Sea-Wolf", "Moby Dick", "Treasure Island", "Robinson Crusoe",
+            "The Old Man and the Sea", "For Whom the Bell Tolls", "A Farewell to Arms", "The Sun Also Rises",
+            "A Clockwork Orange", "Brave New World", "The Time Machine", "The War of the Worlds",
+            "The Invisible Man", "The Island of Doctor Moreau", "Frankenstein", "Dracula",
+            "The Picture of Dorian Gray", "Dr. Jekyll and Mr. Hyde", "The Strange Case of Dr Jekyll and Mr Hyde", "The Phantom of the Opera"
+    };
+
     private final ServicoLivro servicoLivro;
     private final ServicoAutor servicoAutor;
+    private final ServicoIngestaoConcorrente servicoIngestaoConcorrente;
+    private final ServicoApiGutendex servicoApiGutendex;
+    private final ServicoImportacaoCatalogo servicoImportacaoCatalogo;
+    private final ExportadorMetricas exportadorMetricas;
+    private final ServicoSnapshotCatalogo servicoSnapshotCatalogo;
+    private final ServicoCatalogoColunar servicoCatalogoColunar;
     private final Scanner scanner;
 
-    public LiterAluraRunner(ServicoLivro servicoLivro, ServicoAutor servicoAutor) {
+    public LiterAluraRunner(ServicoLivro servicoLivro, ServicoAutor servicoAutor,
+                            ServicoIngestaoConcorrente servicoIngestaoConcorrente,
+                            ServicoApiGutendex servicoApiGutendex,
+                            ServicoImportacaoCatalogo servicoImportacaoCatalogo,
+                            ExportadorMetricas exportadorMetricas,
+                            ServicoSnapshotCatalogo servicoSnapshotCatalogo,
+                            ServicoCatalogoColunar servicoCatalogoColunar) {
         this.servicoLivro = servicoLivro;
         this.servicoAutor = servicoAutor;
+        this.servicoIngestaoConcorrente = servicoIngestaoConcorrente;
+        this.servicoApiGutendex = servicoApiGutendex;
+        this.servicoImportacaoCatalogo = servicoImportacaoCatalogo;
+        this.exportadorMetricas = exportadorMetricas;
+        this.servicoSnapshotCatalogo = servicoSnapshotCatalogo;
+        this.servicoCatalogoColunar = servicoCatalogoColunar;
         this.scanner = new Scanner(System.in);
     }
 
+    /**
+     * Exibe o banner, o menu e o prompt antes de o contexto do Spring terminar de iniciar, para o usuário
+     * digitar o primeiro comando enquanto o banco de dados e o Hibernate iniciam; o comando é lido quando
+     * o runner começa, e o primeiro ciclo do menu não repete a exibição
+     */
+    static void exibirMenuAntecipadamente() {
+        exibirBanner();
+        exibirMenu();
+        System.out.print(PROMPT);
+        MENU_EXIBIDO_ANTECIPADAMENTE.set(true);
+    }
+
     @Override
     public void run(String... args) throws Exception {
-        exibirBanner();
+        boolean exibirMenu = !MENU_EXIBIDO_ANTECIPADAMENTE.getAndSet(false);
+        if (exibirMenu) {
+            exibirBanner();
+        }
 
         boolean executando = true;
         while (executando) {
-            exibirMenu();
-            System.out.print("literalura:> ");
+            if (exibirMenu) {
+                exibirMenu();
+                System.out.print(PROMPT);
+            }
+            exibirMenu = true;
             String comando = scanner.nextLine().trim();
 
             try {
@@ -49,7 +139,7 @@ public class LiterAluraRunner implements CommandLineRunner {
     /**
      * Exibe o banner da aplicação
      */
-    private void exibirBanner() {
+    private static void exibirBanner() {
         System.out.println("\n" +
                 "  _     _ _              _                     \n" +
                 " | |   () | _ _ _  / \\   _ _   _ _ _ __ _ \n" +
@@ -63,7 +153,7 @@ public class LiterAluraRunner implements CommandLineRunner {
     /**
      * Exibe o menu de opções
      */
-    private void exibirMenu() {
+    private static void exibirMenu() {
         System.out.println("\nComandos disponíveis:");
         System.out.println("  1. Buscar livro por título");
         System.out.println("  2. Listar todos os livros");
@@ -71,6 +161,13 @@ public class LiterAluraRunner implements CommandLineRunner {
         System.out.println("  4. Listar autores vivos em determinado ano");
         System.out.println("  5. Mostrar estatísticas de livros por idioma");
         System.out.println("  6. Executar modo sem interação (headless)");
+        System.out.println("  7. Executar modo sem interação com busca paralela");
+        System.out.println("  8. Importar catálogo completo da API");
+        System.out.println("  9. Exportar métricas (formato Prometheus)");
+        System.out.println(" 10. Pesquisar no catálogo local por título ou autor");
+        System.out.println(" 11. Mostrar livros e autores mais baixados");
+        System.out.println(" 12. Exportar snapshot binário do catálogo");
+        System.out.println(" 13. Analisar catálogo em memória (colunar)");
         System.out.println("  0. Sair");
     }
 
@@ -109,6 +206,27 @@ public class LiterAluraRunner implements CommandLineRunner {
                 case 6:
                     executarModoSemInteracao();
                     break;
+                case 7:
+                    executarModoSemInteracaoParalelo();
+                    break;
+                case 8:
+                    importarCatalogo();
+                    break;
+                case 9:
+                    exportarMetricas();
+                    break;
+                case 10:
+                    pesquisarCatalogo();
+                    break;
+                case 11:
+                    mostrarMaisBaixados();
+                    break;
+                case 12:
+                    exportarSnapshot();
+                    break;
+                case 13:
+                    analisarCatalogoColunar();
+                    break;
                 default:
                     System.out.println("Opção inválida. Por favor, escolha uma opção válida.");
             }
@@ -119,6 +237,147 @@ public class LiterAluraRunner implements CommandLineRunner {
         return true;
     }
 
+    /**
+     * Pesquisa livros já salvos pelo título ou pelo nome do autor, sem consultar a API
+     */
+    private void pesquisarCatalogo() {
+        System.out.print("Digite os termos da pesquisa: ");
+        String consulta = scanner.nextLine().trim();
+
+        if (consulta.isEmpty()) {
+            System.out.println("A pesquisa não pode ser vazia.");
+            return;
+        }
+
+        List<ResumoLivro> livros = servicoLivro.pesquisarCatalogo(consulta, LIMITE_RESULTADOS_PESQUISA);
+        if (livros.isEmpty()) {
+            System.out.println("Nenhum livro do catálogo local corresponde à pesquisa.");
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Encontrados ").append(livros.size()).append(" livros:\n");
+        for (ResumoLivro livro : livros) {
+            formatarLivro(livro, sb);
+        }
+        System.out.println(sb);
+    }
+
+    /**
+     * Mostra os livros mais baixados, de todos os idiomas ou de um idioma, e os autores mais baixados
+     */
+    private void mostrarMaisBaixados() {
+        System.out.print("Digite o idioma (ex: en, pt) ou deixe em branco para todos: ");
+        String idioma = scanner.nextLine().trim();
+
+        List<ResumoLivro> livros = idioma.isEmpty()
+                ? servicoLivro.obterLivrosMaisBaixados(LIMITE_MAIS_BAIXADOS)
+                : servicoLivro.obterLivrosMaisBaixadosPorIdioma(idioma, LIMITE_MAIS_BAIXADOS);
+        if (livros.isEmpty()) {
+            System.out.println("Não há livros no banco de dados para esse filtro.");
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Livros Mais Baixados").append(idioma.isEmpty() ? "" : " em " + idioma).append(" ===\n");
+        for (ResumoLivro livro : livros) {
+            formatarLivro(livro, sb);
+        }
+
+        sb.append("=== Autores Mais Baixados ===\n");
+        for (AutorDownloads autor : servicoAutor.obterAutoresMaisBaixados(LIMITE_MAIS_BAIXADOS)) {
+            sb.append(autor.nomeAutor())
+                    .append(" - Livros: ").append(autor.quantidadeLivros())
+                    .append(" - Downloads: ").append(autor.totalDownloads()).append("\n");
+        }
+        System.out.println(sb);
+    }
+
+    /**
+     * Salva as métricas coletadas até agora em arquivo, no formato texto do Prometheus
+     */
+    private void exportarMetricas() {
+        Path arquivo = exportadorMetricas.salvar();
+        if (arquivo != null) {
+            System.out.println("Métricas exportadas para " + arquivo);
+        }
+    }
+
+    /**
+     * Exporta o catálogo para um snapshot binário, que pode ser consultado sem banco de dados
+     */
+    private void exportarSnapshot() {
+        long inicio = System.nanoTime();
+        Path arquivo = servicoSnapshotCatalogo.exportar();
+        long milissegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+        SnapshotCatalogo snapshot = SnapshotCatalogo.abrir(arquivo);
+        System.out.println("Snapshot exportado para " + arquivo + " em " + milissegundos + " ms: "
+                + snapshot.quantidadeLivros() + " livros e " + snapshot.quantidadeAutores() + " autores");
+    }
+
+    /**
+     * Carrega o catálogo em colunas na memória e mostra as estatísticas por idioma, o histograma de downloads,
+     * a distribuição de nascimentos por década e, se um ano for informado, quantos autores estavam vivos nele
+     */
+    private void analisarCatalogoColunar() {
+        System.out.print("Digite o ano para contar autores vivos ou deixe em branco para pular: ");
+        String anoStr = scanner.nextLine().trim();
+        Integer ano = null;
+        try {
+            ano = anoStr.isEmpty() ? null : Integer.parseInt(anoStr);
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, digite um ano válido.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        CatalogoColunar catalogo = servicoCatalogoColunar.carregar();
+        long milissegundosCarga = (System.nanoTime() - inicio) / 1_000_000;
+        if (catalogo.quantidadeLivros() == 0) {
+            System.out.println("Não há livros no banco de dados para analisar.");
+            return;
+        }
+
+        inicio = System.nanoTime();
+        List<EstatisticaIdioma> estatisticas = catalogo.obterEstatisticasPorIdioma();
+        int largura = catalogo.maximoDownloads() / FAIXAS_HISTOGRAMA_DOWNLOADS + 1;
+        Map<Integer, Long> histograma = catalogo.obterHistogramaDownloads(largura);
+        Map<Integer, Long> decadas = catalogo.obterNascimentosPorDecada();
+        long autoresVivos = ano == null ? 0 : catalogo.contarAutoresVivosNoAno(ano);
+        long livrosDeAutoresVivos = ano == null ? 0 : catalogo.contarLivrosDeAutoresVivosNoAno(ano);
+        long microssegundosAnalise = (System.nanoTime() - inicio) / 1_000;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Catálogo carregado em %d ms: %d livros e %d autores em %d bytes (%.1f bytes por livro)%n",
+                milissegundosCarga, catalogo.quantidadeLivros(), catalogo.quantidadeAutores(),
+                catalogo.tamanhoEmBytes(), (double) catalogo.tamanhoEmBytes() / catalogo.quantidadeLivros()));
+
+        sb.append("=== Estatísticas de Livros por Idioma ===\n");
+        for (EstatisticaIdioma estatistica : estatisticas) {
+            sb.append("Idioma: ").append(estatistica.idioma())
+                    .append(" - Quantidade: ").append(estatistica.quantidade())
+                    .append(" - Downloads: ").append(estatistica.totalDownloads())
+                    .append(String.format(" - Média de downloads: %.1f", estatistica.mediaDownloads()))
+                    .append(" - Máximo de downloads: ").append(estatistica.maximoDownloads())
+                    .append("\n");
+        }
+
+        sb.append("=== Livros por Faixa de Downloads ===\n");
+        histograma.forEach((faixa, quantidade) -> sb.append(faixa).append(" a ").append(faixa + largura - 1)
+                .append(": ").append(quantidade).append("\n"));
+
+        sb.append("=== Autores por Década de Nascimento ===\n");
+        decadas.forEach((decada, quantidade) -> sb.append(decada).append("s: ").append(quantidade).append("\n"));
+
+        if (ano != null) {
+            sb.append("Autores vivos no ano ").append(ano).append(": ").append(autoresVivos)
+                    .append(" - Livros desses autores: ").append(livrosDeAutoresVivos).append("\n");
+        }
+        sb.append("Análises calculadas em ").append(microssegundosAnalise).append(" µs");
+        System.out.println(sb);
+    }
+
     /**
      * Busca um livro por título
      */
@@ -134,27 +393,29 @@ public class LiterAluraRunner implements CommandLineRunner {
         System.out.println("Buscando livro '" + titulo + "'...");
 
         // Primeiro verificamos se existem múltiplos livros com esse título
-        List<Livro> livrosEncontrados = servicoLivro.buscarLivrosPorTitulo(titulo);
+        List<ResumoLivro> livrosEncontrados = servicoLivro.obterResumosLivrosPorTitulo(titulo);
 
         if (livrosEncontrados.size() > 1) {
             // Se encontrou múltiplos livros, mostra todos
             StringBuilder sb = new StringBuilder();
             sb.append("Encontrados ").append(livrosEncontrados.size()).append(" livros com esse título:\n");
 
-            for (Livro livro : livrosEncontrados) {
+            for (ResumoLivro livro : livrosEncontrados) {
                 formatarLivro(livro, sb);
             }
 
             System.out.println(sb.toString());
         } else {
             // Se não encontrou ou encontrou apenas um, usa o método original
-            Optional<Livro> livro = servicoLivro.buscarESalvarLivroPorTitulo(titulo);
+            ResultadoBuscaLivro resultado = servicoLivro.buscarESalvarLivroPorTitulo(titulo);
 
-            if (livro.isPresent()) {
+            if (resultado.livro() != null) {
                 StringBuilder sb = new StringBuilder();
                 sb.append("Livro encontrado e salvo no banco de dados:\n");
-                formatarLivro(livro.get(), sb);
+                formatarLivro(resultado.livro(), sb);
                 System.out.println(sb.toString());
+            } else if (resultado.falhou()) {
+                System.out.println("Não foi possível consultar a API Gutendex agora. Tente novamente mais tarde.");
             } else {
                 System.out.println("Livro não encontrado.");
             }
@@ -162,44 +423,42 @@ public class LiterAluraRunner implements CommandLineRunner {
     }
 
     /**
-     * Lista todos os livros
+     * Lista todos os livros, escrevendo cada um assim que é lido do banco de dados
      */
     private void listarTodosLivros() {
-        List<Livro> livros = servicoLivro.obterTodosLivros();
+        System.out.println("=== Lista de Livros ===");
 
-        if (livros.isEmpty()) {
+        StringBuilder sb = new StringBuilder();
+        long total = servicoLivro.percorrerResumosLivros(livro -> {
+            sb.setLength(0);
+            formatarLivro(livro, sb);
+            System.out.print(sb);
+        });
+
+        if (total == 0) {
             System.out.println("Não há livros no banco de dados.");
         } else {
-            StringBuilder sb = new StringBuilder();
-            sb.append("=== Lista de Livros ===\n");
-
-            for (Livro livro : livros) {
-                formatarLivro(livro, sb);
-            }
-
-            sb.append("Total de livros: ").append(livros.size());
-            System.out.println(sb.toString());
+            System.out.println("Total de livros: " + total);
         }
     }
 
     /**
-     * Lista todos os autores
+     * Lista todos os autores, escrevendo cada um assim que é lido do banco de dados
      */
     private void listarTodosAutores() {
-        List<Autor> autores = servicoAutor.obterTodosAutores();
+        System.out.println("=== Lista de Autores ===");
+
+        StringBuilder sb = new StringBuilder();
+        long total = servicoAutor.percorrerTodosAutores(autor -> {
+            sb.setLength(0);
+            formatarAutor(autor, sb);
+            System.out.print(sb);
+        });
 
-        if (autores.isEmpty()) {
+        if (total == 0) {
             System.out.println("Não há autores no banco de dados.");
         } else {
-            StringBuilder sb = new StringBuilder();
-            sb.append("=== Lista de Autores ===\n");
-
-            for (Autor autor : autores) {
-                formatarAutor(autor, sb);
-            }
-
-            sb.append("Total de autores: ").append(autores.size());
-            System.out.println(sb.toString());
+            System.out.println("Total de autores: " + total);
         }
     }
 
@@ -243,17 +502,31 @@ public class LiterAluraRunner implements CommandLineRunner {
      * Mostra estatísticas de livros por idioma
      */
     private void mostrarEstatisticasLivrosPorIdioma() {
-        Map<String, Long> estatisticas = servicoLivro.obterEstatisticasLivrosPorIdioma();
+        List<EstatisticaIdioma> estatisticas = servicoLivro.obterEstatisticasDetalhadasPorIdioma();
 
         if (estatisticas.isEmpty()) {
             System.out.println("Não há livros no banco de dados para gerar estatísticas.");
         } else {
+            Map<String, List<AutorDownloads>> autoresPorIdioma =
+                    servicoLivro.obterAutoresMaisBaixadosPorIdioma(LIMITE_AUTORES_POR_IDIOMA);
+
             StringBuilder sb = new StringBuilder();
             sb.append("=== Estatísticas de Livros por Idioma ===\n");
 
-            estatisticas.forEach((idioma, quantidade) -> {
-                sb.append("Idioma: ").append(idioma).append(" - Quantidade: ").append(quantidade).append("\n");
-            });
+            for (EstatisticaIdioma estatistica : estatisticas) {
+                sb.append("Idioma: ").append(estatistica.idioma())
+                        .append(" - Quantidade: ").append(estatistica.quantidade())
+                        .append(" - Downloads: ").append(estatistica.totalDownloads())
+                        .append(String.format(" - Média de downloads: %.1f", estatistica.mediaDownloads()))
+                        .append(" - Máximo de downloads: ").append(estatistica.maximoDownloads())
+                        .append("\n");
+
+                for (AutorDownloads autor : autoresPorIdioma.getOrDefault(estatistica.idioma(), List.of())) {
+                    sb.append("    ").append(autor.nomeAutor())
+                            .append(" - Livros: ").append(autor.quantidadeLivros())
+                            .append(" - Downloads: ").append(autor.totalDownloads()).append("\n");
+                }
+            }
 
             System.out.println(sb.toString());
         }
@@ -271,50 +544,77 @@ public class LiterAluraRunner implements CommandLineRunner {
 
         // Busca por 100 livros famosos
         System.out.println("=== Buscando 100 Livros Famosos ===");
-        String[] titulosLivrosFamosos = {
-                "Don Quixote", "Pride and Prejudice", "The Little Prince", "Dom Casmurro",
-                "Crime and Punishment", "One Hundred Years of Solitude", "1984", "The Great Gatsby",
-                "Ulysses", "The Divine Comedy", "Moby Dick", "War and Peace",
-                "Les Misérables", "In Search of Lost Time", "The Metamorphosis", "Hamlet",
-                "The Trial", "The Picture of Dorian Gray", "The Lord of the Rings", "Madame Bovary",
-                "Anna Karenina", "The Catcher in the Rye", "The Hobbit", "The Magic Mountain",
-                "Romeo and Juliet", "The Iliad", "The Odyssey", "Faust",
-                "The Red and the Black", "The Stranger", "Lolita", "The Sound and the Fury",
-                "Gulliver's Travels", "Robinson Crusoe", "Frankenstein", "Dracula",
-                "Wuthering Heights", "Jane Eyre", "Oliver Twist", "David Copperfield",
-                "The Republic", "The Prince", "Thus Spoke Zarathustra", "The World as Will and Representation",
-                "Das Kapital", "On the Origin of Species", "The Elements", "The Interpretation of Dreams",
-                "The Art of War", "The Book of Five Rings", "Tao Te Ching", "The Tibetan Book of the Dead",
-                "The Bible", "The Quran", "The Talmud", "The Analects of Confucius",
-                "The Book of the Dead", "The Bhagavad Gita", "The Mahabharata", "The Ramayana",
-                "Alice's Adventures in Wonderland", "The Adventures of Tom Sawyer", "Adventures of Huckleberry Finn", "Peter Pan",
-                "The Wind in the Willows", "Treasure Island", "The Chronicles of Narnia", "Harry Potter",
-                "Dune", "Foundation", "Neuromancer", "2001: A Space Odyssey",
-                "Fahrenheit 451", "The Hitchhiker's Guide to the Galaxy", "I, Robot", "Blade Runner",
-                "The Count of Monte Cristo", "The Three Musketeers", "Twenty Thousand Leagues Under the Sea", "Around the World in Eighty Days",
-                "The Sea-Wolf", "Moby Dick", "Treasure Island", "Robinson Crusoe",
-                "The Old Man and the Sea", "For Whom the Bell Tolls", "A Farewell to Arms", "The Sun Also Rises",
-                "A Clockwork Orange", "Brave New World", "The Time Machine", "The War of the Worlds",
-                "The Invisible Man", "The Island of Doctor Moreau", "Frankenstein", "Dracula",
-                "The Picture of Dorian Gray", "Dr. Jekyll and Mr. Hyde", "The Strange Case of Dr Jekyll and Mr Hyde", "The Phantom of the Opera"
-        };
 
         int totalEncontrados = 0;
+        int totalFalhas = 0;
         System.out.println("Iniciando busca por livros famosos...");
 
-        for (String titulo : titulosLivrosFamosos) {
-            System.out.println("Buscando: " + titulo);
-            Optional<Livro> livroEncontrado = servicoLivro.buscarESalvarLivroPorTitulo(titulo);
-            if (livroEncontrado.isPresent()) {
+        // Os títulos já salvos são resolvidos de uma vez no banco; só os demais vão para a API
+        Map<String, ResultadoBuscaLivro> resultados = servicoLivro.buscarESalvarLivrosPorTitulos(
+                Arrays.asList(TITULOS_LIVROS_FAMOSOS));
+        for (Map.Entry<String, ResultadoBuscaLivro> entrada : resultados.entrySet()) {
+            String titulo = entrada.getKey();
+            ResultadoBuscaLivro resultado = entrada.getValue();
+            if (resultado.livro() != null) {
                 totalEncontrados++;
-                System.out.println("Encontrado e salvo: " + livroEncontrado.get().getTitulo());
+                System.out.println("Encontrado e salvo: " + resultado.livro().getTitulo());
+            } else if (resultado.falhou()) {
+                totalFalhas++;
+                System.out.println("Falha na busca: " + titulo);
             } else {
                 System.out.println("Não encontrado: " + titulo);
             }
         }
 
-        System.out.println("Busca concluída. Total de livros encontrados e salvos: " + totalEncontrados + "\n");
+        System.out.println("Busca concluída. Total de livros encontrados e salvos: " + totalEncontrados
+                + (totalFalhas > 0 ? " - Falhas na busca: " + totalFalhas : "") + "\n");
+
+        exibirResumoModoSemInteracao();
+    }
+
+    /**
+     * Executa o modo sem interação buscando os títulos em paralelo
+     */
+    private void executarModoSemInteracaoParalelo() {
+        System.out.println("=== LiterAlura em Modo Sem Interação (Paralelo) ===\n");
+        System.out.println("Iniciando busca paralela por livros famosos...");
+
+        RelatorioIngestao relatorio = servicoIngestaoConcorrente.ingerirTitulos(
+                Arrays.asList(TITULOS_LIVROS_FAMOSOS),
+                resultado -> {
+                    if (resultado.livro() != null) {
+                        System.out.println("Encontrado e salvo: " + resultado.livro().getTitulo()
+                                + " (" + (resultado.latenciaNanos() / 1_000_000) + " ms)");
+                    } else if (resultado.falhou()) {
+                        System.out.println("Falha na busca: " + resultado.titulo()
+                                + " (" + (resultado.latenciaNanos() / 1_000_000) + " ms)");
+                    } else {
+                        System.out.println("Não encontrado: " + resultado.titulo()
+                                + " (" + (resultado.latenciaNanos() / 1_000_000) + " ms)");
+                    }
+                });
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Busca concluída. Total de livros encontrados e salvos: ").append(relatorio.totalEncontrados())
+                .append(" de ").append(relatorio.totalTitulos()).append(" títulos únicos");
+        if (relatorio.totalFalhas() > 0) {
+            sb.append(" - Falhas na busca: ").append(relatorio.totalFalhas());
+        }
+        sb.append('\n');
+        sb.append(String.format("Tempo total: %.2f s - Vazão: %.2f títulos/s%n",
+                relatorio.duracaoNanos() / 1_000_000_000.0, relatorio.vazaoPorSegundo()));
+        sb.append(String.format("Latência por título (ms): média %.1f - p50 %.1f - p95 %.1f - máx %.1f%n",
+                relatorio.latenciaMediaMillis(), relatorio.latenciaPercentilMillis(50),
+                relatorio.latenciaPercentilMillis(95), relatorio.latenciaPercentilMillis(100)));
+        System.out.println(sb);
+
+        exibirResumoModoSemInteracao();
+    }
 
+    /**
+     * Lista livros, autores e estatísticas ao final do modo sem interação
+     */
+    private void exibirResumoModoSemInteracao() {
         // Executa os outros comandos
         listarTodosLivros();
         System.out.println();
@@ -322,27 +622,102 @@ public class LiterAluraRunner implements CommandLineRunner {
         System.out.println();
         mostrarEstatisticasLivrosPorIdioma();
         System.out.println();
+        mostrarEstatisticasCacheApi();
+        System.out.println();
+        mostrarEstatisticasCacheBanco();
 
         System.out.println("=== Fim do Modo Sem Interação ===");
     }
 
+    /**
+     * Mostra os contadores do cache de respostas da API Gutendex
+     */
+    private void mostrarEstatisticasCacheApi() {
+        CacheStats estatisticas = servicoApiGutendex.obterEstatisticasCache();
+        System.out.println("=== Cache da API Gutendex ===");
+        System.out.println("Acertos: " + estatisticas.hitCount()
+                + " - Consultas à API: " + estatisticas.missCount()
+                + " - Remoções: " + estatisticas.evictionCount()
+                + String.format(" - Taxa de acerto: %.1f%%", estatisticas.hitRate() * 100));
+    }
+
+    /**
+     * Mostra os contadores de cada região do cache de segundo nível do banco de dados
+     */
+    private void mostrarEstatisticasCacheBanco() {
+        Map<String, CacheStats> regioes = servicoLivro.obterEstatisticasCacheBanco();
+        if (regioes.isEmpty()) {
+            return;
+        }
+
+        System.out.println("=== Cache do Banco de Dados ===");
+        regioes.forEach((regiao, estatisticas) -> System.out.println(regiao
+                + " - Acertos: " + estatisticas.hitCount()
+                + " - Consultas ao banco: " + estatisticas.missCount()
+                + " - Remoções: " + estatisticas.evictionCount()
+                + String.format(" - Taxa de acerto: %.1f%%", estatisticas.hitRate() * 100)));
+        System.out.println();
+    }
+
+    /**
+     * Importa o catálogo completo da API, página por página
+     */
+    private void importarCatalogo() {
+        System.out.print("Número máximo de páginas (vazio para todas): ");
+        String limiteStr = scanner.nextLine().trim();
+
+        int limitePaginas;
+        try {
+            limitePaginas = limiteStr.isEmpty() ? 0 : Integer.parseInt(limiteStr);
+        } catch (NumberFormatException e) {
+            System.out.println("Por favor, digite um número válido.");
+            return;
+        }
+
+        System.out.println("Importando catálogo...");
+        try {
+            RelatorioImportacao relatorio = servicoImportacaoCatalogo.importarCatalogo(limitePaginas, andamento ->
+                    System.out.println("Página " + andamento.paginas()
+                            + " - Livros lidos: " + andamento.livrosLidos() + "/" + andamento.totalCatalogo()
+                            + " - Novos: " + andamento.livrosInseridos()));
+
+            System.out.println(String.format("Importação concluída: %d páginas, %d livros lidos, %d livros e "
+                            + "%d autores novos em %.1f s (%.0f livros/s)",
+                    relatorio.paginas(), relatorio.livrosLidos(), relatorio.livrosInseridos(),
+                    relatorio.autoresInseridos(), relatorio.duracaoNanos() / 1_000_000_000.0,
+                    relatorio.livrosPorSegundo()));
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
     /**
      * Formata um livro para exibição
      *
      * @param livro Livro a ser formatado
      * @param sb    StringBuilder para acumular a formatação
      */
-    private void formatarLivro(Livro livro, StringBuilder sb) {
+    static void formatarLivro(Livro livro, StringBuilder sb) {
+        formatarLivro(ResumoLivro.de(livro), sb);
+    }
+
+    /**
+     * Formata o resumo de um livro para exibição
+     *
+     * @param livro Resumo do livro a ser formatado
+     * @param sb    StringBuilder para acumular a formatação
+     */
+    static void formatarLivro(ResumoLivro livro, StringBuilder sb) {
         sb.append("---------------------------\n");
-        sb.append("Título: ").append(livro.getTitulo()).append("\n");
-        sb.append("Idioma: ").append(livro.getIdioma()).append("\n");
-        sb.append("Downloads: ").append(livro.getDownloads()).append("\n");
+        sb.append("Título: ").append(livro.titulo()).append("\n");
+        sb.append("Idioma: ").append(livro.idioma()).append("\n");
+        sb.append("Downloads: ").append(livro.downloads()).append("\n");
 
-        if (livro.getAutor() != null) {
-            sb.append("Autor: ").append(livro.getAutor().getNome()).append("\n");
+        if (livro.nomeAutor() != null) {
+            sb.append("Autor: ").append(livro.nomeAutor()).append("\n");
 
-            Integer anoNascimento = livro.getAutor().getAnoNascimento();
-            Integer anoFalecimento = livro.getAutor().getAnoFalecimento();
+            Integer anoNascimento = livro.anoNascimentoAutor();
+            Integer anoFalecimento = livro.anoFalecimentoAutor();
 
             sb.append("Período: ");
             if (anoNascimento != null) {
@@ -370,7 +745,7 @@ public class LiterAluraRunner implements CommandLineRunner {
      * @param autor Autor a ser formatado
      * @param sb    StringBuilder para acumular a formatação
      */
-    private void formatarAutor(Autor autor, StringBuilder sb) {
+    static void formatarAutor(Autor autor, StringBuilder sb) {
         sb.append("---------------------------\n");
         sb.append("Nome: ").append(autor.getNome()).append("\n");
 
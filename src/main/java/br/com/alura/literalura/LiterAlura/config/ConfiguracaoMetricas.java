@@ -0,0 +1,37 @@
+package br.com.alura.literalura.LiterAlura.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuracao das metricas da aplicacao
+ */
+@Configuration
+public class ConfiguracaoMetricas {
+
+    /**
+     * Registro local no formato Prometheus, sempre disponivel para exportacao em arquivo ou /metrics,
+     * mesmo quando a exportacao automatica do Spring Boot estiver desligada
+     *
+     * @return Registro de metricas Prometheus
+     */
+    @Bean
+    public PrometheusMeterRegistry prometheusMeterRegistry() {
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    }
+
+    /**
+     * Habilita o registro de tempo dos metodos e classes anotados com @Timed
+     *
+     * @param registroMetricas Registro onde os tempos sao publicados
+     * @return Aspecto que mede os metodos anotados
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registroMetricas) {
+        return new TimedAspect(registroMetricas);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+/**
+ * Projecao com o total de downloads dos livros de um autor
+ *
+ * @param nomeAutor        O nome do autor
+ * @param quantidadeLivros Numero de livros do autor considerados
+ * @param totalDownloads   Soma dos downloads desses livros
+ */
+public record AutorDownloads(String nomeAutor, Long quantidadeLivros, Long totalDownloads) {
+}
@@ -0,0 +1,29 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+
+/**
+ * Dados imutaveis de um livro lido da API Gutendex, usados para guardar respostas em cache
+ * sem compartilhar instancias de entidade entre chamadas
+ *
+ * @param titulo         O titulo do livro
+ * @param idioma         O primeiro idioma do livro
+ * @param downloads      O numero de downloads
+ * @param nomeAutor      O nome do primeiro autor, ou nulo se o livro nao tiver autor
+ * @param anoNascimento  O ano de nascimento do autor, se conhecido
+ * @param anoFalecimento O ano de falecimento do autor, se conhecido
+ */
+public record DadosLivroGutendex(String titulo, String idioma, int downloads,
+                                 String nomeAutor, Integer anoNascimento, Integer anoFalecimento) {
+
+    /**
+     * Cria um novo livro, com um novo autor, a partir destes dados
+     *
+     * @return Livro ainda nao salvo no banco de dados
+     */
+    public Livro paraLivro() {
+        Autor autor = nomeAutor == null ? null : new Autor(nomeAutor, anoNascimento, anoFalecimento);
+        return new Livro(titulo, autor, idioma, downloads);
+    }
+}
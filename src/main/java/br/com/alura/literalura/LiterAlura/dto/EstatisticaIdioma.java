@@ -0,0 +1,29 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+import java.util.Comparator;
+
+/**
+ * Projecao com as estatisticas agregadas de livros de um idioma
+ *
+ * @param idioma          O idioma
+ * @param quantidade      Numero de livros no idioma
+ * @param totalDownloads  Soma dos downloads dos livros no idioma
+ * @param maximoDownloads Maior numero de downloads de um livro no idioma
+ */
+public record EstatisticaIdioma(String idioma, Long quantidade, Long totalDownloads, Integer maximoDownloads) {
+
+    /**
+     * Ordem das estatisticas devolvidas pelas consultas: da maior para a menor quantidade de livros,
+     * com empates em ordem alfabetica de idioma e os livros sem idioma por ultimo
+     */
+    public static final Comparator<EstatisticaIdioma> DA_MAIOR_PARA_A_MENOR_QUANTIDADE =
+            Comparator.comparing(EstatisticaIdioma::quantidade).reversed()
+                    .thenComparing(EstatisticaIdioma::idioma, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /**
+     * @return Media de downloads por livro no idioma
+     */
+    public double mediaDownloads() {
+        return quantidade == 0 ? 0.0 : (double) totalDownloads / quantidade;
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+
+/**
+ * Projecao com o id e os campos da chave unica de um autor
+ *
+ * @param id             O id do autor
+ * @param nome           O nome do autor
+ * @param anoNascimento  O ano de nascimento, se conhecido
+ * @param anoFalecimento O ano de falecimento, se conhecido
+ */
+public record IdentificacaoAutor(Long id, String nome, Integer anoNascimento, Integer anoFalecimento) {
+
+    /**
+     * Cria a identificacao de um autor ja carregado
+     *
+     * @param autor O autor
+     * @return A identificacao do autor
+     */
+    public static IdentificacaoAutor de(Autor autor) {
+        return new IdentificacaoAutor(autor.getId(), autor.getNome(), autor.getAnoNascimento(),
+                autor.getAnoFalecimento());
+    }
+}
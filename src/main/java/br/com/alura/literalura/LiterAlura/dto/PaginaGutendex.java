@@ -0,0 +1,17 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+import java.util.List;
+
+/**
+ * Uma pagina de resultados da API Gutendex
+ *
+ * @param totalLivros Numero total de livros informado pela API para a consulta
+ * @param proxima     URL da proxima pagina, ou nulo se esta for a ultima
+ * @param livros      Os livros desta pagina
+ */
+public record PaginaGutendex(int totalLivros, String proxima, List<DadosLivroGutendex> livros) {
+
+    public PaginaGutendex {
+        livros = List.copyOf(livros);
+    }
+}
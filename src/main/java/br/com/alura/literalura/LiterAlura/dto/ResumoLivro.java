@@ -0,0 +1,34 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+
+/**
+ * Projecao com os campos de um livro e de seu autor exibidos nas listagens, lida em uma unica consulta
+ * sem carregar as entidades Livro e Autor
+ *
+ * @param id                  O id do livro
+ * @param titulo              O titulo do livro
+ * @param idioma              O idioma do livro
+ * @param downloads           O numero de downloads do livro
+ * @param nomeAutor           O nome do autor, ou nulo se o livro nao tem autor
+ * @param anoNascimentoAutor  O ano de nascimento do autor, se conhecido
+ * @param anoFalecimentoAutor O ano de falecimento do autor, se conhecido
+ */
+public record ResumoLivro(Long id, String titulo, String idioma, Integer downloads,
+                          String nomeAutor, Integer anoNascimentoAutor, Integer anoFalecimentoAutor) {
+
+    /**
+     * Cria o resumo de um livro ja carregado
+     *
+     * @param livro O livro, com o autor ja carregado
+     * @return O resumo do livro
+     */
+    public static ResumoLivro de(Livro livro) {
+        Autor autor = livro.getAutor();
+        return new ResumoLivro(livro.getId(), livro.getTitulo(), livro.getIdioma(), livro.getDownloads(),
+                autor != null ? autor.getNome() : null,
+                autor != null ? autor.getAnoNascimento() : null,
+                autor != null ? autor.getAnoFalecimento() : null);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.alura.literalura.LiterAlura.dto;
+
+/**
+ * Projecao com o id, o titulo e o nome do autor de um livro, usada para montar o indice de busca
+ *
+ * @param id        O id do livro
+ * @param titulo    O titulo do livro
+ * @param nomeAutor O nome do autor, ou nulo se o livro nao tem autor
+ */
+public record TituloLivro(Long id, String titulo, String nomeAutor) {
+}
@@ -1,13 +1,18 @@
 package br.com.alura.literalura.LiterAlura.modelo;
 
+import br.com.alura.literalura.LiterAlura.repository.CacheSegundoNivel;
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Classe de modelo que representa um autor de livro
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivel.REGIAO_AUTORES)
 @Table(name = "authors", uniqueConstraints = {
         @UniqueConstraint(name = "uk_autor_nome_nascimento_falecimento", columnNames = {"nome", "anoNascimento", "anoFalecimento"})
 })
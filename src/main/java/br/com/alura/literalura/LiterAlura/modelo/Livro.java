@@ -1,13 +1,18 @@
 package br.com.alura.literalura.LiterAlura.modelo;
 
+import br.com.alura.literalura.LiterAlura.repository.CacheSegundoNivel;
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Classe de modelo que representa um livro
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivel.REGIAO_LIVROS)
 @Table(name = "books", uniqueConstraints = {
         @UniqueConstraint(name = "uk_livro_titulo_autor_idioma", columnNames = {"titulo", "author_id", "idioma"})
 })
@@ -21,7 +26,7 @@ public class Livro {
     @Column(length = 1000)
     private String titulo;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinColumn(name = "author_id")
     private Autor autor;
 
@@ -0,0 +1,95 @@
+package br.com.alura.literalura.LiterAlura.repository;
+
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapa em memoria da chave unica de cada autor (nome, anoNascimento, anoFalecimento) para o seu id.
+ * Evita tentar inserir de novo, em cascata, um autor que ja existe, o que violaria
+ * uk_autor_nome_nascimento_falecimento. E carregado da tabela de autores no primeiro uso.
+ */
+@Component
+public class CacheIdsAutores {
+
+    private final RepositorioAutor repositorioAutor;
+    private final Map<ChaveAutor, Long> ids = new ConcurrentHashMap<>();
+    private volatile boolean carregado;
+
+    public CacheIdsAutores(RepositorioAutor repositorioAutor) {
+        this.repositorioAutor = repositorioAutor;
+    }
+
+    /**
+     * Busca o id de um autor pela sua chave unica
+     *
+     * @param chave A chave do autor
+     * @return O id do autor, ou nulo se ele nao existir
+     */
+    public Long buscarId(ChaveAutor chave) {
+        carregarSeNecessario();
+        return ids.get(chave);
+    }
+
+    /**
+     * Registra um autor recem-salvo
+     *
+     * @param autor O autor, ja com id
+     */
+    public void registrar(Autor autor) {
+        if (autor != null && autor.getId() != null) {
+            ids.put(ChaveAutor.de(autor), autor.getId());
+        }
+    }
+
+    /**
+     * Registra o id de um autor recem-salvo
+     *
+     * @param chave A chave do autor
+     * @param id    O id do autor
+     */
+    public void registrar(ChaveAutor chave, Long id) {
+        ids.put(chave, id);
+    }
+
+    /**
+     * Remove uma chave cujo id nao existe mais no banco de dados
+     *
+     * @param chave A chave do autor
+     */
+    public void remover(ChaveAutor chave) {
+        ids.remove(chave);
+    }
+
+    private void carregarSeNecessario() {
+        if (carregado) {
+            return;
+        }
+        synchronized (this) {
+            if (!carregado) {
+                for (IdentificacaoAutor autor : repositorioAutor.listarIdentificacoes()) {
+                    ids.putIfAbsent(new ChaveAutor(autor.nome(), autor.anoNascimento(), autor.anoFalecimento()),
+                            autor.id());
+                }
+                carregado = true;
+            }
+        }
+    }
+
+    /**
+     * Chave unica de um autor, com comparacao de anos nulos por igualdade
+     *
+     * @param nome           O nome do autor
+     * @param anoNascimento  O ano de nascimento, se conhecido
+     * @param anoFalecimento O ano de falecimento, se conhecido
+     */
+    public record ChaveAutor(String nome, Integer anoNascimento, Integer anoFalecimento) {
+
+        public static ChaveAutor de(Autor autor) {
+            return new ChaveAutor(autor.getNome(), autor.getAnoNascimento(), autor.getAnoFalecimento());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.alura.literalura.LiterAlura.repository;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache de segundo nivel do Hibernate para o catalogo, que quase nao muda depois de importado.
+ * Guarda as entidades Livro e Autor e os resultados das consultas marcadas como cacheaveis, em caches
+ * Caffeine locais com tamanho maximo. O Hibernate atualiza as entidades e invalida as consultas
+ * a cada gravacao feita por ele; gravacoes via JDBC precisam invalidar as consultas explicitamente.
+ */
+@Component
+public class CacheSegundoNivel implements HibernatePropertiesCustomizer {
+
+    public static final String REGIAO_LIVROS = "livros";
+    public static final String REGIAO_AUTORES = "autores";
+
+    private static final AtomicInteger INSTANCIAS = new AtomicInteger();
+
+    private final boolean habilitado;
+    private final CacheManager gerenciador;
+
+    public CacheSegundoNivel(@Value("${literalura.banco.cache.habilitado:true}") boolean habilitado,
+                             @Value("${literalura.banco.cache.entidades.tamanho-maximo:50000}") long maximoEntidades,
+                             @Value("${literalura.banco.cache.consultas.tamanho-maximo:1000}") long maximoConsultas,
+                             MeterRegistry registroMetricas) {
+        this.habilitado = habilitado;
+        // Um gerenciador por contexto, para que contextos diferentes na mesma JVM nao compartilhem regioes
+        this.gerenciador = new CaffeineCachingProvider().getCacheManager(
+                URI.create("literalura:cache-segundo-nivel-" + INSTANCIAS.incrementAndGet()),
+                CacheSegundoNivel.class.getClassLoader());
+
+        criarRegiao(REGIAO_LIVROS, OptionalLong.of(maximoEntidades));
+        criarRegiao(REGIAO_AUTORES, OptionalLong.of(maximoEntidades));
+        criarRegiao(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, OptionalLong.of(maximoConsultas));
+        // Guarda apenas a ultima gravacao de cada tabela; nao pode perder entradas
+        criarRegiao(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, OptionalLong.empty());
+
+        estatisticas().keySet().forEach(regiao -> CaffeineCacheMetrics.monitor(
+                registroMetricas, caffeine(regiao), "hibernate." + regiao));
+    }
+
+    /**
+     * Liga o cache de segundo nivel e o cache de consultas no Hibernate, usando as regioes criadas aqui.
+     * Uma regiao que nao existir faz a inicializacao falhar, em vez de criar um cache sem limite de tamanho.
+     */
+    @Override
+    public void customize(Map<String, Object> propriedades) {
+        propriedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, habilitado);
+        propriedades.put(AvailableSettings.USE_QUERY_CACHE, habilitado);
+        if (habilitado) {
+            propriedades.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            propriedades.put(ConfigSettings.CACHE_MANAGER, gerenciador);
+            propriedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        }
+    }
+
+    /**
+     * @return true se o cache de segundo nivel esta ligado
+     */
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Obtem os contadores de cada regiao do cache
+     *
+     * @return Os contadores por nome de regiao
+     */
+    public Map<String, CacheStats> estatisticas() {
+        Map<String, CacheStats> estatisticas = new LinkedHashMap<>();
+        for (String regiao : gerenciador.getCacheNames()) {
+            estatisticas.put(regiao, caffeine(regiao).stats());
+        }
+        return estatisticas;
+    }
+
+    @PreDestroy
+    void fechar() {
+        gerenciador.close();
+    }
+
+    private void criarRegiao(String nome, OptionalLong tamanhoMaximo) {
+        CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>();
+        configuracao.setMaximumSize(tamanhoMaximo);
+        // O Hibernate ja guarda copias desmontadas das entidades; copiar de novo a cada leitura so custaria tempo
+        configuracao.setStoreByValue(false);
+        configuracao.setNativeStatisticsEnabled(true);
+        gerenciador.createCache(nome, configuracao);
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeine(String regiao) {
+        Cache<Object, Object> cache = gerenciador.getCache(regiao);
+        return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+    }
+}
@@ -0,0 +1,191 @@
+package br.com.alura.literalura.LiterAlura.repository;
+
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estatisticas por idioma materializadas em memoria: quantidade de livros, total e maximo de downloads.
+ * Sao montadas com uma agregacao no banco de dados quando a aplicacao inicia e depois atualizadas a cada
+ * livro gravado, de modo que consulta-las nao depende do tamanho do catalogo.
+ * <p>
+ * Os contadores de cada idioma sao LongAdder e LongAccumulator, que absorvem gravacoes concorrentes
+ * sem disputar uma trava. Uma leitura feita enquanto um livro e registrado pode ver a quantidade
+ * ja incrementada e os downloads ainda nao; cada contador, isoladamente, e sempre exato.
+ * <p>
+ * A montagem inicial pode rodar em segundo plano, para o menu aparecer sem esperar o Hibernate;
+ * nesse caso as consultas aguardam o fim da montagem.
+ */
+@Component
+public class EstatisticasIdiomas {
+
+    private final RepositorioLivro repositorioLivro;
+    private final boolean montarEmSegundoPlano;
+    private volatile Map<ChaveIdioma, Contadores> contadores = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Void> montagemInicial = CompletableFuture.completedFuture(null);
+    private final CompletableFuture<Void> primeiraMontagem = new CompletableFuture<>();
+
+    public EstatisticasIdiomas(RepositorioLivro repositorioLivro,
+                               @Value("${literalura.livros.estatisticas-idiomas.montar-em-segundo-plano:false}")
+                               boolean montarEmSegundoPlano) {
+        this.repositorioLivro = repositorioLivro;
+        this.montarEmSegundoPlano = montarEmSegundoPlano;
+    }
+
+    /**
+     * Monta as estatisticas antes do menu e da ingestao, enquanto nenhum livro esta sendo gravado.
+     * Em segundo plano, livros registrados antes do fim da montagem tem o mesmo risco descrito em
+     * {@link #reconstruir()}.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void aoIniciar() {
+        if (!montarEmSegundoPlano) {
+            try {
+                reconstruir();
+            } finally {
+                primeiraMontagem.complete(null);
+            }
+            return;
+        }
+        montagemInicial = CompletableFuture.runAsync(this::reconstruir, tarefa -> {
+            Thread construtor = new Thread(tarefa, "estatisticas-idiomas");
+            construtor.setDaemon(true);
+            construtor.start();
+        }).exceptionally(erro -> {
+            System.err.println("Erro ao montar as estatisticas por idioma: " + erro.getMessage());
+            return null;
+        });
+        montagemInicial.thenRun(() -> primeiraMontagem.complete(null));
+    }
+
+    /**
+     * @return Concluido quando a montagem feita ao iniciar a aplicacao termina, com ou sem erro
+     */
+    public CompletableFuture<Void> primeiraMontagem() {
+        return primeiraMontagem.copy();
+    }
+
+    /**
+     * Remonta as estatisticas a partir de uma agregacao no banco de dados.
+     * Livros registrados enquanto a agregacao roda podem ficar de fora ou ser contados duas vezes,
+     * conforme a agregacao os tenha visto ou nao; {@link #verificar()} detecta essa diferenca.
+     */
+    public void reconstruir() {
+        Map<ChaveIdioma, Contadores> novos = new ConcurrentHashMap<>();
+        for (EstatisticaIdioma estatistica : repositorioLivro.agregarEstatisticasPorIdioma()) {
+            novos.put(new ChaveIdioma(estatistica.idioma()), Contadores.de(estatistica));
+        }
+        contadores = novos;
+    }
+
+    /**
+     * Registra um livro recem-salvo. Deve ser chamado depois do commit, uma unica vez por livro.
+     *
+     * @param livro O livro salvo
+     */
+    public void registrar(Livro livro) {
+        registrar(livro.getIdioma(), livro.getDownloads());
+    }
+
+    /**
+     * Registra um livro recem-salvo. Deve ser chamado depois do commit, uma unica vez por livro.
+     *
+     * @param idioma    O idioma do livro
+     * @param downloads O numero de downloads do livro
+     */
+    public void registrar(String idioma, Integer downloads) {
+        ChaveIdioma chave = new ChaveIdioma(idioma);
+        Map<ChaveIdioma, Contadores> atuais = contadores;
+        Contadores contadoresIdioma = atuais.get(chave);
+        if (contadoresIdioma == null) {
+            contadoresIdioma = atuais.computeIfAbsent(chave, c -> new Contadores());
+        }
+        contadoresIdioma.registrar(downloads);
+    }
+
+    /**
+     * Obtem as estatisticas atuais de cada idioma, sem consultar o banco de dados
+     *
+     * @return Lista de estatisticas por idioma, da maior para a menor quantidade de livros
+     */
+    public List<EstatisticaIdioma> obter() {
+        montagemInicial.join();
+        List<EstatisticaIdioma> estatisticas = new ArrayList<>();
+        contadores.forEach((chave, contadoresIdioma) -> estatisticas.add(contadoresIdioma.resumir(chave.idioma())));
+        estatisticas.sort(EstatisticaIdioma.DA_MAIOR_PARA_A_MENOR_QUANTIDADE);
+        return estatisticas;
+    }
+
+    /**
+     * Compara as estatisticas materializadas com uma recontagem completa no banco de dados
+     *
+     * @return Uma descricao de cada idioma divergente; vazia se as estatisticas estao corretas
+     */
+    public List<String> verificar() {
+        Map<ChaveIdioma, EstatisticaIdioma> esperadas = new LinkedHashMap<>();
+        repositorioLivro.agregarEstatisticasPorIdioma()
+                .forEach(estatistica -> esperadas.put(new ChaveIdioma(estatistica.idioma()), estatistica));
+        Map<ChaveIdioma, EstatisticaIdioma> materializadas = new LinkedHashMap<>();
+        obter().forEach(estatistica -> materializadas.put(new ChaveIdioma(estatistica.idioma()), estatistica));
+
+        List<String> divergencias = new ArrayList<>();
+        esperadas.forEach((chave, esperada) -> {
+            EstatisticaIdioma materializada = materializadas.remove(chave);
+            if (!esperada.equals(materializada)) {
+                divergencias.add("Idioma " + chave.idioma() + ": banco " + esperada + ", memoria " + materializada);
+            }
+        });
+        materializadas.forEach((chave, materializada) -> {
+            if (materializada.quantidade() > 0) {
+                divergencias.add("Idioma " + chave.idioma() + ": banco sem livros, memoria " + materializada);
+            }
+        });
+        return divergencias;
+    }
+
+    /**
+     * ConcurrentHashMap nao aceita chave nula, e livros sem idioma tambem sao contados
+     */
+    private record ChaveIdioma(String idioma) {
+    }
+
+    private static final class Contadores {
+
+        private final LongAdder quantidade = new LongAdder();
+        private final LongAdder totalDownloads = new LongAdder();
+        private final LongAccumulator maximoDownloads = new LongAccumulator(Math::max, 0);
+
+        static Contadores de(EstatisticaIdioma estatistica) {
+            Contadores contadores = new Contadores();
+            contadores.quantidade.add(estatistica.quantidade());
+            contadores.totalDownloads.add(estatistica.totalDownloads());
+            contadores.maximoDownloads.accumulate(estatistica.maximoDownloads());
+            return contadores;
+        }
+
+        void registrar(Integer downloads) {
+            quantidade.increment();
+            if (downloads != null) {
+                totalDownloads.add(downloads);
+                maximoDownloads.accumulate(downloads);
+            }
+        }
+
+        EstatisticaIdioma resumir(String idioma) {
+            return new EstatisticaIdioma(idioma, quantidade.sum(), totalDownloads.sum(),
+                    Math.toIntExact(maximoDownloads.get()));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package br.com.alura.literalura.LiterAlura.repository;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.repository.CacheIdsAutores.ChaveAutor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grava lotes de livros e autores com inserts em batch via JDBC.
+ * As entidades usam ids IDENTITY, o que impede o Hibernate de agrupar inserts; aqui o banco gera os ids
+ * e os inserts sao enviados em um unico batch por tabela.
+ */
+@Repository
+public class GravadorLoteCatalogo {
+
+    private static final String SQL_BUSCAR_AUTORES =
+            "SELECT id, nome, ano_nascimento, ano_falecimento FROM authors WHERE nome IN (:nomes)";
+    private static final String SQL_INSERIR_AUTOR =
+            "INSERT INTO authors (nome, ano_nascimento, ano_falecimento) VALUES (?, ?, ?)";
+    private static final String SQL_BUSCAR_LIVROS =
+            "SELECT titulo, author_id, idioma FROM books WHERE titulo IN (:titulos)";
+    private static final String SQL_INSERIR_LIVRO =
+            "INSERT INTO books (titulo, author_id, idioma, downloads) VALUES (?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final CacheIdsAutores cacheIdsAutores;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EstatisticasIdiomas estatisticasIdiomas;
+
+    public GravadorLoteCatalogo(NamedParameterJdbcTemplate jdbc, CacheIdsAutores cacheIdsAutores,
+                                EntityManagerFactory entityManagerFactory, EstatisticasIdiomas estatisticasIdiomas) {
+        this.jdbc = jdbc;
+        this.cacheIdsAutores = cacheIdsAutores;
+        this.entityManagerFactory = entityManagerFactory;
+        this.estatisticasIdiomas = estatisticasIdiomas;
+    }
+
+    /**
+     * Grava os livros e autores que ainda nao existem no banco de dados, em uma unica transacao
+     *
+     * @param livros Os livros a gravar; repetidos e ja existentes sao ignorados
+     * @return Quantos livros e autores foram inseridos
+     */
+    @Transactional
+    public ResultadoGravacao gravar(List<DadosLivroGutendex> livros) {
+        if (livros.isEmpty()) {
+            return new ResultadoGravacao(0, 0);
+        }
+
+        Set<ChaveAutor> autoresDoLote = new LinkedHashSet<>();
+        for (DadosLivroGutendex livro : livros) {
+            if (livro.nomeAutor() != null) {
+                autoresDoLote.add(chaveAutor(livro));
+            }
+        }
+
+        // Autores ja conhecidos saem do cache; so os desconhecidos sao consultados e inseridos
+        Map<ChaveAutor, Long> idsAutores = new HashMap<>();
+        List<ChaveAutor> autoresDesconhecidos = new ArrayList<>();
+        for (ChaveAutor autor : autoresDoLote) {
+            Long id = cacheIdsAutores.buscarId(autor);
+            if (id != null) {
+                idsAutores.put(autor, id);
+            } else {
+                autoresDesconhecidos.add(autor);
+            }
+        }
+        idsAutores.putAll(buscarIdsAutores(autoresDesconhecidos));
+
+        List<ChaveAutor> autoresNovos = autoresDesconhecidos.stream()
+                .filter(autor -> !idsAutores.containsKey(autor))
+                .toList();
+        Map<ChaveAutor, Long> idsNovos = Map.of();
+        if (!autoresNovos.isEmpty()) {
+            inserirAutores(autoresNovos);
+            idsNovos = buscarIdsAutores(autoresNovos);
+            idsAutores.putAll(idsNovos);
+        }
+
+        Set<ChaveLivro> livrosExistentes = buscarLivrosExistentes(livros);
+        List<Object[]> livrosNovos = new ArrayList<>();
+        for (DadosLivroGutendex livro : livros) {
+            Long idAutor = livro.nomeAutor() == null ? null : idsAutores.get(chaveAutor(livro));
+            if (livrosExistentes.add(new ChaveLivro(livro.titulo(), idAutor, livro.idioma()))) {
+                livrosNovos.add(new Object[]{livro.titulo(), idAutor, livro.idioma(), livro.downloads()});
+            }
+        }
+        inserirLivros(livrosNovos);
+
+        if (!livrosNovos.isEmpty() || !autoresNovos.isEmpty()) {
+            atualizarCachesAposCommit(livrosNovos, idsNovos);
+        }
+        return new ResultadoGravacao(livrosNovos.size(), autoresNovos.size());
+    }
+
+    /**
+     * Os inserts via JDBC nao passam pelo Hibernate, que por isso nao sabe que os resultados das consultas
+     * em cache mudaram. As entidades em cache continuam validas, pois nada existente foi alterado.
+     * Os livros inseridos entram nas estatisticas por idioma, e os autores inseridos no cache de ids,
+     * so se a transacao for confirmada; um id de uma transacao revertida levaria lotes seguintes a gravar
+     * livros com uma chave estrangeira inexistente.
+     */
+    private void atualizarCachesAposCommit(List<Object[]> livrosNovos, Map<ChaveAutor, Long> idsAutoresNovos) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictQueryRegions();
+                idsAutoresNovos.forEach(cacheIdsAutores::registrar);
+                for (Object[] livro : livrosNovos) {
+                    estatisticasIdiomas.registrar((String) livro[2], (Integer) livro[3]);
+                }
+            }
+        });
+    }
+
+    private Map<ChaveAutor, Long> buscarIdsAutores(Iterable<ChaveAutor> autores) {
+        Set<String> nomes = new HashSet<>();
+        autores.forEach(autor -> nomes.add(autor.nome()));
+
+        Map<ChaveAutor, Long> ids = new HashMap<>();
+        if (nomes.isEmpty()) {
+            return ids;
+        }
+        jdbc.query(SQL_BUSCAR_AUTORES, Map.of("nomes", nomes), linha -> {
+            ChaveAutor chave = new ChaveAutor(linha.getString("nome"),
+                    linha.getObject("ano_nascimento", Integer.class),
+                    linha.getObject("ano_falecimento", Integer.class));
+            ids.putIfAbsent(chave, linha.getLong("id"));
+        });
+        return ids;
+    }
+
+    private Set<ChaveLivro> buscarLivrosExistentes(List<DadosLivroGutendex> livros) {
+        Set<String> titulos = new HashSet<>();
+        livros.forEach(livro -> titulos.add(livro.titulo()));
+
+        Set<ChaveLivro> existentes = new HashSet<>();
+        jdbc.query(SQL_BUSCAR_LIVROS, Map.of("titulos", titulos), linha -> {
+            existentes.add(new ChaveLivro(linha.getString("titulo"),
+                    linha.getObject("author_id", Long.class),
+                    linha.getString("idioma")));
+        });
+        return existentes;
+    }
+
+    private void inserirAutores(List<ChaveAutor> autores) {
+        jdbc.getJdbcTemplate().batchUpdate(SQL_INSERIR_AUTOR, autores, autores.size(), (ps, autor) -> {
+            ps.setString(1, autor.nome());
+            definirInteiro(ps, 2, autor.anoNascimento());
+            definirInteiro(ps, 3, autor.anoFalecimento());
+        });
+    }
+
+    private void inserirLivros(List<Object[]> livros) {
+        if (livros.isEmpty()) {
+            return;
+        }
+        jdbc.getJdbcTemplate().batchUpdate(SQL_INSERIR_LIVRO, livros, livros.size(), (ps, livro) -> {
+            ps.setString(1, (String) livro[0]);
+            if (livro[1] == null) {
+                ps.setNull(2, Types.BIGINT);
+            } else {
+                ps.setLong(2, (Long) livro[1]);
+            }
+            ps.setString(3, (String) livro[2]);
+            definirInteiro(ps, 4, (Integer) livro[3]);
+        });
+    }
+
+    private static ChaveAutor chaveAutor(DadosLivroGutendex livro) {
+        return new ChaveAutor(livro.nomeAutor(), livro.anoNascimento(), livro.anoFalecimento());
+    }
+
+    private static void definirInteiro(PreparedStatement ps, int indice, Integer valor) throws SQLException {
+        if (valor == null) {
+            ps.setNull(indice, Types.INTEGER);
+        } else {
+            ps.setInt(indice, valor);
+        }
+    }
+
+    /**
+     * Quantidade de registros inseridos em uma gravacao
+     *
+     * @param livrosInseridos  Numero de livros inseridos
+     * @param autoresInseridos Numero de autores inseridos
+     */
+    public record ResultadoGravacao(int livrosInseridos, int autoresInseridos) {
+    }
+
+    private record ChaveLivro(String titulo, Long idAutor, String idioma) {
+    }
+}
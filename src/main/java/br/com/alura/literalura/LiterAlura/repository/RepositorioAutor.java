@@ -1,12 +1,21 @@
 package br.com.alura.literalura.LiterAlura.repository;
 
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
 import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 
 /**
@@ -15,6 +24,49 @@ import java.util.List;
 @Repository
 public interface RepositorioAutor extends JpaRepository<Autor, Long> {
 
+    /**
+     * Percorre todos os autores em ordem de id, lendo do banco em blocos em vez de carregar a tabela inteira.
+     * Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream com todos os autores
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Autor a ORDER BY a.id")
+    Stream<Autor> transmitirTodos();
+
+    /**
+     * Lista o id e a chave unica de todos os autores, sem carregar as entidades
+     *
+     * @return Lista com a identificacao de cada autor
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor(a.id, a.nome, a.anoNascimento, a.anoFalecimento) FROM Autor a")
+    List<IdentificacaoAutor> listarIdentificacoes();
+
+    /**
+     * Percorre o id e a chave unica de todos os autores em ordem de id, sem carregar as entidades.
+     * Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream com a identificacao de cada autor
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor(a.id, a.nome, a.anoNascimento, a.anoFalecimento) FROM Autor a ORDER BY a.id")
+    Stream<IdentificacaoAutor> transmitirIdentificacoes();
+
+    /**
+     * Percorre o total de downloads dos livros de cada autor, sem ordenar: o banco so agrupa, e quem consome
+     * escolhe os maiores sem guardar todos. Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream com um total por autor, em ordem indefinida
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.AutorDownloads(" +
+            "a.nome, COUNT(l), COALESCE(SUM(l.downloads), 0L)) " +
+            "FROM Livro l JOIN l.autor a GROUP BY a.id, a.nome")
+    Stream<AutorDownloads> transmitirDownloadsPorAutor();
+
     /**
      * Busca autores que estavam vivos em um ano especifico.
      * Um autor e considerado vivo em um ano se:
@@ -24,9 +76,21 @@ public interface RepositorioAutor extends JpaRepository<Autor, Long> {
      * @param ano O ano para verificar se os autores estavam vivos
      * @return Lista de autores vivos no ano especificado
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("SELECT a FROM Autor a WHERE a.anoNascimento <= :ano AND (a.anoFalecimento IS NULL OR a.anoFalecimento >= :ano)")
     List<Autor> buscarAutoresVivosNoAno(@Param("ano") Integer ano);
 
+    /**
+     * Busca autores que estavam vivos em algum momento de um periodo.
+     * Um autor e considerado vivo no periodo se nasceu ate o ano final e nao morreu antes do ano inicial.
+     *
+     * @param anoInicial Primeiro ano do periodo
+     * @param anoFinal   Ultimo ano do periodo
+     * @return Lista de autores vivos em algum ano do periodo
+     */
+    @Query("SELECT a FROM Autor a WHERE a.anoNascimento <= :anoFinal AND (a.anoFalecimento IS NULL OR a.anoFalecimento >= :anoInicial)")
+    List<Autor> buscarAutoresVivosNoPeriodo(@Param("anoInicial") Integer anoInicial, @Param("anoFinal") Integer anoFinal);
+
     /**
      * Metodo alternativo usando nome de consulta derivado
      *
@@ -1,20 +1,71 @@
 package br.com.alura.literalura.LiterAlura.repository;
 
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+import br.com.alura.literalura.LiterAlura.dto.TituloLivro;
 import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Repositorio para operacoes de banco de dados relacionadas a entidade Livro.
+ * O autor de um livro e carregado sob demanda; os metodos que devolvem entidades para uso fora de uma
+ * transacao trazem o autor na mesma consulta, e as listagens usam a projecao ResumoLivro.
+ */
 @Repository
 public interface RepositorioLivro extends JpaRepository<Livro, Long> {
+
+    /**
+     * Busca um livro pelo id, junto com o autor
+     *
+     * @param id O id do livro
+     * @return Um Optional contendo o livro se encontrado, ou vazio se nao encontrado
+     */
+    @Override
+    @EntityGraph(attributePaths = "autor")
+    Optional<Livro> findById(Long id);
+
+    /**
+     * Busca os livros com os ids informados, junto com seus autores
+     *
+     * @param ids Os ids dos livros
+     * @return Os livros encontrados, em qualquer ordem
+     */
+    @Override
+    @EntityGraph(attributePaths = "autor")
+    List<Livro> findAllById(Iterable<Long> ids);
+
+    /**
+     * Busca todos os livros, junto com seus autores
+     *
+     * @return Lista de todos os livros
+     */
+    @Override
+    @EntityGraph(attributePaths = "autor")
+    List<Livro> findAll();
+
     /**
      * Busca um livro pelo titulo exato
      *
      * @param titulo O titulo do livro a ser buscado
      * @return Um Optional contendo o livro se encontrado, ou vazio se nao encontrado
      */
+    @EntityGraph(attributePaths = "autor")
     Optional<Livro> findByTitulo(String titulo);
 
     /**
@@ -23,15 +74,191 @@ public interface RepositorioLivro extends JpaRepository<Livro, Long> {
      * @param titulo O titulo dos livros a serem buscados
      * @return Uma lista de livros com o titulo especificado
      */
+    @EntityGraph(attributePaths = "autor")
     List<Livro> findAllByTitulo(String titulo);
 
+    /**
+     * Busca livros pelo titulo sem diferenciar maiusculas de minusculas, junto com seus autores.
+     * No PostgreSQL usa o indice idx_livro_titulo_minusculo.
+     *
+     * @param titulo O titulo dos livros a serem buscados
+     * @return Os livros com o titulo, em ordem de id
+     */
+    @Query("SELECT l FROM Livro l LEFT JOIN FETCH l.autor WHERE lower(l.titulo) = lower(:titulo) ORDER BY l.id")
+    List<Livro> buscarPorTituloSemDiferenciarCaixa(@Param("titulo") String titulo);
+
+    /**
+     * Lista o resumo dos livros com o titulo exato informado
+     *
+     * @param titulo O titulo dos livros
+     * @return Os resumos dos livros com o titulo, em ordem de id
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a WHERE l.titulo = :titulo ORDER BY l.id")
+    List<ResumoLivro> listarResumosPorTitulo(@Param("titulo") String titulo);
+
+    /**
+     * Lista o resumo dos livros com os ids informados
+     *
+     * @param ids Os ids dos livros
+     * @return Os resumos dos livros encontrados, em qualquer ordem
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a WHERE l.id IN :ids")
+    List<ResumoLivro> listarResumosPorIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca em uma unica consulta os livros com os ids informados ou com algum dos titulos informados,
+     * sem diferenciar maiusculas de minusculas, como {@link #buscarPorTituloSemDiferenciarCaixa(String)}.
+     * No PostgreSQL usa o indice idx_livro_titulo_minusculo.
+     *
+     * @param ids               Ids dos livros, como os encontrados no indice de titulos
+     * @param titulosMinusculos Titulos em minusculas
+     * @return Os livros encontrados e seus autores, em ordem de id
+     */
+    @Query("SELECT l FROM Livro l LEFT JOIN FETCH l.autor " +
+            "WHERE l.id IN :ids OR lower(l.titulo) IN :titulosMinusculos ORDER BY l.id")
+    List<Livro> buscarPorIdsOuTitulos(@Param("ids") Collection<Long> ids,
+                                      @Param("titulosMinusculos") Collection<String> titulosMinusculos);
+
+    /**
+     * Busca em uma unica consulta os livros com algum dos titulos exatos informados
+     *
+     * @param titulos Titulos exatos
+     * @return Os livros encontrados e seus autores, em ordem de id
+     */
+    @Query("SELECT l FROM Livro l LEFT JOIN FETCH l.autor WHERE l.titulo IN :titulos ORDER BY l.id")
+    List<Livro> buscarPorTitulos(@Param("titulos") Collection<String> titulos);
+
+    /**
+     * Busca um livro pela mesma chave da restricao uk_livro_titulo_autor_idioma (titulo, autor, idioma).
+     * O autor e localizado pelo indice de uk_autor_nome_nascimento_falecimento, que comeca por nome,
+     * e o livro pelo indice de uk_livro_titulo_autor_idioma, sem varrer nenhuma das tabelas.
+     *
+     * @param titulo    O titulo do livro
+     * @param nomeAutor O nome do autor do livro
+     * @param idioma    O idioma do livro
+     * @return Um Optional contendo o livro se encontrado, ou vazio se nao encontrado
+     */
+    @EntityGraph(attributePaths = "autor")
+    Optional<Livro> findFirstByTituloAndAutorNomeAndIdioma(String titulo, String nomeAutor, String idioma);
+
+    /**
+     * Busca um livro sem autor pelo titulo e idioma
+     *
+     * @param titulo O titulo do livro
+     * @param idioma O idioma do livro
+     * @return Um Optional contendo o livro se encontrado, ou vazio se nao encontrado
+     */
+    Optional<Livro> findFirstByTituloAndAutorIsNullAndIdioma(String titulo, String idioma);
+
+    /**
+     * Percorre o resumo de todos os livros em ordem de id, sem carregar as entidades.
+     * Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream com o resumo de todos os livros
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a ORDER BY l.id")
+    Stream<ResumoLivro> transmitirResumos();
+
+    /**
+     * Percorre os campos de cada livro gravados no snapshot do catalogo, em ordem de id, com o id do autor
+     * em vez dos seus campos. Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream de linhas com id, titulo, idioma, downloads e id do autor (nulo se o livro nao tem autor)
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT l.id, l.titulo, l.idioma, l.downloads, a.id FROM Livro l LEFT JOIN l.autor a ORDER BY l.id")
+    Stream<Object[]> transmitirLinhasSnapshot();
+
+    /**
+     * Percorre o idioma, os downloads e o id do autor de cada livro em ordem de id, sem o titulo, para o
+     * catalogo colunar. Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream de linhas com idioma, downloads e id do autor (nulo se o livro nao tem autor)
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "2000"))
+    @Query("SELECT l.idioma, l.downloads, a.id FROM Livro l LEFT JOIN l.autor a ORDER BY l.id")
+    Stream<Object[]> transmitirLinhasColunares();
+
+    /**
+     * Percorre o id, o titulo e o nome do autor de todos os livros em ordem de id, sem carregar as entidades.
+     * Precisa ser consumido dentro de uma transacao e fechado ao final.
+     *
+     * @return Stream com os titulos de todos os livros
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "2000"))
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.TituloLivro(l.id, l.titulo, a.nome) " +
+            "FROM Livro l LEFT JOIN l.autor a ORDER BY l.id")
+    Stream<TituloLivro> transmitirTitulos();
+
     /**
      * Busca livros pelo idioma
      *
      * @param idioma O idioma dos livros a serem buscados
-     * @return Uma lista de livros no idioma especificado
+     * @return Uma lista de livros no idioma especificado, em ordem de id
      */
-    List<Livro> findByIdioma(String idioma);
+    @EntityGraph(attributePaths = "autor")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Livro> findByIdiomaOrderById(String idioma);
+
+    /**
+     * Lista o resumo dos livros de um idioma
+     *
+     * @param idioma O idioma dos livros
+     * @return Os resumos dos livros no idioma, em ordem de id
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a WHERE l.idioma = :idioma ORDER BY l.id")
+    List<ResumoLivro> listarResumosPorIdioma(@Param("idioma") String idioma);
+
+    /**
+     * Lista uma pagina do resumo dos livros de um idioma, a partir do id seguinte ao informado.
+     * Usa o indice idx_livro_idioma_id, que ja esta na ordem pedida, entao so as linhas da pagina sao lidas.
+     *
+     * @param idioma    O idioma dos livros
+     * @param aposId    O ultimo id da pagina anterior, ou zero para a primeira pagina
+     * @param paginacao Limita quantos livros sao retornados
+     * @return Os resumos dos livros no idioma com id maior que aposId, em ordem de id
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a WHERE l.idioma = :idioma AND l.id > :aposId ORDER BY l.id")
+    List<ResumoLivro> listarResumosPorIdiomaAposId(@Param("idioma") String idioma, @Param("aposId") long aposId,
+                                                   Pageable paginacao);
+
+    /**
+     * Lista o resumo dos livros com mais downloads. Usa o indice idx_livro_downloads, que ja esta na ordem
+     * pedida, entao so as primeiras linhas sao lidas.
+     *
+     * @param paginacao Limita quantos livros sao retornados
+     * @return Os resumos dos livros, do mais baixado para o menos baixado
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a WHERE l.downloads IS NOT NULL ORDER BY l.downloads DESC, l.id")
+    List<ResumoLivro> listarResumosMaisBaixados(Pageable paginacao);
+
+    /**
+     * Lista o resumo dos livros de um idioma com mais downloads, usando o indice idx_livro_idioma_downloads.
+     * Ordenar tambem pelo idioma, que e fixo, nao muda o resultado, mas deixa a ordenacao igual a do indice:
+     * o H2 so dispensa a ordenacao quando ela comeca pela primeira coluna do indice.
+     *
+     * @param idioma    O idioma dos livros
+     * @param paginacao Limita quantos livros sao retornados
+     * @return Os resumos dos livros no idioma, do mais baixado para o menos baixado
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.ResumoLivro(" +
+            "l.id, l.titulo, l.idioma, l.downloads, a.nome, a.anoNascimento, a.anoFalecimento) " +
+            "FROM Livro l LEFT JOIN l.autor a WHERE l.idioma = :idioma AND l.downloads IS NOT NULL " +
+            "ORDER BY l.idioma, l.downloads DESC, l.id")
+    List<ResumoLivro> listarResumosMaisBaixadosPorIdioma(@Param("idioma") String idioma, Pageable paginacao);
 
     /**
      * Conta livros por idioma
@@ -39,5 +266,30 @@ public interface RepositorioLivro extends JpaRepository<Livro, Long> {
      * @param idioma O idioma dos livros a serem contados
      * @return O numero de livros no idioma especificado
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     long countByIdioma(String idioma);
+
+    /**
+     * Agrega no banco de dados a quantidade e os downloads dos livros de cada idioma.
+     * Retorna uma linha por idioma, sem carregar as entidades Livro e Autor.
+     *
+     * @return Lista de estatisticas por idioma, da maior para a menor quantidade de livros
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma(" +
+            "l.idioma, COUNT(l), COALESCE(SUM(l.downloads), 0L), COALESCE(MAX(l.downloads), 0)) " +
+            "FROM Livro l GROUP BY l.idioma ORDER BY COUNT(l) DESC, l.idioma")
+    List<EstatisticaIdioma> agregarEstatisticasPorIdioma();
+
+    /**
+     * Busca os autores com mais downloads em um idioma
+     *
+     * @param idioma    O idioma dos livros considerados
+     * @param paginacao Limita quantos autores sao retornados
+     * @return Lista de autores ordenada pelo total de downloads, do maior para o menor
+     */
+    @Query("SELECT new br.com.alura.literalura.LiterAlura.dto.AutorDownloads(" +
+            "a.nome, COUNT(l), COALESCE(SUM(l.downloads), 0L)) " +
+            "FROM Livro l JOIN l.autor a WHERE l.idioma = :idioma " +
+            "GROUP BY a.id, a.nome ORDER BY COALESCE(SUM(l.downloads), 0L) DESC, a.nome")
+    List<AutorDownloads> buscarAutoresMaisBaixadosPorIdioma(@Param("idioma") String idioma, Pageable paginacao);
 }
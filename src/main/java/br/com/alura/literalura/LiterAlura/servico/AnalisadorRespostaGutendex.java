@@ -0,0 +1,201 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.dto.PaginaGutendex;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Le as respostas da API Gutendex em streaming, sem montar a arvore JSON completa.
+ * Apenas os campos usados por Livro e Autor sao lidos; na busca por titulo a leitura para no primeiro resultado.
+ */
+public class AnalisadorRespostaGutendex {
+
+    private final JsonFactory fabricaJson;
+
+    public AnalisadorRespostaGutendex(JsonFactory fabricaJson) {
+        this.fabricaJson = fabricaJson;
+    }
+
+    /**
+     * Analisa o primeiro livro da resposta da API
+     *
+     * @param corpoResposta O corpo da resposta JSON; e fechado ao final
+     * @return Optional contendo o primeiro livro, ou vazio se nenhum for encontrado
+     * @throws IOException se o corpo nao puder ser lido ou nao tiver o formato esperado
+     */
+    public Optional<DadosLivroGutendex> analisarPrimeiroLivro(InputStream corpoResposta) throws IOException {
+        try (JsonParser parser = fabricaJson.createParser(corpoResposta)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Resposta da API nao e um objeto JSON");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+
+                if ("results".equals(campo) && valor == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        return Optional.of(lerLivro(parser));
+                    }
+                    return Optional.empty();
+                }
+                parser.skipChildren();
+            }
+
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Analisa uma pagina inteira da resposta da API, mantendo todos os livros e o link para a proxima pagina
+     *
+     * @param corpoResposta O corpo da resposta JSON; e fechado ao final
+     * @return A pagina com todos os livros encontrados
+     * @throws IOException se o corpo nao puder ser lido ou nao tiver o formato esperado
+     */
+    public PaginaGutendex analisarPagina(InputStream corpoResposta) throws IOException {
+        try (JsonParser parser = fabricaJson.createParser(corpoResposta)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Resposta da API nao e um objeto JSON");
+            }
+
+            int totalLivros = 0;
+            String proxima = null;
+            List<DadosLivroGutendex> livros = new ArrayList<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+
+                switch (campo) {
+                    case "count" -> totalLivros = parser.getValueAsInt();
+                    case "next" -> proxima = valor == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                    case "results" -> {
+                        if (valor == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                livros.add(lerLivro(parser));
+                            }
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return new PaginaGutendex(totalLivros, proxima, livros);
+        }
+    }
+
+    /**
+     * Le um objeto de livro, com o parser posicionado no inicio do objeto
+     */
+    private DadosLivroGutendex lerLivro(JsonParser parser) throws IOException {
+        String titulo = null;
+        String idioma = "";
+        int downloads = 0;
+        AutorLido autor = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            JsonToken valor = parser.nextToken();
+
+            switch (campo) {
+                case "title" -> titulo = parser.getValueAsString();
+                case "download_count" -> downloads = parser.getValueAsInt();
+                // Obtem o primeiro idioma (conforme requisitos)
+                case "languages" -> {
+                    JsonToken primeiro = primeiroElemento(parser, valor);
+                    if (primeiro == JsonToken.VALUE_STRING) {
+                        idioma = parser.getText();
+                    }
+                    pularRestanteDoArray(parser, primeiro);
+                }
+                // Obtem o primeiro autor (conforme requisitos)
+                case "authors" -> {
+                    JsonToken primeiro = primeiroElemento(parser, valor);
+                    if (primeiro == JsonToken.START_OBJECT) {
+                        autor = lerAutor(parser);
+                    }
+                    pularRestanteDoArray(parser, primeiro);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (titulo == null) {
+            throw new JsonParseException(parser, "Livro sem titulo na resposta da API");
+        }
+
+        if (autor == null) {
+            return new DadosLivroGutendex(titulo, idioma, downloads, null, null, null);
+        }
+        return new DadosLivroGutendex(titulo, idioma, downloads, autor.nome(), autor.anoNascimento(),
+                autor.anoFalecimento());
+    }
+
+    /**
+     * Le um objeto de autor, com o parser posicionado no inicio do objeto
+     */
+    private AutorLido lerAutor(JsonParser parser) throws IOException {
+        String nome = null;
+        Integer anoNascimento = null;
+        Integer anoFalecimento = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            JsonToken valor = parser.nextToken();
+
+            switch (campo) {
+                case "name" -> nome = parser.getValueAsString();
+                case "birth_year" -> anoNascimento = valor == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                case "death_year" -> anoFalecimento = valor == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new AutorLido(nome, anoNascimento, anoFalecimento);
+    }
+
+    /**
+     * Posiciona o parser no primeiro elemento de um array. Se o valor nao for um array, ele e pulado.
+     *
+     * @return O token do primeiro elemento, END_ARRAY se o array estiver vazio, ou nulo se o valor nao for um array
+     */
+    private static JsonToken primeiroElemento(JsonParser parser, JsonToken valor) throws IOException {
+        if (valor != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.nextToken();
+    }
+
+    /**
+     * Avanca o parser ate o fim do array atual, pulando os elementos restantes. O primeiro elemento pode
+     * ter sido lido ou nao: um objeto ou array ainda no inicio e pulado inteiro.
+     *
+     * @param primeiro O token devolvido por {@link #primeiroElemento}
+     */
+    private static void pularRestanteDoArray(JsonParser parser, JsonToken primeiro) throws IOException {
+        if (primeiro == null || primeiro == JsonToken.END_ARRAY) {
+            return;
+        }
+        if (parser.currentToken() == JsonToken.START_OBJECT || parser.currentToken() == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            parser.skipChildren();
+        }
+    }
+
+    private record AutorLido(String nome, Integer anoNascimento, Integer anoFalecimento) {
+    }
+}
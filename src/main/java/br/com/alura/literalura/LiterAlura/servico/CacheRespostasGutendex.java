@@ -0,0 +1,206 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Cache das respostas da API Gutendex por titulo buscado.
+ * Usa eviction W-TinyLFU limitada por tamanho, TTL configuravel e guarda tambem os titulos sem resultado,
+ * com um TTL proprio. Buscas simultaneas pelo mesmo titulo compartilham a mesma consulta em andamento.
+ * Opcionalmente e salvo em disco ao encerrar e recarregado ao iniciar.
+ */
+@Component
+public class CacheRespostasGutendex {
+
+    private final ObjectMapper mapeadorObjeto;
+    private final Duration ttl;
+    private final Duration ttlNegativo;
+    private final String arquivo;
+    private final Clock relogio;
+    private final AsyncCache<String, EntradaCache> cache;
+
+    @Autowired
+    public CacheRespostasGutendex(ObjectMapper mapeadorObjeto,
+                                  @Value("${literalura.api.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                                  @Value("${literalura.api.cache.ttl:24h}") Duration ttl,
+                                  @Value("${literalura.api.cache.ttl-negativo:1h}") Duration ttlNegativo,
+                                  @Value("${literalura.api.cache.arquivo:}") String arquivo) {
+        this(mapeadorObjeto, tamanhoMaximo, ttl, ttlNegativo, arquivo,
+                Clock.systemUTC(), Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param relogio  Relogio usado para datar as respostas e calcular quando expiram, inclusive as salvas em disco
+     * @param ticker   Tempo usado pelo Caffeine para verificar a expiracao, que deve andar junto com o relogio
+     * @param executor Executor da manutencao do cache, como a remocao por tamanho
+     */
+    CacheRespostasGutendex(ObjectMapper mapeadorObjeto, long tamanhoMaximo, Duration ttl, Duration ttlNegativo,
+                           String arquivo, Clock relogio, Ticker ticker, Executor executor) {
+        this.mapeadorObjeto = mapeadorObjeto;
+        this.ttl = ttl;
+        this.ttlNegativo = ttlNegativo;
+        this.arquivo = arquivo;
+        this.relogio = relogio;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfter(new ExpiracaoPorEntrada())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Obtem a resposta em cache para o titulo ou, se nao houver, consulta a API e guarda o resultado.
+     * Se a consulta falhar, nada e guardado e o resultado conclui com a mesma falha.
+     * Chamadas simultaneas para o mesmo titulo compartilham uma unica consulta.
+     *
+     * @param titulo   O titulo buscado
+     * @param consulta Consulta assincrona a API para o titulo
+     * @return Resultado com os dados do livro, ou vazio se a API nao encontrou nenhum
+     */
+    public CompletableFuture<Optional<DadosLivroGutendex>> obter(
+            String titulo, Function<String, CompletableFuture<Optional<DadosLivroGutendex>>> consulta) {
+        return cache.get(normalizarTitulo(titulo),
+                        (chave, executor) -> consulta.apply(titulo)
+                                .thenApply(dados -> new EntradaCache(dados.orElse(null), relogio.millis())))
+                .thenApply(entrada -> Optional.ofNullable(entrada.dados()));
+    }
+
+    /**
+     * @return Contadores de acertos, falhas e remocoes do cache
+     */
+    public CacheStats estatisticas() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * @return Numero aproximado de titulos em cache
+     */
+    public long tamanho() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Publica os contadores do cache (acertos, falhas, remocoes e tamanho) no registro de metricas
+     *
+     * @param registroMetricas O registro de metricas
+     */
+    public void registrarMetricas(MeterRegistry registroMetricas) {
+        CaffeineCacheMetrics.monitor(registroMetricas, cache, "gutendex");
+    }
+
+    /**
+     * Normaliza o titulo para que buscas equivalentes usem a mesma entrada do cache
+     *
+     * @param titulo O titulo buscado
+     * @return O titulo sem espacos extras e em minusculas
+     */
+    static String normalizarTitulo(String titulo) {
+        return titulo.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Carrega do disco as entradas salvas na execucao anterior, se a persistencia estiver habilitada
+     */
+    @PostConstruct
+    void carregarDoDisco() {
+        if (arquivo.isBlank() || !Files.exists(Path.of(arquivo))) {
+            return;
+        }
+        try {
+            Map<String, EntradaCache> entradas = mapeadorObjeto.readValue(Path.of(arquivo).toFile(),
+                    new TypeReference<Map<String, EntradaCache>>() {
+                    });
+            long agora = relogio.millis();
+            entradas.forEach((chave, entrada) -> {
+                if (entrada.expiraEm(ttl, ttlNegativo) > agora) {
+                    cache.synchronous().put(chave, entrada);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar cache da API: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Salva as entradas do cache em disco, se a persistencia estiver habilitada
+     */
+    @PreDestroy
+    void salvarNoDisco() {
+        if (arquivo.isBlank()) {
+            return;
+        }
+        try {
+            Path destino = Path.of(arquivo).toAbsolutePath();
+            Files.createDirectories(destino.getParent());
+            Path temporario = Files.createTempFile(destino.getParent(), "cache-gutendex", ".tmp");
+            mapeadorObjeto.writeValue(temporario.toFile(), Map.copyOf(cache.synchronous().asMap()));
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar cache da API: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entrada do cache. Dados nulos indicam que a API nao encontrou nenhum livro para o titulo.
+     *
+     * @param dados          Os dados do livro, ou nulo
+     * @param criadoEmMillis Momento em que a resposta foi obtida da API
+     */
+    record EntradaCache(DadosLivroGutendex dados, long criadoEmMillis) {
+
+        long expiraEm(Duration ttl, Duration ttlNegativo) {
+            return criadoEmMillis + (dados != null ? ttl : ttlNegativo).toMillis();
+        }
+    }
+
+    /**
+     * Expira cada entrada a partir do momento em que foi obtida da API, inclusive as recarregadas do disco
+     */
+    private class ExpiracaoPorEntrada implements Expiry<String, EntradaCache> {
+
+        @Override
+        public long expireAfterCreate(String chave, EntradaCache entrada, long tempoAtual) {
+            long restanteMillis = entrada.expiraEm(ttl, ttlNegativo) - relogio.millis();
+            return Duration.ofMillis(Math.max(0, restanteMillis)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, EntradaCache entrada, long tempoAtual, long duracaoAtual) {
+            return expireAfterCreate(chave, entrada, tempoAtual);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, EntradaCache entrada, long tempoAtual, long duracaoAtual) {
+            return duracaoAtual;
+        }
+    }
+}
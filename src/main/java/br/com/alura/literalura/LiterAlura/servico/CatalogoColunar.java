@@ -0,0 +1,381 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Copia do catalogo em memoria organizada em colunas de tipos primitivos, para analises que percorrem
+ * todos os livros ou autores. Cada livro ocupa 10 bytes: downloads ({@code int}), codigo do idioma em um
+ * dicionario ({@code short}) e indice do autor ({@code int}); cada autor ocupa 8 bytes: anos de nascimento e
+ * de falecimento. Valores desconhecidos sao {@link Integer#MIN_VALUE}, e livros sem idioma ou sem autor tem -1.
+ * Titulos e nomes ficam de fora; as consultas que os devolvem usam o banco ou o {@link SnapshotCatalogo}.
+ * <p>
+ * As analises dividem as colunas em faixas percorridas em paralelo por tarefas fork-join, cada uma com os
+ * seus proprios contadores, somados ao juntar as tarefas. Rodam no {@link ForkJoinPool} da thread que chama,
+ * ou no pool comum quando chamadas de fora de um pool.
+ * Instancias sao imutaveis e podem ser consultadas por varias threads ao mesmo tempo.
+ */
+public final class CatalogoColunar {
+
+    private static final int NULO = Integer.MIN_VALUE;
+    private static final int MINIMO_POR_TAREFA = 1 << 14;
+    private static final int TAREFAS_POR_THREAD = 4;
+    private static final int MAXIMO_FAIXAS_HISTOGRAMA = 1 << 16;
+
+    private final int[] downloads;
+    private final short[] idiomasLivros;
+    private final int[] autoresLivros;
+    private final int[] nascimentos;
+    private final int[] falecimentos;
+    private final String[] idiomas;
+    private final int maximoDownloads;
+    private final int primeiraDecada;
+    private final int ultimaDecada;
+
+    private CatalogoColunar(int[] downloads, short[] idiomasLivros, int[] autoresLivros,
+                            int[] nascimentos, int[] falecimentos, String[] idiomas) {
+        this.downloads = downloads;
+        this.idiomasLivros = idiomasLivros;
+        this.autoresLivros = autoresLivros;
+        this.nascimentos = nascimentos;
+        this.falecimentos = falecimentos;
+        this.idiomas = idiomas;
+
+        // Limites das colunas, para dimensionar os contadores das analises
+        int maximo = 0;
+        for (int valor : downloads) {
+            maximo = Math.max(maximo, valor);
+        }
+        this.maximoDownloads = maximo;
+        int primeira = Integer.MAX_VALUE;
+        int ultima = Integer.MIN_VALUE;
+        for (int nascimento : nascimentos) {
+            if (nascimento != NULO) {
+                primeira = Math.min(primeira, decada(nascimento));
+                ultima = Math.max(ultima, decada(nascimento));
+            }
+        }
+        this.primeiraDecada = primeira;
+        this.ultimaDecada = ultima;
+    }
+
+    /**
+     * Inicia a montagem de um catalogo
+     *
+     * @return O construtor, que recebe os autores e depois os livros
+     */
+    public static Construtor construtor() {
+        return new Construtor();
+    }
+
+    public int quantidadeLivros() {
+        return downloads.length;
+    }
+
+    public int quantidadeAutores() {
+        return nascimentos.length;
+    }
+
+    /**
+     * @return Maior numero de downloads de um livro, ou zero se nenhum livro tem downloads
+     */
+    public int maximoDownloads() {
+        return maximoDownloads;
+    }
+
+    /**
+     * @return Bytes ocupados pelas colunas, sem contar os cabecalhos dos arrays e o dicionario de idiomas
+     */
+    public long tamanhoEmBytes() {
+        return (long) downloads.length * Integer.BYTES + (long) idiomasLivros.length * Short.BYTES
+                + (long) autoresLivros.length * Integer.BYTES
+                + (long) nascimentos.length * Integer.BYTES + (long) falecimentos.length * Integer.BYTES;
+    }
+
+    /**
+     * @return Quantidade de livros, total e maximo de downloads de cada idioma,
+     * da maior para a menor quantidade de livros
+     */
+    public List<EstatisticaIdioma> obterEstatisticasPorIdioma() {
+        // Uma posicao por codigo de idioma, mais a ultima para livros sem idioma, em tres blocos:
+        // quantidades e totais, que sao somados ao juntar as tarefas, e maximos
+        int posicoes = idiomas.length + 1;
+        long[] contadores = varrer(downloads.length, 3 * posicoes, (inicio, fim, parcial) -> {
+            for (int i = inicio; i < fim; i++) {
+                int indice = idiomasLivros[i] < 0 ? idiomas.length : idiomasLivros[i];
+                int valor = downloads[i];
+                parcial[indice]++;
+                if (valor != NULO) {
+                    parcial[posicoes + indice] += valor;
+                    parcial[2 * posicoes + indice] = Math.max(parcial[2 * posicoes + indice], valor);
+                }
+            }
+        }, (destino, parcial) -> {
+            for (int i = 0; i < 2 * posicoes; i++) {
+                destino[i] += parcial[i];
+            }
+            for (int i = 2 * posicoes; i < 3 * posicoes; i++) {
+                destino[i] = Math.max(destino[i], parcial[i]);
+            }
+        });
+
+        List<EstatisticaIdioma> estatisticas = new ArrayList<>();
+        for (int indice = 0; indice < posicoes; indice++) {
+            if (contadores[indice] > 0) {
+                estatisticas.add(new EstatisticaIdioma(indice < idiomas.length ? idiomas[indice] : null,
+                        contadores[indice], contadores[posicoes + indice], (int) contadores[2 * posicoes + indice]));
+            }
+        }
+        estatisticas.sort(EstatisticaIdioma.DA_MAIOR_PARA_A_MENOR_QUANTIDADE);
+        return estatisticas;
+    }
+
+    /**
+     * Conta os livros por faixa de downloads. Livros sem downloads ficam de fora.
+     *
+     * @param largura Largura de cada faixa
+     * @return Quantidade de livros por inicio de faixa, em ordem crescente, sem as faixas vazias
+     */
+    public SortedMap<Integer, Long> obterHistogramaDownloads(int largura) {
+        if (largura < 1) {
+            throw new IllegalArgumentException("Largura deve ser maior que zero");
+        }
+        int faixas = maximoDownloads / largura + 1;
+        if (faixas > MAXIMO_FAIXAS_HISTOGRAMA) {
+            throw new IllegalArgumentException("Largura " + largura + " gera faixas demais para "
+                    + maximoDownloads + " downloads");
+        }
+        long[] quantidades = varrer(downloads.length, faixas, (inicio, fim, parcial) -> {
+            for (int i = inicio; i < fim; i++) {
+                // Downloads negativos nao sao esperados; ficam na primeira faixa
+                if (downloads[i] != NULO) {
+                    parcial[Math.max(downloads[i], 0) / largura]++;
+                }
+            }
+        }, CatalogoColunar::somar);
+
+        SortedMap<Integer, Long> histograma = new TreeMap<>();
+        for (int faixa = 0; faixa < faixas; faixa++) {
+            if (quantidades[faixa] > 0) {
+                histograma.put(faixa * largura, quantidades[faixa]);
+            }
+        }
+        return histograma;
+    }
+
+    /**
+     * Conta os autores pela decada de nascimento. Autores sem ano de nascimento ficam de fora.
+     *
+     * @return Quantidade de autores por primeiro ano da decada (1850 para 1850 a 1859), em ordem crescente
+     */
+    public SortedMap<Integer, Long> obterNascimentosPorDecada() {
+        SortedMap<Integer, Long> distribuicao = new TreeMap<>();
+        if (primeiraDecada > ultimaDecada) {
+            return distribuicao;
+        }
+        int decadas = (ultimaDecada - primeiraDecada) / 10 + 1;
+        long[] quantidades = varrer(nascimentos.length, decadas, (inicio, fim, parcial) -> {
+            for (int i = inicio; i < fim; i++) {
+                if (nascimentos[i] != NULO) {
+                    parcial[(decada(nascimentos[i]) - primeiraDecada) / 10]++;
+                }
+            }
+        }, CatalogoColunar::somar);
+
+        for (int indice = 0; indice < decadas; indice++) {
+            if (quantidades[indice] > 0) {
+                distribuicao.put(primeiraDecada + indice * 10, quantidades[indice]);
+            }
+        }
+        return distribuicao;
+    }
+
+    /**
+     * @param ano O ano para verificar
+     * @return Quantidade de autores nascidos ate o ano e falecidos no ano ou depois, ou ainda vivos
+     */
+    public long contarAutoresVivosNoAno(int ano) {
+        return varrer(nascimentos.length, 1, (inicio, fim, parcial) -> {
+            long vivos = 0;
+            for (int i = inicio; i < fim; i++) {
+                if (vivo(i, ano)) {
+                    vivos++;
+                }
+            }
+            parcial[0] = vivos;
+        }, CatalogoColunar::somar)[0];
+    }
+
+    /**
+     * @param ano O ano para verificar
+     * @return Quantidade de livros cujo autor estava vivo no ano
+     */
+    public long contarLivrosDeAutoresVivosNoAno(int ano) {
+        return varrer(autoresLivros.length, 1, (inicio, fim, parcial) -> {
+            long livros = 0;
+            for (int i = inicio; i < fim; i++) {
+                if (autoresLivros[i] >= 0 && vivo(autoresLivros[i], ano)) {
+                    livros++;
+                }
+            }
+            parcial[0] = livros;
+        }, CatalogoColunar::somar)[0];
+    }
+
+    private boolean vivo(int autor, int ano) {
+        int nascimento = nascimentos[autor];
+        int falecimento = falecimentos[autor];
+        return nascimento != NULO && nascimento <= ano && (falecimento == NULO || falecimento >= ano);
+    }
+
+    private static int decada(int ano) {
+        return Math.floorDiv(ano, 10) * 10;
+    }
+
+    private static void somar(long[] destino, long[] parcial) {
+        for (int i = 0; i < destino.length; i++) {
+            destino[i] += parcial[i];
+        }
+    }
+
+    /**
+     * Percorre as posicoes de 0 a quantidade em faixas paralelas
+     *
+     * @param quantidade Numero de posicoes da coluna
+     * @param contadores Numero de contadores de cada faixa
+     * @param varredura  Acumula uma faixa nos seus contadores
+     * @param juncao     Junta os contadores de duas faixas no primeiro
+     * @return Os contadores de todas as faixas juntos
+     */
+    private static long[] varrer(int quantidade, int contadores, Varredura varredura, Juncao juncao) {
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        // Poucas faixas por thread: o bastante para equilibrar a carga sem alocar contadores demais
+        int tamanhoFaixa = Math.max(MINIMO_POR_TAREFA, quantidade / (pool.getParallelism() * TAREFAS_POR_THREAD) + 1);
+        return new TarefaVarredura(0, quantidade, tamanhoFaixa, contadores, varredura, juncao).invoke();
+    }
+
+    @FunctionalInterface
+    private interface Varredura {
+        void varrer(int inicio, int fim, long[] parcial);
+    }
+
+    @FunctionalInterface
+    private interface Juncao {
+        void juntar(long[] destino, long[] parcial);
+    }
+
+    private static final class TarefaVarredura extends RecursiveTask<long[]> {
+
+        private final int inicio;
+        private final int fim;
+        private final int tamanhoFaixa;
+        private final int contadores;
+        private final Varredura varredura;
+        private final Juncao juncao;
+
+        TarefaVarredura(int inicio, int fim, int tamanhoFaixa, int contadores, Varredura varredura, Juncao juncao) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.tamanhoFaixa = tamanhoFaixa;
+            this.contadores = contadores;
+            this.varredura = varredura;
+            this.juncao = juncao;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (fim - inicio <= tamanhoFaixa) {
+                long[] parcial = new long[contadores];
+                varredura.varrer(inicio, fim, parcial);
+                return parcial;
+            }
+            int meio = (inicio + fim) >>> 1;
+            TarefaVarredura esquerda = new TarefaVarredura(inicio, meio, tamanhoFaixa, contadores, varredura, juncao);
+            esquerda.fork();
+            long[] direita = new TarefaVarredura(meio, fim, tamanhoFaixa, contadores, varredura, juncao).compute();
+            long[] resultado = esquerda.join();
+            juncao.juntar(resultado, direita);
+            return resultado;
+        }
+    }
+
+    /**
+     * Monta um {@link CatalogoColunar} em uma passada pelos autores e depois pelos livros. Os ids dos autores
+     * so ficam no construtor, em uma {@link SequenciaAutores}, para traduzir o autor de cada livro em um indice.
+     */
+    public static final class Construtor {
+
+        private final DicionarioIdiomas idiomas = new DicionarioIdiomas();
+        private final SequenciaAutores autores = new SequenciaAutores();
+        private int[] nascimentos = new int[1024];
+        private int[] falecimentos = new int[1024];
+        private int[] downloads = new int[1024];
+        private short[] idiomasLivros = new short[1024];
+        private int[] autoresLivros = new int[1024];
+        private int quantidadeLivros;
+
+        private Construtor() {
+        }
+
+        /**
+         * Adiciona um autor; todos os autores devem vir antes dos livros, em ordem crescente de id
+         */
+        public Construtor adicionarAutor(IdentificacaoAutor autor) {
+            return adicionarAutor(autor.id(), autor.anoNascimento(), autor.anoFalecimento());
+        }
+
+        /**
+         * Adiciona um autor; todos os autores devem vir antes dos livros, em ordem crescente de id
+         */
+        public Construtor adicionarAutor(long id, Integer anoNascimento, Integer anoFalecimento) {
+            int posicao = autores.adicionar(id);
+            if (posicao == nascimentos.length) {
+                nascimentos = Arrays.copyOf(nascimentos, posicao * 2);
+                falecimentos = Arrays.copyOf(falecimentos, posicao * 2);
+            }
+            nascimentos[posicao] = Objects.requireNonNullElse(anoNascimento, NULO);
+            falecimentos[posicao] = Objects.requireNonNullElse(anoFalecimento, NULO);
+            return this;
+        }
+
+        /**
+         * Adiciona um livro
+         *
+         * @param idAutor O id do autor, ja adicionado, ou nulo se o livro nao tem autor
+         */
+        public Construtor adicionarLivro(String idioma, Integer downloads, Long idAutor) {
+            int indiceAutor = autores.posicao(idAutor);
+            if (quantidadeLivros == this.downloads.length) {
+                int capacidade = this.downloads.length * 2;
+                this.downloads = Arrays.copyOf(this.downloads, capacidade);
+                idiomasLivros = Arrays.copyOf(idiomasLivros, capacidade);
+                autoresLivros = Arrays.copyOf(autoresLivros, capacidade);
+            }
+            this.downloads[quantidadeLivros] = Objects.requireNonNullElse(downloads, NULO);
+            idiomasLivros[quantidadeLivros] = idiomas.codigo(idioma);
+            autoresLivros[quantidadeLivros] = indiceAutor;
+            quantidadeLivros++;
+            return this;
+        }
+
+        /**
+         * @return O catalogo, com as colunas do tamanho exato; o construtor nao deve ser usado depois
+         */
+        public CatalogoColunar construir() {
+            return new CatalogoColunar(Arrays.copyOf(downloads, quantidadeLivros),
+                    Arrays.copyOf(idiomasLivros, quantidadeLivros), Arrays.copyOf(autoresLivros, quantidadeLivros),
+                    Arrays.copyOf(nascimentos, autores.quantidade()), Arrays.copyOf(falecimentos, autores.quantidade()),
+                    idiomas.idiomas().toArray(new String[0]));
+        }
+    }
+}
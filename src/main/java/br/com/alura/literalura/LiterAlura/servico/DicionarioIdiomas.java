@@ -0,0 +1,45 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dicionario que traduz cada idioma em um codigo {@code short}, na ordem em que os idiomas aparecem,
+ * para guardar o idioma de cada livro em dois bytes. Usado por quem monta copias do catalogo livro a livro.
+ * Nao e thread-safe.
+ */
+final class DicionarioIdiomas {
+
+    private final Map<String, Short> codigos = new HashMap<>();
+    private final List<String> idiomas = new ArrayList<>();
+
+    /**
+     * @param idioma O idioma, ou nulo
+     * @return O codigo do idioma, criado na primeira vez que ele aparece, ou -1 se o idioma e nulo
+     */
+    short codigo(String idioma) {
+        if (idioma == null) {
+            return -1;
+        }
+        Short codigo = codigos.get(idioma);
+        if (codigo == null) {
+            if (idiomas.size() == Short.MAX_VALUE) {
+                throw new IllegalStateException("Idiomas demais para o dicionario");
+            }
+            codigo = (short) idiomas.size();
+            codigos.put(idioma, codigo);
+            idiomas.add(idioma);
+        }
+        return codigo;
+    }
+
+    /**
+     * @return Os idiomas na ordem dos codigos
+     */
+    List<String> idiomas() {
+        return Collections.unmodifiableList(idiomas);
+    }
+}
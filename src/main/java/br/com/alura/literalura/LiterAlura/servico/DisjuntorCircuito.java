@@ -0,0 +1,69 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.time.Duration;
+
+/**
+ * Disjuntor que interrompe as chamadas a um servico depois de falhas consecutivas.
+ * Aberto, rejeita as chamadas imediatamente; passado o tempo de espera, deixa passar uma unica
+ * chamada de teste, que fecha o disjuntor se tiver sucesso ou o abre novamente se falhar.
+ */
+class DisjuntorCircuito {
+
+    enum Estado {
+        FECHADO,
+        ABERTO,
+        SEMIABERTO
+    }
+
+    private final int falhasParaAbrir;
+    private final long tempoAbertoNanos;
+    private Estado estado = Estado.FECHADO;
+    private int falhasConsecutivas;
+    private long abertoEmNanos;
+    private boolean chamadaDeTesteEmAndamento;
+
+    DisjuntorCircuito(int falhasParaAbrir, Duration tempoAberto) {
+        if (falhasParaAbrir < 1) {
+            throw new IllegalArgumentException("O numero de falhas para abrir o disjuntor deve ser positivo: "
+                    + falhasParaAbrir);
+        }
+        this.falhasParaAbrir = falhasParaAbrir;
+        this.tempoAbertoNanos = tempoAberto.toNanos();
+    }
+
+    /**
+     * @return true se a chamada pode ser feita; false se deve falhar imediatamente
+     */
+    synchronized boolean permitir() {
+        if (estado == Estado.ABERTO && System.nanoTime() - abertoEmNanos >= tempoAbertoNanos) {
+            estado = Estado.SEMIABERTO;
+        }
+        if (estado == Estado.SEMIABERTO) {
+            if (chamadaDeTesteEmAndamento) {
+                return false;
+            }
+            chamadaDeTesteEmAndamento = true;
+            return true;
+        }
+        return estado == Estado.FECHADO;
+    }
+
+    synchronized void registrarSucesso() {
+        falhasConsecutivas = 0;
+        chamadaDeTesteEmAndamento = false;
+        estado = Estado.FECHADO;
+    }
+
+    synchronized void registrarFalha() {
+        falhasConsecutivas++;
+        chamadaDeTesteEmAndamento = false;
+        if (estado == Estado.SEMIABERTO || falhasConsecutivas >= falhasParaAbrir) {
+            estado = Estado.ABERTO;
+            abertoEmNanos = System.nanoTime();
+        }
+    }
+
+    synchronized Estado estado() {
+        return estado;
+    }
+}
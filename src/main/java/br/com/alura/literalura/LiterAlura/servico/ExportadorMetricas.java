@@ -0,0 +1,108 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Exporta as metricas registradas no formato texto do Prometheus.
+ * As metricas podem ser salvas em arquivo (sob demanda e ao encerrar a aplicacao) e,
+ * se uma porta for configurada, expostas em /metrics por um servidor HTTP local.
+ */
+@Component
+public class ExportadorMetricas {
+
+    private static final String TIPO_CONTEUDO = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final PrometheusMeterRegistry registroPrometheus;
+    private final String arquivo;
+    private final int porta;
+    private HttpServer servidor;
+
+    public ExportadorMetricas(PrometheusMeterRegistry registroPrometheus,
+                              @Value("${literalura.metricas.arquivo:}") String arquivo,
+                              @Value("${literalura.metricas.porta:0}") int porta) {
+        this.registroPrometheus = registroPrometheus;
+        this.arquivo = arquivo;
+        this.porta = porta;
+    }
+
+    /**
+     * Inicia o servidor de metricas, se uma porta foi configurada
+     */
+    @PostConstruct
+    public void iniciarServidor() {
+        if (porta <= 0) {
+            return;
+        }
+        try {
+            servidor = ServidoresHttp.criar(new InetSocketAddress("localhost", porta), 0);
+            servidor.createContext("/metrics", troca -> {
+                byte[] corpo = registroPrometheus.scrape().getBytes(StandardCharsets.UTF_8);
+                troca.getResponseHeaders().set("Content-Type", TIPO_CONTEUDO);
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            });
+            servidor.start();
+        } catch (IOException e) {
+            System.err.println("Erro ao iniciar o servidor de metricas na porta " + porta + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Salva as metricas no arquivo configurado ao encerrar a aplicacao e para o servidor de metricas
+     */
+    @PreDestroy
+    public void encerrar() {
+        if (servidor != null) {
+            servidor.stop(0);
+        }
+        if (!arquivo.isBlank()) {
+            salvar(Path.of(arquivo));
+        }
+    }
+
+    /**
+     * Salva as metricas no arquivo configurado, ou em literalura-metricas.prom se nenhum foi configurado
+     *
+     * @return Caminho do arquivo gerado, ou null se nao foi possivel salvar
+     */
+    public Path salvar() {
+        return salvar(Path.of(arquivo.isBlank() ? "literalura-metricas.prom" : arquivo));
+    }
+
+    /**
+     * Salva as metricas no arquivo informado, substituindo o conteudo anterior de forma atomica
+     *
+     * @param destino Arquivo de destino
+     * @return Caminho do arquivo gerado, ou null se nao foi possivel salvar
+     */
+    public Path salvar(Path destino) {
+        try {
+            Path absoluto = destino.toAbsolutePath();
+            if (absoluto.getParent() != null) {
+                Files.createDirectories(absoluto.getParent());
+            }
+            Path temporario = absoluto.resolveSibling(absoluto.getFileName() + ".tmp");
+            Files.writeString(temporario, registroPrometheus.scrape(), StandardCharsets.UTF_8);
+            Files.move(temporario, absoluto, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return absoluto;
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar as metricas em " + destino + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Grava em disco as respostas reais da API Gutendex, para que {@link ServidorReplayGutendex} as sirva depois
+ * sem acesso a rede. Cada resposta vira um arquivo JSON no diretorio configurado, com o nome derivado
+ * do caminho e da consulta da requisicao; uma nova resposta para a mesma requisicao substitui a anterior.
+ * Com o diretorio vazio, nada e gravado.
+ */
+@Component
+public class GravacaoRespostasGutendex {
+
+    private final ObjectMapper mapeadorObjeto;
+    private final Path diretorio;
+
+    public GravacaoRespostasGutendex(ObjectMapper mapeadorObjeto,
+                                     @Value("${literalura.api.gravacao.diretorio:}") String diretorio) {
+        this.mapeadorObjeto = mapeadorObjeto;
+        this.diretorio = diretorio.isBlank() ? null : Path.of(diretorio);
+    }
+
+    /**
+     * @return true se as respostas estao sendo gravadas
+     */
+    public boolean habilitada() {
+        return diretorio != null;
+    }
+
+    /**
+     * Grava uma resposta recebida da API, se a gravacao estiver habilitada. Erros de escrita sao apenas
+     * registrados, para que a gravacao nunca interrompa a consulta.
+     *
+     * @param uri    URI da requisicao
+     * @param status Status HTTP da resposta
+     * @param corpo  Corpo da resposta
+     */
+    void gravar(URI uri, int status, byte[] corpo) {
+        if (diretorio == null) {
+            return;
+        }
+        try {
+            gravar(mapeadorObjeto, diretorio, new RespostaGravada(uri.getScheme() + "://" + uri.getRawAuthority(),
+                    caminho(uri), status, new String(corpo, StandardCharsets.UTF_8)));
+        } catch (UncheckedIOException e) {
+            System.err.println("Erro ao gravar resposta da API para " + uri + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Grava uma resposta no diretorio, substituindo de forma atomica a gravacao anterior da mesma requisicao
+     *
+     * @param mapeadorObjeto Serializa a resposta
+     * @param diretorio      Diretorio das gravacoes, criado se nao existir
+     * @param resposta       A resposta
+     */
+    public static void gravar(ObjectMapper mapeadorObjeto, Path diretorio, RespostaGravada resposta) {
+        try {
+            Files.createDirectories(diretorio);
+            Path arquivo = diretorio.resolve(nomeArquivo(resposta.caminho()));
+            Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+            mapeadorObjeto.writeValue(temporario.toFile(), resposta);
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Carrega todas as respostas gravadas em um diretorio
+     *
+     * @param mapeadorObjeto Le as respostas
+     * @param diretorio      Diretorio das gravacoes
+     * @return Mapa do caminho com a consulta de cada requisicao para a sua resposta
+     */
+    public static Map<String, RespostaGravada> carregar(ObjectMapper mapeadorObjeto, Path diretorio) {
+        Map<String, RespostaGravada> respostas = new HashMap<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*.json")) {
+            for (Path arquivo : arquivos) {
+                RespostaGravada resposta = mapeadorObjeto.readValue(arquivo.toFile(), RespostaGravada.class);
+                respostas.put(resposta.caminho(), resposta);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return respostas;
+    }
+
+    /**
+     * @param uri URI de uma requisicao
+     * @return O caminho com a consulta, sem decodificar, que identifica a requisicao nas gravacoes
+     */
+    static String caminho(URI uri) {
+        return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    }
+
+    private static String nomeArquivo(String caminho) {
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(caminho.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(resumo) + ".json";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponivel", e);
+        }
+    }
+
+    /**
+     * Uma resposta gravada
+     *
+     * @param origem  Esquema, host e porta da API que respondeu, como https://gutendex.com
+     * @param caminho Caminho com a consulta da requisicao, como /books?search=dom%20casmurro
+     * @param status  Status HTTP da resposta
+     * @param corpo   Corpo da resposta
+     */
+    public record RespostaGravada(String origem, String caminho, int status, String corpo) {
+    }
+}
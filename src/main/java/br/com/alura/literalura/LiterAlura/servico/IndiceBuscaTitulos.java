@@ -0,0 +1,537 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.TituloLivro;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Indice invertido em memoria dos titulos e nomes de autores do catalogo local, para encontrar livros
+ * sem depender do titulo exato.
+ * <p>
+ * Titulos e nomes sao normalizados (minusculas, sem acentos, pontuacao vira espaco) e divididos em termos;
+ * palavras vazias como "the" e "de" nao sao indexadas. Cada termo aponta para os livros que o contem.
+ * Na pesquisa, termos da consulta que nao existem no vocabulario sao aproximados pelos termos com mais trigramas
+ * em comum, o que tolera erros de digitacao como "prejudise". A busca por titulo nao aproxima termos e compara o
+ * titulo normalizado inteiro, com as palavras vazias e na mesma ordem: ela decide se o livro ja esta salvo e a API
+ * nao precisa ser consultada, entao "Little Women" nao pode resolver "Little Men", nem "Prince" "The Prince".
+ * <p>
+ * O indice e montado a partir do banco de dados quando a aplicacao inicia, em segundo plano, e recebe
+ * os livros salvos depois disso. Enquanto a primeira montagem nao termina, as buscas retornam vazio.
+ */
+@Component
+public class IndiceBuscaTitulos {
+
+    /**
+     * Coeficiente de Dice minimo entre os trigramas de dois termos para que um substitua o outro
+     */
+    private static final double SIMILARIDADE_MINIMA = 0.5;
+
+    private static final int MAXIMO_VARIANTES_POR_TERMO = 8;
+    private static final int DIFERENCA_MAXIMA_TAMANHO = 2;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "an", "and", "as", "at", "by", "for", "in", "of", "on", "or", "the", "to", "with",
+            "da", "das", "de", "do", "dos", "e", "em", "o", "os", "um", "uma",
+            "del", "el", "la", "las", "los", "y", "et", "du", "des", "le", "les", "der", "die", "und");
+
+    private final RepositorioLivro repositorioLivro;
+    private final TransactionTemplate transacaoLeitura;
+    private final boolean habilitado;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Object monitorConstrucao = new Object();
+    private final CompletableFuture<Void> primeiraMontagem = new CompletableFuture<>();
+
+    // Protegidos por trava
+    private Estrutura estrutura = new Estrutura();
+    private List<TituloLivro> registradosDuranteConstrucao;
+    private volatile boolean pronto;
+
+    public IndiceBuscaTitulos(RepositorioLivro repositorioLivro, PlatformTransactionManager gerenciadorTransacao,
+                              @Value("${literalura.livros.indice-titulos.habilitado:true}") boolean habilitado) {
+        this.repositorioLivro = repositorioLivro;
+        this.transacaoLeitura = new TransactionTemplate(gerenciadorTransacao);
+        this.transacaoLeitura.setReadOnly(true);
+        this.habilitado = habilitado;
+        if (!habilitado) {
+            primeiraMontagem.complete(null);
+        }
+    }
+
+    /**
+     * Monta o indice em segundo plano assim que o contexto inicia, antes do menu (o ApplicationReadyEvent
+     * so e publicado depois que o CommandLineRunner termina)
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void aoIniciar() {
+        if (habilitado) {
+            reconstruirEmSegundoPlano();
+        }
+    }
+
+    /**
+     * Remonta o indice a partir do banco de dados em uma thread separada.
+     * Usado na inicializacao e quando livros sao gravados sem passar por {@link #registrar(Livro)}.
+     */
+    public void reconstruirEmSegundoPlano() {
+        if (!habilitado) {
+            return;
+        }
+        Thread construtor = new Thread(() -> {
+            try {
+                reconstruir();
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao montar o indice de titulos: " + e.getMessage());
+            } finally {
+                // Sem o indice, as buscas por titulo recorrem ao banco de dados
+                primeiraMontagem.complete(null);
+            }
+        }, "indice-titulos");
+        construtor.setDaemon(true);
+        construtor.start();
+    }
+
+    /**
+     * Remonta o indice a partir do banco de dados. As buscas continuam usando o indice anterior ate o fim,
+     * e livros registrados durante a montagem nao se perdem.
+     */
+    public void reconstruir() {
+        synchronized (monitorConstrucao) {
+            trava.writeLock().lock();
+            try {
+                registradosDuranteConstrucao = new ArrayList<>();
+            } finally {
+                trava.writeLock().unlock();
+            }
+
+            Estrutura nova = new Estrutura();
+            try {
+                transacaoLeitura.executeWithoutResult(status -> {
+                    try (Stream<TituloLivro> titulos = repositorioLivro.transmitirTitulos()) {
+                        titulos.forEach(titulo -> nova.adicionar(titulo.id(), titulo.titulo(), titulo.nomeAutor()));
+                    }
+                });
+            } catch (RuntimeException e) {
+                trava.writeLock().lock();
+                try {
+                    registradosDuranteConstrucao = null;
+                } finally {
+                    trava.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            trava.writeLock().lock();
+            try {
+                // Os livros lidos do banco estao em ordem de id; so estes podem repetir os registrados
+                int lidosDoBanco = nova.quantidade;
+                for (TituloLivro registrado : registradosDuranteConstrucao) {
+                    if (!nova.contemLivro(registrado.id(), lidosDoBanco)) {
+                        nova.adicionar(registrado.id(), registrado.titulo(), registrado.nomeAutor());
+                    }
+                }
+                estrutura = nova;
+                registradosDuranteConstrucao = null;
+                pronto = true;
+            } finally {
+                trava.writeLock().unlock();
+            }
+            primeiraMontagem.complete(null);
+        }
+    }
+
+    /**
+     * Inclui um livro recem-salvo no indice
+     *
+     * @param livro O livro salvo, ja com id
+     */
+    public void registrar(Livro livro) {
+        if (!habilitado || livro == null || livro.getId() == null || livro.getTitulo() == null) {
+            return;
+        }
+        TituloLivro titulo = new TituloLivro(livro.getId(), livro.getTitulo(),
+                livro.getAutor() != null ? livro.getAutor().getNome() : null);
+
+        trava.writeLock().lock();
+        try {
+            if (registradosDuranteConstrucao != null) {
+                registradosDuranteConstrucao.add(titulo);
+            }
+            estrutura.adicionar(titulo.id(), titulo.titulo(), titulo.nomeAutor());
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true depois que o indice foi montado a partir do banco de dados pela primeira vez
+     */
+    public boolean pronto() {
+        return pronto;
+    }
+
+    /**
+     * @return Concluido quando a primeira montagem em segundo plano termina, com ou sem erro,
+     * ou imediatamente se o indice esta desabilitado
+     */
+    public CompletableFuture<Void> primeiraMontagem() {
+        return primeiraMontagem.copy();
+    }
+
+    /**
+     * Busca o livro cujo titulo tem exatamente as mesmas palavras, na mesma ordem, do titulo informado, tolerando
+     * apenas diferencas de caixa, acentos e pontuacao. Titulos parecidos, com palavras a mais ou a menos ("Dune" e
+     * "Dune Messiah", "Prince" e "The Prince"), em outra ordem ("Men and Mice" e "Of Mice and Men") ou com erros
+     * de digitacao, nao correspondem.
+     *
+     * @param titulo O titulo buscado
+     * @return O id do livro com o mesmo titulo (o menor, se houver varios), ou vazio se nenhum corresponde
+     */
+    public Optional<Long> buscarTitulo(String titulo) {
+        List<String> termos = termosSignificativos(titulo);
+        if (termos.isEmpty()) {
+            return Optional.empty();
+        }
+        String chave = normalizar(titulo);
+
+        trava.readLock().lock();
+        try {
+            Estrutura atual = estrutura;
+            // Os termos so selecionam os candidatos; a comparacao e feita com o titulo normalizado inteiro
+            return atual.buscar(termos, false, false).stream()
+                    .filter(c -> chave.equals(atual.titulosNormalizados[c.documento]))
+                    .map(c -> atual.idsLivros[c.documento])
+                    .min(Comparator.naturalOrder());
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pesquisa livros cujo titulo ou nome do autor contem todos os termos da consulta
+     *
+     * @param consulta Termos a pesquisar, em qualquer ordem
+     * @param limite   Numero maximo de resultados
+     * @return Ids dos livros encontrados, dos mais aos menos relevantes
+     */
+    public List<Long> pesquisar(String consulta, int limite) {
+        List<String> termos = termosSignificativos(consulta);
+        if (termos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        trava.readLock().lock();
+        try {
+            Estrutura atual = estrutura;
+            return atual.buscar(termos, true, true).stream()
+                    .sorted(Comparator.<Candidato>comparingDouble(c -> -c.pontuacao)
+                            .thenComparingInt(c -> atual.termosPorTitulo[c.documento])
+                            .thenComparingLong(c -> atual.idsLivros[c.documento]))
+                    .limit(limite)
+                    .map(c -> atual.idsLivros[c.documento])
+                    .toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Normaliza o texto para comparacao: minusculas, sem acentos e com pontuacao trocada por espaco
+     *
+     * @param texto O texto original
+     * @return O texto normalizado
+     */
+    static String normalizar(String texto) {
+        String semAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("");
+        return SEPARADORES.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Divide o texto normalizado em termos distintos, sem palavras vazias e letras isoladas
+     *
+     * @param texto O texto original, ou nulo
+     * @return Os termos na ordem em que aparecem
+     */
+    static List<String> termosSignificativos(String texto) {
+        if (texto == null) {
+            return List.of();
+        }
+        Set<String> termos = new LinkedHashSet<>();
+        for (String termo : normalizar(texto).split(" ")) {
+            boolean letraIsolada = termo.length() == 1 && !Character.isDigit(termo.charAt(0));
+            if (!termo.isEmpty() && !letraIsolada && !PALAVRAS_VAZIAS.contains(termo)) {
+                termos.add(termo);
+            }
+        }
+        return new ArrayList<>(termos);
+    }
+
+    /**
+     * Trigramas do termo cercado por marcadores de inicio e fim, de modo que um termo de n letras tem n trigramas
+     */
+    private static List<String> trigramas(String termo) {
+        String marcado = "$" + termo + "$";
+        List<String> trigramas = new ArrayList<>(termo.length());
+        for (int i = 0; i + 3 <= marcado.length(); i++) {
+            trigramas.add(marcado.substring(i, i + 3));
+        }
+        if (trigramas.isEmpty()) {
+            trigramas.add(marcado);
+        }
+        return trigramas;
+    }
+
+    /**
+     * Livro candidato a resultado e a soma das similaridades dos termos da consulta encontrados nele
+     */
+    private static final class Candidato {
+        final int documento;
+        double pontuacao;
+
+        Candidato(int documento, double pontuacao) {
+            this.documento = documento;
+            this.pontuacao = pontuacao;
+        }
+    }
+
+    /**
+     * Termo do vocabulario que substitui um termo da consulta, e o quanto os dois sao parecidos
+     */
+    private record Variante(int termo, double similaridade) {
+    }
+
+    /**
+     * Dados do indice. Nao e sincronizada; o acesso e controlado pela trava do indice.
+     */
+    static final class Estrutura {
+        long[] idsLivros = new long[1024];
+        int[] termosPorTitulo = new int[1024];
+        String[] titulosNormalizados = new String[1024];
+        int quantidade;
+
+        private final Map<String, Integer> idsTermos = new HashMap<>();
+        private final List<String> termos = new ArrayList<>();
+        private final List<ListaInt> postagensTitulo = new ArrayList<>();
+        private final List<ListaInt> postagensAutor = new ArrayList<>();
+        private final Map<String, ListaInt> termosPorTrigrama = new HashMap<>();
+
+        void adicionar(long idLivro, String titulo, String nomeAutor) {
+            if (quantidade == idsLivros.length) {
+                idsLivros = Arrays.copyOf(idsLivros, quantidade * 2);
+                termosPorTitulo = Arrays.copyOf(termosPorTitulo, quantidade * 2);
+                titulosNormalizados = Arrays.copyOf(titulosNormalizados, quantidade * 2);
+            }
+            int documento = quantidade++;
+            idsLivros[documento] = idLivro;
+            titulosNormalizados[documento] = normalizar(titulo);
+
+            List<String> termosTitulo = termosSignificativos(titulo);
+            termosPorTitulo[documento] = termosTitulo.size();
+            for (String termo : termosTitulo) {
+                postagensTitulo.get(obterOuCriarTermo(termo)).adicionar(documento);
+            }
+            for (String termo : termosSignificativos(nomeAutor)) {
+                postagensAutor.get(obterOuCriarTermo(termo)).adicionar(documento);
+            }
+        }
+
+        /**
+         * Verifica se o livro esta entre os primeiros documentos, que precisam estar em ordem de id
+         */
+        boolean contemLivro(long idLivro, int primeirosDocumentos) {
+            return Arrays.binarySearch(idsLivros, 0, primeirosDocumentos, idLivro) >= 0;
+        }
+
+        /**
+         * Busca os documentos que contem todos os termos, no titulo ou, se permitido, no nome do autor.
+         * Com aproximacao, termos fora do vocabulario sao trocados pelos termos mais parecidos.
+         */
+        List<Candidato> buscar(List<String> termosConsulta, boolean incluirAutor, boolean aproximar) {
+            List<List<ListaInt>> postagensPorTermo = new ArrayList<>(termosConsulta.size());
+            List<List<Variante>> variantesPorTermo = new ArrayList<>(termosConsulta.size());
+            for (String termo : termosConsulta) {
+                List<Variante> variantes = expandir(termo, aproximar);
+                List<ListaInt> postagens = new ArrayList<>(variantes.size());
+                for (Variante variante : variantes) {
+                    postagens.add(postagensTitulo.get(variante.termo()));
+                }
+                if (incluirAutor) {
+                    for (Variante variante : variantes) {
+                        postagens.add(postagensAutor.get(variante.termo()));
+                    }
+                    variantes = concatenar(variantes, variantes);
+                }
+                if (postagens.stream().allMatch(ListaInt::vazia)) {
+                    return List.of();
+                }
+                postagensPorTermo.add(postagens);
+                variantesPorTermo.add(variantes);
+            }
+
+            // Comeca pelo termo mais raro e filtra os candidatos pelos demais
+            Integer[] ordem = new Integer[termosConsulta.size()];
+            for (int i = 0; i < ordem.length; i++) {
+                ordem[i] = i;
+            }
+            Arrays.sort(ordem, Comparator.comparingInt(i ->
+                    postagensPorTermo.get(i).stream().mapToInt(ListaInt::tamanho).sum()));
+
+            Map<Integer, Candidato> candidatos = new HashMap<>();
+            List<ListaInt> postagensIniciais = postagensPorTermo.get(ordem[0]);
+            List<Variante> variantesIniciais = variantesPorTermo.get(ordem[0]);
+            for (int v = 0; v < postagensIniciais.size(); v++) {
+                ListaInt postagens = postagensIniciais.get(v);
+                double similaridade = variantesIniciais.get(v).similaridade();
+                for (int i = 0; i < postagens.tamanho(); i++) {
+                    Candidato candidato = candidatos.computeIfAbsent(postagens.obter(i), d -> new Candidato(d, 0));
+                    candidato.pontuacao = Math.max(candidato.pontuacao, similaridade);
+                }
+            }
+
+            List<Candidato> restantes = new ArrayList<>(candidatos.values());
+            for (int k = 1; k < ordem.length && !restantes.isEmpty(); k++) {
+                List<ListaInt> postagens = postagensPorTermo.get(ordem[k]);
+                List<Variante> variantes = variantesPorTermo.get(ordem[k]);
+                List<Candidato> filtrados = new ArrayList<>(restantes.size());
+                for (Candidato candidato : restantes) {
+                    double melhor = 0;
+                    for (int v = 0; v < postagens.size(); v++) {
+                        if (variantes.get(v).similaridade() > melhor && postagens.get(v).contem(candidato.documento)) {
+                            melhor = variantes.get(v).similaridade();
+                        }
+                    }
+                    if (melhor > 0) {
+                        candidato.pontuacao += melhor;
+                        filtrados.add(candidato);
+                    }
+                }
+                restantes = filtrados;
+            }
+            return restantes;
+        }
+
+        /**
+         * O proprio termo, se existir no vocabulario, ou, com aproximacao, os termos mais parecidos pelos
+         * trigramas em comum
+         */
+        private List<Variante> expandir(String termo, boolean aproximar) {
+            Integer exato = idsTermos.get(termo);
+            if (exato != null) {
+                return List.of(new Variante(exato, 1.0));
+            }
+            if (!aproximar) {
+                return List.of();
+            }
+
+            List<String> trigramasConsulta = trigramas(termo);
+            Map<Integer, Integer> emComum = new HashMap<>();
+            for (String trigrama : new LinkedHashSet<>(trigramasConsulta)) {
+                ListaInt termosComTrigrama = termosPorTrigrama.get(trigrama);
+                if (termosComTrigrama == null) {
+                    continue;
+                }
+                for (int i = 0; i < termosComTrigrama.tamanho(); i++) {
+                    int candidato = termosComTrigrama.obter(i);
+                    if (Math.abs(termos.get(candidato).length() - termo.length()) <= DIFERENCA_MAXIMA_TAMANHO) {
+                        emComum.merge(candidato, 1, Integer::sum);
+                    }
+                }
+            }
+
+            List<Variante> variantes = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entrada : emComum.entrySet()) {
+                int tamanhoCandidato = termos.get(entrada.getKey()).length();
+                double dice = 2.0 * entrada.getValue() / (trigramasConsulta.size() + Math.max(1, tamanhoCandidato));
+                if (dice >= SIMILARIDADE_MINIMA) {
+                    variantes.add(new Variante(entrada.getKey(), dice));
+                }
+            }
+            variantes.sort(Comparator.comparingDouble(Variante::similaridade).reversed());
+            return variantes.size() > MAXIMO_VARIANTES_POR_TERMO
+                    ? variantes.subList(0, MAXIMO_VARIANTES_POR_TERMO) : variantes;
+        }
+
+        private int obterOuCriarTermo(String termo) {
+            Integer existente = idsTermos.get(termo);
+            if (existente != null) {
+                return existente;
+            }
+            int id = termos.size();
+            idsTermos.put(termo, id);
+            termos.add(termo);
+            postagensTitulo.add(new ListaInt());
+            postagensAutor.add(new ListaInt());
+            for (String trigrama : new LinkedHashSet<>(trigramas(termo))) {
+                termosPorTrigrama.computeIfAbsent(trigrama, t -> new ListaInt()).adicionar(id);
+            }
+            return id;
+        }
+
+        private static List<Variante> concatenar(List<Variante> primeira, List<Variante> segunda) {
+            List<Variante> resultado = new ArrayList<>(primeira.size() + segunda.size());
+            resultado.addAll(primeira);
+            resultado.addAll(segunda);
+            return resultado;
+        }
+    }
+
+    /**
+     * Lista crescente de inteiros sem boxing. Os valores sao sempre adicionados em ordem crescente,
+     * o que permite busca binaria.
+     */
+    static final class ListaInt {
+        private int[] valores = new int[2];
+        private int tamanho;
+
+        void adicionar(int valor) {
+            if (tamanho > 0 && valores[tamanho - 1] == valor) {
+                return;
+            }
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+
+        boolean contem(int valor) {
+            return Arrays.binarySearch(valores, 0, tamanho, valor) >= 0;
+        }
+
+        int obter(int indice) {
+            return valores[indice];
+        }
+
+        int tamanho() {
+            return tamanho;
+        }
+
+        boolean vazia() {
+            return tamanho == 0;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Indice em memoria dos periodos de vida dos autores, para responder "vivos no ano X" e
+ * "vivos durante [X, Y]" em O(log n + k) sem consultar o banco de dados.
+ * <p>
+ * Os periodos ficam em uma arvore de intervalos centrada e imutavel. Autores salvos depois da construcao
+ * entram em uma lista percorrida linearmente, e a arvore e reconstruida quando essa lista cresce. Autores com
+ * falecimento anterior ao nascimento nao formam um intervalo e ficam sempre nessa lista.
+ * O indice e carregado da tabela de autores na primeira consulta. Um autor gravado logo antes da carga pode ser
+ * lido por ela e registrado depois; os ids ja presentes sao ignorados no registro.
+ */
+@Component
+public class IndiceVidaAutores {
+
+    private static final int MINIMO_PENDENTES_PARA_RECONSTRUIR = 1024;
+
+    private final RepositorioAutor repositorioAutor;
+    private final TransactionTemplate transacaoLeitura;
+    private volatile Instantaneo instantaneo;
+
+    public IndiceVidaAutores(RepositorioAutor repositorioAutor, PlatformTransactionManager gerenciadorTransacao) {
+        this.repositorioAutor = repositorioAutor;
+        this.transacaoLeitura = new TransactionTemplate(gerenciadorTransacao);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * Busca autores vivos em um ano
+     *
+     * @param ano O ano para verificar
+     * @return Autores nascidos ate o ano e falecidos no ano ou depois, ou ainda vivos, em ordem de id
+     */
+    public List<Autor> buscarVivosNoAno(int ano) {
+        return buscarVivosNoPeriodo(ano, ano);
+    }
+
+    /**
+     * Busca autores vivos em algum momento de um periodo
+     *
+     * @param anoInicial Primeiro ano do periodo
+     * @param anoFinal   Ultimo ano do periodo
+     * @return Autores cujo periodo de vida se sobrepoe ao periodo informado, em ordem de id
+     */
+    public List<Autor> buscarVivosNoPeriodo(int anoInicial, int anoFinal) {
+        if (anoInicial > anoFinal) {
+            throw new IllegalArgumentException("Ano inicial nao pode ser maior que o ano final");
+        }
+
+        Instantaneo atual = obterInstantaneo();
+        List<Autor> autores = new ArrayList<>();
+        atual.arvore().consultar(anoInicial, anoFinal, autores);
+        for (Autor autor : atual.lineares()) {
+            if (anoNascimento(autor) <= anoFinal && anoFalecimento(autor) >= anoInicial) {
+                autores.add(autor);
+            }
+        }
+        autores.sort(Comparator.comparing(Autor::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return autores;
+    }
+
+    /**
+     * Inclui um autor recem-salvo no indice. Nao faz nada se o indice ainda nao foi carregado,
+     * pois o autor sera lido da tabela na carga.
+     *
+     * @param autor O autor salvo
+     */
+    public synchronized void registrar(Autor autor) {
+        Instantaneo atual = instantaneo;
+        if (atual == null || autor == null || autor.getAnoNascimento() == null || atual.contem(autor)) {
+            return;
+        }
+
+        List<Autor> lineares = new ArrayList<>(atual.lineares().size() + 1);
+        lineares.addAll(atual.lineares());
+        lineares.add(autor);
+        int pendentes = lineares.size() - atual.inconsistentes();
+
+        if (pendentes >= Math.max(MINIMO_PENDENTES_PARA_RECONSTRUIR, atual.arvore().tamanho() / 16)) {
+            List<Autor> todos = new ArrayList<>(atual.arvore().tamanho() + lineares.size());
+            atual.arvore().coletar(todos);
+            todos.addAll(lineares);
+            instantaneo = Instantaneo.construir(todos);
+        } else {
+            int inconsistentes = atual.inconsistentes() + (temIntervaloValido(autor) ? 0 : 1);
+            instantaneo = new Instantaneo(atual.arvore(), atual.idsArvore(), List.copyOf(lineares), inconsistentes);
+        }
+    }
+
+    /**
+     * Descarta o indice para que seja recarregado da tabela na proxima consulta.
+     * Usado quando autores sao gravados sem passar por {@link #registrar(Autor)}.
+     */
+    public synchronized void invalidar() {
+        instantaneo = null;
+    }
+
+    private Instantaneo obterInstantaneo() {
+        Instantaneo atual = instantaneo;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (instantaneo == null) {
+                instantaneo = Instantaneo.construir(carregarAutores());
+            }
+            return instantaneo;
+        }
+    }
+
+    private List<Autor> carregarAutores() {
+        return transacaoLeitura.execute(status -> {
+            List<Autor> autores = new ArrayList<>();
+            try (Stream<Autor> todos = repositorioAutor.transmitirTodos()) {
+                todos.filter(autor -> autor.getAnoNascimento() != null).forEach(autores::add);
+            }
+            return autores;
+        });
+    }
+
+    private static int anoNascimento(Autor autor) {
+        return autor.getAnoNascimento();
+    }
+
+    /**
+     * Autores sem ano de falecimento sao tratados como vivos ate o fim dos tempos
+     */
+    private static int anoFalecimento(Autor autor) {
+        return autor.getAnoFalecimento() == null ? Integer.MAX_VALUE : autor.getAnoFalecimento();
+    }
+
+    private static boolean temIntervaloValido(Autor autor) {
+        return anoFalecimento(autor) >= anoNascimento(autor);
+    }
+
+    /**
+     * Estado imutavel do indice
+     *
+     * @param arvore          Autores com intervalo de vida valido, organizados na arvore
+     * @param idsArvore       Ids dos autores da arvore, em ordem crescente
+     * @param lineares        Autores percorridos linearmente: os salvos depois da construcao e os inconsistentes
+     * @param inconsistentes  Quantos dos autores lineares tem falecimento anterior ao nascimento
+     */
+    private record Instantaneo(ArvoreIntervalos arvore, long[] idsArvore, List<Autor> lineares, int inconsistentes) {
+
+        static Instantaneo construir(List<Autor> autores) {
+            List<Autor> validos = new ArrayList<>(autores.size());
+            List<Autor> inconsistentes = new ArrayList<>();
+            for (Autor autor : autores) {
+                (temIntervaloValido(autor) ? validos : inconsistentes).add(autor);
+            }
+            long[] idsArvore = validos.stream().map(Autor::getId).filter(Objects::nonNull)
+                    .mapToLong(Long::longValue).sorted().toArray();
+            return new Instantaneo(ArvoreIntervalos.construir(validos), idsArvore, List.copyOf(inconsistentes),
+                    inconsistentes.size());
+        }
+
+        boolean contem(Autor autor) {
+            Long id = autor.getId();
+            if (id == null) {
+                return false;
+            }
+            if (Arrays.binarySearch(idsArvore, id) >= 0) {
+                return true;
+            }
+            for (Autor linear : lineares) {
+                if (id.equals(linear.getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Arvore de intervalos centrada. Cada no guarda os intervalos que contem o seu centro,
+     * ordenados por inicio crescente e por fim decrescente; os demais vao para a esquerda ou a direita.
+     */
+    private static final class ArvoreIntervalos {
+
+        private final No raiz;
+        private final int tamanho;
+
+        private ArvoreIntervalos(No raiz, int tamanho) {
+            this.raiz = raiz;
+            this.tamanho = tamanho;
+        }
+
+        static ArvoreIntervalos construir(List<Autor> autores) {
+            return new ArvoreIntervalos(construirNo(autores.toArray(new Autor[0])), autores.size());
+        }
+
+        int tamanho() {
+            return tamanho;
+        }
+
+        void consultar(int inicio, int fim, List<Autor> saida) {
+            consultar(raiz, inicio, fim, saida);
+        }
+
+        private static void consultar(No no, int inicio, int fim, List<Autor> saida) {
+            while (no != null) {
+                if (fim < no.centro) {
+                    for (Autor autor : no.porInicio) {
+                        if (anoNascimento(autor) > fim) {
+                            break;
+                        }
+                        saida.add(autor);
+                    }
+                    no = no.esquerda;
+                } else if (inicio > no.centro) {
+                    for (Autor autor : no.porFim) {
+                        if (anoFalecimento(autor) < inicio) {
+                            break;
+                        }
+                        saida.add(autor);
+                    }
+                    no = no.direita;
+                } else {
+                    // O periodo contem o centro: todos os intervalos do no se sobrepoem a ele
+                    saida.addAll(Arrays.asList(no.porInicio));
+                    consultar(no.esquerda, inicio, fim, saida);
+                    no = no.direita;
+                }
+            }
+        }
+
+        void coletar(List<Autor> saida) {
+            coletar(raiz, saida);
+        }
+
+        private static void coletar(No no, List<Autor> saida) {
+            if (no != null) {
+                saida.addAll(Arrays.asList(no.porInicio));
+                coletar(no.esquerda, saida);
+                coletar(no.direita, saida);
+            }
+        }
+
+        private static No construirNo(Autor[] autores) {
+            if (autores.length == 0) {
+                return null;
+            }
+
+            int[] inicios = new int[autores.length];
+            for (int i = 0; i < autores.length; i++) {
+                inicios[i] = anoNascimento(autores[i]);
+            }
+            Arrays.sort(inicios);
+            int centro = inicios[inicios.length / 2];
+
+            List<Autor> esquerda = new ArrayList<>();
+            List<Autor> direita = new ArrayList<>();
+            List<Autor> noCentro = new ArrayList<>();
+            for (Autor autor : autores) {
+                if (anoFalecimento(autor) < centro) {
+                    esquerda.add(autor);
+                } else if (anoNascimento(autor) > centro) {
+                    direita.add(autor);
+                } else {
+                    noCentro.add(autor);
+                }
+            }
+
+            Autor[] porInicio = noCentro.toArray(new Autor[0]);
+            Arrays.sort(porInicio, Comparator.comparingInt(IndiceVidaAutores::anoNascimento));
+            Autor[] porFim = noCentro.toArray(new Autor[0]);
+            Arrays.sort(porFim, Comparator.comparingInt(IndiceVidaAutores::anoFalecimento).reversed());
+
+            return new No(centro, porInicio, porFim,
+                    construirNo(esquerda.toArray(new Autor[0])),
+                    construirNo(direita.toArray(new Autor[0])));
+        }
+
+        private record No(int centro, Autor[] porInicio, Autor[] porFim, No esquerda, No direita) {
+        }
+    }
+}
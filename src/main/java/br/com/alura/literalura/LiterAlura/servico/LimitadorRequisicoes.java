@@ -0,0 +1,89 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Limita o numero de requisicoes assincronas em andamento ao mesmo tempo.
+ * Requisicoes acima do limite aguardam em fila, sem bloquear a thread que as enviou,
+ * e sao iniciadas na ordem de chegada a medida que as anteriores terminam.
+ */
+class LimitadorRequisicoes {
+
+    private final int limite;
+    private final Semaphore permissoes;
+    private final Queue<Runnable> emEspera = new ConcurrentLinkedQueue<>();
+
+    LimitadorRequisicoes(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("O limite de requisicoes simultaneas deve ser positivo: " + limite);
+        }
+        this.limite = limite;
+        this.permissoes = new Semaphore(limite);
+    }
+
+    /**
+     * Inicia a requisicao assim que houver uma vaga disponivel
+     *
+     * @param requisicao Inicia a requisicao e retorna o seu resultado
+     * @return Resultado da requisicao, concluido quando ela terminar
+     */
+    <T> CompletableFuture<T> executar(Supplier<CompletableFuture<T>> requisicao) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        emEspera.add(() -> {
+            CompletableFuture<T> emAndamento;
+            try {
+                emAndamento = requisicao.get();
+            } catch (RuntimeException e) {
+                emAndamento = CompletableFuture.failedFuture(e);
+            }
+            emAndamento.whenComplete((valor, erro) -> {
+                liberar();
+                if (erro != null) {
+                    resultado.completeExceptionally(erro);
+                } else {
+                    resultado.complete(valor);
+                }
+            });
+        });
+        iniciarEmEspera();
+        return resultado;
+    }
+
+    /**
+     * @return Numero de requisicoes em andamento
+     */
+    int emAndamento() {
+        return limite - permissoes.availablePermits();
+    }
+
+    /**
+     * @return Numero de requisicoes aguardando uma vaga
+     */
+    int emEspera() {
+        return emEspera.size();
+    }
+
+    private void liberar() {
+        permissoes.release();
+        iniciarEmEspera();
+    }
+
+    /**
+     * Inicia requisicoes da fila enquanto houver vagas. Toda insercao na fila e toda liberacao de vaga
+     * passam por aqui, entao nenhuma requisicao fica esperando com vagas livres.
+     */
+    private void iniciarEmEspera() {
+        while (!emEspera.isEmpty() && permissoes.tryAcquire()) {
+            Runnable proxima = emEspera.poll();
+            if (proxima == null) {
+                permissoes.release();
+            } else {
+                proxima.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balde de fichas que limita a taxa de requisicoes por segundo.
+ * O balde comeca cheio e acumula no maximo um segundo de fichas, permitindo rajadas curtas.
+ * Quem pede uma ficha com o balde vazio a reserva no futuro e recebe quanto tempo deve esperar,
+ * sem bloquear nenhuma thread.
+ */
+class LimitadorTaxa {
+
+    private final double fichasPorNano;
+    private final double capacidade;
+    private double fichas;
+    private long ultimaRecargaNanos;
+
+    /**
+     * @param requisicoesPorSegundo Taxa maxima; zero ou negativo desativa o limite
+     */
+    LimitadorTaxa(double requisicoesPorSegundo) {
+        this.fichasPorNano = requisicoesPorSegundo / TimeUnit.SECONDS.toNanos(1);
+        this.capacidade = Math.max(1, requisicoesPorSegundo);
+        this.fichas = capacidade;
+        this.ultimaRecargaNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserva uma ficha
+     *
+     * @return Tempo em nanossegundos que o chamador deve esperar antes de usar a ficha, ou zero
+     */
+    synchronized long reservar() {
+        if (fichasPorNano <= 0) {
+            return 0;
+        }
+        long agora = System.nanoTime();
+        fichas = Math.min(capacidade, fichas + (agora - ultimaRecargaNanos) * fichasPorNano);
+        ultimaRecargaNanos = agora;
+        fichas -= 1;
+        return fichas >= 0 ? 0 : (long) Math.ceil(-fichas / fichasPorNano);
+    }
+}
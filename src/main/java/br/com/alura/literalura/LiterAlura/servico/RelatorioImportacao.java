@@ -0,0 +1,25 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+/**
+ * Andamento ou resultado final de uma importacao do catalogo
+ *
+ * @param paginas          Numero de paginas gravadas
+ * @param totalCatalogo    Numero total de livros informado pela API
+ * @param livrosLidos      Numero de livros lidos das paginas
+ * @param livrosInseridos  Numero de livros novos inseridos no banco de dados
+ * @param autoresInseridos Numero de autores novos inseridos no banco de dados
+ * @param duracaoNanos     Tempo decorrido desde o inicio da importacao, em nanossegundos
+ */
+public record RelatorioImportacao(int paginas, int totalCatalogo, long livrosLidos, long livrosInseridos,
+                                  long autoresInseridos, long duracaoNanos) {
+
+    /**
+     * @return Livros lidos por segundo
+     */
+    public double livrosPorSegundo() {
+        if (duracaoNanos <= 0) {
+            return 0;
+        }
+        return livrosLidos / (duracaoNanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Relatorio de uma execucao de ingestao concorrente, com vazao e latencia por titulo
+ *
+ * @param resultados    Resultados na ordem em que foram concluidos
+ * @param duracaoNanos  Duracao total da ingestao, em nanossegundos
+ */
+public record RelatorioIngestao(List<ResultadoIngestao> resultados, long duracaoNanos) {
+
+    public RelatorioIngestao {
+        resultados = List.copyOf(resultados);
+    }
+
+    /**
+     * @return Numero de titulos processados
+     */
+    public int totalTitulos() {
+        return resultados.size();
+    }
+
+    /**
+     * @return Numero de titulos para os quais um livro foi encontrado
+     */
+    public long totalEncontrados() {
+        return resultados.stream().filter(r -> r.livro() != null).count();
+    }
+
+    /**
+     * @return Numero de titulos cuja busca falhou, e que podem ser tentados novamente
+     */
+    public long totalFalhas() {
+        return resultados.stream().filter(ResultadoIngestao::falhou).count();
+    }
+
+    /**
+     * @return Titulos processados por segundo
+     */
+    public double vazaoPorSegundo() {
+        if (duracaoNanos <= 0) {
+            return 0;
+        }
+        return resultados.size() / (duracaoNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Calcula um percentil da latencia por titulo
+     *
+     * @param percentil Valor entre 0 e 100
+     * @return A latencia no percentil informado, em milissegundos
+     */
+    public double latenciaPercentilMillis(double percentil) {
+        if (resultados.isEmpty()) {
+            return 0;
+        }
+        long[] latencias = resultados.stream().mapToLong(ResultadoIngestao::latenciaNanos).toArray();
+        Arrays.sort(latencias);
+        int indice = (int) Math.ceil(percentil / 100.0 * latencias.length) - 1;
+        indice = Math.max(0, Math.min(latencias.length - 1, indice));
+        return latencias[indice] / 1_000_000.0;
+    }
+
+    /**
+     * @return Latencia media por titulo, em milissegundos
+     */
+    public double latenciaMediaMillis() {
+        return resultados.stream().mapToLong(ResultadoIngestao::latenciaNanos).average().orElse(0) / 1_000_000.0;
+    }
+}
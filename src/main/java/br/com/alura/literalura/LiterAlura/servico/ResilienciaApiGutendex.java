@@ -0,0 +1,139 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Politicas de resiliencia das chamadas a API Gutendex: limite de taxa, disjuntor e novas tentativas
+ * com espera exponencial e aleatoria em falhas transitorias (erros de rede, timeouts, 429 e 5xx).
+ * Nenhuma espera bloqueia threads; as tentativas seguintes sao agendadas.
+ */
+@Component
+public class ResilienciaApiGutendex {
+
+    private final int maximoRetentativas;
+    private final long esperaInicialMillis;
+    private final long esperaMaximaMillis;
+    private final LimitadorTaxa limitadorTaxa;
+    private final DisjuntorCircuito disjuntor;
+    private final MeterRegistry registroMetricas;
+
+    public ResilienciaApiGutendex(@Value("${literalura.api.retentativas.maximo:3}") int maximoRetentativas,
+                                  @Value("${literalura.api.retentativas.espera-inicial:500ms}") Duration esperaInicial,
+                                  @Value("${literalura.api.retentativas.espera-maxima:10s}") Duration esperaMaxima,
+                                  @Value("${literalura.api.taxa-maxima:10}") double requisicoesPorSegundo,
+                                  @Value("${literalura.api.disjuntor.falhas-para-abrir:5}") int falhasParaAbrir,
+                                  @Value("${literalura.api.disjuntor.tempo-aberto:30s}") Duration tempoAberto,
+                                  MeterRegistry registroMetricas) {
+        this.maximoRetentativas = Math.max(0, maximoRetentativas);
+        this.esperaInicialMillis = esperaInicial.toMillis();
+        this.esperaMaximaMillis = esperaMaxima.toMillis();
+        this.limitadorTaxa = new LimitadorTaxa(requisicoesPorSegundo);
+        this.disjuntor = new DisjuntorCircuito(falhasParaAbrir, tempoAberto);
+        this.registroMetricas = registroMetricas;
+        registroMetricas.gauge("literalura.api.disjuntor.aberto", disjuntor,
+                d -> d.estado() == DisjuntorCircuito.Estado.FECHADO ? 0 : 1);
+    }
+
+    /**
+     * Executa a requisicao aplicando as politicas de resiliencia
+     *
+     * @param operacao   Nome da operacao, usado nas metricas
+     * @param requisicao Inicia uma tentativa da requisicao
+     * @return A resposta da ultima tentativa, que pode ter um status de erro se as tentativas se esgotaram.
+     * Conclui com erro se a rede falhou em todas as tentativas ou se o disjuntor estava aberto.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> executar(String operacao,
+                                                            Supplier<CompletableFuture<HttpResponse<T>>> requisicao) {
+        CompletableFuture<HttpResponse<T>> resultado = new CompletableFuture<>();
+        tentar(operacao, requisicao, 1, resultado);
+        return resultado;
+    }
+
+    private <T> void tentar(String operacao, Supplier<CompletableFuture<HttpResponse<T>>> requisicao,
+                            int tentativa, CompletableFuture<HttpResponse<T>> resultado) {
+        if (!disjuntor.permitir()) {
+            registroMetricas.counter("literalura.api.rejeitadas", "operacao", operacao).increment();
+            resultado.completeExceptionally(new CircuitoAbertoException(
+                    "API Gutendex indisponivel; novas chamadas suspensas temporariamente"));
+            return;
+        }
+
+        CompletableFuture.runAsync(() -> {
+                }, aposEspera(limitadorTaxa.reservar(), TimeUnit.NANOSECONDS))
+                .thenCompose(v -> requisicao.get())
+                .whenComplete((resposta, erro) -> {
+                    Throwable causa = erro instanceof CompletionException && erro.getCause() != null
+                            ? erro.getCause() : erro;
+                    boolean transitoria = causa != null ? causa instanceof IOException
+                            : ehStatusTransitorio(resposta.statusCode());
+                    if (transitoria) {
+                        disjuntor.registrarFalha();
+                    } else {
+                        disjuntor.registrarSucesso();
+                    }
+
+                    if (transitoria && tentativa <= maximoRetentativas) {
+                        registroMetricas.counter("literalura.api.retentativas", "operacao", operacao).increment();
+                        aposEspera(calcularEspera(tentativa, resposta), TimeUnit.MILLISECONDS)
+                                .execute(() -> tentar(operacao, requisicao, tentativa + 1, resultado));
+                    } else if (causa != null) {
+                        resultado.completeExceptionally(causa);
+                    } else {
+                        resultado.complete(resposta);
+                    }
+                });
+    }
+
+    /**
+     * Espera exponencial com variacao aleatoria completa, respeitando o cabecalho Retry-After quando presente
+     */
+    private long calcularEspera(int tentativa, HttpResponse<?> resposta) {
+        long teto = Math.min(esperaMaximaMillis, esperaInicialMillis << Math.min(tentativa - 1, 20));
+        long espera = ThreadLocalRandom.current().nextLong(teto + 1);
+        if (resposta != null) {
+            long retryAfterMillis = resposta.headers().firstValue("Retry-After")
+                    .map(ResilienciaApiGutendex::segundosParaMillis)
+                    .orElse(0L);
+            espera = Math.max(espera, Math.min(retryAfterMillis, esperaMaximaMillis));
+        }
+        return espera;
+    }
+
+    private static long segundosParaMillis(String segundos) {
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(segundos.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean ehStatusTransitorio(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static Executor aposEspera(long espera, TimeUnit unidade) {
+        return espera > 0 ? CompletableFuture.delayedExecutor(espera, unidade) : Runnable::run;
+    }
+
+    /**
+     * Indica que a chamada foi rejeitada sem ser enviada porque o disjuntor esta aberto
+     */
+    static class CircuitoAbertoException extends RuntimeException {
+
+        CircuitoAbertoException(String mensagem) {
+            super(mensagem);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Resultado de uma busca de livro por titulo, que distingue "nenhum livro encontrado" de "a busca falhou"
+ *
+ * @param situacao    Se o livro foi encontrado, nao existe ou a busca falhou
+ * @param livro       O livro encontrado, ou nulo
+ * @param motivoFalha Descricao da falha, ou nulo se a busca nao falhou
+ */
+public record ResultadoBuscaLivro(Situacao situacao, Livro livro, String motivoFalha) {
+
+    public enum Situacao {
+        ENCONTRADO,
+        NAO_ENCONTRADO,
+        FALHA
+    }
+
+    public static ResultadoBuscaLivro encontrado(Livro livro) {
+        return new ResultadoBuscaLivro(Situacao.ENCONTRADO, livro, null);
+    }
+
+    public static ResultadoBuscaLivro naoEncontrado() {
+        return new ResultadoBuscaLivro(Situacao.NAO_ENCONTRADO, null, null);
+    }
+
+    public static ResultadoBuscaLivro falha(String motivoFalha) {
+        return new ResultadoBuscaLivro(Situacao.FALHA, null, motivoFalha);
+    }
+
+    /**
+     * @return Optional contendo o livro encontrado, ou vazio se nao foi encontrado ou a busca falhou
+     */
+    public Optional<Livro> livroEncontrado() {
+        return Optional.ofNullable(livro);
+    }
+
+    /**
+     * @return true se a busca nao pode ser concluida, e portanto nada se sabe sobre o titulo
+     */
+    public boolean falhou() {
+        return situacao == Situacao.FALHA;
+    }
+
+    /**
+     * Aplica a transformacao ao livro encontrado, mantendo a situacao
+     *
+     * @param transformacao Transformacao do livro, como salva-lo no banco de dados
+     * @return Resultado com o livro transformado, ou este mesmo resultado se nenhum livro foi encontrado
+     */
+    public ResultadoBuscaLivro mapearLivro(UnaryOperator<Livro> transformacao) {
+        return livro == null ? this : encontrado(transformacao.apply(livro));
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+
+import java.util.Optional;
+
+/**
+ * Resultado da ingestao de um unico titulo
+ *
+ * @param titulo         O titulo buscado
+ * @param livro          O livro encontrado, ou nulo se nenhum foi encontrado
+ * @param falhou         true se a busca falhou, em vez de simplesmente nao encontrar nenhum livro
+ * @param latenciaNanos  Tempo gasto na busca e gravacao do titulo, em nanossegundos
+ */
+public record ResultadoIngestao(String titulo, Livro livro, boolean falhou, long latenciaNanos) {
+
+    /**
+     * @return Optional contendo o livro encontrado, ou vazio se nenhum foi encontrado
+     */
+    public Optional<Livro> livroEncontrado() {
+        return Optional.ofNullable(livro);
+    }
+}
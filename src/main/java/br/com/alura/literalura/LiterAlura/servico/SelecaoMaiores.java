@@ -0,0 +1,68 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+/**
+ * Seleciona os N maiores elementos de uma sequencia percorrida uma unica vez, guardando no maximo N deles.
+ * Os selecionados ficam em um heap de minimo: cada elemento novo so entra se for maior que o menor
+ * selecionado, que entao sai. A memoria depende de N, e nao do tamanho da sequencia.
+ * Nao e thread-safe; em streams paralelos use {@link #coletor(int, Comparator)}.
+ */
+final class SelecaoMaiores<T> {
+
+    private final int limite;
+    private final Comparator<? super T> ordem;
+    private final PriorityQueue<T> selecionados;
+
+    /**
+     * @param limite Numero maximo de elementos selecionados
+     * @param ordem  Ordem dos elementos; os maiores segundo ela sao selecionados
+     */
+    SelecaoMaiores(int limite, Comparator<? super T> ordem) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        this.limite = limite;
+        this.ordem = ordem;
+        this.selecionados = new PriorityQueue<>(Math.min(limite, 1024), ordem);
+    }
+
+    /**
+     * Coletor que seleciona os maiores elementos de um stream, do maior para o menor
+     *
+     * @param limite Numero maximo de elementos selecionados
+     * @param ordem  Ordem dos elementos; os maiores segundo ela sao selecionados
+     * @return O coletor
+     */
+    static <T> Collector<T, ?, List<T>> coletor(int limite, Comparator<? super T> ordem) {
+        return Collector.of(() -> new SelecaoMaiores<T>(limite, ordem), SelecaoMaiores::adicionar,
+                SelecaoMaiores::combinar, SelecaoMaiores::resultado);
+    }
+
+    void adicionar(T elemento) {
+        if (selecionados.size() < limite) {
+            selecionados.add(elemento);
+        } else if (ordem.compare(elemento, selecionados.peek()) > 0) {
+            selecionados.poll();
+            selecionados.add(elemento);
+        }
+    }
+
+    SelecaoMaiores<T> combinar(SelecaoMaiores<T> outra) {
+        outra.selecionados.forEach(this::adicionar);
+        return this;
+    }
+
+    /**
+     * @return Os elementos selecionados, do maior para o menor
+     */
+    List<T> resultado() {
+        List<T> resultado = new ArrayList<>(selecionados);
+        resultado.sort(ordem.reversed());
+        return resultado;
+    }
+}
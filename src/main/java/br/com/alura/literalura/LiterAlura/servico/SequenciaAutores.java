@@ -0,0 +1,57 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import java.util.Arrays;
+
+/**
+ * Ids dos autores de uma copia do catalogo montada em uma passada: todos os autores antes dos livros, em
+ * ordem crescente de id, para que o autor de cada livro seja traduzido na sua posicao por busca binaria.
+ * Nao e thread-safe.
+ */
+final class SequenciaAutores {
+
+    private long[] ids = new long[1024];
+    private int quantidade;
+    private boolean livrosIniciados;
+
+    /**
+     * @param id O id do autor, maior que o do autor anterior
+     * @return A posicao do autor
+     * @throws IllegalStateException se algum livro ja foi traduzido ou o id nao e crescente
+     */
+    int adicionar(long id) {
+        if (livrosIniciados) {
+            throw new IllegalStateException("Autores devem ser adicionados antes dos livros");
+        }
+        if (quantidade > 0 && id <= ids[quantidade - 1]) {
+            throw new IllegalStateException("Autores devem ser adicionados em ordem crescente de id");
+        }
+        if (quantidade == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[quantidade] = id;
+        return quantidade++;
+    }
+
+    /**
+     * Traduz o autor de um livro; depois disso nao se pode adicionar autores
+     *
+     * @param idAutor O id do autor, ja adicionado, ou nulo se o livro nao tem autor
+     * @return A posicao do autor, ou -1 se o livro nao tem autor
+     * @throws IllegalStateException se o autor nao foi adicionado
+     */
+    int posicao(Long idAutor) {
+        livrosIniciados = true;
+        if (idAutor == null) {
+            return -1;
+        }
+        int posicao = Arrays.binarySearch(ids, 0, quantidade, idAutor);
+        if (posicao < 0) {
+            throw new IllegalStateException("Autor " + idAutor + " nao foi adicionado");
+        }
+        return posicao;
+    }
+
+    int quantidade() {
+        return quantidade;
+    }
+}
@@ -1,12 +1,20 @@
 package br.com.alura.literalura.LiterAlura.servico;
 
-import br.com.alura.literalura.LiterAlura.modelo.Autor;
-import br.com.alura.literalura.LiterAlura.modelo.Livro;
-import com.fasterxml.jackson.databind.JsonNode;
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.dto.PaginaGutendex;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -15,104 +23,308 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
+@Timed(value = "literalura.servico", histogram = true)
 public class ServicoApiGutendex {
-    private static final String URL_BASE_API = "https://gutendex.com/books";
-    private final HttpClient clienteHttp;
-    private final ObjectMapper mapeadorObjeto;
-
-    public ServicoApiGutendex(ObjectMapper mapeadorObjeto) {
-        this.clienteHttp = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
-        this.mapeadorObjeto = mapeadorObjeto;
+    private final String urlBaseApi;
+    private volatile HttpClient clienteHttp;
+    private final AnalisadorRespostaGutendex analisadorResposta;
+    private final CacheRespostasGutendex cacheRespostas;
+    private final LimitadorRequisicoes limitadorRequisicoes;
+    private final ResilienciaApiGutendex resiliencia;
+    private final GravacaoRespostasGutendex gravacaoRespostas;
+    private final Duration tempoLimiteRequisicao;
+    private final MeterRegistry registroMetricas;
+
+    public ServicoApiGutendex(ObjectMapper mapeadorObjeto, CacheRespostasGutendex cacheRespostas,
+                              ResilienciaApiGutendex resiliencia, GravacaoRespostasGutendex gravacaoRespostas,
+                              MeterRegistry registroMetricas,
+                              @Value("${literalura.api.url-base:https://gutendex.com/books}") String urlBaseApi,
+                              @Value("${literalura.api.requisicoes-simultaneas:16}") int requisicoesSimultaneas,
+                              @Value("${literalura.api.tempo-limite-requisicao:15s}") Duration tempoLimiteRequisicao) {
+        this.urlBaseApi = urlBaseApi;
+        this.analisadorResposta = new AnalisadorRespostaGutendex(mapeadorObjeto.getFactory());
+        this.cacheRespostas = cacheRespostas;
+        this.limitadorRequisicoes = new LimitadorRequisicoes(requisicoesSimultaneas);
+        this.resiliencia = resiliencia;
+        this.gravacaoRespostas = gravacaoRespostas;
+        this.tempoLimiteRequisicao = tempoLimiteRequisicao;
+        this.registroMetricas = registroMetricas;
+        cacheRespostas.registrarMetricas(registroMetricas);
+        registroMetricas.gauge("literalura.api.requisicoes.em_andamento", limitadorRequisicoes,
+                LimitadorRequisicoes::emAndamento);
+        registroMetricas.gauge("literalura.api.requisicoes.em_espera", limitadorRequisicoes,
+                LimitadorRequisicoes::emEspera);
     }
 
     /**
-     * Busca livros por titulo
+     * Busca livros por titulo, usando o cache de respostas antes de consultar a API.
+     * Bloqueia ate a resposta chegar; veja {@link #buscarLivroPorTituloAsync(String)}.
      *
      * @param titulo O titulo a ser buscado
-     * @return Optional contendo o primeiro livro encontrado, ou vazio se nenhum for encontrado
+     * @return O primeiro livro encontrado, a indicacao de que nenhum foi encontrado ou a falha da consulta
      */
-    public Optional<Livro> buscarLivroPorTitulo(String titulo) {
-        try {
-            String tituloCodeificado = URLEncoder.encode(titulo, StandardCharsets.UTF_8);
-            String url = URL_BASE_API + "?search=" + tituloCodeificado;
+    public ResultadoBuscaLivro buscarLivroPorTitulo(String titulo) {
+        return buscarLivroPorTituloAsync(titulo).join();
+    }
 
-            HttpRequest requisicao = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .build();
+    /**
+     * Busca livros por titulo sem bloquear a thread chamadora, usando o cache de respostas antes de consultar a API.
+     * Buscas simultaneas pelo mesmo titulo normalizado compartilham uma unica requisicao, e o numero de
+     * requisicoes em andamento e limitado por literalura.api.requisicoes-simultaneas.
+     * Falhas transitorias sao repetidas conforme {@link ResilienciaApiGutendex}.
+     *
+     * @param titulo O titulo a ser buscado
+     * @return O primeiro livro encontrado, a indicacao de que nenhum foi encontrado ou a falha da consulta
+     */
+    public CompletableFuture<ResultadoBuscaLivro> buscarLivroPorTituloAsync(String titulo) {
+        return cacheRespostas.obter(titulo, this::consultarApi)
+                .thenApply(dados -> dados.map(DadosLivroGutendex::paraLivro)
+                        .map(ResultadoBuscaLivro::encontrado)
+                        .orElseGet(ResultadoBuscaLivro::naoEncontrado))
+                .exceptionally(erro -> {
+                    // Falhas nao sao guardadas no cache, apenas respostas validas
+                    registroMetricas.counter("literalura.api.falhas").increment();
+                    Throwable causa = desembrulhar(erro);
+                    String motivo = causa instanceof FalhaConsultaApiException
+                            ? causa.getMessage() : "Erro ao buscar livro: " + causa;
+                    System.err.println(motivo);
+                    return ResultadoBuscaLivro.falha(motivo);
+                });
+    }
 
-            HttpResponse<String> resposta = clienteHttp.send(requisicao, HttpResponse.BodyHandlers.ofString());
+    /**
+     * @return Contadores de acertos, falhas e remocoes do cache de respostas
+     */
+    public CacheStats obterEstatisticasCache() {
+        return cacheRespostas.estatisticas();
+    }
 
-            if (resposta.statusCode() == 200) {
-                return analisarLivroDeResposta(resposta.body());
-            } else {
-                System.err.println("Erro: " + resposta.statusCode() + " - " + resposta.body());
-                return Optional.empty();
+    /**
+     * Busca uma pagina completa do catalogo, sem passar pelo cache
+     *
+     * @param url URL da pagina, como a URL base da API ou o campo "next" da pagina anterior
+     * @return A pagina com todos os seus livros
+     * @throws FalhaConsultaApiException se a API responder com erro ou a resposta nao puder ser lida
+     */
+    public PaginaGutendex buscarPagina(String url) {
+        try {
+            return enviarComResiliencia(URI.create(url), "pagina", analisadorResposta::analisarPagina).join();
+        } catch (CompletionException e) {
+            Throwable causa = desembrulhar(e);
+            if (causa instanceof FalhaConsultaApiException falha) {
+                throw falha;
             }
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Erro ao buscar livro: " + e.getMessage());
-            return Optional.empty();
+            throw new FalhaConsultaApiException("Erro ao buscar pagina: " + causa.getMessage(), causa);
         }
     }
 
     /**
-     * Analisa o primeiro livro da resposta da API
+     * @return URL da primeira pagina do catalogo completo
+     */
+    public String obterUrlCatalogo() {
+        return urlBaseApi;
+    }
+
+    /**
+     * Consulta a API por titulo de forma assincrona
      *
-     * @param corpoResposta O corpo da resposta JSON
-     * @return Optional contendo o primeiro livro, ou vazio se nenhum for encontrado
+     * @param titulo O titulo a ser buscado
+     * @return Resultado com os dados do primeiro livro encontrado, ou vazio se nenhum for encontrado.
+     * Conclui com erro se a API responder com erro, nao puder ser consultada ou a resposta nao puder ser lida
      */
-    private Optional<Livro> analisarLivroDeResposta(String corpoResposta) {
-        try {
-            JsonNode noRaiz = mapeadorObjeto.readTree(corpoResposta);
-            JsonNode noResultados = noRaiz.get("results");
+    private CompletableFuture<Optional<DadosLivroGutendex>> consultarApi(String titulo) {
+        String tituloCodeificado = URLEncoder.encode(titulo, StandardCharsets.UTF_8);
+        return enviarComResiliencia(URI.create(urlBaseApi + "?search=" + tituloCodeificado), "busca",
+                analisadorResposta::analisarPrimeiroLivro);
+    }
 
-            if (noResultados != null && noResultados.isArray() && noResultados.size() > 0) {
-                JsonNode noLivro = noResultados.get(0);
+    /**
+     * Envia uma requisicao GET com tempo limite e analisa o corpo da resposta, aplicando as politicas de
+     * resiliencia e o limite de requisicoes em andamento a cada tentativa
+     *
+     * @return O resultado da analise. Conclui com FalhaConsultaApiException se a API responder com erro
+     * ou se a resposta nao puder ser lida
+     */
+    private <T> CompletableFuture<T> enviarComResiliencia(URI uri, String operacao, AnaliseResposta<T> analise) {
+        HttpRequest requisicao = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(tempoLimiteRequisicao)
+                .GET()
+                .build();
+        return resiliencia.executar(operacao,
+                        () -> limitadorRequisicoes.executar(() -> enviarAsync(requisicao, operacao, analise)))
+                .thenApply(resposta -> resposta.body().get());
+    }
 
-                String titulo = noLivro.get("title").asText();
+    /**
+     * Escolhe como receber o corpo conforme o status. Respostas com sucesso sao lidas em streaming pela analise,
+     * sem copiar o corpo inteiro para a memoria, exceto com a gravacao habilitada, que precisa do corpo completo.
+     * Corpos de erro sao curtos e lidos por inteiro, para que uma nova tentativa possa descartar a resposta
+     * sem deixar a conexao presa a um corpo nao consumido.
+     */
+    private <T> HttpResponse.BodyHandler<Supplier<T>> corpoResposta(URI uri, String operacao,
+                                                                    AnaliseResposta<T> analise) {
+        return informacoes -> {
+            int status = informacoes.statusCode();
+            if (status != 200) {
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(),
+                        corpo -> () -> {
+                            throw new FalhaConsultaApiException(
+                                    "Erro: " + status + " - " + new String(corpo, StandardCharsets.UTF_8), null);
+                        });
+            }
+            if (gravacaoRespostas.habilitada()) {
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), corpo -> {
+                    gravacaoRespostas.gravar(uri, status, corpo);
+                    return new CorpoAnalisado<>(
+                            () -> medirAnalise(operacao, () -> analise.analisar(new ByteArrayInputStream(corpo))));
+                });
+            }
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                    corpo -> new CorpoAnalisado<>(() -> {
+                        try (InputStream entrada = corpo) {
+                            return medirAnalise(operacao, () -> analise.analisar(entrada));
+                        }
+                    }));
+        };
+    }
 
-                // Obtem o primeiro idioma (conforme requisitos)
-                String idioma = "";
-                JsonNode noIdiomas = noLivro.get("languages");
-                if (noIdiomas != null && noIdiomas.isArray() && noIdiomas.size() > 0) {
-                    idioma = noIdiomas.get(0).asText();
+    /**
+     * Cria o cliente HTTP na primeira requisicao: montar o cliente carrega o contexto TLS e inicia a thread
+     * de selecao, custo que uma sessao que so consulta o banco de dados nao precisa pagar ao iniciar.
+     * HTTP/2 multiplexa as requisicoes simultaneas em uma unica conexao com a API.
+     */
+    private HttpClient clienteHttp() {
+        HttpClient cliente = clienteHttp;
+        if (cliente == null) {
+            synchronized (this) {
+                cliente = clienteHttp;
+                if (cliente == null) {
+                    cliente = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_2)
+                            .connectTimeout(Duration.ofSeconds(10))
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .build();
+                    clienteHttp = cliente;
                 }
+            }
+        }
+        return cliente;
+    }
+
+    /**
+     * Envia a requisicao sem bloquear e registra a latencia ate o recebimento dos cabecalhos, por operacao e
+     * status HTTP. O corpo de uma resposta com sucesso e analisado em seguida, no estagio de conclusao e ainda
+     * dentro da vaga do limite de requisicoes, e o tempo da sua leitura entra no tempo de analise.
+     * Com a gravacao habilitada, as respostas com sucesso sao salvas em disco.
+     */
+    private <T> CompletableFuture<HttpResponse<Supplier<T>>> enviarAsync(HttpRequest requisicao, String operacao,
+                                                                       AnaliseResposta<T> analise) {
+        Timer.Sample amostra = Timer.start(registroMetricas);
+        return clienteHttp().sendAsync(requisicao, corpoResposta(requisicao.uri(), operacao, analise))
+                .whenComplete((resposta, erro) -> amostra.stop(Timer.builder("literalura.api.requisicao")
+                        .description("Latencia das requisicoes HTTP a API Gutendex")
+                        .tag("operacao", operacao)
+                        .tag("status", resposta != null ? String.valueOf(resposta.statusCode()) : "erro_io")
+                        .publishPercentileHistogram()
+                        .register(registroMetricas)))
+                .thenApply(ServicoApiGutendex::analisarCorpo);
+    }
+
+    /**
+     * Analisa o corpo de uma resposta com sucesso. Erros de rede durante a leitura concluem com a IOException,
+     * para que sejam repetidos como os erros no envio da requisicao.
+     */
+    private static <T> HttpResponse<Supplier<T>> analisarCorpo(HttpResponse<Supplier<T>> resposta) {
+        if (resposta.statusCode() == 200) {
+            try {
+                resposta.body().get();
+            } catch (UncheckedIOException e) {
+                throw new CompletionException(e.getCause());
+            }
+        }
+        return resposta;
+    }
+
+    /**
+     * Registra o tempo de leitura e analise do corpo da resposta
+     */
+    private <T> T medirAnalise(String operacao, LeituraCorpo<T> leitura) throws IOException {
+        Timer.Sample amostra = Timer.start(registroMetricas);
+        try {
+            return leitura.ler();
+        } finally {
+            amostra.stop(Timer.builder("literalura.api.analise")
+                    .description("Tempo de leitura e analise do JSON das respostas da API Gutendex")
+                    .tag("operacao", operacao)
+                    .publishPercentileHistogram()
+                    .register(registroMetricas));
+        }
+    }
 
-                int downloads = noLivro.get("download_count").asInt();
+    @FunctionalInterface
+    private interface AnaliseResposta<T> {
+        T analisar(InputStream corpo) throws IOException;
+    }
 
-                // Obtem o primeiro autor (conforme requisitos)
-                Autor autor = null;
-                JsonNode noAutores = noLivro.get("authors");
-                if (noAutores != null && noAutores.isArray() && noAutores.size() > 0) {
-                    JsonNode noAutor = noAutores.get(0);
-                    String nome = noAutor.get("name").asText();
+    @FunctionalInterface
+    private interface LeituraCorpo<T> {
+        T ler() throws IOException;
+    }
 
-                    Integer anoNascimento = null;
-                    if (!noAutor.get("birth_year").isNull()) {
-                        anoNascimento = noAutor.get("birth_year").asInt();
-                    }
+    /**
+     * Corpo de uma resposta com sucesso, analisado uma unica vez na primeira leitura. O resultado ou a falha
+     * da analise sao guardados para as leituras seguintes.
+     */
+    private static final class CorpoAnalisado<T> implements Supplier<T> {
 
-                    Integer anoFalecimento = null;
-                    if (!noAutor.get("death_year").isNull()) {
-                        anoFalecimento = noAutor.get("death_year").asInt();
-                    }
+        private final LeituraCorpo<T> leitura;
+        private boolean lido;
+        private T valor;
+        private RuntimeException falha;
 
-                    autor = new Autor(nome, anoNascimento, anoFalecimento);
-                }
+        CorpoAnalisado(LeituraCorpo<T> leitura) {
+            this.leitura = leitura;
+        }
 
-                Livro livro = new Livro(titulo, autor, idioma, downloads);
-                return Optional.of(livro);
+        @Override
+        public synchronized T get() {
+            if (!lido) {
+                lido = true;
+                try {
+                    valor = leitura.ler();
+                } catch (JsonProcessingException e) {
+                    falha = new FalhaConsultaApiException("Erro ao analisar resposta da API: " + e.getMessage(), e);
+                } catch (IOException e) {
+                    falha = new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    falha = e;
+                }
             }
+            if (falha != null) {
+                throw falha;
+            }
+            return valor;
+        }
+    }
+
+    private static Throwable desembrulhar(Throwable erro) {
+        return erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+    }
+
+    /**
+     * Indica que a API nao pode ser consultada ou respondeu de forma inesperada,
+     * o que e diferente de a busca nao ter encontrado nenhum livro
+     */
+    static class FalhaConsultaApiException extends RuntimeException {
 
-            return Optional.empty();
-        } catch (Exception e) {
-            System.err.println("Erro ao analisar livro da resposta: " + e.getMessage());
-            return Optional.empty();
+        FalhaConsultaApiException(String mensagem, Throwable causa) {
+            super(mensagem, causa);
         }
     }
 }
@@ -1,21 +1,48 @@
 package br.com.alura.literalura.LiterAlura.servico;
 
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
 import br.com.alura.literalura.LiterAlura.modelo.Autor;
 import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Servico para operacoes relacionadas a autores
  */
 @Service
+@Timed(value = "literalura.servico", histogram = true)
 public class ServicoAutor {
 
+    private static final int TAMANHO_LOTE_LISTAGEM = 500;
+
+    /**
+     * Mais downloads primeiro; no empate, ordem alfabetica do nome
+     */
+    static final Comparator<AutorDownloads> ORDEM_DOWNLOADS =
+            Comparator.comparing(AutorDownloads::totalDownloads)
+                    .thenComparing(AutorDownloads::nomeAutor, Comparator.reverseOrder());
+
     private final RepositorioAutor repositorioAutor;
+    private final EntityManager entityManager;
+    private final IndiceVidaAutores indiceVidaAutores;
+    private final boolean usarIndiceVida;
 
-    public ServicoAutor(RepositorioAutor repositorioAutor) {
+    public ServicoAutor(RepositorioAutor repositorioAutor, EntityManager entityManager,
+                        IndiceVidaAutores indiceVidaAutores,
+                        @Value("${literalura.autores.indice-vida.habilitado:false}") boolean usarIndiceVida) {
         this.repositorioAutor = repositorioAutor;
+        this.entityManager = entityManager;
+        this.indiceVidaAutores = indiceVidaAutores;
+        this.usarIndiceVida = usarIndiceVida;
     }
 
     /**
@@ -27,6 +54,28 @@ public class ServicoAutor {
         return repositorioAutor.findAll();
     }
 
+    /**
+     * Percorre todos os autores do banco de dados sem manter a tabela inteira em memoria.
+     * O contexto de persistencia e limpo a cada lote, entao o consumo de memoria nao depende do tamanho da tabela.
+     *
+     * @param consumidor Recebe cada autor, em ordem de id
+     * @return O numero de autores percorridos
+     */
+    @Transactional(readOnly = true)
+    public long percorrerTodosAutores(Consumer<Autor> consumidor) {
+        long total = 0;
+        try (Stream<Autor> autores = repositorioAutor.transmitirTodos()) {
+            Iterator<Autor> iterador = autores.iterator();
+            while (iterador.hasNext()) {
+                consumidor.accept(iterador.next());
+                if (++total % TAMANHO_LOTE_LISTAGEM == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return total;
+    }
+
     /**
      * Busca autores que estavam vivos em um ano especifico
      *
@@ -38,6 +87,48 @@ public class ServicoAutor {
             throw new IllegalArgumentException("Ano nao pode ser nulo");
         }
 
+        if (usarIndiceVida) {
+            return indiceVidaAutores.buscarVivosNoAno(ano);
+        }
         return repositorioAutor.buscarAutoresVivosNoAno(ano);
     }
-}
\ No newline at end of file
+
+    /**
+     * Busca autores que estavam vivos em algum momento de um periodo
+     *
+     * @param anoInicial Primeiro ano do periodo
+     * @param anoFinal   Ultimo ano do periodo
+     * @return Lista de autores vivos em algum ano do periodo
+     */
+    public List<Autor> obterAutoresVivosNoPeriodo(Integer anoInicial, Integer anoFinal) {
+        if (anoInicial == null || anoFinal == null) {
+            throw new IllegalArgumentException("Anos do periodo nao podem ser nulos");
+        }
+        if (anoInicial > anoFinal) {
+            throw new IllegalArgumentException("Ano inicial nao pode ser maior que o ano final");
+        }
+
+        if (usarIndiceVida) {
+            return indiceVidaAutores.buscarVivosNoPeriodo(anoInicial, anoFinal);
+        }
+        return repositorioAutor.buscarAutoresVivosNoPeriodo(anoInicial, anoFinal);
+    }
+
+    /**
+     * Busca os autores com mais downloads somando todos os seus livros.
+     * O banco de dados so agrupa os livros por autor; os maiores totais sao escolhidos a medida que chegam,
+     * guardando no maximo o limite de autores em memoria, em vez de ordenar todos os totais.
+     *
+     * @param limite Numero maximo de autores
+     * @return Lista de autores do maior para o menor total de downloads
+     */
+    @Transactional(readOnly = true)
+    public List<AutorDownloads> obterAutoresMaisBaixados(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        try (Stream<AutorDownloads> autores = repositorioAutor.transmitirDownloadsPorAutor()) {
+            return autores.collect(SelecaoMaiores.coletor(limite, ORDEM_DOWNLOADS));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Carrega o catalogo do banco de dados em um {@link CatalogoColunar} para as analises em memoria
+ */
+@Service
+public class ServicoCatalogoColunar {
+
+    private final RepositorioLivro repositorioLivro;
+    private final RepositorioAutor repositorioAutor;
+
+    public ServicoCatalogoColunar(RepositorioLivro repositorioLivro, RepositorioAutor repositorioAutor) {
+        this.repositorioLivro = repositorioLivro;
+        this.repositorioAutor = repositorioAutor;
+    }
+
+    /**
+     * Le os autores e os livros em uma unica transacao, entao todo livro encontra o seu autor no catalogo
+     *
+     * @return O catalogo colunar com os livros e autores salvos
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CatalogoColunar carregar() {
+        CatalogoColunar.Construtor construtor = CatalogoColunar.construtor();
+        try (Stream<IdentificacaoAutor> autores = repositorioAutor.transmitirIdentificacoes()) {
+            Iterator<IdentificacaoAutor> iterador = autores.iterator();
+            while (iterador.hasNext()) {
+                construtor.adicionarAutor(iterador.next());
+            }
+        }
+        try (Stream<Object[]> livros = repositorioLivro.transmitirLinhasColunares()) {
+            Iterator<Object[]> iterador = livros.iterator();
+            while (iterador.hasNext()) {
+                Object[] livro = iterador.next();
+                construtor.adicionarLivro((String) livro[0], (Integer) livro[1], (Long) livro[2]);
+            }
+        }
+        return construtor.construir();
+    }
+}
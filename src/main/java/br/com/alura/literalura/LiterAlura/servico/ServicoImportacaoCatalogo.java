@@ -0,0 +1,149 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.PaginaGutendex;
+import br.com.alura.literalura.LiterAlura.repository.GravadorLoteCatalogo;
+import br.com.alura.literalura.LiterAlura.repository.GravadorLoteCatalogo.ResultadoGravacao;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Servico que importa o catalogo completo da API seguindo os links "next" de cada pagina.
+ * A busca das paginas roda em uma thread propria, de modo que a pagina N+1 e baixada
+ * enquanto a pagina N e gravada no banco de dados.
+ */
+@Service
+@Timed(value = "literalura.servico", histogram = true)
+public class ServicoImportacaoCatalogo {
+
+    private final ServicoApiGutendex servicoApiGutendex;
+    private final GravadorLoteCatalogo gravadorLoteCatalogo;
+    private final IndiceVidaAutores indiceVidaAutores;
+    private final IndiceBuscaTitulos indiceBuscaTitulos;
+    private final int paginasEmEspera;
+
+    public ServicoImportacaoCatalogo(ServicoApiGutendex servicoApiGutendex,
+                                     GravadorLoteCatalogo gravadorLoteCatalogo,
+                                     IndiceVidaAutores indiceVidaAutores,
+                                     IndiceBuscaTitulos indiceBuscaTitulos,
+                                     @Value("${literalura.importacao.paginas-em-espera:2}") int paginasEmEspera) {
+        if (paginasEmEspera < 1) {
+            throw new IllegalArgumentException("Paginas em espera deve ser maior que zero");
+        }
+        this.servicoApiGutendex = servicoApiGutendex;
+        this.gravadorLoteCatalogo = gravadorLoteCatalogo;
+        this.indiceVidaAutores = indiceVidaAutores;
+        this.indiceBuscaTitulos = indiceBuscaTitulos;
+        this.paginasEmEspera = paginasEmEspera;
+    }
+
+    /**
+     * Importa o catalogo a partir da primeira pagina da API
+     *
+     * @param limitePaginas  Numero maximo de paginas, ou zero para importar todas
+     * @param aoGravarPagina Chamado na thread do chamador com o andamento apos cada pagina gravada
+     * @return Relatorio final da importacao
+     */
+    public RelatorioImportacao importarCatalogo(int limitePaginas, Consumer<RelatorioImportacao> aoGravarPagina) {
+        return importarCatalogo(servicoApiGutendex.obterUrlCatalogo(), limitePaginas, aoGravarPagina);
+    }
+
+    /**
+     * Importa o catalogo a partir de uma URL, que pode apontar para a API ou para um servidor local
+     * que responda no mesmo formato
+     *
+     * @param urlInicial     URL da primeira pagina
+     * @param limitePaginas  Numero maximo de paginas, ou zero para importar todas
+     * @param aoGravarPagina Chamado na thread do chamador com o andamento apos cada pagina gravada
+     * @return Relatorio final da importacao
+     */
+    public RelatorioImportacao importarCatalogo(String urlInicial, int limitePaginas,
+                                               Consumer<RelatorioImportacao> aoGravarPagina) {
+        if (limitePaginas < 0) {
+            throw new IllegalArgumentException("Limite de paginas nao pode ser negativo");
+        }
+        int maximoPaginas = limitePaginas == 0 ? Integer.MAX_VALUE : limitePaginas;
+
+        BlockingQueue<ItemFila> fila = new ArrayBlockingQueue<>(paginasEmEspera);
+        Thread buscador = new Thread(() -> buscarPaginas(urlInicial, maximoPaginas, fila), "importacao-paginas");
+        buscador.setDaemon(true);
+
+        long inicio = System.nanoTime();
+        int paginas = 0;
+        int totalCatalogo = 0;
+        long livrosLidos = 0;
+        long livrosInseridos = 0;
+        long autoresInseridos = 0;
+
+        buscador.start();
+        try {
+            while (true) {
+                ItemFila item = fila.take();
+                if (item.falha() != null) {
+                    throw new IllegalStateException("Importacao interrompida apos " + paginas + " paginas: "
+                            + item.falha().getMessage(), item.falha());
+                }
+                if (item.pagina() == null) {
+                    break;
+                }
+
+                ResultadoGravacao gravacao = gravadorLoteCatalogo.gravar(item.pagina().livros());
+                paginas++;
+                totalCatalogo = item.pagina().totalLivros();
+                livrosLidos += item.pagina().livros().size();
+                livrosInseridos += gravacao.livrosInseridos();
+                autoresInseridos += gravacao.autoresInseridos();
+                aoGravarPagina.accept(new RelatorioImportacao(paginas, totalCatalogo, livrosLidos,
+                        livrosInseridos, autoresInseridos, System.nanoTime() - inicio));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importacao interrompida", e);
+        } finally {
+            buscador.interrupt();
+            // Os autores e livros inseridos via JDBC nao passam pelos indices em memoria
+            if (autoresInseridos > 0) {
+                indiceVidaAutores.invalidar();
+            }
+            if (livrosInseridos > 0) {
+                indiceBuscaTitulos.reconstruirEmSegundoPlano();
+            }
+        }
+
+        return new RelatorioImportacao(paginas, totalCatalogo, livrosLidos, livrosInseridos, autoresInseridos,
+                System.nanoTime() - inicio);
+    }
+
+    /**
+     * Baixa as paginas em sequencia e as coloca na fila, que limita quantas ficam esperando gravacao
+     */
+    private void buscarPaginas(String url, int maximoPaginas, BlockingQueue<ItemFila> fila) {
+        try {
+            try {
+                int paginas = 0;
+                while (url != null && paginas < maximoPaginas) {
+                    PaginaGutendex pagina = servicoApiGutendex.buscarPagina(url);
+                    fila.put(new ItemFila(pagina, null));
+                    paginas++;
+                    url = pagina.proxima();
+                }
+                fila.put(new ItemFila(null, null));
+            } catch (RuntimeException e) {
+                fila.put(new ItemFila(null, e));
+            }
+        } catch (InterruptedException e) {
+            // A importacao foi encerrada pelo consumidor
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Item da fila entre a busca e a gravacao: uma pagina, uma falha, ou nenhum dos dois para indicar o fim
+     */
+    private record ItemFila(PaginaGutendex pagina, RuntimeException falha) {
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Servico que busca e salva varios titulos em paralelo, com limite de concorrencia configuravel.
+ * Os titulos ja salvos sao resolvidos de uma vez por {@link ServicoLivro#buscarLivrosSalvosPorTitulos(Collection)},
+ * em uma consulta ao banco. Os demais sao buscados na API, com no maximo {@code concorrencia} buscas em andamento;
+ * cada titulo conclui por conta propria, e os livros das buscas que terminam juntas sao salvos em uma transacao.
+ */
+@Service
+@Timed(value = "literalura.servico", histogram = true)
+public class ServicoIngestaoConcorrente {
+
+    private final ServicoLivro servicoLivro;
+    private final ServicoApiGutendex servicoApiGutendex;
+    private final int concorrencia;
+
+    public ServicoIngestaoConcorrente(ServicoLivro servicoLivro, ServicoApiGutendex servicoApiGutendex,
+                                      @Value("${literalura.ingestao.concorrencia:8}") int concorrencia) {
+        if (concorrencia < 1) {
+            throw new IllegalArgumentException("Concorrencia deve ser maior que zero");
+        }
+        this.servicoLivro = servicoLivro;
+        this.servicoApiGutendex = servicoApiGutendex;
+        this.concorrencia = concorrencia;
+    }
+
+    /**
+     * Busca e salva os titulos em paralelo. Titulos repetidos sao processados uma unica vez.
+     *
+     * @param titulos    Os titulos a serem buscados
+     * @param aoConcluir Chamado na thread do chamador para cada titulo, na ordem em que terminam: primeiro os
+     *                   ja salvos, depois os buscados na API, cada um assim que o seu livro e salvo
+     * @return Relatorio com os resultados, a vazao e a latencia por titulo. A latencia dos titulos ja salvos e a
+     * da consulta que resolveu todos; a dos demais vai do inicio da sua busca na API ate o livro ser salvo.
+     */
+    public RelatorioIngestao ingerirTitulos(Collection<String> titulos, Consumer<ResultadoIngestao> aoConcluir) {
+        Set<String> titulosUnicos = new LinkedHashSet<>(titulos);
+        List<ResultadoIngestao> resultados = new ArrayList<>(titulosUnicos.size());
+        if (titulosUnicos.isEmpty()) {
+            return new RelatorioIngestao(resultados, 0);
+        }
+
+        long inicio = System.nanoTime();
+        Map<String, ResultadoBuscaLivro> salvos;
+        try {
+            salvos = servicoLivro.buscarLivrosSalvosPorTitulos(titulosUnicos);
+        } catch (RuntimeException e) {
+            // Sem a consulta ao banco, todos os titulos passam pela API e pela regra de livro ja existente
+            System.err.println("Erro ao procurar titulos ja salvos: " + e.getMessage());
+            salvos = Map.of();
+        }
+        long latenciaSalvos = System.nanoTime() - inicio;
+        Deque<String> pendentes = new ArrayDeque<>();
+        for (String titulo : titulosUnicos) {
+            ResultadoBuscaLivro salvo = salvos.get(titulo);
+            if (salvo != null) {
+                concluir(new ResultadoIngestao(titulo, salvo.livro(), false, latenciaSalvos), resultados, aoConcluir);
+            } else {
+                pendentes.add(titulo);
+            }
+        }
+
+        BlockingQueue<BuscaConcluida> concluidas = new LinkedBlockingQueue<>();
+        int emAndamento = iniciarBuscas(pendentes, 0, concluidas);
+        try {
+            while (emAndamento > 0) {
+                List<BuscaConcluida> lote = new ArrayList<>();
+                lote.add(concluidas.take());
+                concluidas.drainTo(lote);
+                // Libera as vagas antes de salvar, para que as proximas buscas andem durante a gravacao
+                emAndamento = iniciarBuscas(pendentes, emAndamento - lote.size(), concluidas);
+
+                Map<String, ResultadoBuscaLivro> respostas = new LinkedHashMap<>();
+                lote.forEach(busca -> respostas.put(busca.titulo(), busca.resultado()));
+                Map<String, ResultadoBuscaLivro> gravados = servicoLivro.salvarResultadosDaApi(respostas);
+                for (BuscaConcluida busca : lote) {
+                    ResultadoBuscaLivro resultado = gravados.get(busca.titulo());
+                    concluir(new ResultadoIngestao(busca.titulo(), resultado.livro(), resultado.falhou(),
+                            System.nanoTime() - busca.inicioNanos()), resultados, aoConcluir);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ingestao interrompida", e);
+        }
+
+        return new RelatorioIngestao(resultados, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Inicia buscas na API dos titulos pendentes ate ocupar as vagas de concorrencia
+     *
+     * @param emAndamento Numero de buscas ja em andamento
+     * @param concluidas  Recebe cada busca assim que termina
+     * @return Numero de buscas em andamento depois de iniciar as novas
+     */
+    private int iniciarBuscas(Deque<String> pendentes, int emAndamento, BlockingQueue<BuscaConcluida> concluidas) {
+        while (emAndamento < concorrencia && !pendentes.isEmpty()) {
+            String titulo = pendentes.poll();
+            long inicio = System.nanoTime();
+            servicoApiGutendex.buscarLivroPorTituloAsync(titulo).whenComplete((resultado, erro) ->
+                    concluidas.add(new BuscaConcluida(titulo, inicio, erro == null ? resultado
+                            : ResultadoBuscaLivro.falha("Erro ao buscar livro: " + erro.getMessage()))));
+            emAndamento++;
+        }
+        return emAndamento;
+    }
+
+    private static void concluir(ResultadoIngestao resultado, List<ResultadoIngestao> resultados,
+                                 Consumer<ResultadoIngestao> aoConcluir) {
+        resultados.add(resultado);
+        aoConcluir.accept(resultado);
+    }
+
+    /**
+     * Busca na API terminada, ainda sem o livro salvo
+     */
+    private record BuscaConcluida(String titulo, long inicioNanos, ResultadoBuscaLivro resultado) {
+    }
+}
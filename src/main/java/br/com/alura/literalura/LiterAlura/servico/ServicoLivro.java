@@ -1,78 +1,406 @@
 package br.com.alura.literalura.LiterAlura.servico;
 
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
 import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.CacheIdsAutores;
+import br.com.alura.literalura.LiterAlura.repository.CacheIdsAutores.ChaveAutor;
+import br.com.alura.literalura.LiterAlura.repository.CacheSegundoNivel;
+import br.com.alura.literalura.LiterAlura.repository.EstatisticasIdiomas;
 import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "literalura.servico", histogram = true)
 public class ServicoLivro {
 
+    /**
+     * Maximo de titulos por consulta IN, bem abaixo do limite de parametros por comando do PostgreSQL
+     */
+    private static final int TAMANHO_LOTE_CONSULTA = 1000;
+
     private final RepositorioLivro repositorioLivro;
     private final ServicoApiGutendex servicoApiGutendex;
+    private final EntityManager entityManager;
+    private final IndiceVidaAutores indiceVidaAutores;
+    private final CacheIdsAutores cacheIdsAutores;
+    private final IndiceBuscaTitulos indiceBuscaTitulos;
+    private final CacheSegundoNivel cacheSegundoNivel;
+    private final EstatisticasIdiomas estatisticasIdiomas;
+    private final TransactionTemplate transacao;
+    private final MeterRegistry registroMetricas;
 
-    public ServicoLivro(RepositorioLivro repositorioLivro, ServicoApiGutendex servicoApiGutendex) {
+    public ServicoLivro(RepositorioLivro repositorioLivro, ServicoApiGutendex servicoApiGutendex,
+                        EntityManager entityManager, IndiceVidaAutores indiceVidaAutores,
+                        CacheIdsAutores cacheIdsAutores, IndiceBuscaTitulos indiceBuscaTitulos,
+                        CacheSegundoNivel cacheSegundoNivel, EstatisticasIdiomas estatisticasIdiomas,
+                        PlatformTransactionManager gerenciadorTransacao, MeterRegistry registroMetricas) {
         this.repositorioLivro = repositorioLivro;
         this.servicoApiGutendex = servicoApiGutendex;
+        this.entityManager = entityManager;
+        this.indiceVidaAutores = indiceVidaAutores;
+        this.cacheIdsAutores = cacheIdsAutores;
+        this.indiceBuscaTitulos = indiceBuscaTitulos;
+        this.cacheSegundoNivel = cacheSegundoNivel;
+        this.estatisticasIdiomas = estatisticasIdiomas;
+        this.transacao = new TransactionTemplate(gerenciadorTransacao);
+        this.registroMetricas = registroMetricas;
     }
 
     /**
      * Busca um livro por titulo na API e salva no banco de dados
      *
      * @param titulo O titulo a ser buscado
-     * @return Optional contendo o livro se encontrado, ou vazio se nao encontrado
+     * @return O livro encontrado, a indicacao de que nenhum foi encontrado ou a falha da consulta a API
      */
-    public Optional<Livro> buscarESalvarLivroPorTitulo(String titulo) {
-        // Primeiro verifica se o livro ja esta no banco de dados
-        List<Livro> livrosExistentes = repositorioLivro.findAllByTitulo(titulo);
+    public ResultadoBuscaLivro buscarESalvarLivroPorTitulo(String titulo) {
+        // Primeiro procura no indice local, que tolera diferencas de caixa, acentos e pontuacao
+        Optional<Livro> livroIndexado = indiceBuscaTitulos.buscarTitulo(titulo).flatMap(repositorioLivro::findById);
+        if (livroIndexado.isPresent()) {
+            contarBusca("indice");
+            return ResultadoBuscaLivro.encontrado(livroIndexado.get());
+        }
+
+        // Depois verifica o titulo no banco de dados, sem diferenciar maiusculas de minusculas como o indice,
+        // o que cobre o periodo em que o indice ainda esta sendo montado
+        List<Livro> livrosExistentes = repositorioLivro.buscarPorTituloSemDiferenciarCaixa(titulo);
 
         // Se encontrou livros com esse título, retorna o primeiro
         if (!livrosExistentes.isEmpty()) {
-            return Optional.of(livrosExistentes.get(0));
+            contarBusca("banco");
+            return ResultadoBuscaLivro.encontrado(livrosExistentes.get(0));
         }
 
-        // Se nao encontrado no banco de dados, busca na API
-        Optional<Livro> livroDaApi = servicoApiGutendex.buscarLivroPorTitulo(titulo);
+        // Se nao encontrado no banco de dados, busca na API e salva se ainda nao existir
+        ResultadoBuscaLivro resultado = servicoApiGutendex.buscarLivroPorTitulo(titulo)
+                .mapearLivro(this::salvarSeNaoExistir);
+        switch (resultado.situacao()) {
+            case ENCONTRADO -> contarBusca("api");
+            case NAO_ENCONTRADO -> contarBusca("nao_encontrado");
+            case FALHA -> contarBusca("falha");
+        }
+        return resultado;
+    }
 
-        // Se encontrado na API, verifica se já existe um livro similar antes de salvar
-        if (livroDaApi.isPresent()) {
-            Livro livroParaSalvar = livroDaApi.get();
+    /**
+     * Busca varios titulos de uma vez. Os titulos ja salvos sao resolvidos pelo indice de titulos e por uma
+     * unica consulta ao banco de dados por lote de titulos; apenas os demais sao buscados na API, em paralelo
+     * e limitados por literalura.api.requisicoes-simultaneas. Os livros novos sao salvos em uma unica transacao.
+     *
+     * @param titulos Os titulos a serem buscados; titulos repetidos sao buscados uma unica vez
+     * @return O resultado de cada titulo distinto, na ordem em que apareceram
+     */
+    public Map<String, ResultadoBuscaLivro> buscarESalvarLivrosPorTitulos(Collection<String> titulos) {
+        List<String> distintos = new ArrayList<>(new LinkedHashSet<>(titulos));
+        Map<String, ResultadoBuscaLivro> salvos = buscarLivrosSalvosPorTitulos(distintos);
 
-            // Verifica se já existe um livro com o mesmo título, autor e idioma
-            List<Livro> livrosSimilares = repositorioLivro.findAll().stream()
-                    .filter(l -> l.getTitulo().equals(livroParaSalvar.getTitulo()))
-                    .filter(l -> {
-                        // Compara autores se ambos não forem nulos
-                        if (l.getAutor() != null && livroParaSalvar.getAutor() != null) {
-                            return l.getAutor().getNome().equals(livroParaSalvar.getAutor().getNome());
-                        }
-                        // Se um é nulo e o outro não, são diferentes
-                        return l.getAutor() == livroParaSalvar.getAutor();
-                    })
-                    .filter(l -> l.getIdioma().equals(livroParaSalvar.getIdioma()))
-                    .collect(Collectors.toList());
-
-            // Se já existe um livro similar, retorna o existente
-            if (!livrosSimilares.isEmpty()) {
-                return Optional.of(livrosSimilares.get(0));
+        // Os demais sao buscados na API ao mesmo tempo
+        Map<String, CompletableFuture<ResultadoBuscaLivro>> consultas = new LinkedHashMap<>();
+        for (String titulo : distintos) {
+            if (!salvos.containsKey(titulo)) {
+                consultas.put(titulo, servicoApiGutendex.buscarLivroPorTituloAsync(titulo));
             }
+        }
+        CompletableFuture.allOf(consultas.values().toArray(CompletableFuture[]::new)).join();
+
+        Map<String, ResultadoBuscaLivro> respostasApi = new LinkedHashMap<>();
+        consultas.forEach((titulo, consulta) -> respostasApi.put(titulo, consulta.join()));
+        Map<String, ResultadoBuscaLivro> gravados = salvarResultadosDaApi(respostasApi);
 
-            try {
-                // Se não existe, tenta salvar
-                Livro livroSalvo = repositorioLivro.save(livroParaSalvar);
-                return Optional.of(livroSalvo);
-            } catch (Exception e) {
-                // Em caso de erro (como violação de constraint), loga o erro e retorna o livro não salvo
-                System.err.println("Erro ao salvar livro: " + e.getMessage());
-                return Optional.of(livroParaSalvar); // Retorna o livro mesmo sem salvar
+        Map<String, ResultadoBuscaLivro> resultados = new LinkedHashMap<>();
+        for (String titulo : distintos) {
+            resultados.put(titulo, salvos.containsKey(titulo) ? salvos.get(titulo) : gravados.get(titulo));
+        }
+        return resultados;
+    }
+
+    /**
+     * Resolve os titulos ja salvos, sem consultar a API: pelo indice de titulos e por uma unica consulta ao banco
+     * de dados por lote de titulos, que nao diferencia maiusculas de minusculas como a busca de um unico titulo
+     *
+     * @param titulos Os titulos a serem buscados
+     * @return O livro de cada titulo ja salvo, na ordem em que apareceram; titulos nao encontrados ficam de fora
+     */
+    public Map<String, ResultadoBuscaLivro> buscarLivrosSalvosPorTitulos(Collection<String> titulos) {
+        List<String> distintos = new ArrayList<>(new LinkedHashSet<>(titulos));
+        Map<String, ResultadoBuscaLivro> resolvidos = new LinkedHashMap<>();
+
+        for (List<String> lote : emLotes(distintos, TAMANHO_LOTE_CONSULTA)) {
+            Map<String, Long> idsIndexados = new HashMap<>();
+            Set<String> titulosMinusculos = new HashSet<>();
+            for (String titulo : lote) {
+                indiceBuscaTitulos.buscarTitulo(titulo).ifPresent(id -> idsIndexados.put(titulo, id));
+                titulosMinusculos.add(titulo.toLowerCase(Locale.ROOT));
+            }
+
+            Map<Long, Livro> porId = new HashMap<>();
+            Map<String, Livro> porTitulo = new HashMap<>();
+            for (Livro livro : repositorioLivro.buscarPorIdsOuTitulos(idsIndexados.values(), titulosMinusculos)) {
+                porId.put(livro.getId(), livro);
+                if (livro.getTitulo() != null) {
+                    porTitulo.putIfAbsent(livro.getTitulo().toLowerCase(Locale.ROOT), livro);
+                }
+            }
+
+            for (String titulo : lote) {
+                Livro livroIndexado = porId.get(idsIndexados.get(titulo));
+                Livro livroComTitulo = porTitulo.get(titulo.toLowerCase(Locale.ROOT));
+                if (livroIndexado != null) {
+                    contarBusca("indice");
+                    resolvidos.put(titulo, ResultadoBuscaLivro.encontrado(livroIndexado));
+                } else if (livroComTitulo != null) {
+                    contarBusca("banco");
+                    resolvidos.put(titulo, ResultadoBuscaLivro.encontrado(livroComTitulo));
+                }
             }
         }
+        return resolvidos;
+    }
+
+    /**
+     * Salva em uma unica transacao os livros encontrados pelas buscas na API, com a regra de
+     * {@link #salvarTodosSeNaoExistirem(List)}
+     *
+     * @param respostasApi O resultado da busca na API de cada titulo
+     * @return O resultado de cada titulo, na mesma ordem, com o livro salvo ou o ja existente no lugar do livro da API
+     */
+    public Map<String, ResultadoBuscaLivro> salvarResultadosDaApi(Map<String, ResultadoBuscaLivro> respostasApi) {
+        List<Livro> livrosDaApi = respostasApi.values().stream()
+                .map(ResultadoBuscaLivro::livro)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Livro, Livro> salvos = new IdentityHashMap<>();
+        List<Livro> livrosSalvos = salvarTodosSeNaoExistirem(livrosDaApi);
+        for (int i = 0; i < livrosDaApi.size(); i++) {
+            salvos.put(livrosDaApi.get(i), livrosSalvos.get(i));
+        }
+
+        Map<String, ResultadoBuscaLivro> resultados = new LinkedHashMap<>();
+        respostasApi.forEach((titulo, resposta) -> {
+            ResultadoBuscaLivro resultado = resposta.mapearLivro(salvos::get);
+            switch (resultado.situacao()) {
+                case ENCONTRADO -> contarBusca("api");
+                case NAO_ENCONTRADO -> contarBusca("nao_encontrado");
+                case FALHA -> contarBusca("falha");
+            }
+            resultados.put(titulo, resultado);
+        });
+        return resultados;
+    }
+
+    /**
+     * Conta de onde veio o resultado de cada busca por titulo, para acompanhar a proporcao entre banco e API
+     */
+    private void contarBusca(String origem) {
+        registroMetricas.counter("literalura.livros.busca", "origem", origem).increment();
+    }
+
+    /**
+     * Salva um livro vindo da API, a menos que ja exista um livro com o mesmo titulo, autor e idioma.
+     * O metodo e sincronizado para que buscas concorrentes que resolvem para o mesmo livro ou autor
+     * nao disputem a mesma chave unica no banco de dados.
+     *
+     * @param livroParaSalvar O livro obtido da API
+     * @return O livro existente, o livro salvo ou, em caso de erro, o livro nao salvo
+     */
+    synchronized Livro salvarSeNaoExistir(Livro livroParaSalvar) {
+        // Verifica se já existe um livro com o mesmo título, autor e idioma
+        Optional<Livro> livroSimilar = buscarLivroSimilar(livroParaSalvar);
+
+        // Se já existe um livro similar, retorna o existente
+        if (livroSimilar.isPresent()) {
+            return livroSimilar.get();
+        }
+
+        try {
+            // Se não existe, tenta salvar. Um autor já conhecido é reaproveitado; só um autor novo é
+            // inserido em cascata junto com o livro
+            Autor autor = livroParaSalvar.getAutor();
+            ChaveAutor chaveAutor = autor != null && autor.getId() == null ? ChaveAutor.de(autor) : null;
+            Long idAutorExistente = chaveAutor != null ? cacheIdsAutores.buscarId(chaveAutor) : null;
+
+            Livro livroSalvo = transacao.execute(status -> {
+                if (idAutorExistente != null) {
+                    Autor autorGerenciado = entityManager.find(Autor.class, idAutorExistente);
+                    if (autorGerenciado != null) {
+                        livroParaSalvar.setAutor(autorGerenciado);
+                    } else {
+                        // O autor foi apagado do banco; o id em cache nao serve mais
+                        cacheIdsAutores.remover(chaveAutor);
+                    }
+                }
+                return repositorioLivro.save(livroParaSalvar);
+            });
+
+            if (chaveAutor != null && livroSalvo.getAutor() == autor) {
+                cacheIdsAutores.registrar(autor);
+                indiceVidaAutores.registrar(autor);
+            }
+            indiceBuscaTitulos.registrar(livroSalvo);
+            estatisticasIdiomas.registrar(livroSalvo);
+            return livroSalvo;
+        } catch (Exception e) {
+            // Em caso de erro (como violação de constraint), loga o erro e retorna o livro não salvo
+            registroMetricas.counter("literalura.livros.erros_gravacao").increment();
+            System.err.println("Erro ao salvar livro: " + e.getMessage());
+            return livroParaSalvar; // Retorna o livro mesmo sem salvar
+        }
+    }
+
+    /**
+     * Salva em uma unica transacao os livros vindos da API que ainda nao existem, com a mesma regra de
+     * {@link #salvarSeNaoExistir(Livro)}. Livros repetidos na lista e autores compartilhados sao gravados uma vez.
+     * Se a transacao falhar, cada livro e salvo separadamente, para que um livro com problema nao impeca os demais.
+     *
+     * @param livrosParaSalvar Os livros obtidos da API
+     * @return Para cada livro, na mesma ordem, o livro existente, o livro salvo ou, em caso de erro, o livro nao salvo
+     */
+    synchronized List<Livro> salvarTodosSeNaoExistirem(List<Livro> livrosParaSalvar) {
+        if (livrosParaSalvar.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Livro, Autor> autoresOriginais = new IdentityHashMap<>();
+        livrosParaSalvar.forEach(livro -> autoresOriginais.put(livro, livro.getAutor()));
+        List<Autor> autoresNovos = new ArrayList<>();
+        List<Livro> livrosNovos = new ArrayList<>();
+
+        try {
+            List<Livro> resultado = transacao.execute(status -> {
+                // Livros ja salvos com os mesmos titulos, em uma consulta por lote
+                Map<ChaveLivro, Livro> conhecidos = new HashMap<>();
+                List<String> titulos = livrosParaSalvar.stream().map(Livro::getTitulo).distinct().toList();
+                for (List<String> lote : emLotes(titulos, TAMANHO_LOTE_CONSULTA)) {
+                    repositorioLivro.buscarPorTitulos(lote).forEach(l -> conhecidos.putIfAbsent(ChaveLivro.de(l), l));
+                }
+
+                // Autores ja salvos, em uma consulta
+                Set<Long> idsAutores = new HashSet<>();
+                for (Livro livro : livrosParaSalvar) {
+                    Autor autor = livro.getAutor();
+                    Long id = autor != null && autor.getId() == null ? cacheIdsAutores.buscarId(ChaveAutor.de(autor)) : null;
+                    if (id != null) {
+                        idsAutores.add(id);
+                    }
+                }
+                Map<Long, Autor> autoresExistentes = idsAutores.isEmpty() ? Map.of() : entityManager
+                        .createQuery("SELECT a FROM Autor a WHERE a.id IN :ids", Autor.class)
+                        .setParameter("ids", idsAutores)
+                        .getResultStream()
+                        .collect(Collectors.toMap(Autor::getId, autor -> autor));
+
+                Map<ChaveAutor, Autor> autoresDoLote = new HashMap<>();
+                List<Livro> salvos = new ArrayList<>(livrosParaSalvar.size());
+                for (Livro livro : livrosParaSalvar) {
+                    ChaveLivro chaveLivro = ChaveLivro.de(livro);
+                    Livro existente = conhecidos.get(chaveLivro);
+                    if (existente != null) {
+                        salvos.add(existente);
+                        continue;
+                    }
+
+                    // Um autor ja conhecido e reaproveitado; um autor novo e inserido uma unica vez, em cascata
+                    Autor autor = livro.getAutor();
+                    if (autor != null && autor.getId() == null) {
+                        ChaveAutor chaveAutor = ChaveAutor.de(autor);
+                        Long idAutorExistente = cacheIdsAutores.buscarId(chaveAutor);
+                        Autor autorGerenciado = idAutorExistente != null ? autoresExistentes.get(idAutorExistente) : null;
+                        if (idAutorExistente != null && autorGerenciado == null) {
+                            cacheIdsAutores.remover(chaveAutor);
+                        }
+                        if (autorGerenciado != null) {
+                            livro.setAutor(autorGerenciado);
+                        } else {
+                            Autor autorDoLote = autoresDoLote.putIfAbsent(chaveAutor, autor);
+                            if (autorDoLote != null) {
+                                livro.setAutor(autorDoLote);
+                            } else {
+                                autoresNovos.add(autor);
+                            }
+                        }
+                    }
+
+                    Livro salvo = repositorioLivro.save(livro);
+                    conhecidos.put(chaveLivro, salvo);
+                    livrosNovos.add(salvo);
+                    salvos.add(salvo);
+                }
+                return salvos;
+            });
+
+            for (Autor autor : autoresNovos) {
+                cacheIdsAutores.registrar(autor);
+                indiceVidaAutores.registrar(autor);
+            }
+            for (Livro livro : livrosNovos) {
+                indiceBuscaTitulos.registrar(livro);
+                estatisticasIdiomas.registrar(livro);
+            }
+            return resultado;
+        } catch (Exception e) {
+            System.err.println("Erro ao salvar lote de livros, salvando um a um: " + e.getMessage());
+            // Desfaz o que a transacao revertida deixou nas entidades antes de tentar novamente
+            for (Livro livro : livrosParaSalvar) {
+                livro.setId(null);
+                livro.setAutor(autoresOriginais.get(livro));
+            }
+            autoresNovos.forEach(autor -> autor.setId(null));
+            return livrosParaSalvar.stream().map(this::salvarSeNaoExistir).toList();
+        }
+    }
+
+    /**
+     * Divide a lista em sublistas de no maximo o tamanho informado
+     */
+    private static <T> List<List<T>> emLotes(List<T> itens, int tamanhoLote) {
+        List<List<T>> lotes = new ArrayList<>();
+        for (int inicio = 0; inicio < itens.size(); inicio += tamanhoLote) {
+            lotes.add(itens.subList(inicio, Math.min(itens.size(), inicio + tamanhoLote)));
+        }
+        return lotes;
+    }
 
-        return Optional.empty();
+    /**
+     * Busca no banco de dados um livro com o mesmo título, autor e idioma
+     *
+     * @param livro O livro de referência
+     * @return Optional contendo o livro existente, ou vazio se não existir
+     */
+    private Optional<Livro> buscarLivroSimilar(Livro livro) {
+        if (livro.getAutor() == null) {
+            return repositorioLivro.findFirstByTituloAndAutorIsNullAndIdioma(livro.getTitulo(), livro.getIdioma());
+        }
+        return repositorioLivro.findFirstByTituloAndAutorNomeAndIdioma(
+                livro.getTitulo(), livro.getAutor().getNome(), livro.getIdioma());
     }
 
     /**
@@ -85,6 +413,24 @@ public class ServicoLivro {
         return repositorioLivro.findAllByTitulo(titulo);
     }
 
+    /**
+     * Pesquisa no catalogo local livros cujo titulo ou nome do autor contem todos os termos informados,
+     * tolerando diferencas de caixa, acentos e pequenos erros de digitacao
+     *
+     * @param consulta Termos a pesquisar
+     * @param limite   Numero maximo de livros retornados
+     * @return Livros encontrados, dos mais aos menos relevantes
+     */
+    public List<ResumoLivro> pesquisarCatalogo(String consulta, int limite) {
+        List<Long> ids = indiceBuscaTitulos.pesquisar(consulta, limite);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ResumoLivro> porId = repositorioLivro.listarResumosPorIds(ids).stream()
+                .collect(Collectors.toMap(ResumoLivro::id, livro -> livro));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
     /**
      * Obtem todos os livros do banco de dados
      *
@@ -94,6 +440,65 @@ public class ServicoLivro {
         return repositorioLivro.findAll();
     }
 
+    /**
+     * Percorre o resumo de todos os livros em uma unica consulta, sem carregar as entidades Livro e Autor
+     *
+     * @param consumidor Recebe o resumo de cada livro, em ordem de id
+     * @return O numero de livros percorridos
+     */
+    @Transactional(readOnly = true)
+    public long percorrerResumosLivros(Consumer<ResumoLivro> consumidor) {
+        long total = 0;
+        try (Stream<ResumoLivro> resumos = repositorioLivro.transmitirResumos()) {
+            Iterator<ResumoLivro> iterador = resumos.iterator();
+            while (iterador.hasNext()) {
+                consumidor.accept(iterador.next());
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Obtem o resumo dos livros com o titulo exato informado, sem consultar a API
+     *
+     * @param titulo O titulo dos livros
+     * @return Lista com o resumo dos livros com o titulo
+     */
+    public List<ResumoLivro> obterResumosLivrosPorTitulo(String titulo) {
+        return repositorioLivro.listarResumosPorTitulo(titulo);
+    }
+
+    /**
+     * Obtem o resumo dos livros de um idioma em uma unica consulta
+     *
+     * @param idioma O idioma para filtrar
+     * @return Lista com o resumo dos livros no idioma especificado
+     */
+    public List<ResumoLivro> obterResumosLivrosPorIdioma(String idioma) {
+        return repositorioLivro.listarResumosPorIdioma(idioma);
+    }
+
+    /**
+     * Obtem uma pagina do resumo dos livros de um idioma, em ordem de id
+     *
+     * @param idioma O idioma para filtrar
+     * @param aposId O ultimo id da pagina anterior, ou zero para a primeira pagina
+     * @param limite Numero maximo de livros na pagina
+     * @return Lista com o resumo dos livros no idioma com id maior que aposId
+     */
+    public List<ResumoLivro> obterResumosLivrosPorIdioma(String idioma, long aposId, int limite) {
+        return repositorioLivro.listarResumosPorIdiomaAposId(idioma, aposId, PageRequest.of(0, limite));
+    }
+
+    /**
+     * @return Contadores de acertos, falhas e remocoes de cada regiao do cache de segundo nivel,
+     * ou um mapa vazio se o cache estiver desligado
+     */
+    public Map<String, CacheStats> obterEstatisticasCacheBanco() {
+        return cacheSegundoNivel.habilitado() ? cacheSegundoNivel.estatisticas() : Map.of();
+    }
+
     /**
      * Obtem livros por idioma
      *
@@ -101,7 +506,7 @@ public class ServicoLivro {
      * @return Lista de livros no idioma especificado
      */
     public List<Livro> obterLivrosPorIdioma(String idioma) {
-        return repositorioLivro.findByIdioma(idioma);
+        return repositorioLivro.findByIdiomaOrderById(idioma);
     }
 
     /**
@@ -115,14 +520,90 @@ public class ServicoLivro {
     }
 
     /**
-     * Obtem estatisticas sobre livros por idioma
+     * Obtem estatisticas sobre livros por idioma, a partir das estatisticas mantidas em memoria
      *
-     * @return Mapa de idioma para contagem
+     * @return Mapa de idioma para contagem, do idioma com mais livros para o com menos
      */
     public Map<String, Long> obterEstatisticasLivrosPorIdioma() {
-        List<Livro> todosLivros = repositorioLivro.findAll();
+        return estatisticasIdiomas.obter().stream()
+                .collect(Collectors.toMap(EstatisticaIdioma::idioma, EstatisticaIdioma::quantidade,
+                        (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * Obtem quantidade, total, media e maximo de downloads dos livros de cada idioma.
+     * As estatisticas sao mantidas em memoria a cada livro gravado; nenhuma consulta e feita ao banco de dados.
+     *
+     * @return Lista de estatisticas por idioma, do idioma com mais livros para o com menos
+     */
+    public List<EstatisticaIdioma> obterEstatisticasDetalhadasPorIdioma() {
+        return estatisticasIdiomas.obter();
+    }
+
+    /**
+     * Compara as estatisticas por idioma mantidas em memoria com uma recontagem completa no banco de dados
+     *
+     * @return Uma descricao de cada idioma divergente; vazia se as estatisticas estao corretas
+     */
+    public List<String> verificarEstatisticasPorIdioma() {
+        return estatisticasIdiomas.verificar();
+    }
+
+    /**
+     * Obtem os livros com mais downloads, lidos ja ordenados e limitados do banco de dados
+     *
+     * @param limite Numero maximo de livros
+     * @return Os resumos dos livros, do mais baixado para o menos baixado
+     */
+    public List<ResumoLivro> obterLivrosMaisBaixados(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        return repositorioLivro.listarResumosMaisBaixados(PageRequest.of(0, limite));
+    }
 
-        return todosLivros.stream()
-                .collect(Collectors.groupingBy(Livro::getIdioma, Collectors.counting()));
+    /**
+     * Obtem os livros de um idioma com mais downloads, lidos ja ordenados e limitados do banco de dados
+     *
+     * @param idioma O idioma dos livros
+     * @param limite Numero maximo de livros
+     * @return Os resumos dos livros no idioma, do mais baixado para o menos baixado
+     */
+    public List<ResumoLivro> obterLivrosMaisBaixadosPorIdioma(String idioma, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        return repositorioLivro.listarResumosMaisBaixadosPorIdioma(idioma, PageRequest.of(0, limite));
+    }
+
+    /**
+     * Obtem os autores com mais downloads de cada idioma
+     *
+     * @param limite Numero maximo de autores por idioma
+     * @return Mapa de idioma para os autores mais baixados nesse idioma
+     */
+    public Map<String, List<AutorDownloads>> obterAutoresMaisBaixadosPorIdioma(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+
+        Map<String, List<AutorDownloads>> autoresPorIdioma = new LinkedHashMap<>();
+        for (EstatisticaIdioma estatistica : estatisticasIdiomas.obter()) {
+            autoresPorIdioma.put(estatistica.idioma(), repositorioLivro.buscarAutoresMaisBaixadosPorIdioma(
+                    estatistica.idioma(), PageRequest.of(0, limite)));
+        }
+        return autoresPorIdioma;
+    }
+
+    /**
+     * Campos da chave unica uk_livro_titulo_autor_idioma, com o autor identificado pelo nome,
+     * como em {@link #buscarLivroSimilar(Livro)}
+     */
+    private record ChaveLivro(String titulo, String nomeAutor, String idioma) {
+
+        static ChaveLivro de(Livro livro) {
+            return new ChaveLivro(livro.getTitulo(),
+                    livro.getAutor() != null ? livro.getAutor().getNome() : null, livro.getIdioma());
+        }
     }
 }
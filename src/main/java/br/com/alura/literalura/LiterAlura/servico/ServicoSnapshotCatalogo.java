@@ -0,0 +1,147 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Exporta o catalogo do banco de dados para um {@link SnapshotCatalogo} e abre snapshots ja gravados.
+ * O snapshot pode ser copiado para outras maquinas e consultado sem banco de dados.
+ * Com literalura.snapshot.somente-leitura, o servidor de consultas responde pelo snapshot do arquivo configurado
+ * em vez do banco, enquanto o arquivo existir; cada nova exportacao para esse arquivo passa a ser usada.
+ */
+@Service
+public class ServicoSnapshotCatalogo {
+
+    private final RepositorioLivro repositorioLivro;
+    private final RepositorioAutor repositorioAutor;
+    private final String arquivo;
+    private final boolean somenteLeitura;
+    private volatile SnapshotCatalogo snapshotConsultas;
+
+    public ServicoSnapshotCatalogo(RepositorioLivro repositorioLivro, RepositorioAutor repositorioAutor,
+                                   @Value("${literalura.snapshot.arquivo:literalura-catalogo.snap}") String arquivo,
+                                   @Value("${literalura.snapshot.somente-leitura:false}") boolean somenteLeitura) {
+        this.repositorioLivro = repositorioLivro;
+        this.repositorioAutor = repositorioAutor;
+        this.arquivo = arquivo;
+        this.somenteLeitura = somenteLeitura;
+    }
+
+    /**
+     * Exporta o catalogo para o arquivo configurado
+     *
+     * @return Caminho absoluto do snapshot gravado
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Path exportar() {
+        return exportar(Path.of(arquivo));
+    }
+
+    /**
+     * Exporta o catalogo para um arquivo, substituindo o conteudo anterior de forma atomica.
+     * Autores e livros sao lidos em uma unica transacao, entao o snapshot nao tem livros
+     * de autores gravados depois que os autores foram lidos. Se a exportacao falhar, o destino
+     * fica como estava e o arquivo temporario e apagado.
+     *
+     * @param destino Arquivo de destino
+     * @return Caminho absoluto do snapshot gravado
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Path exportar(Path destino) {
+        try {
+            Path absoluto = destino.toAbsolutePath();
+            if (absoluto.getParent() != null) {
+                Files.createDirectories(absoluto.getParent());
+            }
+            Path temporario = absoluto.resolveSibling(absoluto.getFileName() + ".tmp");
+            try {
+                gravar(temporario);
+                Files.move(temporario, absoluto, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                if (absoluto.equals(Path.of(arquivo).toAbsolutePath())) {
+                    // O mapeamento antigo continua lendo o arquivo substituido; a proxima consulta abre o novo
+                    synchronized (this) {
+                        snapshotConsultas = null;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(temporario);
+                } catch (IOException erroAoApagar) {
+                    e.addSuppressed(erroAoApagar);
+                }
+                throw e;
+            }
+            return absoluto;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao exportar o snapshot para " + destino, e);
+        }
+    }
+
+    /**
+     * Transmite autores e livros do banco para um snapshot gravado no arquivo informado
+     */
+    private void gravar(Path arquivoSnapshot) throws IOException {
+        try (SnapshotCatalogo.Escritor escritor = SnapshotCatalogo.escritor(arquivoSnapshot)) {
+            try (Stream<IdentificacaoAutor> autores = repositorioAutor.transmitirIdentificacoes()) {
+                Iterator<IdentificacaoAutor> iterador = autores.iterator();
+                while (iterador.hasNext()) {
+                    escritor.adicionarAutor(iterador.next());
+                }
+            }
+            try (Stream<Object[]> livros = repositorioLivro.transmitirLinhasSnapshot()) {
+                Iterator<Object[]> iterador = livros.iterator();
+                while (iterador.hasNext()) {
+                    Object[] livro = iterador.next();
+                    escritor.adicionarLivro((Long) livro[0], (String) livro[1], (String) livro[2],
+                            (Integer) livro[3], (Long) livro[4]);
+                }
+            }
+            escritor.concluir();
+        }
+    }
+
+    /**
+     * @return O snapshot do arquivo configurado
+     */
+    public SnapshotCatalogo abrir() {
+        return SnapshotCatalogo.abrir(Path.of(arquivo));
+    }
+
+    /**
+     * Snapshot que responde as consultas no lugar do banco de dados. Aberto na primeira consulta e mantido
+     * aberto ate a proxima exportacao para o arquivo configurado.
+     *
+     * @return O snapshot do arquivo configurado, ou vazio se o modo somente leitura estiver desligado
+     * ou o arquivo ainda nao existir
+     */
+    public Optional<SnapshotCatalogo> snapshotParaConsultas() {
+        if (!somenteLeitura) {
+            return Optional.empty();
+        }
+        SnapshotCatalogo snapshot = snapshotConsultas;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = snapshotConsultas;
+                if (snapshot == null && Files.exists(Path.of(arquivo))) {
+                    snapshot = abrir();
+                    snapshotConsultas = snapshot;
+                }
+            }
+        }
+        return Optional.ofNullable(snapshot);
+    }
+}
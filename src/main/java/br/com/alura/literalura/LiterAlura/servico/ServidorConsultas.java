@@ -0,0 +1,403 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+import br.com.alura.literalura.LiterAlura.repository.EstatisticasIdiomas;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor HTTP somente leitura que expoe as consultas do catalogo em JSON, ao lado do menu interativo,
+ * para que varios clientes consultem a mesma instancia ao mesmo tempo. As respostas sao serializadas
+ * direto das projecoes devolvidas pelos servicos e levam um ETag calculado do corpo: um GET com
+ * If-None-Match igual ao ETag atual recebe 304 sem corpo.
+ * <p>
+ * Cada requisicao roda em uma thread virtual quando a JVM oferece (Java 21 ou mais recente); nas versoes
+ * anteriores, em um pool fixo de literalura.servidor.threads threads. Inicia com a aplicacao se
+ * literalura.servidor.porta for maior que zero, depois que as estatisticas por idioma e o indice de titulos
+ * terminam a primeira montagem; antes disso as respostas viriam vazias, com um ETag valido.
+ * Com literalura.snapshot.somente-leitura, as consultas sao respondidas pelo snapshot do catalogo enquanto
+ * o arquivo existir, sem consultar o banco de dados (ver {@link ServicoSnapshotCatalogo#snapshotParaConsultas()}).
+ * <ul>
+ *     <li>GET /livros?titulo=...</li>
+ *     <li>GET /livros?idioma=...[&amp;limite=10][&amp;aposId=...], em ordem de id; a proxima pagina comeca apos
+ *     o id do ultimo livro recebido</li>
+ *     <li>GET /livros/mais-baixados?limite=10[&amp;idioma=...]</li>
+ *     <li>GET /autores/vivos?ano=...</li>
+ *     <li>GET /autores/mais-baixados?limite=10</li>
+ *     <li>GET /estatisticas/idiomas</li>
+ * </ul>
+ */
+@Component
+public class ServidorConsultas {
+
+    private static final String TIPO_CONTEUDO = "application/json; charset=utf-8";
+    private static final int LIMITE_PADRAO = 10;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final ObjectMapper mapeadorObjeto;
+    private final ServicoLivro servicoLivro;
+    private final ServicoAutor servicoAutor;
+    private final MeterRegistry registroMetricas;
+    private final EstatisticasIdiomas estatisticasIdiomas;
+    private final IndiceBuscaTitulos indiceBuscaTitulos;
+    private final ServicoSnapshotCatalogo servicoSnapshotCatalogo;
+    private final String endereco;
+    private final int porta;
+    private final int threads;
+    private final Map<String, Consulta> rotas = new HashMap<>();
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private boolean encerrado;
+
+    public ServidorConsultas(ObjectMapper mapeadorObjeto, ServicoLivro servicoLivro, ServicoAutor servicoAutor,
+                             MeterRegistry registroMetricas, EstatisticasIdiomas estatisticasIdiomas,
+                             IndiceBuscaTitulos indiceBuscaTitulos, ServicoSnapshotCatalogo servicoSnapshotCatalogo,
+                             @Value("${literalura.servidor.endereco:localhost}") String endereco,
+                             @Value("${literalura.servidor.porta:0}") int porta,
+                             @Value("${literalura.servidor.threads:200}") int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Numero de threads do servidor deve ser maior que zero: " + threads);
+        }
+        this.mapeadorObjeto = mapeadorObjeto;
+        this.servicoLivro = servicoLivro;
+        this.servicoAutor = servicoAutor;
+        this.registroMetricas = registroMetricas;
+        this.estatisticasIdiomas = estatisticasIdiomas;
+        this.indiceBuscaTitulos = indiceBuscaTitulos;
+        this.servicoSnapshotCatalogo = servicoSnapshotCatalogo;
+        this.endereco = endereco;
+        this.porta = porta;
+        this.threads = threads;
+
+        rotas.put("/livros", this::buscarLivros);
+        rotas.put("/livros/mais-baixados", this::buscarLivrosMaisBaixados);
+        rotas.put("/autores/vivos", this::buscarAutoresVivos);
+        rotas.put("/autores/mais-baixados", this::buscarAutoresMaisBaixados);
+        rotas.put("/estatisticas/idiomas", this::buscarEstatisticasIdiomas);
+    }
+
+    /**
+     * Inicia o servidor de consultas, se uma porta foi configurada, assim que as estruturas em memoria
+     * montadas ao iniciar a aplicacao ficam prontas. Nao bloqueia: o menu aparece enquanto elas sao montadas.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void iniciarSeConfigurado() {
+        if (porta <= 0) {
+            return;
+        }
+        CompletableFuture.allOf(estatisticasIdiomas.primeiraMontagem(), indiceBuscaTitulos.primeiraMontagem())
+                .thenRun(this::iniciarSeNaoEncerrado);
+    }
+
+    private synchronized void iniciarSeNaoEncerrado() {
+        if (encerrado) {
+            return;
+        }
+        try {
+            iniciar(porta);
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao iniciar o servidor de consultas na porta " + porta + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Comeca a atender requisicoes
+     *
+     * @param portaEscuta Porta, ou zero para escolher uma porta livre
+     * @return A porta em que o servidor esta escutando
+     */
+    public synchronized int iniciar(int portaEscuta) {
+        if (servidor != null) {
+            throw new IllegalStateException("Servidor de consultas ja iniciado");
+        }
+        try {
+            servidor = ServidoresHttp.criar(new InetSocketAddress(endereco, portaEscuta), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = criarExecutor();
+        servidor.setExecutor(executor);
+        servidor.createContext("/", this::atender);
+        servidor.start();
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Para o servidor, interrompendo as requisicoes em andamento. Depois disso a inicializacao automatica
+     * nao inicia mais o servidor.
+     */
+    @PreDestroy
+    public synchronized void parar() {
+        encerrado = true;
+        if (servidor != null) {
+            servidor.stop(0);
+            executor.shutdownNow();
+            servidor = null;
+        }
+    }
+
+    private ExecutorService criarExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // JVM sem threads virtuais
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads, tarefa -> {
+                Thread thread = new Thread(tarefa, "servidor-consultas-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private Object buscarLivros(Map<String, String> parametros) {
+        SnapshotCatalogo snapshot = snapshot();
+        if (parametros.containsKey("titulo")) {
+            String titulo = parametros.get("titulo");
+            return snapshot != null ? snapshot.buscarLivrosPorTitulo(titulo)
+                    : servicoLivro.obterResumosLivrosPorTitulo(titulo);
+        }
+        if (parametros.containsKey("idioma")) {
+            String idioma = parametros.get("idioma");
+            return snapshot != null ? snapshot.buscarLivrosPorIdioma(idioma, aposId(parametros), limite(parametros))
+                    : servicoLivro.obterResumosLivrosPorIdioma(idioma, aposId(parametros), limite(parametros));
+        }
+        throw new IllegalArgumentException("Informe o parametro titulo ou idioma");
+    }
+
+    private Object buscarLivrosMaisBaixados(Map<String, String> parametros) {
+        SnapshotCatalogo snapshot = snapshot();
+        String idioma = parametros.get("idioma");
+        if (snapshot != null) {
+            return idioma != null
+                    ? snapshot.buscarLivrosMaisBaixadosPorIdioma(idioma, limite(parametros))
+                    : snapshot.buscarLivrosMaisBaixados(limite(parametros));
+        }
+        return idioma != null
+                ? servicoLivro.obterLivrosMaisBaixadosPorIdioma(idioma, limite(parametros))
+                : servicoLivro.obterLivrosMaisBaixados(limite(parametros));
+    }
+
+    private Object buscarAutoresVivos(Map<String, String> parametros) {
+        SnapshotCatalogo snapshot = snapshot();
+        int ano = inteiro(parametros, "ano");
+        return snapshot != null ? snapshot.buscarAutoresVivosNoAno(ano)
+                : servicoAutor.obterAutoresVivosNoAno(ano).stream().map(IdentificacaoAutor::de).toList();
+    }
+
+    private Object buscarAutoresMaisBaixados(Map<String, String> parametros) {
+        SnapshotCatalogo snapshot = snapshot();
+        return snapshot != null ? snapshot.buscarAutoresMaisBaixados(limite(parametros))
+                : servicoAutor.obterAutoresMaisBaixados(limite(parametros));
+    }
+
+    private Object buscarEstatisticasIdiomas(Map<String, String> parametros) {
+        SnapshotCatalogo snapshot = snapshot();
+        return snapshot != null ? snapshot.obterEstatisticasPorIdioma()
+                : servicoLivro.obterEstatisticasDetalhadasPorIdioma();
+    }
+
+    /**
+     * @return O snapshot que responde no lugar do banco de dados no modo somente leitura, ou nulo
+     */
+    private SnapshotCatalogo snapshot() {
+        return servicoSnapshotCatalogo.snapshotParaConsultas().orElse(null);
+    }
+
+    private void atender(HttpExchange troca) {
+        String rota = troca.getRequestURI().getPath();
+        Timer.Sample amostra = Timer.start(registroMetricas);
+        int status = 500;
+        try {
+            status = responder(troca, rota);
+        } catch (IOException e) {
+            // O cliente fechou a conexao antes de receber a resposta
+        } finally {
+            troca.close();
+            amostra.stop(Timer.builder("literalura.servidor.requisicao")
+                    .description("Latencia das requisicoes ao servidor de consultas")
+                    .tag("rota", rotas.containsKey(rota) ? rota : "desconhecida")
+                    .tag("status", String.valueOf(status))
+                    .publishPercentileHistogram()
+                    .register(registroMetricas));
+        }
+    }
+
+    private int responder(HttpExchange troca, String rota) throws IOException {
+        // Sem descartar o corpo da requisicao, o servidor do JDK fecha a conexao depois de uma resposta
+        // sem corpo (304 ou HEAD), e o cliente, que a considera reutilizavel, recebe a conexao fechada
+        troca.getRequestBody().close();
+        String metodo = troca.getRequestMethod();
+        boolean somenteCabecalhos = "HEAD".equals(metodo);
+        if (!"GET".equals(metodo) && !somenteCabecalhos) {
+            troca.getResponseHeaders().set("Allow", "GET, HEAD");
+            return enviarErro(troca, 405, "Metodo nao permitido: " + metodo);
+        }
+        Consulta consulta = rotas.get(rota);
+        if (consulta == null) {
+            return enviarErro(troca, 404, "Rota desconhecida: " + rota);
+        }
+
+        byte[] corpo;
+        try {
+            corpo = mapeadorObjeto.writeValueAsBytes(consulta.executar(parametros(troca.getRequestURI())));
+        } catch (IllegalArgumentException e) {
+            return enviarErro(troca, 400, e.getMessage());
+        } catch (RuntimeException | IOException e) {
+            System.err.println("Erro ao responder " + troca.getRequestURI() + ": " + e.getMessage());
+            return enviarErro(troca, 500, "Erro ao consultar o catalogo");
+        }
+
+        String etag = etag(corpo);
+        Headers cabecalhos = troca.getResponseHeaders();
+        cabecalhos.set("ETag", etag);
+        cabecalhos.set("Cache-Control", "no-cache");
+        if (correspondeAoEtag(troca.getRequestHeaders().get("If-None-Match"), etag)) {
+            troca.sendResponseHeaders(304, -1);
+            return 304;
+        }
+        cabecalhos.set("Content-Type", TIPO_CONTEUDO);
+        if (somenteCabecalhos) {
+            troca.sendResponseHeaders(200, -1);
+            return 200;
+        }
+        troca.sendResponseHeaders(200, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+        return 200;
+    }
+
+    private int enviarErro(HttpExchange troca, int status, String mensagem) throws IOException {
+        byte[] corpo = mapeadorObjeto.writeValueAsBytes(Map.of("erro", mensagem));
+        troca.getResponseHeaders().set("Content-Type", TIPO_CONTEUDO);
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+        return status;
+    }
+
+    /**
+     * Le os parametros da consulta da URI; de um parametro repetido, vale o primeiro
+     */
+    static Map<String, String> parametros(URI uri) {
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = uri.getRawQuery();
+        if (consulta == null) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            if (par.isEmpty()) {
+                continue;
+            }
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.putIfAbsent(URLDecoder.decode(nome, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static int inteiro(Map<String, String> parametros, String nome) {
+        String valor = parametros.get(nome);
+        if (valor == null) {
+            throw new IllegalArgumentException("Informe o parametro " + nome);
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametro " + nome + " deve ser um numero inteiro: " + valor);
+        }
+    }
+
+    private static long aposId(Map<String, String> parametros) {
+        String valor = parametros.get("aposId");
+        if (valor == null) {
+            return 0;
+        }
+        try {
+            long aposId = Long.parseLong(valor.trim());
+            if (aposId < 0) {
+                throw new IllegalArgumentException("Parametro aposId nao pode ser negativo: " + aposId);
+            }
+            return aposId;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parametro aposId deve ser um numero inteiro: " + valor);
+        }
+    }
+
+    private static int limite(Map<String, String> parametros) {
+        int limite = parametros.containsKey("limite") ? inteiro(parametros, "limite") : LIMITE_PADRAO;
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + LIMITE_MAXIMO + ": " + limite);
+        }
+        return limite;
+    }
+
+    /**
+     * ETag forte com os primeiros 128 bits do SHA-256 do corpo
+     */
+    static String etag(byte[] corpo) {
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(corpo);
+            return '"' + HexFormat.of().formatHex(resumo, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponivel", e);
+        }
+    }
+
+    /**
+     * Compara o If-None-Match com o ETag atual; "*" e ETags fracos (W/"...") tambem correspondem
+     */
+    static boolean correspondeAoEtag(List<String> seNenhumCorresponder, String etag) {
+        if (seNenhumCorresponder == null) {
+            return false;
+        }
+        for (String valor : seNenhumCorresponder) {
+            for (String candidato : valor.split(",")) {
+                String aparado = candidato.trim();
+                if (aparado.startsWith("W/")) {
+                    aparado = aparado.substring(2);
+                }
+                if (aparado.equals("*") || aparado.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Consulta {
+        Object executar(Map<String, String> parametros);
+    }
+}
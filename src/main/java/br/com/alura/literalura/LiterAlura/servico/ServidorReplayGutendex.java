@@ -0,0 +1,208 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.servico.GravacaoRespostasGutendex.RespostaGravada;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor HTTP local que imita a API Gutendex com as respostas gravadas por {@link GravacaoRespostasGutendex},
+ * para testes de carga deterministas e sem rede. Cada resposta pode ser atrasada por uma latencia fixa
+ * mais uma variacao aleatoria, e uma fracao das requisicoes pode falhar com 503. As esperas sao agendadas
+ * em vez de ocupar uma thread por requisicao, entao milhares de requisicoes simultaneas sao atendidas
+ * por poucas threads. Requisicoes sem resposta gravada recebem 404.
+ * <p>
+ * Inicia com a aplicacao se literalura.api.replay.porta for maior que zero; para usa-lo, aponte
+ * literalura.api.url-base para http://localhost:PORTA/books.
+ */
+@Component
+public class ServidorReplayGutendex {
+
+    private static final Resposta ERRO_INJETADO = new Resposta(503, "Erro injetado pelo servidor de replay");
+    private static final Resposta NAO_GRAVADA = new Resposta(404, "Nenhuma resposta gravada para esta requisicao");
+
+    private final ObjectMapper mapeadorObjeto;
+    private final String diretorio;
+    private final int porta;
+    private final long latenciaNanos;
+    private final long variacaoLatenciaNanos;
+    private final double taxaErros;
+    private final LongAdder respondidas = new LongAdder();
+    private final LongAdder errosInjetados = new LongAdder();
+    private final LongAdder naoGravadas = new LongAdder();
+    private Map<String, Resposta> respostas = Map.of();
+    private HttpServer servidor;
+    private ScheduledExecutorService executor;
+
+    public ServidorReplayGutendex(ObjectMapper mapeadorObjeto,
+                                  @Value("${literalura.api.replay.diretorio:}") String diretorio,
+                                  @Value("${literalura.api.replay.porta:0}") int porta,
+                                  @Value("${literalura.api.replay.latencia:0ms}") Duration latencia,
+                                  @Value("${literalura.api.replay.variacao-latencia:0ms}") Duration variacaoLatencia,
+                                  @Value("${literalura.api.replay.taxa-erros:0}") double taxaErros) {
+        if (taxaErros < 0 || taxaErros > 1) {
+            throw new IllegalArgumentException("Taxa de erros deve estar entre 0 e 1: " + taxaErros);
+        }
+        this.mapeadorObjeto = mapeadorObjeto;
+        this.diretorio = diretorio;
+        this.porta = porta;
+        this.latenciaNanos = latencia.toNanos();
+        this.variacaoLatenciaNanos = variacaoLatencia.toNanos();
+        this.taxaErros = taxaErros;
+    }
+
+    /**
+     * Inicia o servidor de replay, se uma porta foi configurada
+     */
+    @PostConstruct
+    public void iniciarSeConfigurado() {
+        if (porta <= 0) {
+            return;
+        }
+        try {
+            iniciar(porta);
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao iniciar o servidor de replay na porta " + porta + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carrega as respostas gravadas e comeca a atender requisicoes
+     *
+     * @param portaEscuta Porta local, ou zero para escolher uma porta livre
+     * @return Origem do servidor, como http://localhost:8089; a URL base da API e a origem seguida de /books
+     */
+    public synchronized String iniciar(int portaEscuta) {
+        if (diretorio.isBlank()) {
+            throw new IllegalStateException("Diretorio das respostas gravadas nao configurado "
+                    + "(literalura.api.replay.diretorio)");
+        }
+        if (servidor != null) {
+            throw new IllegalStateException("Servidor de replay ja iniciado");
+        }
+        try {
+            servidor = ServidoresHttp.criar(new InetSocketAddress("localhost", portaEscuta), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String origem = "http://localhost:" + servidor.getAddress().getPort();
+
+        // Os links das respostas, como o "next" das paginas, passam a apontar para este servidor
+        Map<String, Resposta> carregadas = new HashMap<>();
+        for (RespostaGravada gravada : GravacaoRespostasGutendex.carregar(mapeadorObjeto, Path.of(diretorio))
+                .values()) {
+            carregadas.put(gravada.caminho(),
+                    new Resposta(gravada.status(), gravada.corpo().replace(gravada.origem(), origem)));
+        }
+        respostas = carregadas;
+
+        AtomicInteger contador = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), tarefa -> {
+            Thread thread = new Thread(tarefa, "replay-gutendex-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        servidor.setExecutor(executor);
+        servidor.createContext("/", this::atender);
+        servidor.start();
+        return origem;
+    }
+
+    /**
+     * Para o servidor, descartando as respostas que ainda aguardavam a latencia
+     */
+    @PreDestroy
+    public synchronized void parar() {
+        if (servidor != null) {
+            servidor.stop(0);
+            executor.shutdownNow();
+            servidor = null;
+        }
+    }
+
+    /**
+     * @return Numero de requisicoes respondidas com uma resposta gravada
+     */
+    public long respondidas() {
+        return respondidas.sum();
+    }
+
+    /**
+     * @return Numero de requisicoes que receberam um erro injetado
+     */
+    public long errosInjetados() {
+        return errosInjetados.sum();
+    }
+
+    /**
+     * @return Numero de requisicoes sem resposta gravada
+     */
+    public long naoGravadas() {
+        return naoGravadas.sum();
+    }
+
+    private void atender(HttpExchange troca) {
+        long atraso = latenciaNanos;
+        if (variacaoLatenciaNanos > 0) {
+            atraso += ThreadLocalRandom.current().nextLong(-variacaoLatenciaNanos, variacaoLatenciaNanos + 1);
+        }
+        if (atraso > 0) {
+            executor.schedule(() -> responder(troca), atraso, TimeUnit.NANOSECONDS);
+        } else {
+            responder(troca);
+        }
+    }
+
+    private void responder(HttpExchange troca) {
+        Resposta resposta;
+        if (taxaErros > 0 && ThreadLocalRandom.current().nextDouble() < taxaErros) {
+            errosInjetados.increment();
+            resposta = ERRO_INJETADO;
+        } else {
+            resposta = respostas.get(GravacaoRespostasGutendex.caminho(troca.getRequestURI()));
+            if (resposta == null) {
+                naoGravadas.increment();
+                resposta = NAO_GRAVADA;
+            } else {
+                respondidas.increment();
+            }
+        }
+
+        try (OutputStream saida = troca.getResponseBody()) {
+            troca.getResponseHeaders().set("Content-Type", "application/json");
+            troca.sendResponseHeaders(resposta.status(), resposta.corpo().length);
+            saida.write(resposta.corpo());
+        } catch (IOException e) {
+            // O cliente desistiu da requisicao, por exemplo por tempo limite
+        } finally {
+            troca.close();
+        }
+    }
+
+    private record Resposta(int status, byte[] corpo) {
+
+        Resposta(int status, String corpo) {
+            this(status, corpo.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
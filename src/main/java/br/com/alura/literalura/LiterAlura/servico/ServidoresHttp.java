@@ -0,0 +1,32 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Cria os servidores HTTP da aplicacao com TCP_NODELAY. O servidor do JDK envia os cabecalhos e o corpo
+ * de cada resposta em segmentos separados; sem TCP_NODELAY, o algoritmo de Nagle segura o corpo ate o
+ * cliente confirmar os cabecalhos, e o ACK atrasado do cliente soma ate 40ms a cada resposta.
+ * A opcao e lida uma unica vez, quando o primeiro servidor e criado, entao todos devem passar por aqui.
+ */
+final class ServidoresHttp {
+
+    private static final String PROPRIEDADE_SEM_ATRASO = "sun.net.httpserver.nodelay";
+
+    private ServidoresHttp() {
+    }
+
+    /**
+     * Cria um servidor ainda nao iniciado; -Dsun.net.httpserver.nodelay=false na linha de comando prevalece
+     *
+     * @param endereco Endereco e porta de escuta
+     * @param fila     Tamanho da fila de conexoes aguardando aceite, ou zero para o padrao do sistema
+     * @return O servidor criado
+     */
+    static HttpServer criar(InetSocketAddress endereco, int fila) throws IOException {
+        System.getProperties().putIfAbsent(PROPRIEDADE_SEM_ATRASO, "true");
+        return HttpServer.create(endereco, fila);
+    }
+}
@@ -0,0 +1,606 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Copia somente leitura do catalogo em um arquivo binario, lida direto da memoria mapeada, sem banco de dados,
+ * sem Spring e sem criar objetos ao abrir: abrir o arquivo so mapeia e confere o cabecalho.
+ * As consultas devolvem as mesmas projecoes que {@link ServicoLivro} e {@link ServicoAutor}.
+ * <p>
+ * Formato (inteiros big-endian):
+ * <ul>
+ *     <li>cabecalho de 64 bytes: magica, versao, quantidades e posicao de cada secao</li>
+ *     <li>autores em ordem de id, 24 bytes cada: id, posicao e tamanho do nome nos textos, nascimento e
+ *     falecimento ({@link Integer#MIN_VALUE} quando desconhecidos)</li>
+ *     <li>livros em ordem de id, 28 bytes cada: id, posicao e tamanho do titulo nos textos, downloads
+ *     ({@link Integer#MIN_VALUE} quando desconhecido), indice do autor (-1 sem autor) e codigo do idioma
+ *     (-1 sem idioma)</li>
+ *     <li>dicionario de idiomas, 8 bytes cada: posicao e tamanho do codigo nos textos</li>
+ *     <li>indice de titulos: tabela hash com enderecamento aberto de indices de livros mais um (zero e vazio)</li>
+ *     <li>textos em UTF-8</li>
+ * </ul>
+ * O arquivo e mapeado em um unico MappedByteBuffer, entao fica limitado a 2 GB.
+ * Instancias sao imutaveis e podem ser consultadas por varias threads ao mesmo tempo.
+ */
+public final class SnapshotCatalogo {
+
+    private static final int MAGICA = 0x4C495452; // "LITR"
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 64;
+    private static final int TAMANHO_AUTOR = 24;
+    private static final int TAMANHO_LIVRO = 28;
+    private static final int TAMANHO_IDIOMA = 8;
+    private static final int NULO = Integer.MIN_VALUE;
+
+    private final ByteBuffer dados;
+    private final int quantidadeAutores;
+    private final int quantidadeLivros;
+    private final int capacidadeIndiceTitulos;
+    private final int posicaoAutores;
+    private final int posicaoLivros;
+    private final int posicaoIndiceTitulos;
+    private final int posicaoTextos;
+    private final String[] idiomas;
+    private final Map<String, Short> codigosIdiomas = new HashMap<>();
+
+    private SnapshotCatalogo(ByteBuffer dados) {
+        if (dados.capacity() < TAMANHO_CABECALHO || dados.getInt(0) != MAGICA) {
+            throw new IllegalArgumentException("Arquivo nao e um snapshot do catalogo");
+        }
+        if (dados.getInt(4) != VERSAO) {
+            throw new IllegalArgumentException("Versao de snapshot nao suportada: " + dados.getInt(4));
+        }
+        this.dados = dados;
+        this.quantidadeAutores = dados.getInt(8);
+        this.quantidadeLivros = dados.getInt(12);
+        int quantidadeIdiomas = dados.getInt(16);
+        this.capacidadeIndiceTitulos = dados.getInt(20);
+        this.posicaoAutores = Math.toIntExact(dados.getLong(24));
+        this.posicaoLivros = Math.toIntExact(dados.getLong(32));
+        int posicaoIdiomas = Math.toIntExact(dados.getLong(40));
+        this.posicaoIndiceTitulos = Math.toIntExact(dados.getLong(48));
+        this.posicaoTextos = Math.toIntExact(dados.getLong(56));
+
+        // O dicionario tem poucas entradas; decodifica-lo aqui evita decodificar o idioma de cada livro
+        this.idiomas = new String[quantidadeIdiomas];
+        for (short codigo = 0; codigo < quantidadeIdiomas; codigo++) {
+            int entrada = posicaoIdiomas + codigo * TAMANHO_IDIOMA;
+            idiomas[codigo] = texto(dados.getInt(entrada), dados.getInt(entrada + 4));
+            codigosIdiomas.put(idiomas[codigo], codigo);
+        }
+    }
+
+    /**
+     * Mapeia um snapshot gravado por {@link #escritor(Path)}
+     *
+     * @param arquivo O arquivo do snapshot
+     * @return O snapshot, pronto para consultas
+     */
+    public static SnapshotCatalogo abrir(Path arquivo) {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot maior que 2 GB: " + arquivo);
+            }
+            // O mapeamento continua valido depois que o canal e fechado
+            return new SnapshotCatalogo(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir o snapshot " + arquivo, e);
+        }
+    }
+
+    /**
+     * Inicia a gravacao de um snapshot
+     *
+     * @param destino O arquivo a gravar; e substituido se ja existir
+     * @return O escritor, que recebe os autores e depois os livros e grava o arquivo em {@link Escritor#concluir()}
+     */
+    public static Escritor escritor(Path destino) throws IOException {
+        return new Escritor(destino);
+    }
+
+    public int quantidadeLivros() {
+        return quantidadeLivros;
+    }
+
+    public int quantidadeAutores() {
+        return quantidadeAutores;
+    }
+
+    /**
+     * Busca os livros com o titulo exato pelo indice de titulos, sem percorrer o catalogo
+     *
+     * @param titulo O titulo dos livros
+     * @return Lista com o resumo dos livros com o titulo, em ordem de id
+     */
+    public List<ResumoLivro> buscarLivrosPorTitulo(String titulo) {
+        List<ResumoLivro> livros = new ArrayList<>();
+        if (capacidadeIndiceTitulos == 0 || titulo == null) {
+            return livros;
+        }
+        byte[] procurado = titulo.getBytes(StandardCharsets.UTF_8);
+        int mascara = capacidadeIndiceTitulos - 1;
+        for (int posicao = Arrays.hashCode(procurado) & mascara; ; posicao = (posicao + 1) & mascara) {
+            int entrada = dados.getInt(posicaoIndiceTitulos + posicao * Integer.BYTES);
+            if (entrada == 0) {
+                break;
+            }
+            int livro = posicaoLivro(entrada - 1);
+            if (textoIgual(dados.getInt(livro + 8), dados.getInt(livro + 12), procurado)) {
+                livros.add(resumir(entrada - 1));
+            }
+        }
+        livros.sort(Comparator.comparing(ResumoLivro::id));
+        return livros;
+    }
+
+    /**
+     * @param idioma O idioma para filtrar
+     * @return Lista com o resumo dos livros no idioma, em ordem de id
+     */
+    public List<ResumoLivro> buscarLivrosPorIdioma(String idioma) {
+        List<ResumoLivro> livros = new ArrayList<>();
+        Short codigo = codigosIdiomas.get(idioma);
+        if (codigo == null) {
+            return livros;
+        }
+        for (int i = 0; i < quantidadeLivros; i++) {
+            if (dados.getShort(posicaoLivro(i) + 24) == codigo) {
+                livros.add(resumir(i));
+            }
+        }
+        return livros;
+    }
+
+    /**
+     * Busca uma pagina dos livros de um idioma. Como os livros estao em ordem de id, a pagina comeca
+     * por uma busca binaria logo depois de aposId e para assim que o limite e atingido.
+     *
+     * @param idioma O idioma para filtrar
+     * @param aposId O ultimo id da pagina anterior, ou zero para a primeira pagina
+     * @param limite Numero maximo de livros
+     * @return Lista com o resumo dos livros no idioma com id maior que aposId, em ordem de id
+     */
+    public List<ResumoLivro> buscarLivrosPorIdioma(String idioma, long aposId, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        List<ResumoLivro> livros = new ArrayList<>();
+        Short codigo = codigosIdiomas.get(idioma);
+        if (codigo == null) {
+            return livros;
+        }
+        int inicio = 0;
+        int fim = quantidadeLivros;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (dados.getLong(posicaoLivro(meio)) <= aposId) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        for (int i = inicio; i < quantidadeLivros && livros.size() < limite; i++) {
+            if (dados.getShort(posicaoLivro(i) + 24) == codigo) {
+                livros.add(resumir(i));
+            }
+        }
+        return livros;
+    }
+
+    /**
+     * @param limite Numero maximo de livros
+     * @return Os livros com mais downloads, do maior para o menor; no empate, o de menor id primeiro
+     */
+    public List<ResumoLivro> buscarLivrosMaisBaixados(int limite) {
+        return maisBaixados(limite, null);
+    }
+
+    /**
+     * @param idioma O idioma dos livros
+     * @param limite Numero maximo de livros
+     * @return Os livros do idioma com mais downloads, do maior para o menor; no empate, o de menor id primeiro
+     */
+    public List<ResumoLivro> buscarLivrosMaisBaixadosPorIdioma(String idioma, int limite) {
+        Short codigo = codigosIdiomas.get(idioma);
+        return codigo == null ? List.of() : maisBaixados(limite, codigo);
+    }
+
+    /**
+     * Percorre todos os livros em ordem de id
+     *
+     * @param consumidor Recebe o resumo de cada livro
+     */
+    public void percorrerLivros(Consumer<ResumoLivro> consumidor) {
+        for (int i = 0; i < quantidadeLivros; i++) {
+            consumidor.accept(resumir(i));
+        }
+    }
+
+    /**
+     * @param ano O ano para verificar
+     * @return Autores nascidos ate o ano e falecidos no ano ou depois, ou ainda vivos, em ordem de id
+     */
+    public List<IdentificacaoAutor> buscarAutoresVivosNoAno(int ano) {
+        List<IdentificacaoAutor> autores = new ArrayList<>();
+        for (int i = 0; i < quantidadeAutores; i++) {
+            int autor = posicaoAutor(i);
+            int nascimento = dados.getInt(autor + 16);
+            int falecimento = dados.getInt(autor + 20);
+            if (nascimento != NULO && nascimento <= ano && (falecimento == NULO || falecimento >= ano)) {
+                autores.add(identificar(i));
+            }
+        }
+        return autores;
+    }
+
+    /**
+     * Soma os downloads dos livros de cada autor, como {@link ServicoAutor#obterAutoresMaisBaixados(int)}
+     *
+     * @param limite Numero maximo de autores
+     * @return Os autores com livros, do maior para o menor total de downloads
+     */
+    public List<AutorDownloads> buscarAutoresMaisBaixados(int limite) {
+        SelecaoMaiores<AutorDownloads> selecao = new SelecaoMaiores<>(limite, ServicoAutor.ORDEM_DOWNLOADS);
+        long[] quantidades = new long[quantidadeAutores];
+        long[] totais = new long[quantidadeAutores];
+        for (int i = 0; i < quantidadeLivros; i++) {
+            int livro = posicaoLivro(i);
+            int indiceAutor = dados.getInt(livro + 20);
+            if (indiceAutor >= 0) {
+                int downloads = dados.getInt(livro + 16);
+                quantidades[indiceAutor]++;
+                totais[indiceAutor] += downloads == NULO ? 0 : downloads;
+            }
+        }
+        for (int i = 0; i < quantidadeAutores; i++) {
+            if (quantidades[i] > 0) {
+                int autor = posicaoAutor(i);
+                selecao.adicionar(new AutorDownloads(texto(dados.getInt(autor + 8), dados.getInt(autor + 12)),
+                        quantidades[i], totais[i]));
+            }
+        }
+        return selecao.resultado();
+    }
+
+    /**
+     * @return Quantidade de livros, total e maximo de downloads de cada idioma,
+     * da maior para a menor quantidade de livros
+     */
+    public List<EstatisticaIdioma> obterEstatisticasPorIdioma() {
+        // Uma posicao por codigo de idioma, mais a ultima para livros sem idioma
+        long[] quantidades = new long[idiomas.length + 1];
+        long[] totais = new long[idiomas.length + 1];
+        int[] maximos = new int[idiomas.length + 1];
+        for (int i = 0; i < quantidadeLivros; i++) {
+            int livro = posicaoLivro(i);
+            short codigo = dados.getShort(livro + 24);
+            int indice = codigo < 0 ? idiomas.length : codigo;
+            int downloads = dados.getInt(livro + 16);
+            quantidades[indice]++;
+            if (downloads != NULO) {
+                totais[indice] += downloads;
+                maximos[indice] = Math.max(maximos[indice], downloads);
+            }
+        }
+
+        List<EstatisticaIdioma> estatisticas = new ArrayList<>();
+        for (int indice = 0; indice <= idiomas.length; indice++) {
+            if (quantidades[indice] > 0) {
+                estatisticas.add(new EstatisticaIdioma(indice < idiomas.length ? idiomas[indice] : null,
+                        quantidades[indice], totais[indice], maximos[indice]));
+            }
+        }
+        estatisticas.sort(EstatisticaIdioma.DA_MAIOR_PARA_A_MENOR_QUANTIDADE);
+        return estatisticas;
+    }
+
+    private List<ResumoLivro> maisBaixados(int limite, Short codigo) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        // O heap guarda so o indice e os downloads; o resumo so e montado para os escolhidos
+        SelecaoMaiores<long[]> selecao = new SelecaoMaiores<>(limite,
+                Comparator.<long[]>comparingLong(candidato -> candidato[1])
+                        .thenComparing(candidato -> candidato[0], Comparator.reverseOrder()));
+        for (int i = 0; i < quantidadeLivros; i++) {
+            int livro = posicaoLivro(i);
+            int downloads = dados.getInt(livro + 16);
+            if (downloads != NULO && (codigo == null || dados.getShort(livro + 24) == codigo)) {
+                selecao.adicionar(new long[]{i, downloads});
+            }
+        }
+        return selecao.resultado().stream().map(candidato -> resumir((int) candidato[0])).toList();
+    }
+
+    private ResumoLivro resumir(int indice) {
+        int livro = posicaoLivro(indice);
+        int downloads = dados.getInt(livro + 16);
+        int indiceAutor = dados.getInt(livro + 20);
+        short codigo = dados.getShort(livro + 24);
+        String nomeAutor = null;
+        Integer nascimento = null;
+        Integer falecimento = null;
+        if (indiceAutor >= 0) {
+            int autor = posicaoAutor(indiceAutor);
+            nomeAutor = texto(dados.getInt(autor + 8), dados.getInt(autor + 12));
+            nascimento = inteiroOuNulo(dados.getInt(autor + 16));
+            falecimento = inteiroOuNulo(dados.getInt(autor + 20));
+        }
+        return new ResumoLivro(dados.getLong(livro), texto(dados.getInt(livro + 8), dados.getInt(livro + 12)),
+                codigo < 0 ? null : idiomas[codigo], inteiroOuNulo(downloads), nomeAutor, nascimento, falecimento);
+    }
+
+    private IdentificacaoAutor identificar(int indice) {
+        int autor = posicaoAutor(indice);
+        return new IdentificacaoAutor(dados.getLong(autor), texto(dados.getInt(autor + 8), dados.getInt(autor + 12)),
+                inteiroOuNulo(dados.getInt(autor + 16)), inteiroOuNulo(dados.getInt(autor + 20)));
+    }
+
+    private int posicaoLivro(int indice) {
+        return posicaoLivros + indice * TAMANHO_LIVRO;
+    }
+
+    private int posicaoAutor(int indice) {
+        return posicaoAutores + indice * TAMANHO_AUTOR;
+    }
+
+    private String texto(int posicao, int tamanho) {
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        dados.get(posicaoTextos + posicao, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean textoIgual(int posicao, int tamanho, byte[] procurado) {
+        if (tamanho != procurado.length) {
+            return false;
+        }
+        int inicio = posicaoTextos + posicao;
+        for (int i = 0; i < tamanho; i++) {
+            if (dados.get(inicio + i) != procurado[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Integer inteiroOuNulo(int valor) {
+        return valor == NULO ? null : valor;
+    }
+
+    /**
+     * Grava um snapshot em uma passada: autores, livros e textos vao para arquivos temporarios enquanto chegam,
+     * e sao juntados no destino com o cabecalho em {@link #concluir()}. Em memoria ficam so os ids dos autores,
+     * para traduzir o autor de cada livro em um indice, e o hash do titulo de cada livro, para o indice de titulos.
+     * Fechar sem concluir, como quando a leitura do catalogo falha no meio, descarta o que foi recebido
+     * sem gravar o destino.
+     */
+    public static final class Escritor implements Closeable {
+
+        private final Path destino;
+        private final Secao autores;
+        private final Secao livros;
+        private final Secao textos;
+        private final DicionarioIdiomas dicionarioIdiomas = new DicionarioIdiomas();
+        private final SequenciaAutores sequenciaAutores = new SequenciaAutores();
+        private int[] hashesTitulos = new int[1024];
+        private int quantidadeLivros;
+        private long tamanhoTextos;
+        private boolean fechado;
+
+        private Escritor(Path destino) throws IOException {
+            this.destino = destino;
+            this.autores = new Secao();
+            this.livros = new Secao();
+            this.textos = new Secao();
+        }
+
+        /**
+         * Adiciona um autor; todos os autores devem vir antes dos livros, em ordem crescente de id
+         */
+        public void adicionarAutor(IdentificacaoAutor autor) throws IOException {
+            sequenciaAutores.adicionar(autor.id());
+
+            DataOutputStream saida = autores.saida;
+            saida.writeLong(autor.id());
+            escreverTexto(saida, autor.nome());
+            saida.writeInt(Objects.requireNonNullElse(autor.anoNascimento(), NULO));
+            saida.writeInt(Objects.requireNonNullElse(autor.anoFalecimento(), NULO));
+        }
+
+        /**
+         * Adiciona um livro; os livros devem vir em ordem crescente de id
+         *
+         * @param idAutor O id do autor, ja adicionado, ou nulo se o livro nao tem autor
+         */
+        public void adicionarLivro(Long id, String titulo, String idioma, Integer downloads, Long idAutor)
+                throws IOException {
+            int indiceAutor = sequenciaAutores.posicao(idAutor);
+            if (quantidadeLivros == hashesTitulos.length) {
+                hashesTitulos = Arrays.copyOf(hashesTitulos, hashesTitulos.length * 2);
+            }
+            byte[] bytesTitulo = titulo != null ? titulo.getBytes(StandardCharsets.UTF_8) : null;
+            hashesTitulos[quantidadeLivros++] = bytesTitulo != null ? Arrays.hashCode(bytesTitulo) : 0;
+
+            DataOutputStream saida = livros.saida;
+            saida.writeLong(id);
+            escreverTexto(saida, bytesTitulo);
+            saida.writeInt(Objects.requireNonNullElse(downloads, NULO));
+            saida.writeInt(indiceAutor);
+            saida.writeShort(dicionarioIdiomas.codigo(idioma));
+            saida.writeShort(0);
+        }
+
+        /**
+         * Junta as secoes no arquivo de destino e apaga os arquivos temporarios
+         */
+        public void concluir() throws IOException {
+            if (fechado) {
+                throw new IllegalStateException("Escritor ja fechado");
+            }
+            fechado = true;
+            try {
+                fecharSecoes();
+                gravarDestino();
+            } finally {
+                apagarSecoes();
+            }
+        }
+
+        /**
+         * Apaga os arquivos temporarios sem gravar o destino, se o snapshot nao foi concluido
+         */
+        @Override
+        public void close() throws IOException {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            try {
+                fecharSecoes();
+            } finally {
+                apagarSecoes();
+            }
+        }
+
+        private void fecharSecoes() throws IOException {
+            autores.saida.close();
+            livros.saida.close();
+            textos.saida.close();
+        }
+
+        private void apagarSecoes() throws IOException {
+            autores.apagar();
+            livros.apagar();
+            textos.apagar();
+        }
+
+        private void gravarDestino() throws IOException {
+            List<String> idiomas = dicionarioIdiomas.idiomas();
+            int quantidadeAutores = sequenciaAutores.quantidade();
+            // Tabela hash com ocupacao de no maximo 50%, para que as buscas parem logo em uma posicao vazia
+            int capacidade = quantidadeLivros == 0 ? 0 : Integer.highestOneBit(quantidadeLivros) * 4;
+            int[] indiceTitulos = new int[capacidade];
+            ByteBuffer idiomasGravados = ByteBuffer.allocate(idiomas.size() * TAMANHO_IDIOMA);
+            for (String idioma : idiomas) {
+                byte[] bytes = idioma.getBytes(StandardCharsets.UTF_8);
+                idiomasGravados.putInt(Math.toIntExact(tamanhoTextos)).putInt(bytes.length);
+                tamanhoTextos += bytes.length;
+            }
+            idiomasGravados.flip();
+            for (int i = 0; i < quantidadeLivros; i++) {
+                int posicao = hashesTitulos[i] & (capacidade - 1);
+                while (indiceTitulos[posicao] != 0) {
+                    posicao = (posicao + 1) & (capacidade - 1);
+                }
+                indiceTitulos[posicao] = i + 1;
+            }
+
+            long posicaoAutores = TAMANHO_CABECALHO;
+            long posicaoLivros = posicaoAutores + (long) quantidadeAutores * TAMANHO_AUTOR;
+            long posicaoIdiomas = posicaoLivros + (long) quantidadeLivros * TAMANHO_LIVRO;
+            long posicaoIndice = posicaoIdiomas + (long) idiomas.size() * TAMANHO_IDIOMA;
+            long posicaoTextos = posicaoIndice + (long) capacidade * Integer.BYTES;
+            if (posicaoTextos + tamanhoTextos > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot passaria de 2 GB");
+            }
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO)
+                    .putInt(MAGICA).putInt(VERSAO)
+                    .putInt(quantidadeAutores).putInt(quantidadeLivros).putInt(idiomas.size()).putInt(capacidade)
+                    .putLong(posicaoAutores).putLong(posicaoLivros).putLong(posicaoIdiomas)
+                    .putLong(posicaoIndice).putLong(posicaoTextos)
+                    .flip();
+            ByteBuffer indice = ByteBuffer.allocate(capacidade * Integer.BYTES);
+            indice.asIntBuffer().put(indiceTitulos);
+
+            try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                escreverTudo(canal, cabecalho);
+                autores.transferirPara(canal);
+                livros.transferirPara(canal);
+                escreverTudo(canal, idiomasGravados);
+                escreverTudo(canal, indice);
+                textos.transferirPara(canal);
+                for (String idioma : idiomas) {
+                    escreverTudo(canal, ByteBuffer.wrap(idioma.getBytes(StandardCharsets.UTF_8)));
+                }
+                canal.force(true);
+            }
+        }
+
+        private void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+            escreverTexto(saida, texto != null ? texto.getBytes(StandardCharsets.UTF_8) : null);
+        }
+
+        private void escreverTexto(DataOutputStream saida, byte[] bytes) throws IOException {
+            if (bytes == null) {
+                saida.writeInt(0);
+                saida.writeInt(-1);
+                return;
+            }
+            saida.writeInt(Math.toIntExact(tamanhoTextos));
+            saida.writeInt(bytes.length);
+            textos.saida.write(bytes);
+            tamanhoTextos += bytes.length;
+        }
+
+        private static void escreverTudo(FileChannel canal, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        }
+
+        /**
+         * Secao gravada em um arquivo temporario enquanto o tamanho das anteriores ainda nao e conhecido
+         */
+        private static final class Secao {
+
+            private final Path arquivo;
+            private DataOutputStream saida;
+
+            Secao() throws IOException {
+                arquivo = Files.createTempFile("snapshot-catalogo", ".secao");
+                saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(arquivo), 1 << 16));
+            }
+
+            void transferirPara(FileChannel destino) throws IOException {
+                try (FileChannel origem = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                    long tamanho = origem.size();
+                    for (long transferidos = 0; transferidos < tamanho; ) {
+                        transferidos += origem.transferTo(transferidos, tamanho - transferidos, destino);
+                    }
+                }
+            }
+
+            void apagar() throws IOException {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- Esquema inicial, igual ao que o Hibernate criava com ddl-auto=update.
+-- Bancos ja existentes sao marcados nesta versao (baseline) e recebem apenas as migracoes seguintes.
+
+CREATE TABLE authors (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome            VARCHAR(500),
+    ano_nascimento  INTEGER,
+    ano_falecimento INTEGER,
+    CONSTRAINT uk_autor_nome_nascimento_falecimento UNIQUE (nome, ano_nascimento, ano_falecimento)
+);
+
+CREATE TABLE books (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    titulo    VARCHAR(1000),
+    author_id BIGINT,
+    idioma    VARCHAR(100),
+    downloads INTEGER,
+    CONSTRAINT uk_livro_titulo_autor_idioma UNIQUE (titulo, author_id, idioma),
+    CONSTRAINT fk_livro_autor FOREIGN KEY (author_id) REFERENCES authors (id)
+);
@@ -0,0 +1,8 @@
+-- Livros mais baixados: WHERE downloads IS NOT NULL ORDER BY downloads DESC, id com LIMIT le so o inicio do indice
+CREATE INDEX IF NOT EXISTS idx_livro_downloads ON books (downloads DESC, id);
+
+-- Livros mais baixados de um idioma. Por comecar pelo idioma, tambem atende findByIdiomaOrderById, countByIdioma
+-- e as estatisticas por idioma, e substitui idx_livro_idioma
+CREATE INDEX IF NOT EXISTS idx_livro_idioma_downloads ON books (idioma, downloads DESC, id);
+
+DROP INDEX IF EXISTS idx_livro_idioma;
@@ -0,0 +1,3 @@
+-- Paginas dos livros de um idioma em ordem de id: WHERE idioma = ? AND id > ? ORDER BY id com LIMIT comeca a ler
+-- o indice logo depois do ultimo id da pagina anterior, em vez de ordenar todos os livros do idioma
+CREATE INDEX IF NOT EXISTS idx_livro_idioma_id ON books (idioma, id);
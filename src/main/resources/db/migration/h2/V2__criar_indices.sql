@@ -0,0 +1,8 @@
+-- Mesmos indices da migracao do PostgreSQL, exceto idx_livro_titulo_minusculo:
+-- o H2 nao cria indices sobre expressoes como lower(titulo)
+
+CREATE INDEX IF NOT EXISTS idx_livro_idioma ON books (idioma);
+
+CREATE INDEX IF NOT EXISTS idx_livro_autor ON books (author_id);
+
+CREATE INDEX IF NOT EXISTS idx_autor_periodo_vida ON authors (ano_nascimento, ano_falecimento);
@@ -0,0 +1,12 @@
+-- Livros por idioma: findByIdioma, countByIdioma e as estatisticas por idioma
+CREATE INDEX IF NOT EXISTS idx_livro_idioma ON books (idioma);
+
+-- Busca de titulo sem diferenciar maiusculas e minusculas. Hash porque a busca e so por igualdade: nenhuma
+-- consulta ordena nem compara faixas de titulos, e cada entrada guarda so o hash, nao o titulo inteiro
+CREATE INDEX IF NOT EXISTS idx_livro_titulo_minusculo ON books USING hash (lower(titulo));
+
+-- O PostgreSQL nao indexa chaves estrangeiras; em uk_livro_titulo_autor_idioma author_id nao e a primeira coluna
+CREATE INDEX IF NOT EXISTS idx_livro_autor ON books (author_id);
+
+-- Autores vivos em um ano ou periodo: ano_nascimento <= :ano AND (ano_falecimento IS NULL OR ano_falecimento >= :ano)
+CREATE INDEX IF NOT EXISTS idx_autor_periodo_vida ON authors (ano_nascimento, ano_falecimento);
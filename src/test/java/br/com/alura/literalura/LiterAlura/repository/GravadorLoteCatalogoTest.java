@@ -0,0 +1,66 @@
+package br.com.alura.literalura.LiterAlura.repository;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.repository.CacheIdsAutores.ChaveAutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testa a gravacao em lote quando a transacao que a envolve e revertida
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GravadorLoteCatalogoTest {
+
+    private static final List<DadosLivroGutendex> LOTE = List.of(
+            new DadosLivroGutendex("Livro do Lote Revertido", "pt", 10, "Autor do Lote Revertido", 1900, 1980),
+            new DadosLivroGutendex("Outro Livro do Lote Revertido", "en", 20, "Autor do Lote Revertido", 1900, 1980));
+
+    @Autowired
+    private GravadorLoteCatalogo gravadorLoteCatalogo;
+
+    @Autowired
+    private CacheIdsAutores cacheIdsAutores;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @Autowired
+    private PlatformTransactionManager gerenciadorTransacao;
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+    }
+
+    @Test
+    void autoresDeUmaTransacaoRevertidaNaoFicamNoCache() {
+        ChaveAutor chave = new ChaveAutor("Autor do Lote Revertido", 1900, 1980);
+        new TransactionTemplate(gerenciadorTransacao).executeWithoutResult(status -> {
+            assertEquals(new GravadorLoteCatalogo.ResultadoGravacao(2, 1), gravadorLoteCatalogo.gravar(LOTE));
+            status.setRollbackOnly();
+        });
+
+        assertNull(cacheIdsAutores.buscarId(chave));
+        assertEquals(0, repositorioLivro.count());
+
+        // Sem o id revertido no cache, o lote seguinte insere o autor de novo em vez de apontar para um id inexistente
+        assertEquals(new GravadorLoteCatalogo.ResultadoGravacao(2, 1), gravadorLoteCatalogo.gravar(LOTE));
+        assertEquals(2, repositorioLivro.count());
+        assertEquals(repositorioAutor.findAll().get(0).getId(), cacheIdsAutores.buscarId(chave));
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.dto.PaginaGutendex;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testa a leitura em streaming das respostas da API Gutendex com arrays de idiomas e autores fora do formato usual
+ */
+class AnalisadorRespostaGutendexTest {
+
+    private final AnalisadorRespostaGutendex analisador = new AnalisadorRespostaGutendex(new JsonFactory());
+
+    @Test
+    void primeiroElementoInesperadoNaoDesalinhaOsLivrosSeguintes() throws IOException {
+        PaginaGutendex pagina = analisador.analisarPagina(json("""
+                {"count":4,"next":"http://proxima","results":[
+                {"title":"Idioma nulo","languages":[null,"en"],"authors":[null,{"name":"Autor Ignorado"}],"download_count":1},
+                {"title":"Elementos aninhados","languages":[["pt"],{"x":1},"fr"],"authors":[["Autor"],{"name":"Outro"}],"download_count":2},
+                {"title":"Campos que nao sao arrays","languages":{"codigo":"de"},"authors":"Autor","download_count":3},
+                {"title":"Formato usual","languages":["es","en"],
+                "authors":[{"name":"Cervantes","birth_year":1547,"death_year":1616},{"name":"Tradutor"}],"download_count":4}
+                ]}"""));
+
+        assertEquals(4, pagina.totalLivros());
+        assertEquals("http://proxima", pagina.proxima());
+        assertEquals(List.of(
+                new DadosLivroGutendex("Idioma nulo", "", 1, null, null, null),
+                new DadosLivroGutendex("Elementos aninhados", "", 2, null, null, null),
+                new DadosLivroGutendex("Campos que nao sao arrays", "", 3, null, null, null),
+                new DadosLivroGutendex("Formato usual", "es", 4, "Cervantes", 1547, 1616)), pagina.livros());
+    }
+
+    @Test
+    void primeiroLivroComArraysVaziosEIdiomaNulo() throws IOException {
+        DadosLivroGutendex livro = analisador.analisarPrimeiroLivro(json("""
+                {"count":1,"results":[{"languages":[],"authors":[],"title":"Sem Idioma","download_count":7}]}"""))
+                .orElseThrow();
+
+        assertEquals(new DadosLivroGutendex("Sem Idioma", "", 7, null, null, null), livro);
+    }
+
+    private static InputStream json(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
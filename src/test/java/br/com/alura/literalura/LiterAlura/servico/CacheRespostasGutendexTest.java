@@ -0,0 +1,176 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa a expiracao, a remocao por tamanho e a persistencia em disco do cache de respostas da API,
+ * com um relogio controlado pelo teste
+ */
+class CacheRespostasGutendexTest {
+
+    private static final DadosLivroGutendex DOM_CASMURRO =
+            new DadosLivroGutendex("Dom Casmurro", "pt", 1000, "Assis, Machado de", 1839, 1908);
+
+    private final ObjectMapper mapeadorObjeto = new ObjectMapper();
+    private final RelogioManual relogio = new RelogioManual();
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void respostaExpiraDepoisDoTtl() {
+        CacheRespostasGutendex cache = criarCache(100, "");
+
+        assertEquals(Optional.of(DOM_CASMURRO), cache.obter("Dom Casmurro", consulta()).join());
+        relogio.avancar(Duration.ofMinutes(59));
+        assertEquals(Optional.of(DOM_CASMURRO), cache.obter("  dom   CASMURRO ", consulta()).join());
+        assertEquals(1, consultas.get());
+
+        relogio.avancar(Duration.ofMinutes(1));
+        assertEquals(Optional.of(DOM_CASMURRO), cache.obter("Dom Casmurro", consulta()).join());
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void tituloSemResultadoExpiraAntesPeloTtlNegativo() {
+        CacheRespostasGutendex cache = criarCache(100, "");
+
+        assertEquals(Optional.empty(), cache.obter("Titulo Inexistente", consulta()).join());
+        cache.obter("Dom Casmurro", consulta()).join();
+        relogio.avancar(Duration.ofMinutes(9));
+        cache.obter("Titulo Inexistente", consulta()).join();
+        assertEquals(2, consultas.get());
+
+        relogio.avancar(Duration.ofMinutes(1));
+        cache.obter("Titulo Inexistente", consulta()).join();
+        cache.obter("Dom Casmurro", consulta()).join();
+        // So o titulo sem resultado voltou a ser consultado
+        assertEquals(3, consultas.get());
+    }
+
+    @Test
+    void falhaNaConsultaNaoEGuardada() {
+        CacheRespostasGutendex cache = criarCache(100, "");
+
+        assertTrue(cache.obter("Dom Casmurro", titulo -> CompletableFuture.failedFuture(new IllegalStateException()))
+                .isCompletedExceptionally());
+        assertEquals(Optional.of(DOM_CASMURRO), cache.obter("Dom Casmurro", consulta()).join());
+        assertEquals(1, consultas.get());
+    }
+
+    @Test
+    void tamanhoMaximoRemoveEntradas() {
+        CacheRespostasGutendex cache = criarCache(2, "");
+
+        cache.obter("Dom Casmurro", consulta()).join();
+        cache.obter("Iracema", consulta()).join();
+        cache.obter("O Guarani", consulta()).join();
+
+        assertEquals(2, cache.tamanho());
+        assertEquals(1, cache.estatisticas().evictionCount());
+    }
+
+    @Test
+    void entradasSalvasEmDiscoSaoRecarregadasComAIdadeOriginal() {
+        String arquivo = diretorio.resolve("cache").resolve("gutendex.json").toString();
+        CacheRespostasGutendex original = criarCache(100, arquivo);
+        original.obter("Dom Casmurro", consulta()).join();
+        relogio.avancar(Duration.ofMinutes(5));
+        original.obter("Titulo Inexistente", consulta()).join();
+        original.salvarNoDisco();
+        assertTrue(Files.exists(Path.of(arquivo)));
+
+        // Passados 50 minutos, o titulo sem resultado ja expirou e nao e recarregado
+        relogio.avancar(Duration.ofMinutes(50));
+        CacheRespostasGutendex recarregado = criarCache(100, arquivo);
+        recarregado.carregarDoDisco();
+        assertEquals(1, recarregado.tamanho());
+        assertEquals(Optional.of(DOM_CASMURRO), recarregado.obter("Dom Casmurro", consulta()).join());
+        assertEquals(2, consultas.get());
+
+        // A resposta recarregada expira uma hora depois de obtida da API, e nao do carregamento
+        relogio.avancar(Duration.ofMinutes(5));
+        recarregado.obter("Dom Casmurro", consulta()).join();
+        assertEquals(3, consultas.get());
+    }
+
+    @Test
+    void arquivoInexistenteOuInvalidoDeixaOCacheVazio() throws Exception {
+        CacheRespostasGutendex semArquivo = criarCache(100, diretorio.resolve("ausente.json").toString());
+        semArquivo.carregarDoDisco();
+        assertEquals(0, semArquivo.tamanho());
+
+        Path invalido = Files.writeString(diretorio.resolve("invalido.json"), "{nao e json");
+        CacheRespostasGutendex comArquivoInvalido = criarCache(100, invalido.toString());
+        comArquivoInvalido.carregarDoDisco();
+        assertEquals(0, comArquivoInvalido.tamanho());
+    }
+
+    private CacheRespostasGutendex criarCache(long tamanhoMaximo, String arquivo) {
+        return new CacheRespostasGutendex(mapeadorObjeto, tamanhoMaximo, Duration.ofHours(1), Duration.ofMinutes(10),
+                arquivo, relogio, relogio, Runnable::run);
+    }
+
+    /**
+     * Consulta que encontra Dom Casmurro e nada para os demais titulos, contando as chamadas
+     */
+    private Function<String, CompletableFuture<Optional<DadosLivroGutendex>>> consulta() {
+        return titulo -> {
+            consultas.incrementAndGet();
+            return CompletableFuture.completedFuture(
+                    titulo.equalsIgnoreCase("Dom Casmurro") ? Optional.of(DOM_CASMURRO) : Optional.empty());
+        };
+    }
+
+    /**
+     * Relogio que so anda quando o teste manda, servindo tambem de ticker para o Caffeine
+     */
+    private static final class RelogioManual extends Clock implements Ticker {
+
+        private volatile Instant agora = Instant.parse("2024-01-01T00:00:00Z");
+
+        void avancar(Duration duracao) {
+            agora = agora.plus(duracao);
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+
+        @Override
+        public long read() {
+            return agora.getEpochSecond() * 1_000_000_000L + agora.getNano();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+    }
+}
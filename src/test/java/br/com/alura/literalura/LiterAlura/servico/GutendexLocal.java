@@ -0,0 +1,237 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Servidor HTTP local que responde como a API Gutendex, para os testes que sobem o contexto do Spring com
+ * literalura.api.url-base apontando para ele. Responde as buscas por titulo (?search=) com os livros
+ * cadastrados, sem diferenciar caixa, e serve as paginas cadastradas encadeadas pelo campo "next".
+ * Conta as buscas de cada titulo, as paginas servidas e o maximo de requisicoes em andamento ao mesmo tempo.
+ */
+final class GutendexLocal implements AutoCloseable {
+
+    private final ObjectMapper mapeadorObjeto = new ObjectMapper();
+    private final HttpServer servidor;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, ObjectNode> livrosPorTitulo = new ConcurrentHashMap<>();
+    private final Map<String, Long> atrasosMillis = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> buscasPorTitulo = new ConcurrentHashMap<>();
+    private final List<List<ObjectNode>> paginas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger paginasServidas = new AtomicInteger();
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicInteger maximoEmAndamento = new AtomicInteger();
+    private volatile int paginaComFalha;
+
+    private GutendexLocal() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.createContext("/books", this::responder);
+        servidor.setExecutor(executor);
+        servidor.start();
+    }
+
+    static GutendexLocal iniciar() {
+        try {
+            return new GutendexLocal();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return URL para literalura.api.url-base
+     */
+    String urlBase() {
+        return "http://localhost:" + servidor.getAddress().getPort() + "/books";
+    }
+
+    /**
+     * Cadastra o livro devolvido na busca pelo titulo
+     */
+    void cadastrarLivro(String titulo, String autor, Integer nascimento, Integer falecimento, String idioma,
+                        int downloads) {
+        cadastrarBusca(titulo, livro(titulo, autor, nascimento, falecimento, idioma, downloads));
+    }
+
+    /**
+     * Cadastra o livro devolvido na busca pelo titulo, que pode ser diferente do titulo do livro
+     */
+    void cadastrarBusca(String titulo, ObjectNode livro) {
+        livrosPorTitulo.put(titulo.toLowerCase(Locale.ROOT), livro);
+    }
+
+    /**
+     * Atrasa a resposta da busca pelo titulo, com ou sem livro cadastrado
+     */
+    void atrasarBusca(String titulo, Duration atraso) {
+        atrasosMillis.put(titulo.toLowerCase(Locale.ROOT), atraso.toMillis());
+    }
+
+    /**
+     * Acrescenta uma pagina ao catalogo. A primeira e servida na URL base, e cada uma aponta para a seguinte.
+     */
+    void cadastrarPagina(ObjectNode... livros) {
+        paginas.add(List.of(livros));
+    }
+
+    /**
+     * Faz a pagina informada, contada a partir de 1, responder com erro 500
+     */
+    void falharPagina(int numero) {
+        paginaComFalha = numero;
+    }
+
+    ObjectNode livro(String titulo, String autor, Integer nascimento, Integer falecimento, String idioma,
+                     int downloads) {
+        ObjectNode livro = mapeadorObjeto.createObjectNode();
+        livro.put("title", titulo);
+        ArrayNode autores = livro.putArray("authors");
+        if (autor != null) {
+            autores.addObject().put("name", autor).put("birth_year", nascimento).put("death_year", falecimento);
+        }
+        livro.putArray("languages").add(idioma);
+        livro.put("download_count", downloads);
+        return livro;
+    }
+
+    int buscas(String titulo) {
+        AtomicInteger buscas = buscasPorTitulo.get(titulo.toLowerCase(Locale.ROOT));
+        return buscas == null ? 0 : buscas.get();
+    }
+
+    int totalBuscas() {
+        return buscasPorTitulo.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    int paginasServidas() {
+        return paginasServidas.get();
+    }
+
+    int maximoEmAndamento() {
+        return maximoEmAndamento.get();
+    }
+
+    /**
+     * Zera os contadores e remove livros, paginas, atrasos e falhas cadastrados
+     */
+    void limpar() {
+        livrosPorTitulo.clear();
+        atrasosMillis.clear();
+        buscasPorTitulo.clear();
+        paginas.clear();
+        paginasServidas.set(0);
+        maximoEmAndamento.set(0);
+        paginaComFalha = 0;
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Espera a condicao ficar verdadeira por ate 5 segundos
+     */
+    static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("Condicao nao atingida a tempo");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void responder(HttpExchange troca) throws IOException {
+        maximoEmAndamento.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+        try {
+            Map<String, String> parametros = parametros(troca.getRequestURI().getRawQuery());
+            String busca = parametros.get("search");
+            if (busca != null) {
+                responderBusca(troca, busca.toLowerCase(Locale.ROOT));
+            } else {
+                responderPagina(troca, Integer.parseInt(parametros.getOrDefault("page", "1")));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            emAndamento.decrementAndGet();
+            troca.close();
+        }
+    }
+
+    private void responderBusca(HttpExchange troca, String titulo) throws IOException, InterruptedException {
+        buscasPorTitulo.computeIfAbsent(titulo, t -> new AtomicInteger()).incrementAndGet();
+        Thread.sleep(atrasosMillis.getOrDefault(titulo, 0L));
+        ObjectNode livro = livrosPorTitulo.get(titulo);
+        enviar(troca, 200, pagina(livro == null ? List.of() : List.of(livro), null, livro == null ? 0 : 1));
+    }
+
+    private void responderPagina(HttpExchange troca, int numero) throws IOException {
+        if (numero == paginaComFalha) {
+            enviar(troca, 500, "Erro na pagina " + numero);
+            return;
+        }
+        paginasServidas.incrementAndGet();
+        if (numero > paginas.size()) {
+            enviar(troca, 404, "Pagina inexistente");
+            return;
+        }
+        int total = paginas.stream().mapToInt(List::size).sum();
+        String proxima = numero < paginas.size() ? urlBase() + "?page=" + (numero + 1) : null;
+        enviar(troca, 200, pagina(paginas.get(numero - 1), proxima, total));
+    }
+
+    private String pagina(List<ObjectNode> livros, String proxima, int total) throws IOException {
+        ObjectNode pagina = mapeadorObjeto.createObjectNode();
+        pagina.put("count", total);
+        pagina.put("next", proxima);
+        pagina.putArray("results").addAll(livros);
+        return mapeadorObjeto.writeValueAsString(pagina);
+    }
+
+    private static void enviar(HttpExchange troca, int status, String corpo) throws IOException {
+        byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+        troca.sendResponseHeaders(status, bytes.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new ConcurrentHashMap<>();
+        if (consulta == null) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                parametros.put(par.substring(0, igual),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parametros;
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa a busca por titulo do indice, que so resolve titulos com os mesmos termos, e a pesquisa,
+ * que tolera titulos parecidos e erros de digitacao
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IndiceBuscaTitulosTest {
+
+    @Autowired
+    private IndiceBuscaTitulos indiceBuscaTitulos;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+        indiceBuscaTitulos.reconstruir();
+    }
+
+    @Test
+    void tituloParecidoNaoResolveOutroLivro() {
+        Livro littleMen = salvar("Little Men", "Alcott, Louisa May");
+        Livro prince = salvar("The Prince", "Machiavelli, Niccolo");
+        Livro duneMessiah = salvar("Dune Messiah", "Herbert, Frank");
+        indiceBuscaTitulos.reconstruir();
+
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Little Women"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("The Princess"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Dune"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Dune Messiah Children"));
+        assertEquals(Optional.of(littleMen.getId()), indiceBuscaTitulos.buscarTitulo("LITTLE MEN"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Prince"));
+        assertEquals(Optional.of(prince.getId()), indiceBuscaTitulos.buscarTitulo("the prince"));
+        assertEquals(Optional.of(duneMessiah.getId()), indiceBuscaTitulos.buscarTitulo("dune: messiah!"));
+
+        Livro dune = salvar("Dune", "Herbert, Frank");
+        indiceBuscaTitulos.registrar(dune);
+        assertEquals(Optional.of(dune.getId()), indiceBuscaTitulos.buscarTitulo("Dune"));
+        assertEquals(Optional.of(duneMessiah.getId()), indiceBuscaTitulos.buscarTitulo("Dune Messiah"));
+        assertEquals(List.of(dune.getId(), duneMessiah.getId()), indiceBuscaTitulos.pesquisar("dune", 10));
+    }
+
+    @Test
+    void tituloComAsMesmasPalavrasEmOutraOrdemNaoResolveOutroLivro() {
+        Livro ratosEHomens = salvar("Of Mice and Men", "Steinbeck, John");
+        indiceBuscaTitulos.reconstruir();
+
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Men and Mice"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Mice and Men"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Of Mice, Men"));
+        assertEquals(Optional.of(ratosEHomens.getId()), indiceBuscaTitulos.buscarTitulo("OF MICE AND MEN!"));
+        assertEquals(List.of(ratosEHomens.getId()), indiceBuscaTitulos.pesquisar("Men and Mice", 10));
+    }
+
+    @Test
+    void errosDeDigitacaoSoCorrespondemNaPesquisa() {
+        Livro orgulho = salvar("Pride and Prejudice", "Austen, Jane");
+        Livro littleMen = salvar("Little Men", "Alcott, Louisa May");
+        indiceBuscaTitulos.reconstruir();
+
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Pride and Prejudise"));
+        assertEquals(Optional.empty(), indiceBuscaTitulos.buscarTitulo("Prid and Prejudice"));
+        assertEquals(Optional.of(orgulho.getId()), indiceBuscaTitulos.buscarTitulo("PRIDE and prejudice."));
+        assertEquals(List.of(orgulho.getId()), indiceBuscaTitulos.pesquisar("Pride and Prejudise", 10));
+        assertEquals(List.of(orgulho.getId()), indiceBuscaTitulos.pesquisar("prejudise austen", 10));
+        assertEquals(List.of(littleMen.getId()), indiceBuscaTitulos.pesquisar("Little Women", 10));
+    }
+
+    @Test
+    void registrosDuranteReconstrucoesNaoDuplicamNemPerdemLivros() throws Exception {
+        List<Livro> iniciais = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            iniciais.add(new Livro("Livro Inicial " + i, null, "en", i));
+        }
+        repositorioLivro.saveAll(iniciais);
+        indiceBuscaTitulos.reconstruir();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Livro> registrados = new ArrayList<>();
+        try {
+            List<Future<List<Livro>>> gravacoes = new ArrayList<>();
+            for (int thread = 0; thread < 3; thread++) {
+                int inicio = thread * 100;
+                gravacoes.add(executor.submit(() -> {
+                    List<Livro> salvos = new ArrayList<>();
+                    for (int i = inicio; i < inicio + 100; i++) {
+                        Livro livro = repositorioLivro.save(new Livro("Livro Registrado " + i, null, "pt", i));
+                        indiceBuscaTitulos.registrar(livro);
+                        salvos.add(livro);
+                    }
+                    return salvos;
+                }));
+            }
+            Future<?> reconstrucoes = executor.submit(() -> {
+                while (gravacoes.stream().anyMatch(gravacao -> !gravacao.isDone())) {
+                    indiceBuscaTitulos.reconstruir();
+                }
+            });
+            for (Future<List<Livro>> gravacao : gravacoes) {
+                registrados.addAll(gravacao.get());
+            }
+            reconstrucoes.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(indiceBuscaTitulos.pronto());
+        for (Livro livro : registrados) {
+            assertEquals(Optional.of(livro.getId()), indiceBuscaTitulos.buscarTitulo(livro.getTitulo()),
+                    livro.getTitulo());
+            assertEquals(List.of(livro.getId()), indiceBuscaTitulos.pesquisar(livro.getTitulo(), 10),
+                    livro.getTitulo());
+        }
+        for (Livro livro : iniciais) {
+            assertEquals(List.of(livro.getId()), indiceBuscaTitulos.pesquisar(livro.getTitulo(), 10),
+                    livro.getTitulo());
+        }
+    }
+
+    private Livro salvar(String titulo, String nomeAutor) {
+        return repositorioLivro.save(new Livro(titulo, new Autor(nomeAutor, null, null), "en", 0));
+    }
+}
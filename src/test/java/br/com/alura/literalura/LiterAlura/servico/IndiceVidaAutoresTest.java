@@ -0,0 +1,132 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara o indice de periodos de vida com as consultas JPQL equivalentes, antes e depois de registros
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IndiceVidaAutoresTest {
+
+    private static final List<Integer> ANOS = List.of(-100, -50, 0, 1500, 1799, 1800, 1850, 1900, 1901, 1950, 2025);
+
+    @Autowired
+    private IndiceVidaAutores indiceVidaAutores;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @BeforeEach
+    void salvarAutores() {
+        repositorioAutor.saveAll(List.of(
+                new Autor("Vida Completa", 1800, 1900),
+                new Autor("Ainda Vivo", 1950, null),
+                new Autor("Sem Nascimento", null, 1850),
+                new Autor("Sem Datas", null, null),
+                new Autor("Antes de Cristo", -100, -44),
+                new Autor("Nascido e Falecido no Mesmo Ano", 1850, 1850),
+                new Autor("Falecimento Antes do Nascimento", 1900, 1850)));
+        indiceVidaAutores.invalidar();
+    }
+
+    @AfterEach
+    void apagarAutores() {
+        repositorioAutor.deleteAllInBatch();
+        indiceVidaAutores.invalidar();
+    }
+
+    @Test
+    void consultasRespondemComoAsConsultasJpql() {
+        assertIgualAoJpql();
+    }
+
+    @Test
+    void autorRegistradoAntesOuDepoisDaCargaApareceUmaVez() {
+        Autor lidoNaCarga = repositorioAutor.save(new Autor("Gravado Antes da Carga", 1840, 1910));
+        // Antes da carga o registro e ignorado; o autor vem da tabela
+        indiceVidaAutores.registrar(lidoNaCarga);
+        assertIgualAoJpql();
+        // Registrado de novo depois da carga, como quando o commit acontece logo antes dela
+        indiceVidaAutores.registrar(lidoNaCarga);
+        assertIgualAoJpql();
+
+        Autor novo = repositorioAutor.save(new Autor("Gravado Depois da Carga", 1890, null));
+        indiceVidaAutores.registrar(novo);
+        indiceVidaAutores.registrar(novo);
+        assertIgualAoJpql();
+    }
+
+    @Test
+    void registrosSuficientesReconstroemAArvore() {
+        indiceVidaAutores.buscarVivosNoAno(1900);
+        List<Autor> novos = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            novos.add(new Autor("Autor Registrado " + i, 1500 + i % 500, i % 7 == 0 ? null : 1530 + i % 500));
+        }
+        repositorioAutor.saveAll(novos).forEach(indiceVidaAutores::registrar);
+
+        assertIgualAoJpql();
+    }
+
+    @Test
+    void registrosDuranteCargasConcorrentesNaoDuplicamNemPerdemAutores() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> gravacoes = new ArrayList<>();
+            for (int thread = 0; thread < 3; thread++) {
+                int inicio = thread * 200;
+                gravacoes.add(executor.submit(() -> {
+                    for (int i = inicio; i < inicio + 200; i++) {
+                        indiceVidaAutores.registrar(repositorioAutor.save(new Autor("Concorrente " + i, 1700 + i % 300, null)));
+                    }
+                }));
+            }
+            Future<?> cargas = executor.submit(() -> {
+                while (gravacoes.stream().anyMatch(gravacao -> !gravacao.isDone())) {
+                    indiceVidaAutores.invalidar();
+                    indiceVidaAutores.buscarVivosNoAno(1900);
+                }
+            });
+            for (Future<?> gravacao : gravacoes) {
+                gravacao.get();
+            }
+            cargas.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertIgualAoJpql();
+    }
+
+    private void assertIgualAoJpql() {
+        for (int ano : ANOS) {
+            assertEquals(ids(repositorioAutor.buscarAutoresVivosNoAno(ano)), ids(indiceVidaAutores.buscarVivosNoAno(ano)),
+                    "Autores vivos em " + ano);
+            for (int duracao : List.of(0, 10, 60, 300)) {
+                assertEquals(ids(repositorioAutor.buscarAutoresVivosNoPeriodo(ano, ano + duracao)),
+                        ids(indiceVidaAutores.buscarVivosNoPeriodo(ano, ano + duracao)),
+                        "Autores vivos entre " + ano + " e " + (ano + duracao));
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Autor> autores) {
+        return autores.stream().map(Autor::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testa as contas de vazao e latencia do relatorio de ingestao
+ */
+class RelatorioIngestaoTest {
+
+    private static ResultadoIngestao resultado(Livro livro, boolean falhou, long latenciaMillis) {
+        return new ResultadoIngestao("Titulo", livro, falhou, TimeUnit.MILLISECONDS.toNanos(latenciaMillis));
+    }
+
+    @Test
+    void calculaTotaisVazaoELatencias() {
+        Livro livro = new Livro();
+        RelatorioIngestao relatorio = new RelatorioIngestao(List.of(
+                resultado(livro, false, 40),
+                resultado(null, false, 10),
+                resultado(livro, false, 30),
+                resultado(null, true, 20)), TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals(4, relatorio.totalTitulos());
+        assertEquals(2, relatorio.totalEncontrados());
+        assertEquals(1, relatorio.totalFalhas());
+        assertEquals(2.0, relatorio.vazaoPorSegundo(), 1e-9);
+        assertEquals(25.0, relatorio.latenciaMediaMillis(), 1e-9);
+        // Percentil pelo posto mais proximo: ceil(p / 100 * n), contado a partir de 1
+        assertEquals(10.0, relatorio.latenciaPercentilMillis(0), 1e-9);
+        assertEquals(10.0, relatorio.latenciaPercentilMillis(25), 1e-9);
+        assertEquals(20.0, relatorio.latenciaPercentilMillis(50), 1e-9);
+        assertEquals(30.0, relatorio.latenciaPercentilMillis(51), 1e-9);
+        assertEquals(40.0, relatorio.latenciaPercentilMillis(99), 1e-9);
+        assertEquals(40.0, relatorio.latenciaPercentilMillis(100), 1e-9);
+    }
+
+    @Test
+    void relatorioVazioNaoDivide() {
+        RelatorioIngestao relatorio = new RelatorioIngestao(List.of(), 0);
+
+        assertEquals(0, relatorio.totalTitulos());
+        assertEquals(0.0, relatorio.vazaoPorSegundo());
+        assertEquals(0.0, relatorio.latenciaMediaMillis());
+        assertEquals(0.0, relatorio.latenciaPercentilMillis(95));
+    }
+}
@@ -0,0 +1,327 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa o cliente da API Gutendex contra um servidor HTTP local que imita as respostas da API
+ */
+class ServicoApiGutendexTest {
+
+    private static final String RESPOSTA_DOM_CASMURRO = """
+            {"count":1,"next":null,"previous":null,"results":[{"id":55752,"title":"Dom Casmurro",
+            "authors":[{"name":"Machado de Assis","birth_year":1839,"death_year":1908}],
+            "languages":["pt"],"download_count":1234}]}""";
+
+    private static final String RESPOSTA_VAZIA = """
+            {"count":0,"next":null,"previous":null,"results":[]}""";
+
+    private static final int FALHAS_PARA_ABRIR = 3;
+
+    private HttpServer servidor;
+    private ExecutorService executorServidor;
+    private final AtomicInteger requisicoesRecebidas = new AtomicInteger();
+    private final AtomicInteger emAndamentoNoServidor = new AtomicInteger();
+    private final AtomicInteger maximoEmAndamentoNoServidor = new AtomicInteger();
+    private volatile CountDownLatch liberarRespostas = new CountDownLatch(0);
+    private final AtomicInteger falhasAntesDoSucesso = new AtomicInteger();
+    private volatile int statusResposta = 200;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.createContext("/books", this::responder);
+        executorServidor = Executors.newCachedThreadPool();
+        servidor.setExecutor(executorServidor);
+        servidor.start();
+    }
+
+    @AfterEach
+    void pararServidor() {
+        liberarRespostas.countDown();
+        servidor.stop(0);
+        executorServidor.shutdownNow();
+    }
+
+    @Test
+    void buscaRetornaPrimeiroLivroDaResposta() {
+        ResultadoBuscaLivro resultado = criarServico(4).buscarLivroPorTituloAsync("Dom Casmurro").join();
+
+        assertEquals(ResultadoBuscaLivro.Situacao.ENCONTRADO, resultado.situacao());
+        assertEquals("Dom Casmurro", resultado.livro().getTitulo());
+        assertEquals("Machado de Assis", resultado.livro().getAutor().getNome());
+        assertEquals(1, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void buscasSimultaneasPeloMesmoTituloCompartilhamUmaRequisicao() throws Exception {
+        liberarRespostas = new CountDownLatch(1);
+        ServicoApiGutendex servico = criarServico(4);
+
+        List<CompletableFuture<ResultadoBuscaLivro>> buscas = new ArrayList<>();
+        for (String titulo : List.of("Dom Casmurro", "dom casmurro", "  DOM   Casmurro ")) {
+            buscas.add(servico.buscarLivroPorTituloAsync(titulo));
+        }
+        aguardar(() -> requisicoesRecebidas.get() == 1);
+        liberarRespostas.countDown();
+
+        for (CompletableFuture<ResultadoBuscaLivro> busca : buscas) {
+            assertNotNull(busca.get(5, TimeUnit.SECONDS).livro());
+        }
+        assertEquals(1, requisicoesRecebidas.get());
+
+        // Depois de concluida, a resposta vem do cache
+        assertNotNull(servico.buscarLivroPorTitulo("Dom Casmurro").livro());
+        assertEquals(1, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void numeroDeRequisicoesEmAndamentoRespeitaOLimite() throws Exception {
+        liberarRespostas = new CountDownLatch(1);
+        ServicoApiGutendex servico = criarServico(2);
+
+        List<CompletableFuture<ResultadoBuscaLivro>> buscas = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            buscas.add(servico.buscarLivroPorTituloAsync("Titulo " + i));
+        }
+        aguardar(() -> emAndamentoNoServidor.get() == 2);
+        Thread.sleep(200);
+        assertEquals(2, requisicoesRecebidas.get());
+        liberarRespostas.countDown();
+
+        for (CompletableFuture<ResultadoBuscaLivro> busca : buscas) {
+            busca.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(6, requisicoesRecebidas.get());
+        assertEquals(2, maximoEmAndamentoNoServidor.get());
+    }
+
+    @Test
+    void falhaDaApiEDistintaDeNaoEncontradoENaoEGuardadaNoCache() {
+        statusResposta = 503;
+        ServicoApiGutendex servico = criarServico(4, 0);
+
+        ResultadoBuscaLivro resultado = servico.buscarLivroPorTituloAsync("Dom Casmurro").join();
+        assertTrue(resultado.falhou());
+        assertTrue(resultado.motivoFalha().contains("503"));
+
+        statusResposta = 200;
+        assertNotNull(servico.buscarLivroPorTituloAsync("Dom Casmurro").join().livro());
+        assertEquals(2, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void tituloSemResultadoRetornaNaoEncontrado() {
+        ResultadoBuscaLivro resultado = criarServico(4).buscarLivroPorTitulo("Titulo inexistente");
+
+        assertEquals(ResultadoBuscaLivro.Situacao.NAO_ENCONTRADO, resultado.situacao());
+        assertFalse(resultado.falhou());
+    }
+
+    @Test
+    void buscaAnalisaOPrimeiroLivroSemEsperarORestoDoCorpo() throws Exception {
+        liberarRespostas = new CountDownLatch(1);
+        servidor.createContext("/parcial", troca -> {
+            troca.sendResponseHeaders(200, 0);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(RESPOSTA_DOM_CASMURRO.substring(0, RESPOSTA_DOM_CASMURRO.length() - 2)
+                        .getBytes(StandardCharsets.UTF_8));
+                saida.write(',');
+                saida.flush();
+                liberarRespostas.await(5, TimeUnit.SECONDS);
+                saida.write("{\"title\":\"Resto\"}]}".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | InterruptedException e) {
+                // O cliente pode fechar a conexao depois de ler o primeiro livro
+            }
+        });
+        ServicoApiGutendex servico = criarServico(4, 0,
+                "http://localhost:" + servidor.getAddress().getPort() + "/parcial", semGravacao());
+
+        ResultadoBuscaLivro resultado = servico.buscarLivroPorTituloAsync("Dom Casmurro").get(2, TimeUnit.SECONDS);
+
+        assertEquals("Dom Casmurro", resultado.livro().getTitulo());
+    }
+
+    @Test
+    void falhasTransitoriasSaoRepetidas() {
+        falhasAntesDoSucesso.set(2);
+        ServicoApiGutendex servico = criarServico(4, 3);
+
+        assertNotNull(servico.buscarLivroPorTitulo("Dom Casmurro").livro());
+        assertEquals(3, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void falhaPersistenteEsgotaAsTentativas() {
+        statusResposta = 500;
+        ServicoApiGutendex servico = criarServico(4, 2);
+
+        assertTrue(servico.buscarLivroPorTitulo("Dom Casmurro").falhou());
+        assertEquals(3, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void erroDoClienteNaoERepetido() {
+        statusResposta = 400;
+        ServicoApiGutendex servico = criarServico(4, 3);
+
+        assertTrue(servico.buscarLivroPorTitulo("Dom Casmurro").falhou());
+        assertEquals(1, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void respostaAlemDoTempoLimiteEFalha() {
+        liberarRespostas = new CountDownLatch(1);
+        ServicoApiGutendex servico = criarServico(4, 0);
+
+        ResultadoBuscaLivro resultado = servico.buscarLivroPorTitulo("Dom Casmurro");
+
+        assertTrue(resultado.falhou());
+        assertTrue(resultado.motivoFalha().contains("HttpTimeoutException"));
+    }
+
+    @Test
+    void disjuntorAbertoRejeitaSemConsultarAApi() {
+        statusResposta = 503;
+        ServicoApiGutendex servico = criarServico(4, 0);
+
+        for (int i = 0; i < FALHAS_PARA_ABRIR; i++) {
+            assertTrue(servico.buscarLivroPorTitulo("Titulo " + i).falhou());
+        }
+        ResultadoBuscaLivro rejeitada = servico.buscarLivroPorTitulo("Outro titulo");
+
+        assertTrue(rejeitada.falhou());
+        assertTrue(rejeitada.motivoFalha().contains("indisponivel"));
+        assertEquals(FALHAS_PARA_ABRIR, requisicoesRecebidas.get());
+    }
+
+    @Test
+    void respostasGravadasSaoServidasPeloReplaySemRede(@TempDir Path diretorio) {
+        ObjectMapper mapeadorObjeto = new ObjectMapper();
+        GravacaoRespostasGutendex gravacao = new GravacaoRespostasGutendex(mapeadorObjeto, diretorio.toString());
+        assertNotNull(criarServico(4, 0, urlBaseServidor(), gravacao).buscarLivroPorTitulo("Dom Casmurro").livro());
+
+        ServidorReplayGutendex replay = new ServidorReplayGutendex(mapeadorObjeto, diretorio.toString(), 0,
+                Duration.ofMillis(20), Duration.ofMillis(10), 0);
+        String origem = replay.iniciar(0);
+        try {
+            ServicoApiGutendex servico = criarServico(4, 0, origem + "/books", semGravacao());
+            ResultadoBuscaLivro resultado = servico.buscarLivroPorTitulo("Dom Casmurro");
+            assertEquals("Machado de Assis", resultado.livro().getAutor().getNome());
+            assertTrue(servico.buscarLivroPorTitulo("Titulo nao gravado").falhou());
+
+            assertEquals(1, replay.respondidas());
+            assertEquals(1, replay.naoGravadas());
+            assertEquals(1, requisicoesRecebidas.get());
+        } finally {
+            replay.parar();
+        }
+    }
+
+    @Test
+    void replayInjetaErrosTransitorios(@TempDir Path diretorio) {
+        ObjectMapper mapeadorObjeto = new ObjectMapper();
+        GravacaoRespostasGutendex gravacao = new GravacaoRespostasGutendex(mapeadorObjeto, diretorio.toString());
+        assertNotNull(criarServico(4, 0, urlBaseServidor(), gravacao).buscarLivroPorTitulo("Dom Casmurro").livro());
+
+        ServidorReplayGutendex replay = new ServidorReplayGutendex(mapeadorObjeto, diretorio.toString(), 0,
+                Duration.ZERO, Duration.ZERO, 1);
+        String origem = replay.iniciar(0);
+        try {
+            ResultadoBuscaLivro resultado = criarServico(4, 2, origem + "/books", semGravacao())
+                    .buscarLivroPorTitulo("Dom Casmurro");
+
+            assertTrue(resultado.falhou());
+            assertTrue(resultado.motivoFalha().contains("503"));
+            assertEquals(3, replay.errosInjetados());
+        } finally {
+            replay.parar();
+        }
+    }
+
+    private ServicoApiGutendex criarServico(int requisicoesSimultaneas) {
+        return criarServico(requisicoesSimultaneas, 0);
+    }
+
+    private ServicoApiGutendex criarServico(int requisicoesSimultaneas, int maximoRetentativas) {
+        return criarServico(requisicoesSimultaneas, maximoRetentativas, urlBaseServidor(), semGravacao());
+    }
+
+    private ServicoApiGutendex criarServico(int requisicoesSimultaneas, int maximoRetentativas, String urlBase,
+                                            GravacaoRespostasGutendex gravacao) {
+        ObjectMapper mapeadorObjeto = new ObjectMapper();
+        SimpleMeterRegistry registroMetricas = new SimpleMeterRegistry();
+        CacheRespostasGutendex cache = new CacheRespostasGutendex(mapeadorObjeto, 100,
+                Duration.ofHours(1), Duration.ofHours(1), "");
+        ResilienciaApiGutendex resiliencia = new ResilienciaApiGutendex(maximoRetentativas, Duration.ofMillis(10),
+                Duration.ofMillis(50), 0, FALHAS_PARA_ABRIR, Duration.ofMinutes(1), registroMetricas);
+        return new ServicoApiGutendex(mapeadorObjeto, cache, resiliencia, gravacao, registroMetricas, urlBase,
+                requisicoesSimultaneas, Duration.ofSeconds(1));
+    }
+
+    private String urlBaseServidor() {
+        return "http://localhost:" + servidor.getAddress().getPort() + "/books";
+    }
+
+    private static GravacaoRespostasGutendex semGravacao() {
+        return new GravacaoRespostasGutendex(new ObjectMapper(), "");
+    }
+
+    private void responder(HttpExchange troca) throws IOException {
+        requisicoesRecebidas.incrementAndGet();
+        maximoEmAndamentoNoServidor.accumulateAndGet(emAndamentoNoServidor.incrementAndGet(), Math::max);
+        try {
+            liberarRespostas.await(5, TimeUnit.SECONDS);
+            String consulta = troca.getRequestURI().getQuery();
+            int status = falhasAntesDoSucesso.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 503 : statusResposta;
+            String corpo = status != 200 ? "Servico indisponivel"
+                    : consulta.contains("inexistente") ? RESPOSTA_VAZIA : RESPOSTA_DOM_CASMURRO;
+            byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+            troca.sendResponseHeaders(status, bytes.length);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            emAndamentoNoServidor.decrementAndGet();
+        }
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("Condicao nao atingida a tempo");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Compara as analises do catalogo colunar com as consultas no banco e com contagens feitas livro a livro
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ServicoCatalogoColunarTest {
+
+    @Autowired
+    private ServicoCatalogoColunar servicoCatalogoColunar;
+
+    @Autowired
+    private ServicoAutor servicoAutor;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    /**
+     * Autores que cobrem as bordas das contagens de vivos (falecido no ano, ainda vivo, sem datas, antes de
+     * Cristo) e livros com downloads nas bordas das faixas de 250, sem downloads, sem idioma e sem autor
+     */
+    @BeforeEach
+    void salvarLivros() {
+        Autor setecentista = new Autor("Autor Colunar Setecentista", 1795, 1850);
+        Autor semFalecimento = new Autor("Autor Colunar Sem Falecimento", 1801, null);
+        Autor semDatas = new Autor("Autor Colunar Sem Datas", null, null);
+        Autor antigo = new Autor("Autor Colunar Antigo", -50, 10);
+        Autor limite = new Autor("Autor Colunar Limite", 1890, 1900);
+        repositorioLivro.saveAll(List.of(
+                new Livro("Colunar Setecentista 1", setecentista, "pt", 0),
+                new Livro("Colunar Setecentista 2", setecentista, "en", 249),
+                new Livro("Colunar Sem Falecimento 1", semFalecimento, "pt", 250),
+                new Livro("Colunar Sem Falecimento 2", semFalecimento, "pt", 499),
+                new Livro("Colunar Sem Datas", semDatas, "fr", 1000),
+                new Livro("Colunar Antigo", antigo, "la", 42),
+                new Livro("Colunar Limite", limite, "en", null),
+                new Livro("Colunar Sem Autor Nem Idioma", null, null, 5),
+                new Livro("Colunar Sem Autor Nem Downloads", null, "pt", null)));
+    }
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+    }
+
+    @Test
+    void analisesRespondemComoOBanco() {
+        CatalogoColunar catalogo = servicoCatalogoColunar.carregar();
+
+        assertEquals(9, catalogo.quantidadeLivros());
+        assertEquals(5, catalogo.quantidadeAutores());
+        assertEquals(1000, catalogo.maximoDownloads());
+        // Empates em quantidade em ordem alfabetica, e os livros sem idioma por ultimo
+        List<EstatisticaIdioma> estatisticas = List.of(
+                new EstatisticaIdioma("pt", 4L, 749L, 499),
+                new EstatisticaIdioma("en", 2L, 249L, 249),
+                new EstatisticaIdioma("fr", 1L, 1000L, 1000),
+                new EstatisticaIdioma("la", 1L, 42L, 42),
+                new EstatisticaIdioma(null, 1L, 5L, 5));
+        assertEquals(estatisticas, catalogo.obterEstatisticasPorIdioma());
+        assertEquals(repositorioLivro.agregarEstatisticasPorIdioma(), catalogo.obterEstatisticasPorIdioma());
+
+        // Ano -> autores e livros de autores vivos
+        Map<Integer, List<Long>> vivos = Map.of(
+                0, List.of(1L, 1L),
+                1800, List.of(1L, 2L),
+                1850, List.of(2L, 4L),
+                1900, List.of(2L, 3L),
+                1901, List.of(1L, 2L));
+        vivos.forEach((ano, esperados) -> {
+            assertEquals(esperados.get(0), catalogo.contarAutoresVivosNoAno(ano), "Autores vivos em " + ano);
+            assertEquals(servicoAutor.obterAutoresVivosNoAno(ano).size(), catalogo.contarAutoresVivosNoAno(ano));
+            assertEquals(esperados.get(1), catalogo.contarLivrosDeAutoresVivosNoAno(ano), "Livros em " + ano);
+        });
+
+        assertEquals(Map.of(0, 4L, 250, 2L, 1000, 1L), catalogo.obterHistogramaDownloads(250));
+        assertEquals(Map.of(-50, 1L, 1790, 1L, 1800, 1L, 1890, 1L), catalogo.obterNascimentosPorDecada());
+        assertEquals(List.of(-50, 1790, 1800, 1890), List.copyOf(catalogo.obterNascimentosPorDecada().keySet()));
+        assertThrows(IllegalArgumentException.class, () -> catalogo.obterHistogramaDownloads(0));
+    }
+
+    @Test
+    void construtorExigeAutoresEmOrdemAntesDosLivros() {
+        CatalogoColunar.Construtor construtor = CatalogoColunar.construtor()
+                .adicionarAutor(2, 1800, null);
+        assertThrows(IllegalStateException.class, () -> construtor.adicionarAutor(2, 1810, null));
+        assertThrows(IllegalStateException.class, () -> construtor.adicionarAutor(1, 1810, null));
+        construtor.adicionarAutor(5, 1820, 1880);
+        assertThrows(IllegalStateException.class, () -> construtor.adicionarLivro("pt", 1, 3L));
+
+        construtor.adicionarLivro("pt", 1, 5L).adicionarLivro(null, null, null);
+        assertThrows(IllegalStateException.class, () -> construtor.adicionarAutor(6, 1830, null));
+        CatalogoColunar catalogo = construtor.construir();
+        assertEquals(2, catalogo.quantidadeAutores());
+        assertEquals(1, catalogo.contarLivrosDeAutoresVivosNoAno(1850));
+    }
+
+    @Test
+    void varreduraDivididaEmTarefasSomaComoAVarreduraSequencial() throws Exception {
+        int quantidadeLivros = 300_000;
+        String[] idiomas = {"en", "pt", "fr"};
+        CatalogoColunar.Construtor construtor = CatalogoColunar.construtor();
+        for (int autor = 0; autor < quantidadeLivros / 3; autor++) {
+            construtor.adicionarAutor(autor + 1, 1500 + autor % 400, autor % 5 == 0 ? null : 1530 + autor % 400);
+        }
+        long[] quantidades = new long[idiomas.length];
+        long[] totais = new long[idiomas.length];
+        long vivosEm1700 = 0;
+        for (int i = 0; i < quantidadeLivros; i++) {
+            int downloads = (int) ((i * 7919L) % 10_000);
+            construtor.adicionarLivro(idiomas[i % idiomas.length], downloads, (long) (i / 3 + 1));
+            quantidades[i % idiomas.length]++;
+            totais[i % idiomas.length] += downloads;
+            int autor = i / 3;
+            if (1500 + autor % 400 <= 1700 && (autor % 5 == 0 || 1530 + autor % 400 >= 1700)) {
+                vivosEm1700++;
+            }
+        }
+        CatalogoColunar catalogo = construtor.construir();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<EstatisticaIdioma> estatisticas = pool.submit(catalogo::obterEstatisticasPorIdioma).get();
+            for (EstatisticaIdioma estatistica : estatisticas) {
+                int indice = List.of(idiomas).indexOf(estatistica.idioma());
+                assertEquals(quantidades[indice], estatistica.quantidade());
+                assertEquals(totais[indice], estatistica.totalDownloads());
+                assertEquals(9_999, estatistica.maximoDownloads());
+            }
+            assertEquals(vivosEm1700, pool.submit(() -> catalogo.contarLivrosDeAutoresVivosNoAno(1700)).get());
+            assertEquals((long) quantidadeLivros, pool.submit(() -> catalogo.obterHistogramaDownloads(1000))
+                    .get().values().stream().mapToLong(Long::longValue).sum());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
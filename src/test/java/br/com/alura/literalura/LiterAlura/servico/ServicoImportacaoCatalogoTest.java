@@ -0,0 +1,172 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.repository.CacheIdsAutores;
+import br.com.alura.literalura.LiterAlura.repository.CacheIdsAutores.ChaveAutor;
+import br.com.alura.literalura.LiterAlura.repository.EstatisticasIdiomas;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa a importacao do catalogo paginado contra um servidor local que imita a API Gutendex
+ */
+@SpringBootTest(properties = {
+        "literalura.api.retentativas.maximo=0",
+        "literalura.api.taxa-maxima=0"})
+@ActiveProfiles("test")
+class ServicoImportacaoCatalogoTest {
+
+    private static final GutendexLocal GUTENDEX = GutendexLocal.iniciar();
+
+    @Autowired
+    private ServicoImportacaoCatalogo servicoImportacao;
+
+    @Autowired
+    private IndiceBuscaTitulos indiceBuscaTitulos;
+
+    @Autowired
+    private CacheIdsAutores cacheIdsAutores;
+
+    @Autowired
+    private EstatisticasIdiomas estatisticasIdiomas;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @DynamicPropertySource
+    static void apontarParaGutendexLocal(DynamicPropertyRegistry propriedades) {
+        propriedades.add("literalura.api.url-base", GUTENDEX::urlBase);
+    }
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+        estatisticasIdiomas.reconstruir();
+        GUTENDEX.limpar();
+    }
+
+    @AfterAll
+    static void pararGutendex() {
+        GUTENDEX.close();
+    }
+
+    @Test
+    void importaAsPaginasSeguindoOsLinksERegistraOsIndices() throws InterruptedException {
+        GUTENDEX.cadastrarPagina(
+                GUTENDEX.livro("Dom Casmurro", "Assis, Machado de", 1839, 1908, "pt", 500),
+                GUTENDEX.livro("Quincas Borba", "Assis, Machado de", 1839, 1908, "pt", 300));
+        GUTENDEX.cadastrarPagina(
+                GUTENDEX.livro("Iracema", "Alencar, Jose de", 1829, 1877, "pt", 200),
+                GUTENDEX.livro("Emma", "Austen, Jane", 1775, 1817, "en", 400));
+        GUTENDEX.cadastrarPagina(
+                GUTENDEX.livro("Persuasion", "Austen, Jane", 1775, 1817, "en", 100));
+        List<RelatorioImportacao> andamento = new ArrayList<>();
+
+        RelatorioImportacao relatorio = servicoImportacao.importarCatalogo(0, andamento::add);
+
+        assertEquals(3, GUTENDEX.paginasServidas());
+        assertEquals(List.of(1, 2, 3), andamento.stream().map(RelatorioImportacao::paginas).toList());
+        assertEquals(List.of(2L, 4L, 5L), andamento.stream().map(RelatorioImportacao::livrosLidos).toList());
+        assertEquals(3, relatorio.paginas());
+        assertEquals(5, relatorio.totalCatalogo());
+        assertEquals(5, relatorio.livrosInseridos());
+        assertEquals(3, relatorio.autoresInseridos());
+        assertEquals(5, repositorioLivro.count());
+
+        // Os autores inseridos via JDBC entram no cache de ids, e os livros nas estatisticas por idioma
+        for (Autor autor : repositorioAutor.findAll()) {
+            assertEquals(autor.getId(), cacheIdsAutores.buscarId(ChaveAutor.de(autor)));
+        }
+        assertEquals(List.of(), estatisticasIdiomas.verificar());
+        // O indice de titulos e remontado em segundo plano com os livros importados
+        GutendexLocal.aguardar(() -> indiceBuscaTitulos.buscarTitulo("Persuasion").isPresent()
+                && indiceBuscaTitulos.buscarTitulo("Dom Casmurro").isPresent());
+
+        // Importar de novo nao insere nada
+        RelatorioImportacao repeticao = servicoImportacao.importarCatalogo(0, pagina -> { });
+        assertEquals(5, repeticao.livrosLidos());
+        assertEquals(0, repeticao.livrosInseridos());
+        assertEquals(0, repeticao.autoresInseridos());
+    }
+
+    @Test
+    void limiteDePaginasEncerraAImportacao() {
+        for (int i = 1; i <= 4; i++) {
+            GUTENDEX.cadastrarPagina(GUTENDEX.livro("Livro Limitado " + i, "Autor Limitado", 1900, 1970, "pt", i));
+        }
+
+        RelatorioImportacao relatorio = servicoImportacao.importarCatalogo(2, pagina -> { });
+
+        assertEquals(2, relatorio.paginas());
+        assertEquals(2, GUTENDEX.paginasServidas());
+        assertEquals(2, repositorioLivro.count());
+    }
+
+    @Test
+    void buscaNaoPassaDasPaginasEmEspera() throws Exception {
+        for (int i = 1; i <= 8; i++) {
+            GUTENDEX.cadastrarPagina(GUTENDEX.livro("Livro em Espera " + i, "Autor em Espera", 1900, 1970, "pt", i));
+        }
+        CountDownLatch liberarGravacao = new CountDownLatch(1);
+
+        CompletableFuture<RelatorioImportacao> importacao = CompletableFuture.supplyAsync(() ->
+                servicoImportacao.importarCatalogo(0, pagina -> {
+                    try {
+                        liberarGravacao.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+
+        // Uma pagina gravando, duas na fila e uma baixada esperando vaga na fila
+        GutendexLocal.aguardar(() -> GUTENDEX.paginasServidas() == 4);
+        Thread.sleep(300);
+        assertEquals(4, GUTENDEX.paginasServidas());
+
+        liberarGravacao.countDown();
+        RelatorioImportacao relatorio = importacao.get(10, TimeUnit.SECONDS);
+        assertEquals(8, relatorio.paginas());
+        assertEquals(8, repositorioLivro.count());
+    }
+
+    @Test
+    void paginaComFalhaInterrompeAImportacao() {
+        for (int i = 1; i <= 4; i++) {
+            GUTENDEX.cadastrarPagina(GUTENDEX.livro("Livro Interrompido " + i, "Autor Interrompido", 1900, 1970, "pt", i));
+        }
+        GUTENDEX.falharPagina(3);
+        List<RelatorioImportacao> andamento = new ArrayList<>();
+
+        IllegalStateException erro = assertThrows(IllegalStateException.class,
+                () -> servicoImportacao.importarCatalogo(0, andamento::add));
+
+        assertTrue(erro.getMessage().startsWith("Importacao interrompida apos 2 paginas"), erro.getMessage());
+        assertEquals(2, andamento.size());
+        // A pagina seguinte a que falhou nao e pedida
+        assertEquals(2, GUTENDEX.paginasServidas());
+        assertEquals(2, repositorioLivro.count());
+        assertEquals(List.of(), estatisticasIdiomas.verificar());
+    }
+}
@@ -0,0 +1,156 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa a ingestao concorrente de titulos contra um servidor local que imita a API Gutendex
+ */
+@SpringBootTest(properties = {
+        "literalura.ingestao.concorrencia=3",
+        "literalura.api.retentativas.maximo=0",
+        "literalura.api.taxa-maxima=0"})
+@ActiveProfiles("test")
+class ServicoIngestaoConcorrenteTest {
+
+    private static final GutendexLocal GUTENDEX = GutendexLocal.iniciar();
+
+    @Autowired
+    private ServicoIngestaoConcorrente servicoIngestao;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @DynamicPropertySource
+    static void apontarParaGutendexLocal(DynamicPropertyRegistry propriedades) {
+        propriedades.add("literalura.api.url-base", GUTENDEX::urlBase);
+    }
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+        GUTENDEX.limpar();
+    }
+
+    @AfterAll
+    static void pararGutendex() {
+        GUTENDEX.close();
+    }
+
+    @Test
+    void cadaTituloConcluiNaOrdemEmQueTerminaComASuaPropriaLatencia() {
+        GUTENDEX.cadastrarLivro("Lento", "Autor Lento", 1800, 1870, "en", 10);
+        GUTENDEX.cadastrarLivro("Medio", "Autor Medio", 1800, 1870, "en", 10);
+        GUTENDEX.cadastrarLivro("Rapido", "Autor Rapido", 1800, 1870, "en", 10);
+        GUTENDEX.atrasarBusca("Lento", Duration.ofMillis(800));
+        GUTENDEX.atrasarBusca("Medio", Duration.ofMillis(400));
+        List<String> ordemDeConclusao = new ArrayList<>();
+
+        RelatorioIngestao relatorio = servicoIngestao.ingerirTitulos(List.of("Lento", "Medio", "Rapido"), resultado -> {
+            // O livro ja esta salvo quando o titulo conclui
+            assertNotNull(resultado.livro().getId());
+            ordemDeConclusao.add(resultado.titulo());
+        });
+
+        assertEquals(List.of("Rapido", "Medio", "Lento"), ordemDeConclusao);
+        List<ResultadoIngestao> resultados = relatorio.resultados();
+        assertEquals(ordemDeConclusao, resultados.stream().map(ResultadoIngestao::titulo).toList());
+        long rapido = TimeUnit.NANOSECONDS.toMillis(resultados.get(0).latenciaNanos());
+        long medio = TimeUnit.NANOSECONDS.toMillis(resultados.get(1).latenciaNanos());
+        long lento = TimeUnit.NANOSECONDS.toMillis(resultados.get(2).latenciaNanos());
+        assertTrue(rapido < 400, "Rapido: " + rapido + " ms");
+        assertTrue(medio >= 400 && medio < 800, "Medio: " + medio + " ms");
+        assertTrue(lento >= 800, "Lento: " + lento + " ms");
+        assertFalse(resultados.stream().anyMatch(ResultadoIngestao::falhou));
+        assertEquals(3, repositorioLivro.count());
+    }
+
+    @Test
+    void titulosRepetidosSaoProcessadosUmaVez() {
+        GUTENDEX.cadastrarLivro("Moby Dick", "Melville, Herman", 1819, 1891, "en", 90);
+        GUTENDEX.cadastrarLivro("Dracula", "Stoker, Bram", 1847, 1912, "en", 80);
+        GUTENDEX.cadastrarLivro("Frankenstein", "Shelley, Mary", 1797, 1851, "en", 70);
+        List<String> concluidos = new ArrayList<>();
+
+        RelatorioIngestao relatorio = servicoIngestao.ingerirTitulos(List.of("Moby Dick", "Dracula", "Frankenstein",
+                "Moby Dick", "Dracula", "Frankenstein", "Dracula"), resultado -> concluidos.add(resultado.titulo()));
+
+        assertEquals(3, relatorio.totalTitulos());
+        assertEquals(3, relatorio.totalEncontrados());
+        assertEquals(3, concluidos.size());
+        assertEquals(1, GUTENDEX.buscas("Moby Dick"));
+        assertEquals(1, GUTENDEX.buscas("Dracula"));
+        assertEquals(1, GUTENDEX.buscas("Frankenstein"));
+        assertEquals(3, repositorioLivro.count());
+
+        // Na segunda ingestao os tres ja estao salvos e nenhum passa pela API
+        servicoIngestao.ingerirTitulos(List.of("Moby Dick", "Dracula", "Frankenstein"), resultado -> { });
+        assertEquals(3, GUTENDEX.totalBuscas());
+    }
+
+    @Test
+    void buscasEmAndamentoNaoPassamDaConcorrencia() {
+        List<String> titulos = IntStream.rangeClosed(1, 9).mapToObj(i -> "Livro " + i).toList();
+        titulos.forEach(titulo -> {
+            GUTENDEX.cadastrarLivro(titulo, "Autor " + titulo, 1900, 1970, "pt", 10);
+            GUTENDEX.atrasarBusca(titulo, Duration.ofMillis(150));
+        });
+
+        RelatorioIngestao relatorio = servicoIngestao.ingerirTitulos(titulos, resultado -> { });
+
+        assertEquals(3, GUTENDEX.maximoEmAndamento());
+        assertEquals(9, relatorio.totalEncontrados());
+        assertEquals(9, repositorioLivro.count());
+        // Tres rodadas de 150 ms, e nao uma so com as nove buscas juntas
+        assertTrue(relatorio.duracaoNanos() >= TimeUnit.MILLISECONDS.toNanos(450));
+    }
+
+    @Test
+    void titulosDiferentesComOMesmoLivroNaoDisputamAChaveUnica() {
+        // Quatro buscas devolvem o mesmo livro, duas juntas e duas depois, quando ele ja foi salvo
+        for (String titulo : List.of("Moby Dick", "Moby-Dick", "Moby Dick; or, The Whale", "The Whale")) {
+            GUTENDEX.cadastrarBusca(titulo, GUTENDEX.livro("Moby Dick", "Melville, Herman", 1819, 1891, "en", 90));
+        }
+        GUTENDEX.atrasarBusca("Moby Dick; or, The Whale", Duration.ofMillis(300));
+        GUTENDEX.atrasarBusca("The Whale", Duration.ofMillis(300));
+        // Outro livro novo do mesmo autor, salvo junto com os repetidos
+        GUTENDEX.cadastrarLivro("Typee", "Melville, Herman", 1819, 1891, "en", 20);
+
+        RelatorioIngestao relatorio = servicoIngestao.ingerirTitulos(
+                List.of("Moby Dick", "Moby-Dick", "Typee", "Moby Dick; or, The Whale", "The Whale"), resultado -> { });
+
+        assertEquals(0, relatorio.totalFalhas());
+        assertEquals(5, relatorio.totalEncontrados());
+        assertEquals(2, repositorioLivro.count());
+        assertEquals(1, repositorioAutor.count());
+        Long idMobyDick = relatorio.resultados().stream()
+                .filter(resultado -> resultado.titulo().equals("Moby Dick"))
+                .findFirst().orElseThrow().livro().getId();
+        relatorio.resultados().stream()
+                .filter(resultado -> !resultado.titulo().equals("Typee"))
+                .forEach(resultado -> assertEquals(idMobyDick, resultado.livro().getId()));
+    }
+}
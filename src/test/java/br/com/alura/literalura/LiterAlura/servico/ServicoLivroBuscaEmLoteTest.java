@@ -0,0 +1,151 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Testa a busca de varios titulos de uma vez contra um servidor local que imita a API Gutendex.
+ * O indice de titulos fica desligado, entao os livros ja salvos so podem ser resolvidos pela consulta ao banco.
+ */
+@SpringBootTest(properties = {
+        "literalura.livros.indice-titulos.habilitado=false",
+        "literalura.api.retentativas.maximo=0",
+        "literalura.api.taxa-maxima=0"})
+@ActiveProfiles("test")
+class ServicoLivroBuscaEmLoteTest {
+
+    private static final GutendexLocal GUTENDEX = GutendexLocal.iniciar();
+
+    @Autowired
+    private ServicoLivro servicoLivro;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void apontarParaGutendexLocal(DynamicPropertyRegistry propriedades) {
+        propriedades.add("literalura.api.url-base", GUTENDEX::urlBase);
+    }
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+        GUTENDEX.limpar();
+    }
+
+    @AfterAll
+    static void pararGutendex() {
+        GUTENDEX.close();
+    }
+
+    @Test
+    void livrosSalvosSaoResolvidosEmUmaConsultaSemDiferenciarCaixa() {
+        Livro moby = repositorioLivro.save(new Livro("Moby Dick", new Autor("Melville, Herman", 1819, 1891), "en", 90));
+        Livro dracula = repositorioLivro.save(new Livro("Dracula", new Autor("Stoker, Bram", 1847, 1912), "en", 80));
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        Map<String, ResultadoBuscaLivro> resultados = servicoLivro.buscarESalvarLivrosPorTitulos(
+                List.of("moby dick", "DRACULA", "Moby Dick"));
+
+        assertEquals(List.of("moby dick", "DRACULA", "Moby Dick"), List.copyOf(resultados.keySet()));
+        assertEquals(moby.getId(), resultados.get("moby dick").livro().getId());
+        assertEquals(dracula.getId(), resultados.get("DRACULA").livro().getId());
+        assertEquals(moby.getId(), resultados.get("Moby Dick").livro().getId());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(0, GUTENDEX.totalBuscas());
+    }
+
+    @Test
+    void resultadosSeguemAOrdemDosTitulosSemRepetirBuscas() {
+        repositorioLivro.save(new Livro("Emma", new Autor("Austen, Jane", 1775, 1817), "en", 70));
+        GUTENDEX.cadastrarLivro("Frankenstein", "Shelley, Mary", 1797, 1851, "en", 60);
+        GUTENDEX.cadastrarLivro("Dom Casmurro", "Assis, Machado de", 1839, 1908, "pt", 50);
+
+        Map<String, ResultadoBuscaLivro> resultados = servicoLivro.buscarESalvarLivrosPorTitulos(List.of(
+                "Frankenstein", "Titulo Inexistente", "Emma", "Frankenstein", "Dom Casmurro", "Titulo Inexistente"));
+
+        assertEquals(List.of("Frankenstein", "Titulo Inexistente", "Emma", "Dom Casmurro"),
+                List.copyOf(resultados.keySet()));
+        assertEquals(ResultadoBuscaLivro.Situacao.NAO_ENCONTRADO, resultados.get("Titulo Inexistente").situacao());
+        assertNotNull(resultados.get("Frankenstein").livro().getId());
+        assertNotNull(resultados.get("Dom Casmurro").livro().getId());
+        assertEquals("Emma", resultados.get("Emma").livro().getTitulo());
+        assertEquals(1, GUTENDEX.buscas("Frankenstein"));
+        assertEquals(1, GUTENDEX.buscas("Titulo Inexistente"));
+        assertEquals(0, GUTENDEX.buscas("Emma"));
+        assertEquals(3, repositorioLivro.count());
+    }
+
+    @Test
+    void autorNovoCompartilhadoEInseridoUmaVez() {
+        GUTENDEX.cadastrarLivro("Little Women", "Alcott, Louisa May", 1832, 1888, "en", 40);
+        GUTENDEX.cadastrarLivro("Little Men", "Alcott, Louisa May", 1832, 1888, "en", 30);
+        GUTENDEX.cadastrarLivro("Jo's Boys", "Alcott, Louisa May", 1832, 1888, "en", 20);
+
+        Map<String, ResultadoBuscaLivro> resultados = servicoLivro.buscarESalvarLivrosPorTitulos(
+                List.of("Little Women", "Little Men", "Jo's Boys"));
+
+        assertEquals(1, repositorioAutor.count());
+        assertEquals(3, repositorioLivro.count());
+        Long idAutor = repositorioAutor.findAll().get(0).getId();
+        resultados.values().forEach(resultado -> assertEquals(idAutor, resultado.livro().getAutor().getId()));
+    }
+
+    @Test
+    void falhaNaTransacaoDoLoteSalvaOsLivrosUmAUm() {
+        GUTENDEX.cadastrarLivro("Livro Valido", "Autor do Lote", 1900, 1970, "pt", 10);
+        // Titulo maior que a coluna: a insercao falha e desfaz a transacao do lote inteiro
+        GUTENDEX.cadastrarBusca("Titulo Longo", GUTENDEX.livro("x".repeat(1001), "Autor do Lote", 1900, 1970, "pt", 5));
+
+        Map<String, ResultadoBuscaLivro> resultados = servicoLivro.buscarESalvarLivrosPorTitulos(
+                List.of("Livro Valido", "Titulo Longo"));
+
+        Livro valido = resultados.get("Livro Valido").livro();
+        assertNotNull(valido.getId());
+        assertEquals(valido.getId(), repositorioLivro.findAll().get(0).getId());
+        assertEquals(1, repositorioLivro.count());
+        Autor autor = repositorioAutor.findAll().get(0);
+        assertEquals(1, repositorioAutor.count());
+        assertEquals(autor.getId(), valido.getAutor().getId());
+
+        // O livro que nao coube volta sem id, com o seu proprio autor, e nao e gravado
+        Livro longo = resultados.get("Titulo Longo").livro();
+        assertNull(longo.getId());
+        assertEquals(ResultadoBuscaLivro.Situacao.ENCONTRADO, resultados.get("Titulo Longo").situacao());
+        assertEquals("Autor do Lote", longo.getAutor().getNome());
+
+        // Uma nova busca em lote pelo livro salvo e resolvida pelo banco
+        assertSame(ResultadoBuscaLivro.Situacao.ENCONTRADO,
+                servicoLivro.buscarESalvarLivrosPorTitulos(List.of("livro valido")).get("livro valido").situacao());
+        assertEquals(1, GUTENDEX.buscas("Livro Valido"));
+    }
+}
@@ -0,0 +1,197 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.AutorDownloads;
+import br.com.alura.literalura.LiterAlura.dto.DadosLivroGutendex;
+import br.com.alura.literalura.LiterAlura.dto.EstatisticaIdioma;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.EstatisticasIdiomas;
+import br.com.alura.literalura.LiterAlura.repository.GravadorLoteCatalogo;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Conta, com as estatisticas do Hibernate, quantas consultas as listagens de livros fazem.
+ * Cada livro tem um autor diferente, entao carregar os autores um a um apareceria como N consultas a mais.
+ * Tambem verifica que as consultas em cache nao voltam ao banco e sao invalidadas pelas gravacoes,
+ * e que as estatisticas por idioma acompanham as gravacoes sem consultar o banco.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ServicoLivroConsultasTest {
+
+    private static final int QUANTIDADE_LIVROS = 20;
+
+    @Autowired
+    private ServicoLivro servicoLivro;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @Autowired
+    private ServicoAutor servicoAutor;
+
+    @Autowired
+    private GravadorLoteCatalogo gravadorLoteCatalogo;
+
+    @Autowired
+    private EstatisticasIdiomas estatisticasIdiomas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void salvarLivros() {
+        List<Livro> livros = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE_LIVROS; i++) {
+            Autor autor = new Autor("Autor " + i, 1800 + i, 1870 + i);
+            livros.add(new Livro("Livro " + i, i % 2 == 0 ? autor : null, i % 2 == 0 ? "pt" : "en", i));
+        }
+        livros.add(new Livro("Sem Autor", null, "pt", 0));
+        repositorioLivro.saveAll(livros);
+
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+    }
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+    }
+
+    @Test
+    void listarResumosDeTodosOsLivrosFazUmaConsulta() {
+        List<ResumoLivro> resumos = new ArrayList<>();
+        long total = servicoLivro.percorrerResumosLivros(resumos::add);
+
+        assertEquals(QUANTIDADE_LIVROS + 1, total);
+        assertEquals("Autor 0", resumos.get(0).nomeAutor());
+        assertEquals(1800, resumos.get(0).anoNascimentoAutor());
+        assertNull(resumos.get(1).nomeAutor());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+    }
+
+    @Test
+    void listarResumosPorIdiomaFazUmaConsulta() {
+        List<ResumoLivro> resumos = servicoLivro.obterResumosLivrosPorIdioma("pt");
+
+        assertEquals(QUANTIDADE_LIVROS / 2 + 1, resumos.size());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+    }
+
+    @Test
+    void listarEntidadesTrazOsAutoresNaMesmaConsulta() {
+        List<Livro> livros = servicoLivro.obterLivrosPorIdioma("pt");
+
+        // Os autores ja vem carregados e podem ser lidos fora da transacao
+        long comAutor = livros.stream().filter(livro -> livro.getAutor() != null)
+                .map(livro -> livro.getAutor().getNome())
+                .count();
+        assertEquals(QUANTIDADE_LIVROS / 2, comAutor);
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+
+        estatisticas.clear();
+        assertEquals(QUANTIDADE_LIVROS + 1, servicoLivro.obterTodosLivros().size());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void buscarPorTituloTrazOAutorNaMesmaConsulta() {
+        List<Livro> livros = servicoLivro.buscarLivrosPorTitulo("Livro 4");
+
+        assertEquals(1, livros.size());
+        assertEquals("Autor 4", livros.get(0).getAutor().getNome());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void maisBaixadosVemDeUmaConsultaLimitada() {
+        List<ResumoLivro> livros = servicoLivro.obterLivrosMaisBaixados(3);
+        assertEquals(List.of("Livro 19", "Livro 18", "Livro 17"), livros.stream().map(ResumoLivro::titulo).toList());
+        assertEquals("Autor 18", livros.get(1).nomeAutor());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+
+        estatisticas.clear();
+        assertEquals(List.of("Livro 18", "Livro 16"), servicoLivro.obterLivrosMaisBaixadosPorIdioma("pt", 2).stream()
+                .map(ResumoLivro::titulo).toList());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+
+        estatisticas.clear();
+        assertEquals(List.of(new AutorDownloads("Autor 18", 1L, 18L), new AutorDownloads("Autor 16", 1L, 16L)),
+                servicoAutor.obterAutoresMaisBaixados(2));
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void consultasRepetidasSaoRespondidasPeloCache() {
+        assertEquals(QUANTIDADE_LIVROS / 2 + 1, servicoLivro.obterLivrosPorIdioma("pt").size());
+        assertEquals(QUANTIDADE_LIVROS / 2, servicoLivro.contarLivrosPorIdioma("en"));
+        assertEquals(QUANTIDADE_LIVROS / 2, servicoAutor.obterAutoresVivosNoAno(1850).size());
+        estatisticas.clear();
+
+        List<Livro> livros = servicoLivro.obterLivrosPorIdioma("pt");
+        assertEquals(QUANTIDADE_LIVROS / 2 + 1, livros.size());
+        assertEquals("Autor 0", livros.get(0).getAutor().getNome());
+        assertEquals(QUANTIDADE_LIVROS / 2, servicoLivro.contarLivrosPorIdioma("en"));
+        assertEquals(QUANTIDADE_LIVROS / 2, servicoAutor.obterAutoresVivosNoAno(1850).size());
+        assertEquals(0, estatisticas.getPrepareStatementCount());
+        assertEquals(3, estatisticas.getQueryCacheHitCount());
+    }
+
+    @Test
+    void gravacoesInvalidamAsConsultasEmCache() {
+        assertEquals(QUANTIDADE_LIVROS / 2, servicoLivro.contarLivrosPorIdioma("en"));
+        assertEquals(QUANTIDADE_LIVROS / 2 + 1, servicoLivro.obterLivrosPorIdioma("pt").size());
+
+        repositorioLivro.save(new Livro("Livro Novo", null, "en", 0));
+        assertEquals(QUANTIDADE_LIVROS / 2 + 1, servicoLivro.contarLivrosPorIdioma("en"));
+
+        // Inserts via JDBC nao passam pelo Hibernate
+        gravadorLoteCatalogo.gravar(List.of(
+                new DadosLivroGutendex("Livro Importado", "pt", 0, "Autor Importado", 1900, 1950)));
+        assertEquals(QUANTIDADE_LIVROS / 2 + 2, servicoLivro.obterLivrosPorIdioma("pt").size());
+    }
+
+    @Test
+    void estatisticasPorIdiomaAcompanhamAsGravacoesSemConsultas() {
+        // Os livros de salvarLivros() foram gravados direto pelo repositorio
+        estatisticasIdiomas.reconstruir();
+
+        servicoLivro.salvarSeNaoExistir(new Livro("Livro Frances", new Autor("Autor Frances", 1900, 1950), "fr", 500));
+        gravadorLoteCatalogo.gravar(List.of(
+                new DadosLivroGutendex("Livro Portugues", "pt", 900, "Autor Portugues", 1900, 1950)));
+        estatisticas.clear();
+
+        assertEquals(List.of(
+                        new EstatisticaIdioma("pt", QUANTIDADE_LIVROS / 2 + 2L, 990L, 900),
+                        new EstatisticaIdioma("en", (long) QUANTIDADE_LIVROS / 2, 100L, 19),
+                        new EstatisticaIdioma("fr", 1L, 500L, 500)),
+                servicoLivro.obterEstatisticasDetalhadasPorIdioma());
+        assertEquals(0, estatisticas.getPrepareStatementCount());
+        assertEquals(List.of(), servicoLivro.verificarEstatisticasPorIdioma());
+    }
+}
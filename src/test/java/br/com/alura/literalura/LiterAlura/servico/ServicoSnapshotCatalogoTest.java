@@ -0,0 +1,139 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.dto.IdentificacaoAutor;
+import br.com.alura.literalura.LiterAlura.dto.ResumoLivro;
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exporta o catalogo para um snapshot e compara as consultas feitas no snapshot com as feitas no banco
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ServicoSnapshotCatalogoTest {
+
+    @Autowired
+    private ServicoSnapshotCatalogo servicoSnapshotCatalogo;
+
+    @Autowired
+    private ServicoLivro servicoLivro;
+
+    @Autowired
+    private ServicoAutor servicoAutor;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @BeforeEach
+    void salvarLivros() {
+        List<Livro> livros = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Integer anoFalecimento = i % 4 == 0 ? null : 1850 + 10 * i;
+            Autor autor = i % 3 == 0 ? null : new Autor("Autor Snapshot " + i, 1800 + 10 * i, anoFalecimento);
+            livros.add(new Livro("Livro Snapshot " + i % 5, autor, i % 2 == 0 ? "pt" : "en", 100 * (i % 7)));
+        }
+        livros.add(new Livro("Livro Snapshot Sem Downloads", null, "fr", null));
+        livros.add(new Livro("Livro Snapshot Sem Idioma", null, null, 5));
+        livros.add(new Livro("Título com acentuação", null, "pt", 1));
+        repositorioLivro.saveAll(livros);
+    }
+
+    @AfterEach
+    void apagarLivros() {
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+    }
+
+    @Test
+    void consultasNoSnapshotRespondemComoOBanco(@TempDir Path diretorio) {
+        Path arquivo = servicoSnapshotCatalogo.exportar(diretorio.resolve("catalogo.snap"));
+        SnapshotCatalogo snapshot = SnapshotCatalogo.abrir(arquivo);
+
+        List<ResumoLivro> livrosBanco = new ArrayList<>();
+        servicoLivro.percorrerResumosLivros(livrosBanco::add);
+        List<ResumoLivro> livrosSnapshot = new ArrayList<>();
+        snapshot.percorrerLivros(livrosSnapshot::add);
+        assertEquals(livrosBanco, livrosSnapshot);
+        assertEquals(repositorioAutor.count(), snapshot.quantidadeAutores());
+
+        for (String titulo : List.of("Livro Snapshot 1", "Título com acentuação", "Livro Inexistente")) {
+            assertEquals(servicoLivro.obterResumosLivrosPorTitulo(titulo), snapshot.buscarLivrosPorTitulo(titulo));
+        }
+        assertEquals(3, snapshot.buscarLivrosPorTitulo("Livro Snapshot 1").size());
+        for (String idioma : List.of("pt", "en", "fr", "de")) {
+            assertEquals(servicoLivro.obterResumosLivrosPorIdioma(idioma), snapshot.buscarLivrosPorIdioma(idioma));
+            assertEquals(servicoLivro.obterLivrosMaisBaixadosPorIdioma(idioma, 3),
+                    snapshot.buscarLivrosMaisBaixadosPorIdioma(idioma, 3));
+        }
+        assertEquals(servicoLivro.obterLivrosMaisBaixados(5), snapshot.buscarLivrosMaisBaixados(5));
+        List<ResumoLivro> livrosPt = servicoLivro.obterResumosLivrosPorIdioma("pt");
+        for (long aposId : List.of(0L, livrosPt.get(2).id(), livrosPt.get(livrosPt.size() - 1).id())) {
+            assertEquals(servicoLivro.obterResumosLivrosPorIdioma("pt", aposId, 3),
+                    snapshot.buscarLivrosPorIdioma("pt", aposId, 3));
+        }
+        assertEquals(servicoAutor.obterAutoresMaisBaixados(4), snapshot.buscarAutoresMaisBaixados(4));
+        assertEquals(servicoAutor.obterAutoresMaisBaixados(100), snapshot.buscarAutoresMaisBaixados(100));
+        assertEquals(repositorioLivro.agregarEstatisticasPorIdioma(), snapshot.obterEstatisticasPorIdioma());
+        for (int ano : List.of(1800, 1845, 1900, 1950)) {
+            // A consulta no banco nao ordena; o snapshot devolve em ordem de id
+            assertEquals(servicoAutor.obterAutoresVivosNoAno(ano).stream().map(IdentificacaoAutor::de)
+                    .sorted(Comparator.comparing(IdentificacaoAutor::id)).toList(), snapshot.buscarAutoresVivosNoAno(ano));
+        }
+    }
+
+    @Test
+    void arquivoQueNaoESnapshotERecusado(@TempDir Path diretorio) throws Exception {
+        Path arquivo = Files.writeString(diretorio.resolve("texto.snap"), "nao e um snapshot do catalogo");
+
+        assertThrows(IllegalArgumentException.class, () -> SnapshotCatalogo.abrir(arquivo));
+        assertTrue(Files.exists(servicoSnapshotCatalogo.exportar(diretorio.resolve("subdiretorio/catalogo.snap"))));
+    }
+
+    @Test
+    void escritorFechadoSemConcluirNaoGravaODestino(@TempDir Path diretorio) throws Exception {
+        Path destino = diretorio.resolve("incompleto.snap");
+
+        try (SnapshotCatalogo.Escritor escritor = SnapshotCatalogo.escritor(destino)) {
+            escritor.adicionarAutor(new IdentificacaoAutor(1L, "Autor", 1800, 1850));
+            assertThrows(IllegalStateException.class, () -> escritor.adicionarLivro(1L, "Livro", "pt", 1, 2L));
+        }
+
+        assertFalse(Files.exists(destino));
+    }
+
+    @Test
+    void exportacaoQueFalhaApagaOArquivoTemporario(@TempDir Path diretorio) throws Exception {
+        // Um diretorio nao vazio no destino faz a troca atomica falhar depois que o snapshot foi gravado
+        Path destino = Files.createDirectory(diretorio.resolve("catalogo.snap"));
+        Files.writeString(destino.resolve("ocupado"), "");
+
+        assertThrows(UncheckedIOException.class, () -> servicoSnapshotCatalogo.exportar(destino));
+
+        assertFalse(Files.exists(diretorio.resolve("catalogo.snap.tmp")));
+        assertTrue(Files.isDirectory(destino));
+    }
+}
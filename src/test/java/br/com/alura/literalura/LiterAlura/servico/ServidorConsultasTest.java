@@ -0,0 +1,259 @@
+package br.com.alura.literalura.LiterAlura.servico;
+
+import br.com.alura.literalura.LiterAlura.modelo.Autor;
+import br.com.alura.literalura.LiterAlura.modelo.Livro;
+import br.com.alura.literalura.LiterAlura.repository.EstatisticasIdiomas;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioAutor;
+import br.com.alura.literalura.LiterAlura.repository.RepositorioLivro;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Consulta o catalogo pelo servidor HTTP: respostas em JSON, GET condicional com ETag, erros do cliente
+ * e inicializacao automatica depois das estruturas em memoria
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ServidorConsultasTest {
+
+    private final HttpClient clienteHttp = HttpClient.newHttpClient();
+
+    @Autowired
+    private ServidorConsultas servidorConsultas;
+
+    @Autowired
+    private RepositorioLivro repositorioLivro;
+
+    @Autowired
+    private RepositorioAutor repositorioAutor;
+
+    @Autowired
+    private EstatisticasIdiomas estatisticasIdiomas;
+
+    @Autowired
+    private ObjectMapper mapeadorObjeto;
+
+    @Autowired
+    private ServicoLivro servicoLivro;
+
+    @Autowired
+    private ServicoAutor servicoAutor;
+
+    @Autowired
+    private MeterRegistry registroMetricas;
+
+    @Autowired
+    private PlatformTransactionManager gerenciadorTransacao;
+
+    @Autowired
+    private IndiceBuscaTitulos indiceBuscaTitulos;
+
+    @Autowired
+    private ServicoSnapshotCatalogo servicoSnapshotCatalogo;
+
+    private String origem;
+
+    @BeforeEach
+    void iniciar() {
+        Autor autor = new Autor("Autor Servidor", 1850, 1920);
+        repositorioLivro.saveAll(List.of(
+                new Livro("Livro Servidor Um", autor, "pt", 30),
+                new Livro("Livro Servidor Dois", null, "pt", 20),
+                new Livro("Livro Servidor Tres", null, "en", 10)));
+        estatisticasIdiomas.reconstruir();
+        origem = "http://localhost:" + servidorConsultas.iniciar(0);
+    }
+
+    @AfterEach
+    void encerrar() {
+        servidorConsultas.parar();
+        repositorioLivro.deleteAllInBatch();
+        repositorioAutor.deleteAllInBatch();
+        estatisticasIdiomas.reconstruir();
+    }
+
+    @Test
+    void consultasRespondemComAsProjecoesEmJson() throws Exception {
+        JsonNode livros = lerJson(get("/livros?idioma=pt"));
+        assertEquals(2, livros.size());
+        assertEquals("Autor Servidor", livros.get(0).get("nomeAutor").asText());
+
+        JsonNode estatisticas = lerJson(get("/estatisticas/idiomas"));
+        assertEquals("pt", estatisticas.get(0).get("idioma").asText());
+        assertEquals(2, estatisticas.get(0).get("quantidade").asInt());
+        assertEquals(50, estatisticas.get(0).get("totalDownloads").asInt());
+
+        JsonNode vivos = lerJson(get("/autores/vivos?ano=1900"));
+        assertEquals(1, vivos.size());
+        assertEquals("Autor Servidor", vivos.get(0).get("nome").asText());
+
+        JsonNode maisBaixados = lerJson(get("/livros/mais-baixados?limite=2"));
+        assertEquals("Livro Servidor Um", maisBaixados.get(0).get("titulo").asText());
+        assertEquals(2, maisBaixados.size());
+    }
+
+    @Test
+    void livrosPorIdiomaVemEmPaginasLimitadas() throws Exception {
+        repositorioLivro.saveAll(IntStream.rangeClosed(1, 12)
+                .mapToObj(i -> new Livro("Livro Paginado " + i, null, "de", i)).toList());
+
+        JsonNode primeira = lerJson(get("/livros?idioma=de"));
+        assertEquals(10, primeira.size());
+        assertEquals("Livro Paginado 1", primeira.get(0).get("titulo").asText());
+
+        JsonNode segunda = lerJson(get("/livros?idioma=de&limite=5&aposId=" + primeira.get(4).get("id").asLong()));
+        assertEquals(5, segunda.size());
+        assertEquals("Livro Paginado 6", segunda.get(0).get("titulo").asText());
+
+        JsonNode ultima = lerJson(get("/livros?idioma=de&limite=5&aposId=" + segunda.get(4).get("id").asLong()));
+        assertEquals(List.of("Livro Paginado 11", "Livro Paginado 12"),
+                List.of(ultima.get(0).get("titulo").asText(), ultima.get(1).get("titulo").asText()));
+        assertEquals(2, ultima.size());
+
+        assertEquals(400, get("/livros?idioma=de&limite=1001").statusCode());
+        assertEquals(400, get("/livros?idioma=de&aposId=-1").statusCode());
+        assertEquals(400, get("/livros?idioma=de&aposId=abc").statusCode());
+    }
+
+    @Test
+    void getCondicionalComEtagAtualRecebe304() throws Exception {
+        HttpResponse<String> primeira = get("/livros?titulo=Livro%20Servidor%20Tres");
+        String etag = primeira.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> condicional = clienteHttp.send(HttpRequest.newBuilder(URI.create(
+                        origem + "/livros?titulo=Livro%20Servidor%20Tres")).header("If-None-Match", etag).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, condicional.statusCode());
+        assertTrue(condicional.body().isEmpty());
+
+        repositorioLivro.save(new Livro("Livro Servidor Tres", null, "fr", 5));
+        HttpResponse<String> alterada = clienteHttp.send(HttpRequest.newBuilder(URI.create(
+                        origem + "/livros?titulo=Livro%20Servidor%20Tres")).header("If-None-Match", etag).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, alterada.statusCode());
+        assertEquals(2, mapeadorObjeto.readTree(alterada.body()).size());
+    }
+
+    @Test
+    void inicializacaoAutomaticaEsperaAsEstruturasEmMemoria() throws Exception {
+        int porta;
+        try (ServerSocket livre = new ServerSocket(0)) {
+            porta = livre.getLocalPort();
+        }
+        EstatisticasIdiomas estatisticasNaoMontadas = new EstatisticasIdiomas(repositorioLivro, false);
+        IndiceBuscaTitulos indiceNaoMontado = new IndiceBuscaTitulos(repositorioLivro, gerenciadorTransacao, true);
+        ServidorConsultas servidor = new ServidorConsultas(mapeadorObjeto, servicoLivro, servicoAutor,
+                registroMetricas, estatisticasNaoMontadas, indiceNaoMontado, servicoSnapshotCatalogo, "localhost",
+                porta, 4);
+        URI estatisticas = URI.create("http://localhost:" + porta + "/estatisticas/idiomas");
+        try {
+            servidor.iniciarSeConfigurado();
+            assertThrows(ConnectException.class, () -> clienteHttp.send(HttpRequest.newBuilder(estatisticas).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+
+            indiceNaoMontado.reconstruir();
+            assertThrows(ConnectException.class, () -> clienteHttp.send(HttpRequest.newBuilder(estatisticas).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+
+            estatisticasNaoMontadas.aoIniciar();
+            JsonNode resposta = lerJson(clienteHttp.send(HttpRequest.newBuilder(estatisticas).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+            assertEquals("pt", resposta.get(0).get("idioma").asText());
+        } finally {
+            servidor.parar();
+        }
+    }
+
+    @Test
+    void modoSomenteLeituraRespondePeloSnapshot(@TempDir Path diretorio) throws Exception {
+        Path arquivo = diretorio.resolve("catalogo.snap");
+        ServicoSnapshotCatalogo snapshotSomenteLeitura = new ServicoSnapshotCatalogo(repositorioLivro,
+                repositorioAutor, arquivo.toString(), true);
+        TransactionTemplate transacao = new TransactionTemplate(gerenciadorTransacao);
+        ServidorConsultas servidor = new ServidorConsultas(mapeadorObjeto, servicoLivro, servicoAutor,
+                registroMetricas, estatisticasIdiomas, indiceBuscaTitulos, snapshotSomenteLeitura, "localhost", 0, 4);
+        String origemSnapshot = "http://localhost:" + servidor.iniciar(0);
+        List<String> caminhos = List.of("/livros?titulo=Livro%20Servidor%20Um", "/livros?idioma=pt&limite=1",
+                "/livros/mais-baixados?limite=2", "/livros/mais-baixados?idioma=en", "/autores/vivos?ano=1900",
+                "/autores/mais-baixados", "/estatisticas/idiomas");
+        try {
+            // Sem o arquivo, responde pelo banco
+            assertEquals(get("/livros?idioma=pt").body(), get(origemSnapshot, "/livros?idioma=pt").body());
+
+            transacao.execute(status -> snapshotSomenteLeitura.exportar());
+            List<String> respostasBanco = new ArrayList<>();
+            for (String caminho : caminhos) {
+                respostasBanco.add(lerJson(get(caminho)).toString());
+            }
+            repositorioLivro.deleteAllInBatch();
+            repositorioAutor.deleteAllInBatch();
+            estatisticasIdiomas.reconstruir();
+
+            // Com o banco vazio, as respostas continuam vindo do snapshot, iguais as do banco antes
+            for (int i = 0; i < caminhos.size(); i++) {
+                assertEquals(respostasBanco.get(i), lerJson(get(origemSnapshot, caminhos.get(i))).toString(),
+                        caminhos.get(i));
+            }
+
+            // Uma nova exportacao para o mesmo arquivo passa a ser usada
+            transacao.execute(status -> snapshotSomenteLeitura.exportar());
+            assertEquals(0, lerJson(get(origemSnapshot, "/livros?idioma=pt")).size());
+        } finally {
+            servidor.parar();
+        }
+    }
+
+    @Test
+    void requisicoesInvalidasRecebemErrosDoCliente() throws Exception {
+        assertEquals(400, get("/autores/vivos?ano=abc").statusCode());
+        assertEquals(400, get("/livros").statusCode());
+        assertEquals(400, get("/livros/mais-baixados?limite=0").statusCode());
+        assertEquals(404, get("/editoras").statusCode());
+
+        HttpResponse<String> post = clienteHttp.send(HttpRequest.newBuilder(URI.create(origem + "/livros"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+        assertEquals("GET, HEAD", post.headers().firstValue("Allow").orElseThrow());
+    }
+
+    private HttpResponse<String> get(String caminho) throws IOException, InterruptedException {
+        return get(origem, caminho);
+    }
+
+    private HttpResponse<String> get(String origemServidor, String caminho) throws IOException, InterruptedException {
+        return clienteHttp.send(HttpRequest.newBuilder(URI.create(origemServidor + caminho)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode lerJson(HttpResponse<String> resposta) throws IOException {
+        assertEquals(200, resposta.statusCode());
+        assertEquals("application/json; charset=utf-8", resposta.headers().firstValue("Content-Type").orElseThrow());
+        return mapeadorObjeto.readTree(resposta.body());
+    }
+}